@@ -0,0 +1,53 @@
+package nz.etu.voting.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//管理后台只读查询缓存 - 每个缓存都有大小和TTL上限，数据变更后由EventDataChangedEvent失效
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String FILTER_OPTIONS = "filterOptions";
+    public static final String EVENT_FORUMS = "eventForums";
+    public static final String VENUE_LISTS = "venueLists";
+    public static final String EVENT_OVERVIEWS = "eventOverviews";
+    public static final String QR_CODES = "qrCodes";
+
+    @Value("${cache.spec.filter-options:maximumSize=200,expireAfterWrite=30m}")
+    private String filterOptionsSpec;
+
+    @Value("${cache.spec.event-forums:maximumSize=200,expireAfterWrite=30m}")
+    private String eventForumsSpec;
+
+    @Value("${cache.spec.venue-lists:maximumSize=20,expireAfterWrite=60m}")
+    private String venueListsSpec;
+
+    @Value("${cache.spec.event-overviews:maximumSize=20,expireAfterWrite=5m}")
+    private String eventOverviewsSpec;
+
+    //    PNG约1-2KB，按内容哈希缓存，不随数据变更失效
+    @Value("${cache.spec.qr-codes:maximumSize=5000,expireAfterAccess=6h}")
+    private String qrCodesSpec;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(FILTER_OPTIONS, build(filterOptionsSpec));
+        cacheManager.registerCustomCache(EVENT_FORUMS, build(eventForumsSpec));
+        cacheManager.registerCustomCache(VENUE_LISTS, build(venueListsSpec));
+        cacheManager.registerCustomCache(EVENT_OVERVIEWS, build(eventOverviewsSpec));
+        cacheManager.registerCustomCache(QR_CODES, build(qrCodesSpec));
+        return cacheManager;
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> build(String spec) {
+        return Caffeine.from(spec).recordStats().build();
+    }
+}
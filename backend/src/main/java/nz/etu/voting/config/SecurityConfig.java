@@ -1,5 +1,6 @@
 package nz.etu.voting.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -37,6 +38,9 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // 异步响应（流式导出、SSE）的再次分派已在首次请求时授权
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // ===== 公开访问端点 =====
                         .requestMatchers("/public/**").permitAll()
                         .requestMatchers("/api/registration/**").permitAll()
@@ -2,28 +2,41 @@ package nz.etu.voting.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventMemberRow;
+import nz.etu.voting.domain.dto.EventMemberSummaryRow;
+import nz.etu.voting.domain.dto.NotificationTimelineBucket;
 import nz.etu.voting.domain.dto.response.ApiResponse;
 import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.domain.entity.EventCounter;
 import nz.etu.voting.domain.entity.EventMember;
 import nz.etu.voting.domain.entity.Member;
 import nz.etu.voting.domain.entity.NotificationLog;
+import nz.etu.voting.exception.ResourceNotFoundException;
 import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.repository.EventMemberSpecifications;
 import nz.etu.voting.repository.MemberRepository;
 import nz.etu.voting.repository.NotificationLogRepository;
+import nz.etu.voting.service.AdminQueryCacheService;
+import nz.etu.voting.service.EventCounterService;
+import nz.etu.voting.service.LiveStatsStreamService;
 import nz.etu.voting.service.TicketEmailService;
+import nz.etu.voting.util.KeysetCursor;
 
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -32,6 +45,7 @@ import java.time.LocalDateTime;
 import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -52,6 +66,9 @@ public class AdminBmmController {
     private final MemberRepository memberRepository;
     private final NotificationLogRepository notificationLogRepository;
     private final TicketEmailService ticketEmailService;
+    private final EventCounterService eventCounterService;
+    private final AdminQueryCacheService adminQueryCacheService;
+    private final LiveStatsStreamService liveStatsStreamService;
     private final RabbitTemplate rabbitTemplate;
 
     private final ObjectMapper objectMapper;
@@ -212,7 +229,8 @@ public class AdminBmmController {
             @PathVariable String region,
             @RequestParam(required = false) String status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size) {
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String cursor) {
 
         log.info("Fetching members for region: {}, status: {}", region, status);
 
@@ -227,66 +245,19 @@ public class AdminBmmController {
                 return ResponseEntity.badRequest().body(ApiResponse.error("No BMM events found"));
             }
 
-            List<EventMember> allMembers = eventMemberRepository.findByEvent(currentBmmEvent);
-
             // Map display region to database value
             final String dbRegionValue = region.contains(" Region") ?
                     region.replace(" Region", "") : region;
 
-            // Filter by region
-            List<EventMember> regionMembers = allMembers.stream()
-                    .filter(m -> dbRegionValue.equals(m.getRegionDesc()))
-                    .collect(Collectors.toList());
-
-            // Filter by status if provided
-            if (status != null && !status.isEmpty()) {
-                switch (status) {
-                    case "registered":
-                        regionMembers = regionMembers.stream()
-                                .filter(m -> m.getHasRegistered() != null && m.getHasRegistered())
-                                .collect(Collectors.toList());
-                        break;
-                    case "not_registered":
-                        regionMembers = regionMembers.stream()
-                                .filter(m -> m.getHasRegistered() == null || !m.getHasRegistered())
-                                .collect(Collectors.toList());
-                        break;
-                    case "attending":
-                        regionMembers = regionMembers.stream()
-                                .filter(m -> m.getIsAttending() != null && m.getIsAttending())
-                                .collect(Collectors.toList());
-                        break;
-                    case "not_attending":
-                        regionMembers = regionMembers.stream()
-                                .filter(m -> m.getIsAttending() != null && !m.getIsAttending())
-                                .collect(Collectors.toList());
-                        break;
-                    case "special_vote":
-                        regionMembers = regionMembers.stream()
-                                .filter(m -> m.getIsSpecialVote() != null && m.getIsSpecialVote())
-                                .collect(Collectors.toList());
-                        break;
-                    case "sms_only":
-                        regionMembers = regionMembers.stream()
-                                .filter(m -> (m.getPrimaryEmail() == null ||
-                                        m.getPrimaryEmail().trim().isEmpty() ||
-                                        m.getPrimaryEmail().contains("@temp-email.etu.nz")) &&
-                                        m.getTelephoneMobile() != null &&
-                                        !m.getTelephoneMobile().trim().isEmpty())
-                                .collect(Collectors.toList());
-                        break;
-                }
-            }
-
-            // Sort by name
-            regionMembers.sort(Comparator.comparing(EventMember::getName));
+            Specification<EventMember> spec = EventMemberSpecifications.inEvent(currentBmmEvent.getId())
+                    .and(EventMemberSpecifications.attributeEquals("regionDesc", dbRegionValue))
+                    .and(regionMemberStatus(status));
 
-            // Pagination
-            int totalElements = regionMembers.size();
-            int startIndex = page * size;
-            int endIndex = Math.min(startIndex + size, totalElements);
-
-            List<EventMember> pagedMembers = regionMembers.subList(startIndex, endIndex);
+            // Sort by name, id as tie-breaker so the cursor is unique
+            MemberPage<EventMemberSummaryRow> memberPage = pageMembers(spec, Sort.by("name", "id"), cursor, page, size,
+                    this::loadSummaryRows);
+            List<EventMemberSummaryRow> pagedMembers = memberPage.members();
+            long totalElements = memberPage.totalElements();
 
             // Convert to response format
             List<Map<String, Object>> memberList = pagedMembers.stream()
@@ -301,6 +272,8 @@ public class AdminBmmController {
             response.put("size", size);
             response.put("region", region);
             response.put("status", status);
+            response.put("nextCursor", memberPage.nextCursor());
+            response.put("hasMore", memberPage.nextCursor() != null);
 
             return ResponseEntity.ok(ApiResponse.success("Region members retrieved", response));
 
@@ -310,6 +283,54 @@ public class AdminBmmController {
         }
     }
 
+    private Specification<EventMember> regionMemberStatus(String status) {
+        if (status == null || status.isEmpty()) {
+            return null;
+        }
+        return switch (status) {
+            case "registered" -> EventMemberSpecifications.flagEquals("hasRegistered", true);
+            case "not_registered" -> EventMemberSpecifications.notRegistered();
+            case "attending" -> EventMemberSpecifications.flagEquals("isAttending", true);
+            case "not_attending" -> EventMemberSpecifications.flagEquals("isAttending", false);
+            case "special_vote" -> EventMemberSpecifications.isSpecialVote();
+            case "sms_only" -> EventMemberSpecifications.noValidEmail().and(EventMemberSpecifications.hasMobileNumber());
+            default -> null;
+        };
+    }
+
+    private record MemberPage<T>(List<T> members, long totalElements, String nextCursor) {
+    }
+
+    // Keyset pagination over ids: with a cursor the page is an index seek past the previous page's last (sort key, id);
+    // without one the page number is still honoured (offset) so existing callers keep working.
+    // Only the page's ids are selected by the filter; loader then fetches those rows, in id-list order.
+    private <T> MemberPage<T> pageMembers(Specification<EventMember> spec, Sort sort, String cursor, int page, int size,
+                                          Function<List<Long>, List<T>> loader) {
+        List<Long> ids;
+        long totalElements;
+        boolean hasMore;
+        if (cursor != null && !cursor.isBlank()) {
+            ids = eventMemberRepository.findIds(spec.and(EventMemberSpecifications.after(KeysetCursor.decode(cursor), sort)),
+                    sort, size + 1);
+            totalElements = eventMemberRepository.count(spec);
+            hasMore = ids.size() > size;
+            ids = hasMore ? ids.subList(0, size) : ids;
+        } else {
+            Page<Long> idPage = eventMemberRepository.findIdPage(spec, PageRequest.of(page, size, sort));
+            ids = idPage.getContent();
+            totalElements = idPage.getTotalElements();
+            hasMore = idPage.hasNext();
+        }
+
+        List<T> members = ids.isEmpty() ? List.of() : loader.apply(ids);
+        String nextCursor = hasMore && !members.isEmpty() ? KeysetCursor.after(members.get(members.size() - 1), sort) : null;
+        return new MemberPage<>(members, totalElements, nextCursor);
+    }
+
+    private List<EventMemberSummaryRow> loadSummaryRows(List<Long> ids) {
+        return EventMemberRow.inIdOrder(ids, eventMemberRepository.findSummaryRowsByIds(ids));
+    }
+
     // Get member's BMM preferences
     @GetMapping("/member/{membershipNumber}/preferences")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getMemberBmmPreferences(
@@ -328,7 +349,7 @@ public class AdminBmmController {
                 return ResponseEntity.badRequest().body(ApiResponse.error("Member not found"));
             }
 
-            Map<String, Object> memberData = convertMemberToMap(eventMember);
+            Map<String, Object> memberData = convertMemberToMap(EventMemberSummaryRow.of(eventMember));
 
             // Parse BMM preferences
             Map<String, Object> preferences = new HashMap<>();
@@ -432,7 +453,8 @@ public class AdminBmmController {
             @RequestParam(required = false) String subIndustry,
             @RequestParam(required = false) String emailSent,
             @RequestParam(required = false) String smsSent,
-            @RequestParam(required = false) String search
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor
     ) {
         try {
             // Get BMM event
@@ -446,21 +468,23 @@ public class AdminBmmController {
             Pageable pageable = PageRequest.of(page, size);
 
             // Build dynamic query based on filters
-            Page<EventMember> eventMembersPage = getFilteredEventMembers(
+            MemberPage<EventMemberSummaryRow> eventMembersPage = getFilteredEventMembers(
                     bmmEvent.getId(), region, status, contactMethod, venue, timePreference,
-                    workplace, industry, subIndustry, emailSent, smsSent, search, pageable
+                    workplace, industry, subIndustry, emailSent, smsSent, search, cursor, pageable
             );
 
-            List<Map<String, Object>> membersData = eventMembersPage.getContent().stream()
+            List<Map<String, Object>> membersData = eventMembersPage.members().stream()
                     .map(this::convertMemberToMap)
                     .collect(Collectors.toList());
 
             Map<String, Object> result = new HashMap<>();
             result.put("members", membersData);
-            result.put("totalPages", eventMembersPage.getTotalPages());
-            result.put("totalElements", eventMembersPage.getTotalElements());
+            result.put("totalPages", (int) Math.ceil((double) eventMembersPage.totalElements() / size));
+            result.put("totalElements", eventMembersPage.totalElements());
             result.put("currentPage", page);
             result.put("pageSize", size);
+            result.put("nextCursor", eventMembersPage.nextCursor());
+            result.put("hasMore", eventMembersPage.nextCursor() != null);
 
             return ResponseEntity.ok(ApiResponse.success(result));
         } catch (Exception e) {
@@ -469,14 +493,15 @@ public class AdminBmmController {
         }
     }
 
-    private Page<EventMember> getFilteredEventMembers(
+    private MemberPage<EventMemberSummaryRow> getFilteredEventMembers(
             Long eventId, String region, String status, String contactMethod,
             String venue, String timePreference, String workplace,
             String industry, String subIndustry,
-            String emailSent, String smsSent, String search, Pageable pageable) {
+            String emailSent, String smsSent, String search, String cursor, Pageable pageable) {
 
         // Build JPQL query dynamically based on provided filters
-        StringBuilder jpql = new StringBuilder("SELECT em FROM EventMember em WHERE em.event.id = :eventId");
+        // Filters only; the row projection and the count share it
+        StringBuilder jpql = new StringBuilder("WHERE em.event.id = :eventId");
         List<String> conditions = new ArrayList<>();
         Map<String, Object> parameters = new HashMap<>();
         parameters.put("eventId", eventId);
@@ -596,61 +621,74 @@ public class AdminBmmController {
             jpql.append(" AND ").append(String.join(" AND ", conditions));
         }
 
-        jpql.append(" ORDER BY em.name ASC");
-
-        // Execute the query using EntityManager
-        jakarta.persistence.Query query = entityManager.createQuery(jpql.toString());
+        // Get total count for pagination (before the cursor condition narrows the rows)
+        jakarta.persistence.Query countQuery = entityManager.createQuery("SELECT COUNT(em) FROM EventMember em " + jpql);
         for (Map.Entry<String, Object> param : parameters.entrySet()) {
-            query.setParameter(param.getKey(), param.getValue());
+            countQuery.setParameter(param.getKey(), param.getValue());
         }
+        Long totalCount = (Long) countQuery.getSingleResult();
 
-        // Handle pagination
-        query.setFirstResult(pageable.getPageNumber() * pageable.getPageSize());
-        query.setMaxResults(pageable.getPageSize());
+        // Keyset: continue after the previous page's last (name, id) instead of skipping rows
+        boolean seek = cursor != null && !cursor.isBlank();
+        if (seek) {
+            Map<String, Object> after = KeysetCursor.decode(cursor).getKeys();
+            jpql.append(" AND (em.name > :afterName OR (em.name = :afterName AND em.id > :afterId))");
+            parameters.put("afterName", after.get("name"));
+            parameters.put("afterId", after.get("id"));
+        }
 
-        List<EventMember> members = query.getResultList();
+        jpql.append(" ORDER BY em.name ASC, em.id ASC");
 
-        // Get total count for pagination
-        String countJpql = jpql.toString().replaceFirst("SELECT em", "SELECT COUNT(em)").replaceAll("ORDER BY.*", "");
-        jakarta.persistence.Query countQuery = entityManager.createQuery(countJpql);
+        // Execute the query using EntityManager, selecting only the listing's columns
+        TypedQuery<EventMemberSummaryRow> query = entityManager.createQuery(EventMemberSummaryRow.SELECT + jpql, EventMemberSummaryRow.class);
         for (Map.Entry<String, Object> param : parameters.entrySet()) {
-            countQuery.setParameter(param.getKey(), param.getValue());
+            query.setParameter(param.getKey(), param.getValue());
         }
-        Long totalCount = (Long) countQuery.getSingleResult();
 
-        return new PageImpl<>(members, pageable, totalCount);
+        // Handle pagination, fetching one extra row to know whether another page follows
+        query.setFirstResult(seek ? 0 : pageable.getPageNumber() * pageable.getPageSize());
+        query.setMaxResults(pageable.getPageSize() + 1);
+
+        List<EventMemberSummaryRow> members = query.getResultList();
+        String nextCursor = null;
+        if (members.size() > pageable.getPageSize()) {
+            members = members.subList(0, pageable.getPageSize());
+            nextCursor = KeysetCursor.after(members.get(members.size() - 1), Sort.by("name", "id"));
+        }
+
+        return new MemberPage<>(members, totalCount, nextCursor);
     }
 
-    private Map<String, Object> convertMemberToMap(EventMember member) {
+    private Map<String, Object> convertMemberToMap(EventMemberSummaryRow member) {
         Map<String, Object> memberMap = new HashMap<>();
 
-        memberMap.put("id", member.getId());
-        memberMap.put("membershipNumber", member.getMembershipNumber());
-        memberMap.put("name", member.getName());
-        memberMap.put("primaryEmail", member.getPrimaryEmail());
-        memberMap.put("telephoneMobile", member.getTelephoneMobile());
-        memberMap.put("regionDesc", member.getRegionDesc());
-        memberMap.put("workplace", member.getWorkplace());
-        memberMap.put("employer", member.getEmployer());
-        memberMap.put("hasRegistered", member.getHasRegistered());
-        memberMap.put("isAttending", member.getIsAttending());
-        memberMap.put("isSpecialVote", member.getIsSpecialVote());
-        memberMap.put("absenceReason", member.getAbsenceReason());
-        memberMap.put("emailSent", member.getEmailSent());
-        memberMap.put("smsSent", member.getSmsSent());
-        memberMap.put("hasEmail", member.getHasEmail());
-        memberMap.put("hasMobile", member.getHasMobile());
-        memberMap.put("checkedIn", member.getCheckedIn());
-        memberMap.put("checkInTime", member.getCheckInTime());
-        memberMap.put("formSubmissionTime", member.getFormSubmissionTime());
-        memberMap.put("createdAt", member.getCreatedAt());
+        memberMap.put("id", member.id());
+        memberMap.put("membershipNumber", member.membershipNumber());
+        memberMap.put("name", member.name());
+        memberMap.put("primaryEmail", member.primaryEmail());
+        memberMap.put("telephoneMobile", member.telephoneMobile());
+        memberMap.put("regionDesc", member.regionDesc());
+        memberMap.put("workplace", member.workplace());
+        memberMap.put("employer", member.employer());
+        memberMap.put("hasRegistered", member.hasRegistered());
+        memberMap.put("isAttending", member.isAttending());
+        memberMap.put("isSpecialVote", member.isSpecialVote());
+        memberMap.put("absenceReason", member.absenceReason());
+        memberMap.put("emailSent", member.emailSent());
+        memberMap.put("smsSent", member.smsSent());
+        memberMap.put("hasEmail", member.hasEmail());
+        memberMap.put("hasMobile", member.hasMobile());
+        memberMap.put("checkedIn", member.checkedIn());
+        memberMap.put("checkInTime", member.checkInTime());
+        memberMap.put("formSubmissionTime", member.formSubmissionTime());
+        memberMap.put("createdAt", member.createdAt());
 
         // Contact status
-        boolean hasValidEmail = member.getPrimaryEmail() != null &&
-                !member.getPrimaryEmail().trim().isEmpty() &&
-                !member.getPrimaryEmail().contains("@temp-email.etu.nz");
-        boolean hasValidMobile = member.getTelephoneMobile() != null &&
-                !member.getTelephoneMobile().trim().isEmpty();
+        boolean hasValidEmail = member.primaryEmail() != null &&
+                !member.primaryEmail().trim().isEmpty() &&
+                !member.primaryEmail().contains("@temp-email.etu.nz");
+        boolean hasValidMobile = member.telephoneMobile() != null &&
+                !member.telephoneMobile().trim().isEmpty();
 
         memberMap.put("hasValidEmail", hasValidEmail);
         memberMap.put("hasValidMobile", hasValidMobile);
@@ -678,90 +716,45 @@ public class AdminBmmController {
             LocalDateTime endTime = LocalDateTime.now();
             LocalDateTime startTime = endTime.minusDays(days);
 
-            // Get all BMM-related notification logs
-            List<NotificationLog> allLogs = notificationLogRepository.findBySentTimeBetween(startTime, endTime);
-            List<NotificationLog> bmmLogs = allLogs.stream()
-                    .filter(log -> log.getEventMember() != null &&
-                            log.getEventMember().getEvent().getId().equals(bmmEvent.getId()))
-                    .collect(Collectors.toList());
+            // Aggregate BMM notification logs by day/stage/region/type/success in the database
+            List<NotificationTimelineBucket> buckets = notificationLogRepository.aggregateTimeline(
+                    bmmEvent.getId(), startTime, endTime, region != null && !region.isEmpty() ? region : null);
 
-            // Filter by region if specified
-            if (region != null && !region.isEmpty()) {
-                bmmLogs = bmmLogs.stream()
-                        .filter(log -> region.equals(log.getEventMember().getRegion()))
-                        .collect(Collectors.toList());
-            }
-
-            // Group by stage and date
-            Map<String, List<NotificationLog>> logsByStage = new HashMap<>();
-            logsByStage.put("pre_registration", new ArrayList<>());
-            logsByStage.put("confirmation", new ArrayList<>());
-            logsByStage.put("special_vote", new ArrayList<>());
-            logsByStage.put("other", new ArrayList<>());
-
-            for (NotificationLog log : bmmLogs) {
-                String emailType = log.getEmailType() != null ? log.getEmailType().toLowerCase() : "";
-                String templateCode = log.getTemplateCode() != null ? log.getTemplateCode().toLowerCase() : "";
-
-                if (emailType.contains("pre_registration") || templateCode.contains("pre_registration")) {
-                    logsByStage.get("pre_registration").add(log);
-                } else if (emailType.contains("confirmation") || templateCode.contains("confirmation")) {
-                    logsByStage.get("confirmation").add(log);
-                } else if (emailType.contains("special_vote") || templateCode.contains("special_vote")) {
-                    logsByStage.get("special_vote").add(log);
-                } else {
-                    logsByStage.get("other").add(log);
-                }
-            }
-
-            // Create timeline events
-            List<Map<String, Object>> timelineEvents = new ArrayList<>();
-
-            for (Map.Entry<String, List<NotificationLog>> entry : logsByStage.entrySet()) {
-                String stageKey = entry.getKey();
-                List<NotificationLog> stageLogs = entry.getValue();
+            // Fold buckets into one timeline event per (stage, date)
+            Map<String, Map<String, Object>> eventsByStageAndDate = new LinkedHashMap<>();
+            for (NotificationTimelineBucket bucket : buckets) {
+                String stageKey = bucket.getStage();
 
                 // Skip if stage filter is specified and doesn't match
                 if (stage != null && !stage.isEmpty() && !stage.equals(stageKey)) {
                     continue;
                 }
 
-                // Group by date
-                Map<LocalDate, List<NotificationLog>> logsByDate = stageLogs.stream()
-                        .collect(Collectors.groupingBy(log -> log.getSentTime().toLocalDate()));
-
-                for (Map.Entry<LocalDate, List<NotificationLog>> dateEntry : logsByDate.entrySet()) {
-                    LocalDate date = dateEntry.getKey();
-                    List<NotificationLog> dateLogs = dateEntry.getValue();
-
-                    long successCount = dateLogs.stream().filter(log -> log.getIsSuccessful()).count();
-                    long failureCount = dateLogs.size() - successCount;
-
-                    // Count by region
-                    Map<String, Long> regionCounts = dateLogs.stream()
-                            .collect(Collectors.groupingBy(
-                                    log -> log.getEventMember().getRegion() != null ? log.getEventMember().getRegion() : "Unknown",
-                                    Collectors.counting()
-                            ));
-
-                    Map<String, Object> timelineEvent = new HashMap<>();
-                    timelineEvent.put("date", date);
-                    timelineEvent.put("stage", stageKey);
-                    timelineEvent.put("stageName", getStageName(stageKey));
-                    timelineEvent.put("totalSent", dateLogs.size());
-                    timelineEvent.put("successCount", successCount);
-                    timelineEvent.put("failureCount", failureCount);
-                    timelineEvent.put("regionBreakdown", regionCounts);
-                    timelineEvent.put("notificationTypes", dateLogs.stream()
-                            .collect(Collectors.groupingBy(
-                                    log -> log.getNotificationType().name(),
-                                    Collectors.counting()
-                            )));
-
-                    timelineEvents.add(timelineEvent);
-                }
+                LocalDate date = LocalDate.parse(bucket.getDay());
+                long total = bucket.getTotal();
+
+                Map<String, Object> timelineEvent = eventsByStageAndDate.computeIfAbsent(stageKey + "|" + date, k -> {
+                    Map<String, Object> e = new HashMap<>();
+                    e.put("date", date);
+                    e.put("stage", stageKey);
+                    e.put("stageName", getStageName(stageKey));
+                    e.put("totalSent", 0L);
+                    e.put("successCount", 0L);
+                    e.put("failureCount", 0L);
+                    e.put("regionBreakdown", new HashMap<String, Long>());
+                    e.put("notificationTypes", new HashMap<String, Long>());
+                    return e;
+                });
+
+                timelineEvent.merge("totalSent", total, (a, b) -> (Long) a + (Long) b);
+                timelineEvent.merge(Boolean.TRUE.equals(bucket.getSuccessful()) ? "successCount" : "failureCount",
+                        total, (a, b) -> (Long) a + (Long) b);
+                ((Map<String, Long>) timelineEvent.get("regionBreakdown")).merge(bucket.getRegion(), total, Long::sum);
+                ((Map<String, Long>) timelineEvent.get("notificationTypes")).merge(bucket.getNotificationType(), total, Long::sum);
             }
 
+            List<Map<String, Object>> timelineEvents = new ArrayList<>(eventsByStageAndDate.values());
+
             // Sort timeline events by date
             timelineEvents.sort((a, b) ->
                     ((LocalDate) b.get("date")).compareTo((LocalDate) a.get("date")));
@@ -946,16 +939,13 @@ public class AdminBmmController {
                 .collect(Collectors.toList());
 
         // Get recent notifications
-        List<NotificationLog> recentNotifications = notificationLogRepository.findBySentTimeBetween(since, LocalDateTime.now())
-                .stream()
-                .filter(log -> log.getEventMember() != null &&
-                        log.getEventMember().getEvent().getId().equals(bmmEvent.getId()))
-                .collect(Collectors.toList());
+        long recentNotifications = notificationLogRepository.countByEventMemberEventAndSentTimeBetween(
+                bmmEvent, since, LocalDateTime.now());
 
         Map<String, Object> activity = new HashMap<>();
         activity.put("registrations", recentRegistrations.size());
         activity.put("confirmations", recentConfirmations.size());
-        activity.put("notifications", recentNotifications.size());
+        activity.put("notifications", recentNotifications);
         activity.put("period", hours + " hours");
         activity.put("since", since);
 
@@ -1304,7 +1294,8 @@ public class AdminBmmController {
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String search,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size) {
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String cursor) {
         log.info("Fetching detailed BMM members data - region: {}, stage: {}, status: {}", region, stage, status);
 
         try {
@@ -1318,56 +1309,35 @@ public class AdminBmmController {
                 return ResponseEntity.badRequest().body(ApiResponse.error("No BMM events found"));
             }
 
-            List<EventMember> allMembers = eventMemberRepository.findByEvent(currentBmmEvent);
-
             // Apply filters
-            List<EventMember> filteredMembers = allMembers.stream()
-                    .filter(member -> {
-                        if (region != null && !region.isEmpty()) {
-                            String dbRegion = region.replace(" Region", "");
-                            return dbRegion.equals(member.getRegionDesc());
-                        }
-                        return true;
-                    })
-                    .filter(member -> {
-                        if (stage != null && !stage.isEmpty()) {
-                            return stage.equals(member.getBmmRegistrationStage());
-                        }
-                        return true;
-                    })
-                    .filter(member -> {
-                        if (status != null && !status.isEmpty()) {
-                            switch (status) {
-                                case "registered":
-                                    return Boolean.TRUE.equals(member.getHasRegistered());
-                                case "attending":
-                                    return Boolean.TRUE.equals(member.getIsAttending());
-                                case "declined":
-                                    return Boolean.FALSE.equals(member.getIsAttending());
-                                case "special_vote":
-                                    return Boolean.TRUE.equals(member.getSpecialVoteEligible());
-                                case "no_response":
-                                    return member.getHasRegistered() == null || !member.getHasRegistered();
-                            }
-                        }
-                        return true;
-                    })
-                    .filter(member -> {
-                        if (search != null && !search.isEmpty()) {
-                            String searchLower = search.toLowerCase();
-                            return (member.getName() != null && member.getName().toLowerCase().contains(searchLower)) ||
-                                    (member.getMembershipNumber() != null && member.getMembershipNumber().toLowerCase().contains(searchLower)) ||
-                                    (member.getPrimaryEmail() != null && member.getPrimaryEmail().toLowerCase().contains(searchLower)) ||
-                                    (member.getWorkplace() != null && member.getWorkplace().toLowerCase().contains(searchLower));
-                        }
-                        return true;
-                    })
-                    .collect(Collectors.toList());
+            Specification<EventMember> spec = EventMemberSpecifications.inEvent(currentBmmEvent.getId());
+            if (region != null && !region.isEmpty()) {
+                spec = spec.and(EventMemberSpecifications.attributeEquals("regionDesc", region.replace(" Region", "")));
+            }
+            if (stage != null && !stage.isEmpty()) {
+                spec = spec.and(EventMemberSpecifications.attributeEquals("bmmRegistrationStage", stage));
+            }
+            if (status != null && !status.isEmpty()) {
+                spec = spec.and(switch (status) {
+                    case "registered" -> EventMemberSpecifications.flagEquals("hasRegistered", true);
+                    case "attending" -> EventMemberSpecifications.flagEquals("isAttending", true);
+                    case "declined" -> EventMemberSpecifications.flagEquals("isAttending", false);
+                    case "special_vote" -> EventMemberSpecifications.flagEquals("specialVoteEligible", true);
+                    case "no_response" -> EventMemberSpecifications.notRegistered();
+                    default -> null;
+                });
+            }
+            if (search != null && !search.isEmpty()) {
+                spec = spec.and(EventMemberSpecifications.containsAny(search,
+                        "name", "membershipNumber", "primaryEmail", "workplace"));
+            }
 
             // Pagination
-            int start = page * size;
-            int end = Math.min(start + size, filteredMembers.size());
-            List<EventMember> paginatedMembers = filteredMembers.subList(start, end);
+            MemberPage<EventMember> memberPage = pageMembers(spec, Sort.by("id"), cursor, page, size,
+                    ids -> eventMemberRepository.findAllById(ids).stream()
+                            .sorted(Comparator.comparing(EventMember::getId))
+                            .toList());
+            List<EventMember> paginatedMembers = memberPage.members();
 
             // Build detailed response
             List<Map<String, Object>> detailedMemberList = paginatedMembers.stream()
@@ -1376,10 +1346,12 @@ public class AdminBmmController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("members", detailedMemberList);
-            response.put("totalMembers", filteredMembers.size());
+            response.put("totalMembers", memberPage.totalElements());
             response.put("currentPage", page);
             response.put("pageSize", size);
-            response.put("totalPages", (int) Math.ceil((double) filteredMembers.size() / size));
+            response.put("totalPages", (int) Math.ceil((double) memberPage.totalElements() / size));
+            response.put("nextCursor", memberPage.nextCursor());
+            response.put("hasMore", memberPage.nextCursor() != null);
             response.put("filters", Map.of(
                     "region", region != null ? region : "",
                     "stage", stage != null ? stage : "",
@@ -1712,6 +1684,15 @@ public class AdminBmmController {
         }
     }
 
+    // 实时统计推送 (SSE) - 当前BMM事件的计数器变化，替代轮询 /real-time-stats
+    @GetMapping("/real-time-stats/stream")
+    public SseEmitter streamRealTimeStats(@RequestParam(required = false) Set<EventCounter.Dimension> dimensions) {
+        Event currentBmmEvent = eventRepository.findByEventType(Event.EventType.BMM_VOTING).stream()
+                .max(Comparator.comparing(Event::getCreatedAt))
+                .orElseThrow(() -> new ResourceNotFoundException("No BMM events found"));
+        return liveStatsStreamService.subscribe(currentBmmEvent.getId(), dimensions);
+    }
+
     // 🎯 实时刷新统计数据
     @GetMapping("/real-time-stats")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getRealTimeStats() {
@@ -1728,7 +1709,7 @@ public class AdminBmmController {
                 return ResponseEntity.badRequest().body(ApiResponse.error("No BMM events found"));
             }
 
-            List<EventMember> allMembers = eventMemberRepository.findByEvent(currentBmmEvent);
+            Map<String, Long> totals = eventCounterService.getEventTotals(currentBmmEvent.getId());
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime lastHour = now.minusHours(1);
             LocalDateTime today = now.toLocalDate().atStartOfDay();
@@ -1736,43 +1717,38 @@ public class AdminBmmController {
             Map<String, Object> realTimeStats = new HashMap<>();
 
             // 实时计数
-            realTimeStats.put("totalMembers", allMembers.size());
-            realTimeStats.put("registeredToday", allMembers.stream()
-                    .filter(m -> m.getFormSubmissionTime() != null && m.getFormSubmissionTime().isAfter(today))
-                    .count());
-            realTimeStats.put("confirmedToday", allMembers.stream()
-                    .filter(m -> m.getBmmAttendanceConfirmedAt() != null && m.getBmmAttendanceConfirmedAt().isAfter(today))
-                    .count());
-            realTimeStats.put("lastHourActivity", allMembers.stream()
-                    .filter(m -> m.getBmmLastInteractionAt() != null && m.getBmmLastInteractionAt().isAfter(lastHour))
-                    .count());
+            realTimeStats.put("totalMembers", EventCounterService.count(totals, EventCounter.Metric.MEMBERS));
+            realTimeStats.put("registeredToday", eventMemberRepository.countByEventAndFormSubmissionTimeAfter(currentBmmEvent, today));
+            realTimeStats.put("confirmedToday", eventMemberRepository.countByEventAndBmmAttendanceConfirmedAtAfter(currentBmmEvent, today));
+            realTimeStats.put("lastHourActivity", eventMemberRepository.countByEventAndBmmLastInteractionAtAfter(currentBmmEvent, lastHour));
 
             // 阶段分布
+            String stagePrefix = EventCounter.Metric.registrationStage("");
             Map<String, Long> currentStageDistribution = new HashMap<>();
-            for (EventMember member : allMembers) {
-                String stage = member.getBmmRegistrationStage() != null ? member.getBmmRegistrationStage() : "PENDING";
-                currentStageDistribution.merge(stage, 1L, Long::sum);
-            }
+            totals.forEach((metric, count) -> {
+                if (metric.startsWith(stagePrefix) && count > 0) {
+                    currentStageDistribution.put(metric.substring(stagePrefix.length()), count);
+                }
+            });
             realTimeStats.put("stageDistribution", currentStageDistribution);
 
             // 地区进度
             Map<String, Map<String, Object>> regionProgress = new HashMap<>();
             List<String> regions = Arrays.asList("Northern", "Central", "Southern");
+            Map<String, Map<String, Long>> regionCounters = eventCounterService.getBreakdown(currentBmmEvent.getId(), EventCounter.Dimension.REGION);
 
             for (String region : regions) {
-                List<EventMember> regionMembers = allMembers.stream()
-                        .filter(m -> region.equals(m.getRegionDesc()))
-                        .collect(Collectors.toList());
+                Map<String, Long> counters = regionCounters.get(region);
+                long total = EventCounterService.count(counters, EventCounter.Metric.MEMBERS);
+                long stage1Complete = total - EventCounterService.count(counters, EventCounter.Metric.registrationStage("PENDING"));
+                long stage2Complete = EventCounterService.count(counters, EventCounter.Metric.registrationStage("ATTENDANCE_CONFIRMED")) +
+                        EventCounterService.count(counters, EventCounter.Metric.registrationStage("ATTENDANCE_DECLINED"));
 
                 Map<String, Object> progress = new HashMap<>();
-                progress.put("total", regionMembers.size());
-                progress.put("stage1Complete", regionMembers.stream()
-                        .filter(m -> !"PENDING".equals(m.getBmmRegistrationStage())).count());
-                progress.put("stage2Complete", regionMembers.stream()
-                        .filter(m -> "ATTENDANCE_CONFIRMED".equals(m.getBmmRegistrationStage()) ||
-                                "ATTENDANCE_DECLINED".equals(m.getBmmRegistrationStage())).count());
-                progress.put("progressPercentage", regionMembers.size() > 0 ?
-                        (regionMembers.stream().filter(m -> !"PENDING".equals(m.getBmmRegistrationStage())).count() * 100.0 / regionMembers.size()) : 0);
+                progress.put("total", total);
+                progress.put("stage1Complete", stage1Complete);
+                progress.put("stage2Complete", stage2Complete);
+                progress.put("progressPercentage", total > 0 ? (stage1Complete * 100.0 / total) : 0);
 
                 regionProgress.put(region, progress);
             }
@@ -1781,15 +1757,9 @@ public class AdminBmmController {
             // 近期趋势
             Map<String, Object> trends = new HashMap<>();
             LocalDateTime yesterday = now.minusDays(1);
-            trends.put("registrationsLast24h", allMembers.stream()
-                    .filter(m -> m.getFormSubmissionTime() != null && m.getFormSubmissionTime().isAfter(yesterday))
-                    .count());
-            trends.put("confirmationsLast24h", allMembers.stream()
-                    .filter(m -> m.getBmmAttendanceConfirmedAt() != null && m.getBmmAttendanceConfirmedAt().isAfter(yesterday))
-                    .count());
-            trends.put("emailsSentLast24h", allMembers.stream()
-                    .filter(m -> m.getBmmInvitationSentAt() != null && m.getBmmInvitationSentAt().isAfter(yesterday))
-                    .count());
+            trends.put("registrationsLast24h", eventMemberRepository.countByEventAndFormSubmissionTimeAfter(currentBmmEvent, yesterday));
+            trends.put("confirmationsLast24h", eventMemberRepository.countByEventAndBmmAttendanceConfirmedAtAfter(currentBmmEvent, yesterday));
+            trends.put("emailsSentLast24h", eventMemberRepository.countByEventAndBmmInvitationSentAtAfter(currentBmmEvent, yesterday));
 
             realTimeStats.put("trends", trends);
             realTimeStats.put("timestamp", now);
@@ -2447,7 +2417,8 @@ public class AdminBmmController {
                 return ResponseEntity.badRequest().body(ApiResponse.error("No BMM events found"));
             }
 
-            List<EventMember> allMembers = eventMemberRepository.findByEvent(currentBmmEvent);
+            Map<String, Map<String, Long>> venueCounters =
+                    eventCounterService.getBreakdown(currentBmmEvent.getId(), EventCounter.Dimension.VENUE);
 
             // Process each region
             JsonNode regions = venueConfig.get("regions");
@@ -2469,9 +2440,8 @@ public class AdminBmmController {
                             int capacity = (capacityNode != null && !capacityNode.isNull()) ? capacityNode.asInt() : 0;
 
                             // Count assigned members for this venue
-                            long assignedCount = allMembers.stream()
-                                    .filter(m -> venueName.equals(m.getAssignedVenueFinal()))
-                                    .count();
+                            long assignedCount = EventCounterService.count(
+                                    venueCounters.get(venueName), EventCounter.Metric.MEMBERS);
 
                             venueInfo.put("name", venueName);
                             venueInfo.put("capacity", capacity);
@@ -2521,57 +2491,8 @@ public class AdminBmmController {
                 return ResponseEntity.ok(response);
             }
 
-            List<EventMember> allMembers = eventMemberRepository.findByEvent(currentBmmEvent);
-            log.info("Found {} total members for BMM filter options", allMembers.size());
-
-            // Extract unique filter options from EventMember data
-            Set<String> regions = allMembers.stream()
-                    .map(EventMember::getRegionDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-
-            // Get industries directly from EventMember fields
-            Set<String> industries = allMembers.stream()
-                    .map(EventMember::getSiteIndustryDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-
-            Set<String> subIndustries = allMembers.stream()
-                    .map(EventMember::getSiteSubIndustryDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-
-            Set<String> workplaces = allMembers.stream()
-                    .map(EventMember::getWorkplace)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-
-            Set<String> employers = allMembers.stream()
-                    .map(EventMember::getEmployer)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-
-            // Convert to sorted lists
-            List<String> sortedRegions = regions.stream().sorted().collect(Collectors.toList());
-            List<String> sortedIndustries = industries.stream().sorted().collect(Collectors.toList());
-            List<String> sortedSubIndustries = subIndustries.stream().sorted().collect(Collectors.toList());
-            List<String> sortedWorkplaces = workplaces.stream().sorted().collect(Collectors.toList());
-            List<String> sortedEmployers = employers.stream().sorted().collect(Collectors.toList());
-
-            Map<String, Object> filterOptions = new HashMap<>();
-            filterOptions.put("regions", sortedRegions);
-            filterOptions.put("industries", sortedIndustries);
-            filterOptions.put("subIndustries", sortedSubIndustries);
-            filterOptions.put("workplaces", sortedWorkplaces);
-            filterOptions.put("employers", sortedEmployers);
-
-            log.info("Filter options generated: {} regions, {} industries, {} sub-industries, {} workplaces, {} employers",
-                    sortedRegions.size(), sortedIndustries.size(), sortedSubIndustries.size(), sortedWorkplaces.size(), sortedEmployers.size());
+            Map<String, Object> filterOptions = new HashMap<>(adminQueryCacheService.getFilterOptions(currentBmmEvent.getId()));
+            filterOptions.keySet().retainAll(List.of("regions", "industries", "subIndustries", "workplaces", "employers"));
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
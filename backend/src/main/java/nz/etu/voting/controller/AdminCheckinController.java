@@ -2,17 +2,32 @@ package nz.etu.voting.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventMemberCheckinRow;
 import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.domain.entity.EventCounter;
 import nz.etu.voting.domain.entity.EventMember;
+import nz.etu.voting.exception.ResourceNotFoundException;
 import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.service.CheckinService;
+import nz.etu.voting.service.EventCounterService;
+import nz.etu.voting.service.LiveStatsStreamService;
+import nz.etu.voting.service.SignedTicketService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.Comparator;
@@ -27,6 +42,10 @@ public class AdminCheckinController {
 
     private final EventMemberRepository eventMemberRepository;
     private final EventRepository eventRepository;
+    private final EventCounterService eventCounterService;
+    private final LiveStatsStreamService liveStatsStreamService;
+    private final SignedTicketService signedTicketService;
+    private final CheckinService checkinService;
 
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getCheckinStats() {
@@ -43,10 +62,10 @@ public class AdminCheckinController {
                     .orElse(null);
 
             if (currentBmmEvent != null) {
-                List<EventMember> eventMembers = eventMemberRepository.findByEvent(currentBmmEvent);
+                Map<String, Long> counters = eventCounterService.getEventTotals(currentBmmEvent.getId());
 
-                long totalRegistered = eventMembers.stream().filter(m -> m.getHasRegistered() != null && m.getHasRegistered()).count();
-                long totalCheckedIn = eventMembers.stream().filter(m -> m.getCheckedIn() != null && m.getCheckedIn()).count();
+                long totalRegistered = EventCounterService.count(counters, EventCounter.Metric.REGISTERED);
+                long totalCheckedIn = EventCounterService.count(counters, EventCounter.Metric.CHECKED_IN);
                 long checkinRate = totalRegistered > 0 ? (totalCheckedIn * 100 / totalRegistered) : 0;
 
                 stats.put("totalRegistered", totalRegistered);
@@ -92,6 +111,16 @@ public class AdminCheckinController {
         }
     }
 
+    //    签到统计实时推送 (SSE) - 替代轮询 /stats
+    @GetMapping("/events/{eventId}/stats/stream")
+    public SseEmitter streamStats(@PathVariable Long eventId,
+                                  @RequestParam(required = false) Set<EventCounter.Dimension> dimensions) {
+        if (!eventRepository.existsById(eventId)) {
+            throw new ResourceNotFoundException("Event not found: " + eventId);
+        }
+        return liveStatsStreamService.subscribe(eventId, dimensions);
+    }
+
     @PostMapping("/qr/generate/{eventId}")
     public ResponseEntity<Map<String, Object>> generateCheckinQR(@PathVariable Long eventId) {
         log.info("Generating checkin QR code for event: {}", eventId);
@@ -195,8 +224,11 @@ public class AdminCheckinController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            // Check if already checked in
-            if (member.getCheckedIn() != null && member.getCheckedIn()) {
+            // Check in unless already checked in, here or by a concurrent request
+            boolean checkedIn = !Boolean.TRUE.equals(member.getCheckedIn()) && checkinService.checkIn(member,
+                    new CheckinService.Checkin(null, location != null ? location : "Manual Check-in", null, "MANUAL", null, null, true))
+                    .isPresent();
+            if (!checkedIn) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("status", "warning");
                 response.put("message", "Member already checked in");
@@ -213,15 +245,6 @@ public class AdminCheckinController {
                 return ResponseEntity.ok(response);
             }
 
-            // Perform checkin
-            member.setIsAttending(true);
-            member.setCheckedIn(true);
-            member.setCheckInTime(LocalDateTime.now());
-            member.setCheckInLocation(location != null ? location : "Manual Check-in");
-            member.setCheckInMethod("MANUAL");
-
-            eventMemberRepository.save(member);
-
             Map<String, Object> response = new HashMap<>();
             Map<String, Object> data = new HashMap<>();
 
@@ -273,37 +296,39 @@ public class AdminCheckinController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            int successCount = 0;
-            int failCount = 0;
-
-            for (String membershipNumber : membershipNumbers) {
-                try {
-                    EventMember member = eventMemberRepository.findByEventAndMembershipNumber(event, membershipNumber.trim()).orElse(null);
-                    if (member != null) {
-                        member.setIsAttending(true);
-                        member.setCheckedIn(true);
-                        member.setCheckInTime(LocalDateTime.now());
-                        member.setCheckInLocation("Bulk Check-in");
-                        member.setCheckInMethod("BULK");
-
-                        eventMemberRepository.save(member);
-                        successCount++;
-                    } else {
-                        failCount++;
-                        log.warn("Member not found for bulk checkin: {}", membershipNumber);
-                    }
-                } catch (Exception e) {
-                    failCount++;
-                    log.error("Failed to checkin member: {}", membershipNumber, e);
+            List<CheckinService.BulkOutcome> outcomes = checkinService.bulkCheckIn(eventId, membershipNumbers,
+                    new CheckinService.Checkin(null, "Bulk Check-in", null, "BULK", null, null, true));
+
+            Map<CheckinService.BulkStatus, Integer> counts = new EnumMap<>(CheckinService.BulkStatus.class);
+            List<Map<String, Object>> results = new ArrayList<>(outcomes.size());
+            for (CheckinService.BulkOutcome outcome : outcomes) {
+                counts.merge(outcome.status(), 1, Integer::sum);
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("membershipNumber", outcome.membershipNumber());
+                result.put("status", outcome.status());
+                if (outcome.row() != null) {
+                    result.put("name", outcome.row().name());
+                    result.put("checkinTime", outcome.row().checkInTime());
                 }
+                results.add(result);
             }
+            // Already checked in still counts as present
+            int successCount = counts.getOrDefault(CheckinService.BulkStatus.CHECKED_IN, 0)
+                    + counts.getOrDefault(CheckinService.BulkStatus.ALREADY_CHECKED_IN, 0);
+            int failCount = counts.getOrDefault(CheckinService.BulkStatus.NOT_FOUND, 0);
 
             Map<String, Object> response = new HashMap<>();
             Map<String, Object> data = new HashMap<>();
 
-            data.put("total", membershipNumbers.size());
+            // total counts distinct non-blank numbers, the ones that got a result; submitted is the raw list size
+            data.put("total", outcomes.size());
+            data.put("submitted", membershipNumbers.size());
             data.put("success", successCount);
             data.put("failed", failCount);
+            data.put("checkedIn", counts.getOrDefault(CheckinService.BulkStatus.CHECKED_IN, 0));
+            data.put("alreadyCheckedIn", counts.getOrDefault(CheckinService.BulkStatus.ALREADY_CHECKED_IN, 0));
+            data.put("notFound", failCount);
+            data.put("results", results);
             data.put("eventName", event.getName());
 
             response.put("status", "success");
@@ -337,34 +362,19 @@ public class AdminCheckinController {
                     .max(Comparator.comparing(Event::getCreatedAt))
                     .orElse(null);
 
-            List<EventMember> checkedInMembers;
-            if (currentBmmEvent != null) {
-                checkedInMembers = eventMemberRepository.findByEvent(currentBmmEvent).stream()
-                        .filter(m -> m.getCheckedIn() != null && m.getCheckedIn())
-                        .sorted((m1, m2) -> {
-                            if (m1.getCheckInTime() == null && m2.getCheckInTime() == null) return 0;
-                            if (m1.getCheckInTime() == null) return 1;
-                            if (m2.getCheckInTime() == null) return -1;
-                            return m2.getCheckInTime().compareTo(m1.getCheckInTime()); // newest first
-                        })
-                        .collect(Collectors.toList());
-            } else {
-                checkedInMembers = List.of();
-            }
-
-            // Paginate
-            int start = page * size;
-            int end = Math.min(start + size, checkedInMembers.size());
-            List<EventMember> pageMembers = checkedInMembers.subList(start, end);
+            // Newest check-in first, paged in the database over the check-in projection
+            Page<EventMemberCheckinRow> checkedInMembers = currentBmmEvent != null
+                    ? eventMemberRepository.findCheckedInRowsByEventId(currentBmmEvent.getId(), PageRequest.of(page, size))
+                    : Page.empty(PageRequest.of(page, size));
 
             Map<String, Object> response = new HashMap<>();
             Map<String, Object> data = new HashMap<>();
 
-            data.put("members", pageMembers);
-            data.put("totalCount", checkedInMembers.size());
+            data.put("members", checkedInMembers.getContent());
+            data.put("totalCount", checkedInMembers.getTotalElements());
             data.put("page", page);
             data.put("size", size);
-            data.put("totalPages", (checkedInMembers.size() + size - 1) / size);
+            data.put("totalPages", checkedInMembers.getTotalPages());
             data.put("currentBmmEvent", currentBmmEvent != null ? currentBmmEvent.getName() : "No BMM event");
 
             response.put("status", "success");
@@ -478,6 +488,22 @@ public class AdminCheckinController {
 
             EventMember member = null;
 
+            // Signed ticket: verified in memory, so forged or expired codes never reach the database
+            if (SignedTicketService.isTicket(qrData.trim())) {
+                Optional<SignedTicketService.Ticket> ticket = signedTicketService.verify(qrData.trim())
+                        .filter(t -> t.eventId() == eventId);
+                if (ticket.isEmpty()) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("status", "error");
+                    response.put("message", "Invalid or expired ticket");
+                    return ResponseEntity.badRequest().body(response);
+                }
+                member = eventMemberRepository.findById(ticket.get().eventMemberId())
+                        .filter(m -> m.getEvent().getId().equals(eventId)
+                                && ticket.get().issuedFor(m.getToken(), m.getTicketToken()))
+                        .orElse(null);
+            }
+
             // Try to parse QR data as JSON
             try {
                 @SuppressWarnings("unchecked")
@@ -538,8 +564,12 @@ public class AdminCheckinController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            // Check if member is already checked in
-            if (member.getCheckedIn() != null && member.getCheckedIn()) {
+            // Check in unless already checked in, here or by a concurrent scan
+            boolean checkedIn = !Boolean.TRUE.equals(member.getCheckedIn()) && checkinService.checkIn(member,
+                    new CheckinService.Checkin(null, location != null && !location.trim().isEmpty() ? location : null,
+                            null, "QR_SCAN", null, null, true))
+                    .isPresent();
+            if (!checkedIn) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("status", "warning");
                 response.put("message", "Member already checked in");
@@ -555,19 +585,6 @@ public class AdminCheckinController {
                 return ResponseEntity.ok(response);
             }
 
-            // Perform check-in
-            member.setIsAttending(true);
-            member.setCheckedIn(true);
-            member.setCheckInTime(LocalDateTime.now());
-            member.setCheckInMethod("QR_SCAN");
-
-            // Save scan location
-            if (location != null && !location.trim().isEmpty()) {
-                member.setCheckInLocation(location);
-            }
-
-            eventMemberRepository.save(member);
-
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
             response.put("message", "Member checked in successfully via QR scan");
@@ -8,6 +8,7 @@ import nz.etu.voting.domain.entity.Member;
 import nz.etu.voting.repository.MemberRepository;
 import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.service.AdminQueryCacheService;
 import nz.etu.voting.service.ExcelExportService;
 import nz.etu.voting.service.MemberService;
 
@@ -19,6 +20,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -45,6 +47,7 @@ public class AdminController {
     private final EventMemberRepository eventMemberRepository;
     private final MemberService memberService;
     private final ExcelExportService excelExportService;
+    private final AdminQueryCacheService adminQueryCacheService;
 
     private final VerificationCodeGenerator verificationCodeGenerator;
 
@@ -175,21 +178,7 @@ public class AdminController {
         log.info("Fetching events overview for admin dashboard");
 
         try {
-            List<Map<String, Object>> events = eventRepository.findTop20ByIsActiveTrueOrderByEventDateDesc()
-                    .stream()
-                    .map(event -> {
-                        Map<String, Object> eventData = new HashMap<>();
-                        eventData.put("id", event.getId());
-                        eventData.put("name", event.getName());
-                        eventData.put("eventCode", event.getEventCode());
-                        eventData.put("eventType", event.getEventType());
-                        eventData.put("isActive", event.getIsActive());
-                        eventData.put("syncStatus", event.getSyncStatus());
-                        eventData.put("totalMembers", event.getMemberSyncCount());
-                        eventData.put("registeredMembers", eventMemberRepository.countRegisteredByEvent(event));
-                        return eventData;
-                    })
-                    .toList();
+            List<Map<String, Object>> events = adminQueryCacheService.getDashboardEvents();
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
@@ -398,7 +387,7 @@ public class AdminController {
     }
 
     @PostMapping("/members/export-filtered")
-    public ResponseEntity<byte[]> exportFilteredMembers(@RequestBody Map<String, Object> filters) {
+    public ResponseEntity<StreamingResponseBody> exportFilteredMembers(@RequestBody Map<String, Object> filters) {
         log.info("Exporting filtered members with filters: {}", filters);
 
         try {
@@ -513,15 +502,16 @@ public class AdminController {
                 members = members.stream().filter(m -> selectedMemberIds.contains(m.getId())).collect(Collectors.toList());
             }
 
-            // Generate Excel export
-            byte[] excelData = excelExportService.exportFilteredMembersToExcel(members);
-
+            // Generate Excel export, written straight to the response
+            List<Member> exported = members;
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
             headers.setContentDispositionFormData("attachment", "filtered-members.xlsx");
 
-            log.info("Exported {} filtered members to Excel", members.size());
-            return ResponseEntity.ok().headers(headers).body(excelData);
+            return ResponseEntity.ok().headers(headers).body(out -> {
+                int rows = excelExportService.exportFilteredMembers(exported, ExcelExportService.Format.XLSX, out);
+                log.info("Exported {} filtered members to Excel", rows);
+            });
 
         } catch (Exception e) {
             log.error("Failed to export filtered members", e);
@@ -2,25 +2,29 @@ package nz.etu.voting.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventMemberSummaryRow;
 import nz.etu.voting.domain.dto.response.ApiResponse;
 import nz.etu.voting.domain.entity.Event;
 import nz.etu.voting.domain.entity.EventMember;
 import nz.etu.voting.domain.entity.Member;
 import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.repository.EventMemberSpecifications;
 import nz.etu.voting.repository.MemberRepository;
+import nz.etu.voting.service.AdminQueryCacheService;
+import nz.etu.voting.service.EventMemberTargetingService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import java.util.Comparator;
 import java.util.Objects;
 
@@ -34,6 +38,8 @@ public class AdminRegistrationController {
     private final EventRepository eventRepository;
     private final EventMemberRepository eventMemberRepository;
     private final MemberRepository memberRepository;
+    private final AdminQueryCacheService adminQueryCacheService;
+    private final EventMemberTargetingService eventMemberTargetingService;
 
     //    实时注册追踪 - 按时间排序
     @GetMapping("/events/{eventId}/recent-registrations")
@@ -231,179 +237,64 @@ public class AdminRegistrationController {
                 return ResponseEntity.badRequest().body(Map.of("status", "error", "message", "Event not found"));
             }
 
-            // 构建数据库查询参数，避免加载所有数据到内存
-            Boolean hasRegistered = null;
-            Boolean isAttending = null;
-            Boolean hasVoted = null;
-            Boolean checkedIn = null;
-            String regionDesc = null;
-            String genderDesc = null;
-            String siteIndustryDesc = null;
-            String siteSubIndustryDesc = null;
-            String workplaceDesc = null;
-            String employerName = null;
-            String bargainingGroupDesc = null;
-            String employmentStatus = null;
-            String ethnicRegionDesc = null;
-            String jobTitle = null;
-            String department = null;
-            String siteNumber = null;
-            Boolean hasEmail = null;
-            Boolean hasMobile = null;
-            String branchDesc = null;
-            String forumDesc = null;
-            String membershipTypeDesc = null;
-            String occupation = null;
-
-            // 解析筛选条件
-            if (criteria.containsKey("registrationStatus")) {
-                String status = (String) criteria.get("registrationStatus");
-                switch (status) {
-                    case "registered":
-                        hasRegistered = true;
-                        break;
-                    case "not_registered":
-                        hasRegistered = false;
-                        break;
-                    case "attending":
-                        isAttending = true;
-                        break;
-                    case "not_attending":
-                        isAttending = false;
-                        break;
-                    // special_vote 和 incomplete 等复杂条件暂时使用原有逻辑
-                }
-            }
-
-            // 解析其他筛选条件
-            if (criteria.containsKey("region")) {
-                regionDesc = (String) criteria.get("region");
-            }
-            if (criteria.containsKey("genderDesc")) {
-                genderDesc = (String) criteria.get("genderDesc");
-            }
-            if (criteria.containsKey("siteIndustryDesc") || criteria.containsKey("industry")) {
-                siteIndustryDesc = (String) (criteria.get("siteIndustryDesc") != null ?
-                        criteria.get("siteIndustryDesc") : criteria.get("industry"));
-            }
-            if (criteria.containsKey("siteSubIndustryDesc")) {
-                siteSubIndustryDesc = (String) criteria.get("siteSubIndustryDesc");
-            }
-            if (criteria.containsKey("workplaceDesc")) {
-                workplaceDesc = (String) criteria.get("workplaceDesc");
-            }
-            if (criteria.containsKey("employerName")) {
-                employerName = (String) criteria.get("employerName");
-            }
-            if (criteria.containsKey("bargainingGroupDesc")) {
-                bargainingGroupDesc = (String) criteria.get("bargainingGroupDesc");
-            }
-            if (criteria.containsKey("employmentStatus")) {
-                employmentStatus = (String) criteria.get("employmentStatus");
-            }
-            if (criteria.containsKey("ethnicRegionDesc")) {
-                ethnicRegionDesc = (String) criteria.get("ethnicRegionDesc");
-            }
-            if (criteria.containsKey("hasEmail")) {
-                hasEmail = (Boolean) criteria.get("hasEmail");
-            }
-            if (criteria.containsKey("hasMobile")) {
-                hasMobile = (Boolean) criteria.get("hasMobile");
-            }
-
-            List<EventMember> filteredMembers;
-
-            // 对于复杂的条件（special_vote, incomplete）或者简单条件，使用优化的数据库查询
+            // 条件交给 EventMemberSpecifications：只生成实际提供的谓词，数据库分页和计数
+            // special_vote / incomplete 在本页面按 isSpecialVote / absenceReason 判断
+            Map<String, Object> sharedCriteria = new HashMap<>(criteria);
             String registrationStatus = (String) criteria.get("registrationStatus");
-            if ("special_vote".equals(registrationStatus) || "incomplete".equals(registrationStatus)) {
-                // 复杂条件仍使用原有的内存过滤逻辑
-                List<EventMember> allMembers = eventMemberRepository.findByEvent(event);
-                filteredMembers = allMembers.stream()
-                        .filter(member -> {
-                            if ("special_vote".equals(registrationStatus)) {
-                                return member.getIsSpecialVote() != null && member.getIsSpecialVote();
-                            } else if ("incomplete".equals(registrationStatus)) {
-                                return (member.getHasRegistered() != null && member.getHasRegistered()) &&
-                                        (member.getIsAttending() == null || !member.getIsAttending()) &&
-                                        (member.getAbsenceReason() == null || member.getAbsenceReason().trim().isEmpty());
-                            }
-                            return true;
-                        }).collect(Collectors.toList());
-            } else {
-                // 使用优化的数据库查询
-                try {
-                    filteredMembers = eventMemberRepository.findByEventAndMemberCriteria(
-                            event, hasRegistered, isAttending, hasVoted, checkedIn,
-                            regionDesc, genderDesc, siteIndustryDesc, siteSubIndustryDesc,
-                            workplaceDesc, employerName, bargainingGroupDesc, employmentStatus,
-                            ethnicRegionDesc, jobTitle, department, siteNumber,
-                            hasEmail, hasMobile, branchDesc, forumDesc, membershipTypeDesc, occupation
-                    );
-                    log.info("Database query returned {} members for event {}", filteredMembers.size(), eventId);
-                } catch (Exception e) {
-                    log.error("Database query failed, falling back to in-memory filtering: {}", e.getMessage());
-                    // 如果数据库查询失败，回退到原有逻辑
-                    List<EventMember> allMembers = eventMemberRepository.findByEvent(event);
-                    filteredMembers = allMembers; // 简化的回退逻辑
-                }
+            Specification<EventMember> extra = EventMemberSpecifications.orderByRegistrationTimeDesc();
+            if ("special_vote".equals(registrationStatus)) {
+                sharedCriteria.remove("registrationStatus");
+                extra = extra.and(EventMemberSpecifications.isSpecialVote());
+            } else if ("incomplete".equals(registrationStatus)) {
+                extra = extra.and(EventMemberSpecifications.registrationIncomplete());
             }
 
-            // 对筛选结果进行排序（按注册时间倒序）
-            filteredMembers.sort((a, b) -> {
-                LocalDateTime timeA = a.getFormSubmissionTime() != null ? a.getFormSubmissionTime() : a.getCreatedAt();
-                LocalDateTime timeB = b.getFormSubmissionTime() != null ? b.getFormSubmissionTime() : b.getCreatedAt();
-                if (timeA == null && timeB == null) return 0;
-                if (timeA == null) return 1;
-                if (timeB == null) return -1;
-                return timeB.compareTo(timeA);
-            });
-
-//            分页
-            int start = page * size;
-            int end = Math.min(start + size, filteredMembers.size());
-            List<EventMember> pageMembers = filteredMembers.subList(start, end);
+            Page<EventMemberSummaryRow> memberPage = eventMemberTargetingService.findSummaryPageByCriteria(
+                    eventId, sharedCriteria, extra, PageRequest.of(page, size));
+            List<EventMemberSummaryRow> pageMembers = memberPage.getContent();
+            log.info("Criteria query returned {} of {} members for event {}", pageMembers.size(), memberPage.getTotalElements(), eventId);
 
             List<Map<String, Object>> memberList = pageMembers.stream().map(member -> {
                 Map<String, Object> info = new HashMap<>();
-                info.put("id", member.getId());
-                info.put("membershipNumber", member.getMembershipNumber());
-                info.put("name", member.getName());
-                info.put("primaryEmail", member.getPrimaryEmail());
-                info.put("telephoneMobile", member.getTelephoneMobile());
-                info.put("registrationTime", member.getFormSubmissionTime() != null ? member.getFormSubmissionTime() : member.getCreatedAt());
-                info.put("hasRegistered", member.getHasRegistered());
-                info.put("isAttending", member.getIsAttending());
-                info.put("isSpecialVote", member.getIsSpecialVote());
-                info.put("absenceReason", member.getAbsenceReason());
-                info.put("region", member.getRegionDesc());
-                info.put("workplace", member.getWorkplace());
-                info.put("employer", member.getEmployer());
-                info.put("industrySubDesc", member.getMember() != null ? member.getMember().getSiteIndustryDesc() : null);
-                info.put("siteSubIndustryDesc", member.getMember() != null ? member.getMember().getSiteSubIndustryDesc() : null);
-                info.put("ageOfMember", member.getMember() != null ? member.getMember().getAgeOfMember() : null);
-                info.put("bargainingGroupDesc", member.getMember() != null ? member.getMember().getBargainingGroupDesc() : null);
-                info.put("genderDesc", member.getMember() != null ? member.getMember().getGenderDesc() : null);
-                info.put("ethnicRegionDesc", member.getMember() != null ? member.getMember().getEthnicRegionDesc() : null);
-                info.put("membershipTypeDesc", member.getMember() != null ? member.getMember().getMembershipTypeDesc() : null);
-                info.put("branchDesc", member.getMember() != null ? member.getMember().getBranchDesc() : null);
-                info.put("forumDesc", member.getMember() != null ? member.getMember().getForumDesc() : null);
-                info.put("emailSent", member.getEmailSent());
-                info.put("smsSent", member.getSmsSent());
-                info.put("hasEmail", member.getHasEmail());
-                info.put("hasMobile", member.getHasMobile());
-                info.put("payrollNumber", member.getMember() != null ? member.getMember().getPayrollNumber() : null);
-                info.put("siteNumber", member.getMember() != null ? member.getMember().getSiteNumber() : null);
+                info.put("id", member.id());
+                info.put("membershipNumber", member.membershipNumber());
+                info.put("name", member.name());
+                info.put("primaryEmail", member.primaryEmail());
+                info.put("telephoneMobile", member.telephoneMobile());
+                info.put("registrationTime", member.registrationTime());
+                info.put("hasRegistered", member.hasRegistered());
+                info.put("isAttending", member.isAttending());
+                info.put("isSpecialVote", member.isSpecialVote());
+                info.put("absenceReason", member.absenceReason());
+                info.put("region", member.regionDesc());
+                info.put("workplace", member.workplace());
+                info.put("employer", member.employer());
+                info.put("industrySubDesc", member.memberSiteIndustryDesc());
+                info.put("siteSubIndustryDesc", member.memberSiteSubIndustryDesc());
+                info.put("ageOfMember", member.memberAgeOfMember());
+                info.put("bargainingGroupDesc", member.memberBargainingGroupDesc());
+                info.put("genderDesc", member.memberGenderDesc());
+                info.put("ethnicRegionDesc", member.memberEthnicRegionDesc());
+                info.put("membershipTypeDesc", member.memberMembershipTypeDesc());
+                info.put("branchDesc", member.memberBranchDesc());
+                info.put("forumDesc", member.memberForumDesc());
+                info.put("emailSent", member.emailSent());
+                info.put("smsSent", member.smsSent());
+                info.put("hasEmail", member.hasEmail());
+                info.put("hasMobile", member.hasMobile());
+                info.put("payrollNumber", member.memberPayrollNumber());
+                info.put("siteNumber", member.memberSiteNumber());
                 // 签到相关字段
-                info.put("token", member.getToken());
-                info.put("checkedIn", member.getCheckedIn());
-                info.put("checkInTime", member.getCheckInTime());
-                info.put("checkInAdminName", member.getCheckInAdminName());
-                info.put("checkInAdminUsername", member.getCheckInAdminUsername());
-                info.put("checkInVenue", member.getCheckInVenue());
-                info.put("checkInMethod", member.getCheckInMethod());
-                info.put("checkInLocation", member.getCheckInLocation());
-                info.put("hasVoted", member.getHasVoted());
-                info.put("qrCodeEmailSent", member.getQrCodeEmailSent());
+                info.put("token", member.token());
+                info.put("checkedIn", member.checkedIn());
+                info.put("checkInTime", member.checkInTime());
+                info.put("checkInAdminName", member.checkInAdminName());
+                info.put("checkInAdminUsername", member.checkInAdminUsername());
+                info.put("checkInVenue", member.checkInVenue());
+                info.put("checkInMethod", member.checkInMethod());
+                info.put("checkInLocation", member.checkInLocation());
+                info.put("hasVoted", member.hasVoted());
+                info.put("qrCodeEmailSent", member.qrCodeEmailSent());
                 return info;
             }).collect(Collectors.toList());
 
@@ -411,10 +302,10 @@ public class AdminRegistrationController {
             Map<String, Object> data = new HashMap<>();
 
             data.put("members", memberList);
-            data.put("totalCount", filteredMembers.size());
+            data.put("totalCount", memberPage.getTotalElements());
             data.put("page", page);
             data.put("size", size);
-            data.put("totalPages", (filteredMembers.size() + size - 1) / size);
+            data.put("totalPages", memberPage.getTotalPages());
             data.put("criteria", criteria);
             data.put("eventName", event.getName());
 
@@ -440,104 +331,8 @@ public class AdminRegistrationController {
                 return ResponseEntity.badRequest().body(Map.of("status", "error", "message", "Event not found"));
             }
 
-            List<EventMember> allMembers = eventMemberRepository.findByEvent(event);
-
-            Map<String, Object> options = new HashMap<>();
-
-//            地区选项
-            Set<String> regions = allMembers.stream()
-                    .map(EventMember::getRegionDesc)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet());
-            options.put("regions", regions);
-
-//            行业选项 - 从EventMember直接获取
-            Set<String> industries = allMembers.stream()
-                    .map(EventMember::getSiteIndustryDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-            options.put("industries", industries);
-
-//            工作场所选项
-            Set<String> workplaces = allMembers.stream()
-                    .map(EventMember::getWorkplace)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-            options.put("workplaces", workplaces);
-
-//            雇主选项
-            Set<String> employers = allMembers.stream()
-                    .map(EventMember::getEmployer)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-            options.put("employers", employers);
-
-//            子行业选项 - 从EventMember直接获取
-            Set<String> subIndustries = allMembers.stream()
-                    .map(EventMember::getSiteSubIndustryDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-            options.put("subIndustries", subIndustries);
-
-//            年龄选项 - 从EventMember直接获取
-            Set<String> ages = allMembers.stream()
-                    .map(EventMember::getAgeOfMember)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-            options.put("ages", ages);
-
-//            议价组选项 - 从EventMember直接获取
-            Set<String> bargainingGroups = allMembers.stream()
-                    .map(EventMember::getBargainingGroupDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-            options.put("bargainingGroups", bargainingGroups);
-
-//            性别选项 - 从EventMember直接获取
-            Set<String> genders = allMembers.stream()
-                    .map(EventMember::getGenderDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-            options.put("genders", genders);
-
-//            民族地区选项
-            Set<String> ethnicRegions = allMembers.stream()
-                    .map(EventMember::getEthnicRegionDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-            options.put("ethnicRegions", ethnicRegions);
-
-//            会员类型选项 - 从EventMember直接获取
-            Set<String> membershipTypes = allMembers.stream()
-                    .map(EventMember::getMembershipTypeDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-            options.put("membershipTypes", membershipTypes);
-
-//            分支选项 - 从EventMember直接获取
-            Set<String> branches = allMembers.stream()
-                    .map(EventMember::getBranch)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-            options.put("branches", branches);
-
-//            论坛选项 - 从EventMember直接获取
-            Set<String> forums = allMembers.stream()
-                    .map(EventMember::getForumDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-            options.put("forums", forums);
+//            各字段的去重取值 (缓存，数据变更后失效)
+            Map<String, Object> options = new HashMap<>(adminQueryCacheService.getFilterOptions(eventId));
 
 //            注册状态选项
             options.put("registrationStatuses", Arrays.asList(
@@ -753,156 +548,110 @@ public class AdminRegistrationController {
                 return ResponseEntity.ok(response);
             }
 
-            List<EventMember> allMembers = eventMemberRepository.findByEvent(currentBmmEvent);
-
-            // Apply filtering conditions
-            Stream<EventMember> filteredStream = allMembers.stream();
+            // Translate this page's filter vocabulary onto the shared criteria / specifications
+            Map<String, Object> sharedCriteria = new HashMap<>();
+            Specification<EventMember> extra = EventMemberSpecifications.orderByCreatedAtDesc();
 
             // Registration status filter
             String registrationStatus = (String) criteria.get("registrationStatus");
             if (registrationStatus != null && !registrationStatus.isEmpty()) {
-                filteredStream = filteredStream.filter(m -> {
-                    switch (registrationStatus) {
-                        case "registered":
-                            return m.getHasRegistered() != null && m.getHasRegistered();
-                        case "not_registered":
-                            return m.getHasRegistered() == null || !m.getHasRegistered();
-                        case "attending":
-                            return m.getIsAttending() != null && m.getIsAttending();
-                        case "not_attending":
-                            return m.getIsAttending() != null && !m.getIsAttending();
-                        case "special_vote":
-                            return m.getIsSpecialVote() != null && m.getIsSpecialVote();
-                        case "incomplete":
-                            return (m.getHasRegistered() != null && m.getHasRegistered()) &&
-                                    (m.getIsAttending() != null && !m.getIsAttending()) &&
-                                    (m.getAbsenceReason() == null || m.getAbsenceReason().trim().isEmpty());
-                        default:
-                            return true;
-                    }
-                });
+                switch (registrationStatus) {
+                    case "registered":
+                    case "attending":
+                    case "not_attending":
+                        sharedCriteria.put("registrationStatus", registrationStatus);
+                        break;
+                    case "not_registered":
+                        extra = extra.and(EventMemberSpecifications.notRegistered());
+                        break;
+                    case "special_vote":
+                        extra = extra.and(EventMemberSpecifications.isSpecialVote());
+                        break;
+                    case "incomplete":
+                        sharedCriteria.put("isAttending", false);
+                        extra = extra.and(EventMemberSpecifications.registrationIncomplete());
+                        break;
+                    default:
+                        break;
+                }
             }
 
-            // Region filter
-            String region = (String) criteria.get("region");
-            if (region != null && !region.isEmpty()) {
-                filteredStream = filteredStream.filter(m ->
-                        m.getRegionDesc() != null && m.getRegionDesc().equals(region));
-            }
+            // Region / employer filters
+            sharedCriteria.put("region", criteria.get("region"));
+            sharedCriteria.put("employer", criteria.get("employer"));
 
             // Industry filter - supporting multiple field names
             String industry = (String) (criteria.get("industrySubDesc") != null ? criteria.get("industrySubDesc") :
                     criteria.get("industry") != null ? criteria.get("industry") : criteria.get("siteIndustryDesc"));
             if (industry != null && !industry.trim().isEmpty()) {
-                filteredStream = filteredStream.filter(m ->
-                        m.getMember() != null && m.getMember().getSiteIndustryDesc() != null &&
-                                m.getMember().getSiteIndustryDesc().contains(industry));
+                extra = extra.and(EventMemberSpecifications.memberAttributeContains("siteIndustryDesc", industry));
             }
 
             // Workplace filter
             String workplace = (String) criteria.get("workplace");
             if (workplace != null && !workplace.isEmpty()) {
-                filteredStream = filteredStream.filter(m ->
-                        m.getWorkplace() != null && m.getWorkplace().equals(workplace));
-            }
-
-            // Employer filter
-            String employer = (String) criteria.get("employer");
-            if (employer != null && !employer.isEmpty()) {
-                filteredStream = filteredStream.filter(m ->
-                        m.getEmployer() != null && m.getEmployer().equals(employer));
+                extra = extra.and(EventMemberSpecifications.attributeEquals("workplace", workplace));
             }
 
             // Sub-industry filter
             String siteSubIndustryDesc = (String) criteria.get("siteSubIndustryDesc");
             if (siteSubIndustryDesc != null && !siteSubIndustryDesc.isEmpty()) {
-                filteredStream = filteredStream.filter(m ->
-                        m.getMember() != null && m.getMember().getSiteSubIndustryDesc() != null &&
-                                m.getMember().getSiteSubIndustryDesc().equals(siteSubIndustryDesc));
+                extra = extra.and(EventMemberSpecifications.memberAttributeEquals("siteSubIndustryDesc", siteSubIndustryDesc));
             }
 
             // Contact information filter
             String contactInfo = (String) criteria.get("contactInfo");
             if (contactInfo != null && !contactInfo.isEmpty()) {
-                filteredStream = filteredStream.filter(m -> {
-                    boolean hasEmail = m.getPrimaryEmail() != null && !m.getPrimaryEmail().trim().isEmpty()
-                            && !m.getPrimaryEmail().contains("@temp.etu.nz");
-                    boolean hasMobile = m.getTelephoneMobile() != null && !m.getTelephoneMobile().trim().isEmpty();
-
-                    switch (contactInfo) {
-                        case "hasBoth":
-                            return hasEmail && hasMobile;
-                        case "emailOnly":
-                            return hasEmail && !hasMobile;
-                        case "mobileOnly":
-                            return !hasEmail && hasMobile;
-                        case "hasNone":
-                            return !hasEmail && !hasMobile;
-                        default:
-                            return true;
-                    }
-                });
+                extra = extra.and(EventMemberSpecifications.contactInfo(contactInfo));
             }
 
-            // Sort by registration time (newest first)
-            List<EventMember> filteredMembers = filteredStream
-                    .sorted((a, b) -> {
-                        LocalDateTime timeA = a.getCreatedAt();
-                        LocalDateTime timeB = b.getCreatedAt();
-                        if (timeA == null && timeB == null) return 0;
-                        if (timeA == null) return 1;
-                        if (timeB == null) return -1;
-                        return timeB.compareTo(timeA);
-                    })
-                    .collect(Collectors.toList());
-
-            int totalCount = filteredMembers.size();
-            List<EventMember> pagedMembers = filteredMembers.stream()
-                    .skip((long) page * size)
-                    .limit(size)
-                    .collect(Collectors.toList());
+            // Newest first, paged and counted in the database
+            Page<EventMemberSummaryRow> memberPage = eventMemberTargetingService.findSummaryPageByCriteria(
+                    currentBmmEvent.getId(), sharedCriteria, extra, PageRequest.of(page, size));
+            long totalCount = memberPage.getTotalElements();
+            List<EventMemberSummaryRow> pagedMembers = memberPage.getContent();
 
             List<Map<String, Object>> memberList = pagedMembers.stream().map(member -> {
                 Map<String, Object> info = new HashMap<>();
-                info.put("id", member.getId());
-                info.put("membershipNumber", member.getMembershipNumber());
-                info.put("name", member.getName());
-                info.put("primaryEmail", member.getPrimaryEmail());
-                info.put("telephoneMobile", member.getTelephoneMobile());
-                info.put("region", member.getRegionDesc());
-                info.put("industrySubDesc", member.getMember() != null ? member.getMember().getSiteIndustryDesc() : null);
-                info.put("siteSubIndustryDesc", member.getMember() != null ? member.getMember().getSiteSubIndustryDesc() : null);
-                info.put("workplace", member.getWorkplace());
-                info.put("employer", member.getEmployer());
-                info.put("ageOfMember", member.getMember() != null ? member.getMember().getAgeOfMember() : null);
-                info.put("bargainingGroupDesc", member.getMember() != null ? member.getMember().getBargainingGroupDesc() : null);
-                info.put("genderDesc", member.getMember() != null ? member.getMember().getGenderDesc() : null);
-                info.put("ethnicRegionDesc", member.getMember() != null ? member.getMember().getEthnicRegionDesc() : null);
-                info.put("membershipTypeDesc", member.getMember() != null ? member.getMember().getMembershipTypeDesc() : null);
-                info.put("branchDesc", member.getMember() != null ? member.getMember().getBranchDesc() : null);
-                info.put("forumDesc", member.getMember() != null ? member.getMember().getForumDesc() : null);
-                info.put("hasRegistered", member.getHasRegistered());
-                info.put("isAttending", member.getIsAttending());
-                info.put("isSpecialVote", member.getIsSpecialVote());
-                info.put("absenceReason", member.getAbsenceReason());
-                info.put("registrationTime", member.getFormSubmissionTime() != null ? member.getFormSubmissionTime() : member.getCreatedAt());
-                info.put("emailSent", member.getEmailSent());
-                info.put("smsSent", member.getSmsSent());
-                info.put("hasEmail", member.getHasEmail());
-                info.put("hasMobile", member.getHasMobile());
-                info.put("verificationCode", member.getVerificationCode());
-                info.put("payrollNumber", member.getMember() != null ? member.getMember().getPayrollNumber() : null);
-                info.put("siteNumber", member.getMember() != null ? member.getMember().getSiteNumber() : null);
+                info.put("id", member.id());
+                info.put("membershipNumber", member.membershipNumber());
+                info.put("name", member.name());
+                info.put("primaryEmail", member.primaryEmail());
+                info.put("telephoneMobile", member.telephoneMobile());
+                info.put("region", member.regionDesc());
+                info.put("industrySubDesc", member.memberSiteIndustryDesc());
+                info.put("siteSubIndustryDesc", member.memberSiteSubIndustryDesc());
+                info.put("workplace", member.workplace());
+                info.put("employer", member.employer());
+                info.put("ageOfMember", member.memberAgeOfMember());
+                info.put("bargainingGroupDesc", member.memberBargainingGroupDesc());
+                info.put("genderDesc", member.memberGenderDesc());
+                info.put("ethnicRegionDesc", member.memberEthnicRegionDesc());
+                info.put("membershipTypeDesc", member.memberMembershipTypeDesc());
+                info.put("branchDesc", member.memberBranchDesc());
+                info.put("forumDesc", member.memberForumDesc());
+                info.put("hasRegistered", member.hasRegistered());
+                info.put("isAttending", member.isAttending());
+                info.put("isSpecialVote", member.isSpecialVote());
+                info.put("absenceReason", member.absenceReason());
+                info.put("registrationTime", member.registrationTime());
+                info.put("emailSent", member.emailSent());
+                info.put("smsSent", member.smsSent());
+                info.put("hasEmail", member.hasEmail());
+                info.put("hasMobile", member.hasMobile());
+                info.put("verificationCode", member.verificationCode());
+                info.put("payrollNumber", member.memberPayrollNumber());
+                info.put("siteNumber", member.memberSiteNumber());
 
                 // Calculate registration status
                 String status = "not_registered";
-                if (member.getHasRegistered() != null && member.getHasRegistered()) {
-                    if (member.getIsAttending() != null && member.getIsAttending()) {
+                if (member.hasRegistered() != null && member.hasRegistered()) {
+                    if (member.isAttending() != null && member.isAttending()) {
                         status = "attending";
-                    } else if (member.getIsAttending() != null && !member.getIsAttending()) {
-                        if (member.getIsSpecialVote() != null && member.getIsSpecialVote()) {
+                    } else if (member.isAttending() != null && !member.isAttending()) {
+                        if (member.isSpecialVote() != null && member.isSpecialVote()) {
                             status = "special_vote";
-                        } else if (member.getAbsenceReason() == null || member.getAbsenceReason().trim().isEmpty()) {
+                        } else if (member.absenceReason() == null || member.absenceReason().trim().isEmpty()) {
                             status = "incomplete";
                         } else {
                             status = "not_attending";
@@ -921,7 +670,7 @@ public class AdminRegistrationController {
             data.put("totalCount", totalCount);
             data.put("currentPage", page);
             data.put("pageSize", size);
-            data.put("totalPages", (int) Math.ceil((double) totalCount / size));
+            data.put("totalPages", memberPage.getTotalPages());
 
             response.put("status", "success");
             response.put("data", data);
@@ -961,67 +710,8 @@ public class AdminRegistrationController {
                 return ResponseEntity.ok(response);
             }
 
-            List<EventMember> allMembers = eventMemberRepository.findByEvent(currentBmmEvent);
-            log.info("Found {} total members for filter options", allMembers.size());
-
-            // Extract unique filter options
-            Set<String> regions = allMembers.stream()
-                    .map(EventMember::getRegionDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-
-            // Get industries directly from EventMember fields
-            Set<String> industries = allMembers.stream()
-                    .map(EventMember::getSiteIndustryDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-
-            Set<String> subIndustries = allMembers.stream()
-                    .map(EventMember::getSiteSubIndustryDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-
-            Set<String> workplaces = allMembers.stream()
-                    .map(EventMember::getWorkplace)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-
-            Set<String> employers = allMembers.stream()
-                    .map(EventMember::getEmployer)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-
-            Set<String> forums = allMembers.stream()
-                    .map(EventMember::getForumDesc)
-                    .filter(Objects::nonNull)
-                    .filter(s -> !s.trim().isEmpty())
-                    .collect(Collectors.toSet());
-
-            // Note: employerName is now stored directly in EventMember.employer field
-
-            log.info("Filter options extracted - Regions: {}, Industries: {}, SubIndustries: {}, Workplaces: {}, Employers: {}, Forums: {}",
-                    regions.size(), industries.size(), subIndustries.size(), workplaces.size(), employers.size(), forums.size());
-
-            // Log sample data for debugging
-            if (!industries.isEmpty()) {
-                log.info("Sample industries: {}", industries.stream().limit(5).collect(Collectors.toList()));
-            }
-            if (!regions.isEmpty()) {
-                log.info("Sample regions: {}", regions.stream().limit(5).collect(Collectors.toList()));
-            }
-
-            Map<String, Object> options = new HashMap<>();
-            options.put("regions", regions.stream().sorted().collect(Collectors.toList()));
-            options.put("industries", industries.stream().sorted().collect(Collectors.toList()));
-            options.put("subIndustries", subIndustries.stream().sorted().collect(Collectors.toList()));
-            options.put("workplaces", workplaces.stream().sorted().collect(Collectors.toList()));
-            options.put("employers", employers.stream().sorted().collect(Collectors.toList()));
-            options.put("forums", forums.stream().sorted().collect(Collectors.toList()));
+            Map<String, Object> options = new HashMap<>(adminQueryCacheService.getFilterOptions(currentBmmEvent.getId()));
+            options.keySet().retainAll(List.of("regions", "industries", "subIndustries", "workplaces", "employers", "forums"));
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
@@ -2,13 +2,20 @@ package nz.etu.voting.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventMemberExportRow;
 import nz.etu.voting.domain.entity.Event;
 import nz.etu.voting.domain.entity.EventMember;
 import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.service.AdminQueryCacheService;
+import nz.etu.voting.service.ExcelExportService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -16,6 +23,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.Comparator;
+import java.util.function.Predicate;
 
 // Admin reports controller for generating various statistical reports and data analysis
 @Slf4j
@@ -28,6 +36,8 @@ public class AdminReportsController {
 
     private final EventRepository eventRepository;
     private final EventMemberRepository eventMemberRepository;
+    private final AdminQueryCacheService adminQueryCacheService;
+    private final ExcelExportService excelExportService;
 
     //    Get member overview report
     @GetMapping("/members/overview")
@@ -119,43 +129,7 @@ public class AdminReportsController {
 
         try {
             Map<String, Object> response = new HashMap<>();
-            Map<String, Object> data = new HashMap<>();
-
-            List<Event> allEvents = eventRepository.findAll();
-
-            // Event statistics
-            data.put("totalEvents", allEvents.size());
-            data.put("activeEvents", allEvents.stream().filter(e -> e.getIsActive() != null && e.getIsActive()).count());
-            data.put("bmmEvents", allEvents.stream().filter(e -> e.getEventType() == Event.EventType.BMM_VOTING).count());
-
-            // Get current BMM event registration statistics
-            List<Event> bmmEvents = eventRepository.findByEventType(Event.EventType.BMM_VOTING);
-            Event currentBmmEvent = bmmEvents.stream()
-                    .max(Comparator.comparing(Event::getCreatedAt))
-                    .orElse(null);
-
-            if (currentBmmEvent != null) {
-                List<EventMember> eventMembers = eventMemberRepository.findByEvent(currentBmmEvent);
-
-                long totalRegistrations = eventMembers.stream().filter(m -> m.getHasRegistered() != null && m.getHasRegistered()).count();
-                long totalAttending = eventMembers.stream().filter(m -> m.getIsAttending() != null && m.getIsAttending()).count();
-
-                data.put("totalRegistrations", totalRegistrations);
-                data.put("totalAttending", totalAttending);
-                data.put("attendanceRate", totalRegistrations > 0 ? (totalAttending * 100.0 / totalRegistrations) : 0);
-                data.put("currentBmmEvent", currentBmmEvent.getName());
-            } else {
-                data.put("totalRegistrations", 0);
-                data.put("totalAttending", 0);
-                data.put("attendanceRate", 0);
-                data.put("currentBmmEvent", "No BMM event found");
-            }
-
-            // Venue breakdown
-            Map<String, Long> venueStats = allEvents.stream()
-                    .filter(e -> e.getVenue() != null && !e.getVenue().trim().isEmpty())
-                    .collect(Collectors.groupingBy(Event::getVenue, Collectors.counting()));
-            data.put("venueBreakdown", venueStats);
+            Map<String, Object> data = adminQueryCacheService.getEventOverviewReport();
 
             response.put("status", "success");
             response.put("data", data);
@@ -256,86 +230,24 @@ public class AdminReportsController {
         log.info("Exporting members report of type: {}", type);
 
         try {
-            // Get current BMM event
-            List<Event> bmmEvents = eventRepository.findByEventType(Event.EventType.BMM_VOTING);
-            Event currentBmmEvent = bmmEvents.stream()
-                    .max(Comparator.comparing(Event::getCreatedAt))
-                    .orElse(null);
-
+            Event currentBmmEvent = currentBmmEvent();
             if (currentBmmEvent == null) {
                 return ResponseEntity.badRequest().body(Map.of("status", "error", "message", "No BMM event found"));
             }
 
-            List<EventMember> eventMembers = eventMemberRepository.findByEvent(currentBmmEvent);
-            List<EventMember> members;
-
-            switch (type) {
-                case "registered":
-                    members = eventMembers.stream()
-                            .filter(m -> m.getHasRegistered() != null && m.getHasRegistered())
-                            .collect(Collectors.toList());
-                    break;
-                case "attending":
-                    members = eventMembers.stream()
-                            .filter(m -> m.getIsAttending() != null && m.getIsAttending())
-                            .collect(Collectors.toList());
-                    break;
-                case "checked_in":
-                    members = eventMembers.stream()
-                            .filter(m -> m.getCheckedIn() != null && m.getCheckedIn())
-                            .collect(Collectors.toList());
-                    break;
-                case "special_vote":
-                    members = eventMembers.stream()
-                            .filter(m -> m.getIsSpecialVote() != null && m.getIsSpecialVote())
-                            .collect(Collectors.toList());
-                    break;
-                case "email_sent":
-                    members = eventMembers.stream()
-                            .filter(m -> m.getEmailSent() != null && m.getEmailSent())
-                            .collect(Collectors.toList());
-                    break;
-                case "sms_sent":
-                    members = eventMembers.stream()
-                            .filter(m -> m.getSmsSent() != null && m.getSmsSent())
-                            .collect(Collectors.toList());
-                    break;
-                default:
-                    members = eventMembers;
-            }
-
-            // Generate CSV data
-            StringBuilder csvContent = new StringBuilder();
-            csvContent.append("MemberNumber,Name,Email,Mobile,Region,Workplace,Employer,Registered,Attending,CheckedIn,SpecialVote,EmailSent,SmsSent,DataSource,CreatedAt\n");
-
-            for (EventMember member : members) {
-                csvContent.append(String.format("\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\"\n",
-                        member.getMembershipNumber() != null ? member.getMembershipNumber() : "",
-                        member.getName() != null ? member.getName() : "",
-                        member.getPrimaryEmail() != null ? member.getPrimaryEmail() : "",
-                        member.getTelephoneMobile() != null ? member.getTelephoneMobile() : "",
-                        member.getRegionDesc() != null ? member.getRegionDesc() : "",
-                        member.getWorkplace() != null ? member.getWorkplace() : "",
-                        member.getEmployer() != null ? member.getEmployer() : "",
-                        member.getHasRegistered() != null ? member.getHasRegistered().toString() : "false",
-                        member.getIsAttending() != null ? member.getIsAttending().toString() : "false",
-                        member.getCheckedIn() != null ? member.getCheckedIn().toString() : "false",
-                        member.getIsSpecialVote() != null ? member.getIsSpecialVote().toString() : "false",
-                        member.getEmailSent() != null ? member.getEmailSent().toString() : "false",
-                        member.getSmsSent() != null ? member.getSmsSent().toString() : "false",
-                        member.getDataSource() != null ? member.getDataSource() : "",
-                        member.getCreatedAt() != null ? member.getCreatedAt().toString() : ""
-                ));
-            }
+            // Generate CSV data (same columns as the file download below)
+            ByteArrayOutputStream csvContent = new ByteArrayOutputStream();
+            int totalRecords = excelExportService.exportMembersReport(currentBmmEvent, reportFilter(type),
+                    ExcelExportService.Format.CSV, csvContent);
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
             response.put("message", "Member data export successful");
 
             Map<String, Object> data = new HashMap<>();
-            data.put("content", csvContent.toString());
+            data.put("content", csvContent.toString(StandardCharsets.UTF_8));
             data.put("filename", "bmm_members_report_" + type + "_" + LocalDate.now() + ".csv");
-            data.put("totalRecords", members.size());
+            data.put("totalRecords", totalRecords);
             data.put("eventName", currentBmmEvent.getName());
 
             response.put("data", data);
@@ -351,6 +263,60 @@ public class AdminReportsController {
         }
     }
 
+    //    会员数据报告文件下载：format=csv（默认）、csv.gz 或 xlsx，直接从游标写入响应
+    @GetMapping("/export/members/file")
+    public ResponseEntity<StreamingResponseBody> downloadMembersReport(@RequestParam(defaultValue = "all") String type,
+                                                                       @RequestParam(defaultValue = "csv") String format) {
+        try {
+            ExcelExportService.Format exportFormat = ExcelExportService.Format.of(format);
+            Event currentBmmEvent = currentBmmEvent();
+            if (currentBmmEvent == null) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            String filename = "bmm_members_report_" + type + "_" + LocalDate.now() + "." + exportFormat.extension();
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(exportFormat.mediaType());
+            headers.setContentDispositionFormData("attachment", filename);
+
+            return ResponseEntity.ok().headers(headers).body(out -> {
+                int rows = excelExportService.exportMembersReport(currentBmmEvent, reportFilter(type), exportFormat, out);
+                log.info("Exported {} members to {}", rows, filename);
+            });
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Failed to export members report", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    private Event currentBmmEvent() {
+        return eventRepository.findByEventType(Event.EventType.BMM_VOTING).stream()
+                .max(Comparator.comparing(Event::getCreatedAt))
+                .orElse(null);
+    }
+
+    private static Predicate<EventMemberExportRow> reportFilter(String type) {
+        switch (type) {
+            case "registered":
+                return m -> m.hasRegistered() != null && m.hasRegistered();
+            case "attending":
+                return m -> m.isAttending() != null && m.isAttending();
+            case "checked_in":
+                return m -> m.checkedIn() != null && m.checkedIn();
+            case "special_vote":
+                return m -> m.isSpecialVote() != null && m.isSpecialVote();
+            case "email_sent":
+                return m -> m.emailSent() != null && m.emailSent();
+            case "sms_sent":
+                return m -> m.smsSent() != null && m.smsSent();
+            default:
+                return m -> true;
+        }
+    }
+
     @GetMapping("/export/checkin-details/{eventId}")
     public ResponseEntity<Map<String, Object>> exportCheckinDetails(@PathVariable Long eventId) {
         log.info("Exporting detailed checkin report for event: {}", eventId);
@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import nz.etu.voting.domain.entity.Event;
 import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.MemberRepository;
+import nz.etu.voting.service.AdminQueryCacheService;
 import nz.etu.voting.service.InformerSyncService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -26,6 +27,7 @@ public class AdminSettingsController {
     private final EventRepository eventRepository;
     private final MemberRepository memberRepository;
     private final InformerSyncService informerSyncService;
+    private final AdminQueryCacheService adminQueryCacheService;
 
     //    获取系统设置
     @GetMapping("")
@@ -368,4 +370,25 @@ public class AdminSettingsController {
             return ResponseEntity.internalServerError().body(response);
         }
     }
-}
\ No newline at end of file
+
+    //    查询缓存命中/未命中统计
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("data", adminQueryCacheService.getCacheStats());
+        return ResponseEntity.ok(response);
+    }
+
+    //    手动清空查询缓存
+    @PostMapping("/cache-clear")
+    public ResponseEntity<Map<String, Object>> clearCaches() {
+        log.info("Clearing admin query caches");
+        adminQueryCacheService.clearAll();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "Caches cleared");
+        return ResponseEntity.ok(response);
+    }
+}
@@ -2,7 +2,9 @@ package nz.etu.voting.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventMemberContactRow;
 import nz.etu.voting.domain.entity.Member;
+import nz.etu.voting.domain.entity.AudienceSegment;
 import nz.etu.voting.domain.entity.NotificationLog;
 import nz.etu.voting.domain.entity.Event;
 import nz.etu.voting.domain.entity.EventMember;
@@ -10,9 +12,13 @@ import nz.etu.voting.repository.MemberRepository;
 import nz.etu.voting.repository.NotificationLogRepository;
 import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.repository.EventMemberSpecifications;
 import nz.etu.voting.service.SmsService;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -27,6 +33,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.Objects;
 
+import nz.etu.voting.service.AudienceSegmentService;
 import nz.etu.voting.service.EventMemberTargetingService;
 
 // Admin SMS sending controller and Supports bulk SMS sending and statistics
@@ -47,6 +54,10 @@ public class AdminSmsController {
     @Value("${app.rabbitmq.queue.sms}")
     private String smsQueue;
     private final EventMemberTargetingService eventMemberTargetingService;
+    private final AudienceSegmentService audienceSegmentService;
+
+    // preview-by-criteria returns one page of recipients plus the full count
+    private static final int DEFAULT_PREVIEW_PAGE_SIZE = 100;
 
     // Get first name from EventMember
     private String getFirstName(EventMember eventMember) {
@@ -148,16 +159,21 @@ public class AdminSmsController {
 
             log.info("Filtering members by criteria: {} (eventId: {})", criteria, eventId);
 
-            List<EventMember> validSmsMembers;
+            List<EventMemberContactRow> validSmsMembers;
+            long totalCount;
+            Map<String, Object> paging = new HashMap<>();
 
             if (eventId != null) {
-                // CRITICAL: 使用多表联合查询 - 修复关键问题
-                List<EventMember> filteredEventMembers = eventMemberTargetingService.getFilteredEventMembers(eventId, criteria);
-
-                // Filter EventMembers with valid mobile numbers and convert to EventMembers
-                validSmsMembers = filteredEventMembers.stream()
-                        .filter(em -> em.getTelephoneMobile() != null && !em.getTelephoneMobile().trim().isEmpty())
-                        .collect(Collectors.toList());
+                // 数据库分页：只生成实际提供的条件，计数也在数据库完成
+                int page = request.get("page") != null ? Integer.parseInt(request.get("page").toString()) : 0;
+                int size = request.get("size") != null ? Integer.parseInt(request.get("size").toString()) : DEFAULT_PREVIEW_PAGE_SIZE;
+                Page<EventMemberContactRow> previewPage = eventMemberTargetingService.findContactPageByCriteria(
+                        eventId, criteria, EventMemberSpecifications.hasMobileNumber(), PageRequest.of(page, size, Sort.by("id")));
+                validSmsMembers = previewPage.getContent();
+                totalCount = previewPage.getTotalElements();
+                paging.put("page", page);
+                paging.put("size", size);
+                paging.put("totalPages", previewPage.getTotalPages());
             } else {
                 // For cases without eventId, use old logic but needs improvement
                 List<EventMember> filteredMembers = getFilteredEventMembers(criteria, eventId);
@@ -165,41 +181,44 @@ public class AdminSmsController {
                 // Filter EventMembers with valid mobile numbers only
                 validSmsMembers = filteredMembers.stream()
                         .filter(em -> em.getTelephoneMobile() != null && !em.getTelephoneMobile().trim().isEmpty())
+                        .map(EventMemberContactRow::of)
                         .collect(Collectors.toList());
+                totalCount = validSmsMembers.size();
             }
 
             // Convert EventMembers to DTO to avoid deep serialization
             List<Map<String, Object>> memberDTOs = validSmsMembers.stream().map(eventMember -> {
                 Map<String, Object> dto = new HashMap<>();
-                dto.put("id", eventMember.getId());
-                dto.put("name", eventMember.getName());
-                dto.put("mobile", eventMember.getTelephoneMobile());
-                dto.put("membershipNumber", eventMember.getMembershipNumber());
-                dto.put("verificationCode", eventMember.getVerificationCode());
-                dto.put("hasRegistered", eventMember.getHasRegistered());
-                dto.put("regionDesc", eventMember.getRegionDesc());
-                dto.put("siteIndustryDesc", eventMember.getSiteIndustryDesc());
-                dto.put("siteSubIndustryDesc", eventMember.getSiteSubIndustryDesc());
-                dto.put("workplace", eventMember.getWorkplace());
-                dto.put("employer", eventMember.getEmployer());
+                dto.put("id", eventMember.id());
+                dto.put("name", eventMember.name());
+                dto.put("mobile", eventMember.telephoneMobile());
+                dto.put("membershipNumber", eventMember.membershipNumber());
+                dto.put("verificationCode", eventMember.verificationCode());
+                dto.put("hasRegistered", eventMember.hasRegistered());
+                dto.put("regionDesc", eventMember.regionDesc());
+                dto.put("siteIndustryDesc", eventMember.siteIndustryDesc());
+                dto.put("siteSubIndustryDesc", eventMember.siteSubIndustryDesc());
+                dto.put("workplace", eventMember.workplace());
+                dto.put("employer", eventMember.employer());
                 // CRITICAL: 添加更多状态信息
-                dto.put("isAttending", eventMember.getIsAttending());
-                dto.put("hasVoted", eventMember.getHasVoted());
-                dto.put("genderDesc", eventMember.getGenderDesc());
-                dto.put("bargainingGroupDesc", eventMember.getBargainingGroupDesc());
+                dto.put("isAttending", eventMember.isAttending());
+                dto.put("hasVoted", eventMember.hasVoted());
+                dto.put("genderDesc", eventMember.genderDesc());
+                dto.put("bargainingGroupDesc", eventMember.bargainingGroupDesc());
                 return dto;
             }).collect(Collectors.toList());
 
             Map<String, Object> data = new HashMap<>();
             data.put("members", memberDTOs);
-            data.put("totalCount", memberDTOs.size());
+            data.put("totalCount", totalCount);
+            data.putAll(paging);
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
             response.put("message", "SMS preview by criteria generated successfully");
             response.put("data", data);
 
-            log.info("SMS preview by criteria generated: {} recipients", validSmsMembers.size());
+            log.info("SMS preview by criteria generated: {} recipients ({} in this page)", totalCount, validSmsMembers.size());
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
@@ -219,6 +238,19 @@ public class AdminSmsController {
             @SuppressWarnings("unchecked")
             Map<String, Object> criteria = (Map<String, Object>) request.get("criteria");
             Long eventId = request.get("eventId") != null ? Long.valueOf(request.get("eventId").toString()) : null;
+            Long segmentId = request.get("segmentId") != null ? Long.valueOf(request.get("segmentId").toString()) : null;
+            AudienceSegment segment = segmentId != null ? audienceSegmentService.getSegment(segmentId) : null;
+            if (segment != null) {
+                // 保存的受众分组：成员集合已物化，条件只用于统计展示
+                if (eventId != null && !eventId.equals(segment.getEventId())) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("status", "error");
+                    response.put("message", "Segment does not belong to this event");
+                    return ResponseEntity.badRequest().body(response);
+                }
+                eventId = segment.getEventId();
+                criteria = audienceSegmentService.getCriteria(segment);
+            }
 
             if (eventId == null) {
                 Map<String, Object> response = new HashMap<>();
@@ -229,20 +261,11 @@ public class AdminSmsController {
 
             log.info("Advanced filtering for eventId: {} with criteria: {}", eventId, criteria);
 
-            // CRITICAL: 使用多表联合查询过滤EventMember
-            List<EventMember> filteredEventMembers = eventMemberTargetingService.getFilteredEventMembers(eventId, criteria);
-
-            // Only keep SMS-only members (has mobile but no real email)
-            List<EventMember> smsableMembers = filteredEventMembers.stream()
-                    .filter(em -> {
-                        boolean hasMobile = em.getTelephoneMobile() != null && !em.getTelephoneMobile().trim().isEmpty();
-                        boolean hasRealEmail = em.getPrimaryEmail() != null &&
-                                !em.getPrimaryEmail().trim().isEmpty() &&
-                                !em.getPrimaryEmail().contains("@temp-email.etu.nz");
-                        // Only include if they have mobile and no real email
-                        return hasMobile && !hasRealEmail;
-                    })
-                    .collect(Collectors.toList());
+            // CRITICAL: 条件与SMS-only（有手机、无真实邮箱）都在事件名册的位图索引上求值，只加载最终收件人
+            EventMemberTargetingService.Audience audience = segment != null
+                    ? eventMemberTargetingService.getSmsOnlyAudience(eventId, audienceSegmentService.getAllMemberIds(segmentId))
+                    : eventMemberTargetingService.getSmsOnlyAudience(eventId, criteria);
+            List<EventMember> smsableMembers = eventMemberTargetingService.loadEventMembers(audience.recipientIds());
 
             // Convert to DTO format with richer data for frontend display
             List<Map<String, Object>> memberDTOs = smsableMembers.stream().map(eventMember -> {
@@ -286,9 +309,9 @@ public class AdminSmsController {
             Map<String, Object> data = new HashMap<>();
             data.put("members", memberDTOs);
             data.put("totalCount", smsableMembers.size());
-            data.put("totalFiltered", filteredEventMembers.size());
+            data.put("totalFiltered", audience.totalFiltered());
             data.put("smsableCount", smsableMembers.size());
-            data.put("nonSmsableCount", filteredEventMembers.size() - smsableMembers.size());
+            data.put("nonSmsableCount", audience.totalFiltered() - smsableMembers.size());
             data.put("stats", previewStats);
 
             Map<String, Object> response = new HashMap<>();
@@ -297,7 +320,7 @@ public class AdminSmsController {
             response.put("data", data);
 
             log.info("Advanced SMS preview generated: {} total filtered, {} SMS-able recipients",
-                    filteredEventMembers.size(), smsableMembers.size());
+                    audience.totalFiltered(), smsableMembers.size());
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
@@ -1104,6 +1127,17 @@ public class AdminSmsController {
             @SuppressWarnings("unchecked")
             Map<String, Object> criteria = (Map<String, Object>) request.get("criteria");
             Long eventId = request.get("eventId") != null ? Long.valueOf(request.get("eventId").toString()) : null;
+            Long segmentId = request.get("segmentId") != null ? Long.valueOf(request.get("segmentId").toString()) : null;
+            AudienceSegment segment = segmentId != null ? audienceSegmentService.getSegment(segmentId) : null;
+            if (segment != null) {
+                // 保存的受众分组：直接使用已物化的成员集合，不再按条件求值
+                if (eventId != null && !eventId.equals(segment.getEventId())) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("status", "error");
+                    response.put("message", "Segment does not belong to this event");
+                    return ResponseEntity.badRequest().body(response);
+                }
+            }
             String message = (String) request.get("message");
             String smsType = (String) request.get("smsType");
 
@@ -1148,24 +1182,15 @@ public class AdminSmsController {
 
                 log.info("Found {} SMS-able members from {} selected memberIds", smsableMembers.size(), memberIds.size());
             } else {
-                // No specific selection - use filter criteria
-                // CRITICAL: 使用多表联合查询获取目标成员
-                List<EventMember> filteredEventMembers = eventMemberTargetingService.getFilteredEventMembers(eventId, criteria);
-
-                // For SMS, filter to only members with mobile but no real email
-                smsableMembers = filteredEventMembers.stream()
-                        .filter(em -> {
-                            boolean hasMobile = em.getTelephoneMobile() != null && !em.getTelephoneMobile().trim().isEmpty();
-                            boolean hasRealEmail = em.getPrimaryEmail() != null &&
-                                    !em.getPrimaryEmail().trim().isEmpty() &&
-                                    !em.getPrimaryEmail().contains("@temp-email.etu.nz");
-                            // Only include if they have mobile and no real email
-                            return hasMobile && !hasRealEmail;
-                        })
-                        .collect(Collectors.toList());
+                // No specific selection - saved segment membership, otherwise filter criteria
+                // For SMS, only members with mobile but no real email
+                EventMemberTargetingService.Audience audience = segment != null
+                        ? eventMemberTargetingService.getSmsOnlyAudience(eventId, audienceSegmentService.getAllMemberIds(segmentId))
+                        : eventMemberTargetingService.getSmsOnlyAudience(eventId, criteria);
+                smsableMembers = eventMemberTargetingService.loadEventMembers(audience.recipientIds());
 
                 log.info("Filtered {} SMS-only members from {} total members",
-                        smsableMembers.size(), filteredEventMembers.size());
+                        smsableMembers.size(), audience.totalFiltered());
             }
 
             // 发送短信
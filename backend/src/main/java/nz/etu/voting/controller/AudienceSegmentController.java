@@ -0,0 +1,121 @@
+package nz.etu.voting.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventMemberContactRow;
+import nz.etu.voting.domain.dto.EventMemberRow;
+import nz.etu.voting.domain.dto.response.ApiResponse;
+import nz.etu.voting.domain.entity.AudienceSegment;
+import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.service.AudienceSegmentService;
+import nz.etu.voting.util.KeysetCursor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saved audience segments. The email/SMS preview-advanced and send-advanced endpoints accept a {@code segmentId}
+ * in place of criteria to use a segment's materialised membership.
+ */
+@RestController
+@RequestMapping("/api/admin/audience-segments")
+@CrossOrigin(origins = {"http://localhost:3000","http://10.0.9.238:3000","https://events.etu.nz"})
+@RequiredArgsConstructor
+@Slf4j
+public class AudienceSegmentController {
+
+    private static final int MAX_PAGE_SIZE = 2000;
+
+    private final AudienceSegmentService audienceSegmentService;
+    private final EventMemberRepository eventMemberRepository;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<AudienceSegment>>> getSegments(@RequestParam Long eventId) {
+        return ResponseEntity.ok(ApiResponse.success("Segments retrieved successfully", audienceSegmentService.getSegments(eventId)));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<AudienceSegment>> getSegment(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Segment retrieved successfully", audienceSegmentService.getSegment(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    //    body: {eventId, name, criteria} - criteria 与邮件/短信高级预览相同
+    @PostMapping
+    public ResponseEntity<ApiResponse<AudienceSegment>> createSegment(@RequestBody Map<String, Object> request,
+                                                                     Authentication authentication) {
+        try {
+            Long eventId = request.get("eventId") != null ? Long.valueOf(request.get("eventId").toString()) : null;
+            if (eventId == null) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Event ID is required"));
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> criteria = (Map<String, Object>) request.get("criteria");
+
+            AudienceSegment segment = audienceSegmentService.createSegment(eventId, (String) request.get("name"), criteria,
+                    authentication != null ? authentication.getName() : null);
+            return ResponseEntity.ok(ApiResponse.success("Segment created successfully", segment));
+        } catch (Exception e) {
+            log.error("Failed to create audience segment: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to create segment: " + e.getMessage()));
+        }
+    }
+
+    // Full re-evaluation on demand
+    @PostMapping("/{id}/refresh")
+    public ResponseEntity<ApiResponse<AudienceSegment>> refreshSegment(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Segment refreshed successfully", audienceSegmentService.refreshSegment(id)));
+        } catch (Exception e) {
+            log.error("Failed to refresh audience segment {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> deleteSegment(@PathVariable Long id) {
+        try {
+            audienceSegmentService.deleteSegment(id);
+            return ResponseEntity.ok(ApiResponse.success("Segment deleted successfully", null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    // Segment members in id order, one keyset page at a time
+    @GetMapping("/{id}/members")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getSegmentMembers(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "500") int size,
+            @RequestParam(required = false) String cursor) {
+        try {
+            audienceSegmentService.getSegment(id);
+            int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            Long afterId = cursor != null ? (Long) KeysetCursor.decode(cursor).getKeys().get("id") : null;
+
+            List<Long> ids = audienceSegmentService.getMemberIds(id, afterId, pageSize + 1);
+            boolean hasMore = ids.size() > pageSize;
+            List<Long> pageIds = hasMore ? ids.subList(0, pageSize) : ids;
+            List<EventMemberContactRow> members = pageIds.isEmpty() ? List.of()
+                    : EventMemberRow.inIdOrder(pageIds, eventMemberRepository.findContactRowsByIds(pageIds));
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("members", members);
+            data.put("hasMore", hasMore);
+            data.put("nextCursor", hasMore ? KeysetCursor.encode(Map.of("id", pageIds.get(pageIds.size() - 1))) : null);
+            return ResponseEntity.ok(ApiResponse.success("Segment members retrieved successfully", data));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to retrieve members of audience segment {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -10,6 +10,7 @@ import nz.etu.voting.domain.entity.EventMember;
 import nz.etu.voting.domain.entity.FinancialForm;
 import nz.etu.voting.repository.EventMemberRepository;
 import nz.etu.voting.repository.FinancialFormRepository;
+import nz.etu.voting.service.AdminQueryCacheService;
 import nz.etu.voting.service.BmmService;
 import nz.etu.voting.service.TicketEmailService;
 import nz.etu.voting.service.StratumService;
@@ -38,6 +39,7 @@ public class BmmController {
     private final TicketEmailService ticketEmailService;
     private final StratumService stratumService;
     private final FinancialFormRepository financialFormRepository;
+    private final AdminQueryCacheService adminQueryCacheService;
 
     /**
      * Submit BMM preferences - Stage 1
@@ -89,7 +91,7 @@ public class BmmController {
     public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getBmmVenues() {
         try {
             // Load venues from configuration
-            List<Map<String, Object>> venues = loadBmmVenuesConfig();
+            List<Map<String, Object>> venues = adminQueryCacheService.getBmmVenues();
             return ResponseEntity.ok(ApiResponse.success("Venues retrieved successfully", venues));
         } catch (Exception e) {
             log.error("Error fetching BMM venues: {}", e.getMessage(), e);
@@ -125,41 +127,6 @@ public class BmmController {
         }
     }
 
-    private List<Map<String, Object>> loadBmmVenuesConfig() {
-        List<Map<String, Object>> allVenues = new java.util.ArrayList<>();
-        try {
-            // Load venues from configuration file
-            java.io.InputStream inputStream = getClass().getResourceAsStream("/bmm-venues-config.json");
-            if (inputStream != null) {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                Map<String, Object> config = mapper.readValue(inputStream, Map.class);
-                Map<String, Map<String, Object>> regions = (Map<String, Map<String, Object>>) config.get("regions");
-
-                // Extract venues from all regions
-                for (Map.Entry<String, Map<String, Object>> regionEntry : regions.entrySet()) {
-                    String regionName = regionEntry.getKey();
-                    List<Map<String, Object>> regionVenues = (List<Map<String, Object>>) regionEntry.getValue().get("venues");
-
-                    // Add region name to each venue
-                    for (Map<String, Object> venue : regionVenues) {
-                        venue.put("region", regionName);
-                        allVenues.add(venue);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.error("Failed to load BMM venues config: {}", e.getMessage());
-            // Return sample data as fallback
-            Map<String, Object> venue1 = new HashMap<>();
-            venue1.put("name", "Auckland Central");
-            venue1.put("address", "Alexandra Park – Tasman Room, 233 Green Lane West, Epsom, Auckland");
-            venue1.put("region", "Northern Region");
-            venue1.put("capacity", 800);
-            allVenues.add(venue1);
-        }
-        return allVenues;
-    }
-
     /**
      * Update financial form data only (without confirming attendance)
      */
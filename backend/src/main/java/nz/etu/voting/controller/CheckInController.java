@@ -2,16 +2,17 @@ package nz.etu.voting.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventMemberCheckinRow;
 import nz.etu.voting.domain.dto.response.ApiResponse;
 import nz.etu.voting.domain.entity.Event;
 import nz.etu.voting.domain.entity.EventMember;
 import nz.etu.voting.repository.EventMemberRepository;
 import nz.etu.voting.repository.EventRepository;
+import nz.etu.voting.service.CheckinService;
 import nz.etu.voting.service.QRCodeService;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.time.LocalDateTime;
 import java.util.*;
 
 @Slf4j
@@ -25,6 +26,7 @@ public class CheckInController {
     private final EventMemberRepository eventMemberRepository;
     private final QRCodeService qrCodeService;
     private final EventRepository eventRepository;
+    private final CheckinService checkinService;
 
     @PostMapping("/{token}")
     public ResponseEntity<ApiResponse<Map<String, Object>>> checkInMember(@PathVariable String token) {
@@ -51,9 +53,14 @@ public class CheckInController {
                 return ResponseEntity.ok(ApiResponse.success("Member already checked in", response));
             }
 
-            member.setCheckedIn(true);
-            member.setCheckInTime(LocalDateTime.now());
-            eventMemberRepository.save(member);
+            if (checkinService.checkIn(member, new CheckinService.Checkin(null, null, null, null, null, null, false)).isEmpty()) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("message", "Member already checked in");
+                response.put("checkInTime", member.getCheckInTime());
+                response.put("memberInfo", buildMemberInfo(member));
+
+                return ResponseEntity.ok(ApiResponse.success("Member already checked in", response));
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Check-in successful!");
@@ -96,9 +103,13 @@ public class CheckInController {
         }
     }
 
+    // PNG by default; SVG or half-block text with ?format=svg|txt or an Accept header naming image/svg+xml or text/plain
     @GetMapping("/{token}/qrcode")
-    public ResponseEntity<byte[]> generateQRCode(@PathVariable String token) {
+    public ResponseEntity<byte[]> generateQRCode(@PathVariable String token,
+                                                 @RequestParam(required = false) String format,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
+            QRCodeService.Format qrFormat = QRCodeService.Format.negotiate(format, accept);
             UUID memberToken = UUID.fromString(token);
             Optional<EventMember> memberOpt = eventMemberRepository.findByToken(memberToken);
 
@@ -107,12 +118,18 @@ public class CheckInController {
             }
 
             EventMember member = memberOpt.get();
-            byte[] qrCode = qrCodeService.generateQRCodeForEventMember(member);
+            QRCodeService.QRImage qrCode = qrCodeService.memberQRCode(member, qrFormat);
 
+            // If-None-Match匹配时Spring直接返回304
             return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_PNG)
-                    .body(qrCode);
+                    .contentType(qrCode.format().mediaType())
+                    .eTag(qrCode.etag())
+                    .cacheControl(qrCodeService.cacheControl())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(qrCode.data());
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Failed to generate QR code: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
@@ -158,25 +175,25 @@ public class CheckInController {
             }
 
             Event event = eventOpt.get();
-            List<EventMember> eventMembers = eventMemberRepository.findByEvent(event);
+            List<EventMemberCheckinRow> eventMembers = eventMemberRepository.findCheckinRowsByEventId(event.getId());
 
             List<Map<String, Object>> membersList = eventMembers.stream().map(member -> {
                 Map<String, Object> memberData = new HashMap<>();
-                memberData.put("id", member.getId());
-                memberData.put("name", member.getName());
-                memberData.put("membershipNumber", member.getMembershipNumber());
-                memberData.put("primaryEmail", member.getPrimaryEmail());
-                memberData.put("telephoneMobile", member.getTelephoneMobile());
+                memberData.put("id", member.id());
+                memberData.put("name", member.name());
+                memberData.put("membershipNumber", member.membershipNumber());
+                memberData.put("primaryEmail", member.primaryEmail());
+                memberData.put("telephoneMobile", member.telephoneMobile());
                 memberData.put("eventId", event.getId());
                 memberData.put("eventName", event.getName());
                 memberData.put("eventCode", event.getEventCode());
-                memberData.put("isAttending", member.getIsAttending());
-                memberData.put("checkedIn", member.getCheckedIn());
-                memberData.put("checkInTime", member.getCheckInTime());
-                memberData.put("hasVoted", member.getHasVoted());
-                memberData.put("isSpecialVote", member.getIsSpecialVote());
-                memberData.put("hasRegistered", member.getHasRegistered());
-                memberData.put("token", member.getToken().toString());
+                memberData.put("isAttending", member.isAttending());
+                memberData.put("checkedIn", member.checkedIn());
+                memberData.put("checkInTime", member.checkInTime());
+                memberData.put("hasVoted", member.hasVoted());
+                memberData.put("isSpecialVote", member.isSpecialVote());
+                memberData.put("hasRegistered", member.hasRegistered());
+                memberData.put("token", member.token().toString());
                 return memberData;
             }).toList();
 
@@ -239,13 +256,8 @@ public class CheckInController {
             }
 
             Map<String, Object> response = new HashMap<>();
-            boolean alreadyCheckedIn = member.getCheckedIn();
-
-            if (!alreadyCheckedIn) {
-                member.setCheckedIn(true);
-                member.setCheckInTime(LocalDateTime.now());
-                eventMemberRepository.save(member);
-            }
+            boolean alreadyCheckedIn = Boolean.TRUE.equals(member.getCheckedIn())
+                    || checkinService.checkIn(member, new CheckinService.Checkin(null, null, null, null, null, null, false)).isEmpty();
 
             response.put("alreadyCheckedIn", alreadyCheckedIn);
             response.put("checkInTime", member.getCheckInTime());
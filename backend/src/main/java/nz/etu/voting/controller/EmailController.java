@@ -2,20 +2,27 @@ package nz.etu.voting.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventMemberContactRow;
 import nz.etu.voting.domain.dto.request.BulkEmailRequest;
 import nz.etu.voting.domain.dto.request.SingleEmailRequest;
 import nz.etu.voting.domain.dto.response.ApiResponse;
 import nz.etu.voting.domain.dto.response.EmailResponse;
+import nz.etu.voting.domain.entity.AudienceSegment;
 import nz.etu.voting.domain.entity.NotificationLog;
 import nz.etu.voting.domain.entity.Event;
 import nz.etu.voting.domain.entity.EventMember;
 import nz.etu.voting.repository.NotificationLogRepository;
 import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.repository.EventMemberSpecifications;
 import nz.etu.voting.service.EmailService;
+import nz.etu.voting.service.AudienceSegmentService;
 import nz.etu.voting.service.EventMemberTargetingService;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -40,9 +47,13 @@ public class EmailController {
     private final EventMemberRepository eventMemberRepository;
     private final RabbitTemplate rabbitTemplate;
     private final EventMemberTargetingService eventMemberTargetingService;
+    private final AudienceSegmentService audienceSegmentService;
     @Value("${app.rabbitmq.queue.email}")
     private String emailQueue;
 
+    // preview-by-criteria returns one page of recipients plus the full count
+    private static final int DEFAULT_PREVIEW_PAGE_SIZE = 100;
+
 
     // 重载方法处理EventMember对象
     private String getFirstName(EventMember eventMember) {
@@ -772,19 +783,21 @@ public class EmailController {
 
             log.info("Applying preview criteria: {}", criteria);
 
-            List<EventMember> validEmailMembers;
+            List<EventMemberContactRow> validEmailMembers;
+            long totalCount;
+            Map<String, Object> paging = new HashMap<>();
 
             if (eventId != null) {
-                // CRITICAL: 使用多表联合查询 - 修复关键问题
-                List<EventMember> filteredEventMembers = eventMemberTargetingService.getFilteredEventMembers(eventId, criteria);
-
-                // Filter EventMembers with valid email addresses and convert to Members
-                validEmailMembers = filteredEventMembers.stream()
-                        .filter(em -> em.getHasEmail() != null && em.getHasEmail() &&
-                                em.getPrimaryEmail() != null &&
-                                !em.getPrimaryEmail().trim().isEmpty() &&
-                                !em.getPrimaryEmail().contains("@temp-email.etu.nz"))
-                        .collect(Collectors.toList());
+                // 数据库分页：只生成实际提供的条件，计数也在数据库完成
+                int page = request.get("page") != null ? Integer.parseInt(request.get("page").toString()) : 0;
+                int size = request.get("size") != null ? Integer.parseInt(request.get("size").toString()) : DEFAULT_PREVIEW_PAGE_SIZE;
+                Page<EventMemberContactRow> previewPage = eventMemberTargetingService.findContactPageByCriteria(
+                        eventId, criteria, EventMemberSpecifications.emailable(), PageRequest.of(page, size, Sort.by("id")));
+                validEmailMembers = previewPage.getContent();
+                totalCount = previewPage.getTotalElements();
+                paging.put("page", page);
+                paging.put("size", size);
+                paging.put("totalPages", previewPage.getTotalPages());
             } else {
                 // For cases without eventId, use old logic but needs improvement
                 List<EventMember> eventMembers = getFilteredMembers(criteria, eventId);
@@ -793,48 +806,50 @@ public class EmailController {
                         .filter(em -> em.getPrimaryEmail() != null &&
                                 !em.getPrimaryEmail().trim().isEmpty() &&
                                 !em.getPrimaryEmail().contains("@temp-email.etu.nz"))
+                        .map(EventMemberContactRow::of)
                         .collect(Collectors.toList());
+                totalCount = validEmailMembers.size();
             }
 
             // Convert to preview format
             List<Map<String, Object>> memberPreview = validEmailMembers.stream().map(member -> {
                 Map<String, Object> info = new HashMap<>();
-                info.put("id", member.getId());
-                info.put("name", member.getName());
-                info.put("primaryEmail", member.getPrimaryEmail());
-                info.put("membershipNumber", member.getMembershipNumber());
-                info.put("regionDesc", member.getRegionDesc());
-                info.put("siteIndustryDesc", member.getSiteIndustryDesc());
-                info.put("siteSubIndustryDesc", member.getSiteSubIndustryDesc());
-                info.put("workplaceDesc", member.getWorkplaceDesc());
-                info.put("employerName", member.getEmployer());
-                info.put("branchDesc", member.getBranch());
-                info.put("forumDesc", member.getForumDesc());
-                info.put("membershipTypeDesc", member.getMembershipTypeDesc());
-                info.put("genderDesc", member.getGenderDesc());
-                info.put("ethnicRegionDesc", member.getEthnicRegionDesc());
-                info.put("occupation", member.getOccupation());
-                info.put("bargainingGroupDesc", member.getBargainingGroupDesc());
-                info.put("verificationCode", member.getVerificationCode());
+                info.put("id", member.id());
+                info.put("name", member.name());
+                info.put("primaryEmail", member.primaryEmail());
+                info.put("membershipNumber", member.membershipNumber());
+                info.put("regionDesc", member.regionDesc());
+                info.put("siteIndustryDesc", member.siteIndustryDesc());
+                info.put("siteSubIndustryDesc", member.siteSubIndustryDesc());
+                info.put("workplaceDesc", member.workplaceDesc());
+                info.put("employerName", member.employer());
+                info.put("branchDesc", member.branch());
+                info.put("forumDesc", member.forumDesc());
+                info.put("membershipTypeDesc", member.membershipTypeDesc());
+                info.put("genderDesc", member.genderDesc());
+                info.put("ethnicRegionDesc", member.ethnicRegionDesc());
+                info.put("occupation", member.occupation());
+                info.put("bargainingGroupDesc", member.bargainingGroupDesc());
+                info.put("verificationCode", member.verificationCode());
                 // CRITICAL: 添加注册状态信息
-                info.put("hasRegistered", member.getHasRegistered());
-                info.put("isAttending", member.getIsAttending());
-                info.put("hasVoted", member.getHasVoted());
+                info.put("hasRegistered", member.hasRegistered());
+                info.put("isAttending", member.isAttending());
+                info.put("hasVoted", member.hasVoted());
                 return info;
             }).collect(Collectors.toList());
 
             Map<String, Object> response = new HashMap<>();
             Map<String, Object> data = new HashMap<>();
             data.put("members", memberPreview);
-            data.put("totalCount", validEmailMembers.size());
+            data.put("totalCount", totalCount);
+            data.putAll(paging);
             data.put("appliedCriteria", criteria);
 
             response.put("status", "success");
-            response.put("message", String.format("Preview generated: %d members with valid emails",
-                    validEmailMembers.size()));
+            response.put("message", String.format("Preview generated: %d members with valid emails", totalCount));
             response.put("data", data);
 
-            log.info("Preview generated: {} members with valid emails", validEmailMembers.size());
+            log.info("Preview generated: {} members with valid emails ({} in this page)", totalCount, validEmailMembers.size());
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
@@ -854,6 +869,19 @@ public class EmailController {
             @SuppressWarnings("unchecked")
             Map<String, Object> criteria = (Map<String, Object>) request.get("criteria");
             Long eventId = request.get("eventId") != null ? Long.valueOf(request.get("eventId").toString()) : null;
+            Long segmentId = request.get("segmentId") != null ? Long.valueOf(request.get("segmentId").toString()) : null;
+            AudienceSegment segment = segmentId != null ? audienceSegmentService.getSegment(segmentId) : null;
+            if (segment != null) {
+                // 保存的受众分组：成员集合已物化，条件只用于统计展示
+                if (eventId != null && !eventId.equals(segment.getEventId())) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("status", "error");
+                    response.put("message", "Segment does not belong to this event");
+                    return ResponseEntity.badRequest().body(response);
+                }
+                eventId = segment.getEventId();
+                criteria = audienceSegmentService.getCriteria(segment);
+            }
 
             // If eventId is null, get the current BMM event automatically
             if (eventId == null) {
@@ -875,16 +903,11 @@ public class EmailController {
 
             log.info("Advanced email filtering for eventId: {} with criteria: {}", eventId, criteria);
 
-            // CRITICAL: 使用多表联合查询过滤EventMember
-            List<EventMember> filteredEventMembers = eventMemberTargetingService.getFilteredEventMembers(eventId, criteria);
-
-            // 只保留有有效邮箱的成员用于邮件发送 - 使用EventMember自身字段
-            List<EventMember> emailableMembers = filteredEventMembers.stream()
-                    .filter(em -> em.getHasEmail() != null && em.getHasEmail() &&
-                            em.getPrimaryEmail() != null &&
-                            !em.getPrimaryEmail().trim().isEmpty() &&
-                            !em.getPrimaryEmail().contains("@temp-email.etu.nz"))
-                    .collect(Collectors.toList());
+            // CRITICAL: 条件与"有有效邮箱"都在事件名册的位图索引上求值，只加载最终收件人
+            EventMemberTargetingService.Audience audience = segment != null
+                    ? eventMemberTargetingService.getEmailAudience(eventId, audienceSegmentService.getAllMemberIds(segmentId))
+                    : eventMemberTargetingService.getEmailAudience(eventId, criteria);
+            List<EventMember> emailableMembers = eventMemberTargetingService.loadEventMembers(audience.recipientIds());
 
             // Convert to DTO format with richer data for frontend display - 使用EventMember字段
             List<Map<String, Object>> memberDTOs = emailableMembers.stream().map(eventMember -> {
@@ -928,9 +951,9 @@ public class EmailController {
             Map<String, Object> data = new HashMap<>();
             data.put("members", memberDTOs);
             data.put("totalCount", emailableMembers.size());
-            data.put("totalFiltered", filteredEventMembers.size());
+            data.put("totalFiltered", audience.totalFiltered());
             data.put("emailableCount", emailableMembers.size());
-            data.put("nonEmailableCount", filteredEventMembers.size() - emailableMembers.size());
+            data.put("nonEmailableCount", audience.totalFiltered() - emailableMembers.size());
             data.put("stats", previewStats);
 
             Map<String, Object> response = new HashMap<>();
@@ -939,7 +962,7 @@ public class EmailController {
             response.put("data", data);
 
             log.info("Advanced email preview generated: {} total filtered, {} email-able recipients",
-                    filteredEventMembers.size(), emailableMembers.size());
+                    audience.totalFiltered(), emailableMembers.size());
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
@@ -959,6 +982,17 @@ public class EmailController {
             @SuppressWarnings("unchecked")
             Map<String, Object> criteria = (Map<String, Object>) request.get("criteria");
             Long eventId = request.get("eventId") != null ? Long.valueOf(request.get("eventId").toString()) : null;
+            Long segmentId = request.get("segmentId") != null ? Long.valueOf(request.get("segmentId").toString()) : null;
+            AudienceSegment segment = segmentId != null ? audienceSegmentService.getSegment(segmentId) : null;
+            if (segment != null) {
+                // 保存的受众分组：直接使用已物化的成员集合，不再按条件求值
+                if (eventId != null && !eventId.equals(segment.getEventId())) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("status", "error");
+                    response.put("message", "Segment does not belong to this event");
+                    return ResponseEntity.badRequest().body(response);
+                }
+            }
             String subject = (String) request.get("subject");
             String content = (String) request.get("content");
             String provider = (String) request.get("provider"); // 🔧 添加provider参数
@@ -1012,16 +1046,12 @@ public class EmailController {
 
                 log.info("Found {} valid members from {} selected IDs", emailableMembers.size(), memberIds.size());
             } else {
-                // No specific members selected - use filter criteria
-                log.info("No specific memberIds provided, using filter criteria");
-                List<EventMember> filteredEventMembers = eventMemberTargetingService.getFilteredEventMembers(eventId, criteria);
-
-                emailableMembers = filteredEventMembers.stream()
-                        .filter(em -> em.getHasEmail() != null && em.getHasEmail() &&
-                                em.getPrimaryEmail() != null &&
-                                !em.getPrimaryEmail().trim().isEmpty() &&
-                                !em.getPrimaryEmail().contains("@temp-email.etu.nz"))
-                        .collect(Collectors.toList());
+                // No specific members selected - saved segment membership, otherwise filter criteria
+                log.info("No specific memberIds provided, using {}", segment != null ? "segment " + segment.getName() : "filter criteria");
+                EventMemberTargetingService.Audience audience = segment != null
+                        ? eventMemberTargetingService.getEmailAudience(eventId, audienceSegmentService.getAllMemberIds(segmentId))
+                        : eventMemberTargetingService.getEmailAudience(eventId, criteria);
+                emailableMembers = eventMemberTargetingService.loadEventMembers(audience.recipientIds());
             }
 
             log.info("Starting advanced email send to {} recipients", emailableMembers.size());
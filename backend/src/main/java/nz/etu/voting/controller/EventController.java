@@ -2,6 +2,9 @@ package nz.etu.voting.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.CheckedInMemberRow;
+import nz.etu.voting.domain.dto.CheckinKeyRow;
+import nz.etu.voting.domain.dto.EventMemberExportRow;
 import nz.etu.voting.domain.dto.request.CreateEventRequest;
 import nz.etu.voting.domain.dto.response.ApiResponse;
 import nz.etu.voting.domain.dto.response.EventSummaryResponse;
@@ -9,23 +12,34 @@ import nz.etu.voting.domain.entity.Event;
 import nz.etu.voting.domain.entity.EventTemplate;
 import nz.etu.voting.domain.entity.Member;
 import nz.etu.voting.domain.entity.EventMember;
+import nz.etu.voting.exception.InvalidTicketException;
 import nz.etu.voting.repository.EventMemberRepository;
 import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.EventTemplateRepository;
 import nz.etu.voting.repository.MemberRepository;
+import nz.etu.voting.service.CheckinCacheService;
+import nz.etu.voting.service.CheckinService;
 import nz.etu.voting.service.ExcelExportService;
 import nz.etu.voting.service.InformerSyncService;
+import nz.etu.voting.util.KeysetCursor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,12 +49,16 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class EventController {
 
+    private static final int MAX_MEMBER_LIST_PAGE = 2000;
+
     private final EventRepository eventRepository;
     private final EventMemberRepository eventMemberRepository;
     private final EventTemplateRepository eventTemplateRepository;
     private final MemberRepository memberRepository;
     private final InformerSyncService informerSyncService;
     private final ExcelExportService excelExportService;
+    private final CheckinService checkinService;
+    private final CheckinCacheService checkinCacheService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<EventSummaryResponse>>> getAllEvents() {
@@ -244,7 +262,10 @@ public class EventController {
     }
 
     @GetMapping("/{id}/member-list")
-    public ResponseEntity<Map<String, Object>> getEventMembers(@PathVariable Long id) {
+    public ResponseEntity<Map<String, Object>> getEventMembers(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "500") int size,
+            @RequestParam(required = false) String cursor) {
         try {
             Optional<Event> eventOpt = eventRepository.findById(id);
             if (!eventOpt.isPresent()) {
@@ -258,12 +279,16 @@ public class EventController {
 
             // For now, return all members since we're using Member table for checkin
             // In the future, this could be filtered by event-specific membership
-            List<Member> members = memberRepository.findAll();
+            // Keyset paging by id: pass back nextCursor to continue, every page costs the same
+            ScrollPosition position = cursor != null && !cursor.isBlank() ? KeysetCursor.decode(cursor) : ScrollPosition.keyset();
+            Window<Member> members = memberRepository.findAllBy(position, Sort.by("id"), Limit.of(Math.min(size, MAX_MEMBER_LIST_PAGE)));
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
-            response.put("data", members);
+            response.put("data", members.getContent());
             response.put("eventName", event.getName());
+            response.put("nextCursor", KeysetCursor.next(members));
+            response.put("hasMore", members.hasNext());
 
             return ResponseEntity.ok(response);
 
@@ -318,25 +343,21 @@ public class EventController {
     }
 
     @GetMapping("/{id}/export/members")
-    public ResponseEntity<byte[]> exportEventMembers(@PathVariable Long id) {
+    public ResponseEntity<StreamingResponseBody> exportEventMembers(@PathVariable Long id,
+                                                                    @RequestParam(required = false) String format) {
         try {
+            ExcelExportService.Format exportFormat = ExcelExportService.Format.of(format);
             Optional<Event> eventOpt = eventRepository.findById(id);
             if (!eventOpt.isPresent()) {
                 return ResponseEntity.badRequest().build();
             }
 
             Event event = eventOpt.get();
-            byte[] excelData = excelExportService.exportEventMembersToExcel(event);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment",
-                    event.getName().replaceAll("[^a-zA-Z0-9]", "_") + "_members.xlsx");
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
+            return download(event.getName().replaceAll("[^a-zA-Z0-9]", "_") + "_members", exportFormat,
+                    out -> excelExportService.exportEventMembers(event, exportFormat, out));
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Failed to export event members", e);
             return ResponseEntity.internalServerError().build();
@@ -478,25 +499,21 @@ public class EventController {
 //    Use exportEventMembers method instead for all attendee data
 
     @GetMapping("/{id}/export/notifications")
-    public ResponseEntity<byte[]> exportNotificationLogs(@PathVariable Long id) {
+    public ResponseEntity<StreamingResponseBody> exportNotificationLogs(@PathVariable Long id,
+                                                                        @RequestParam(required = false) String format) {
         try {
+            ExcelExportService.Format exportFormat = ExcelExportService.Format.of(format);
             Optional<Event> eventOpt = eventRepository.findById(id);
             if (!eventOpt.isPresent()) {
                 return ResponseEntity.badRequest().build();
             }
 
             Event event = eventOpt.get();
-            byte[] excelData = excelExportService.exportNotificationLogsToExcel(event);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment",
-                    event.getName().replaceAll("[^a-zA-Z0-9]", "_") + "_notifications.xlsx");
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
+            return download(event.getName().replaceAll("[^a-zA-Z0-9]", "_") + "_notifications", exportFormat,
+                    out -> excelExportService.exportNotificationLogs(event, exportFormat, out));
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Failed to export notification logs", e);
             return ResponseEntity.internalServerError().build();
@@ -505,51 +522,36 @@ public class EventController {
 
     // New categorized export endpoint
     @GetMapping("/{id}/export/{type}/{category}")
-    public ResponseEntity<byte[]> exportCategorizedData(@PathVariable Long id, @PathVariable String type, @PathVariable String category) {
+    public ResponseEntity<StreamingResponseBody> exportCategorizedData(@PathVariable Long id, @PathVariable String type, @PathVariable String category,
+                                                                       @RequestParam(required = false) String format) {
         try {
+            ExcelExportService.Format exportFormat = ExcelExportService.Format.of(format);
             Optional<Event> eventOpt = eventRepository.findById(id);
             if (!eventOpt.isPresent()) {
                 return ResponseEntity.badRequest().build();
             }
 
             Event event = eventOpt.get();
-            List<EventMember> eventMembers = eventMemberRepository.findByEvent(event);
-
-            // Filter members based on category
-            List<EventMember> filteredMembers = filterMembersByCategory(eventMembers, category);
-
-            byte[] excelData;
-            String filename;
+            String eventName = event.getName().replaceAll("[^a-zA-Z0-9]", "_");
 
             if ("members".equals(type)) {
-                excelData = excelExportService.exportFilteredEventMembersToExcel(filteredMembers, event);
-                filename = String.format("%s_members_%s.xlsx",
-                        event.getName().replaceAll("[^a-zA-Z0-9]", "_"), category);
+                return download(String.format("%s_members_%s", eventName, category), exportFormat,
+                        out -> excelExportService.exportFilteredEventMembers(event, ExcelExportService.memberCategory(category), exportFormat, out));
             } else if ("attendees".equals(type)) {
                 // For attendees, use the same filtered members but with different filename
-                excelData = excelExportService.exportFilteredEventMembersToExcel(filteredMembers, event);
-                filename = String.format("%s_attendees_%s.xlsx",
-                        event.getName().replaceAll("[^a-zA-Z0-9]", "_"), category);
+                return download(String.format("%s_attendees_%s", eventName, category), exportFormat,
+                        out -> excelExportService.exportFilteredEventMembers(event, ExcelExportService.memberCategory(category), exportFormat, out));
             } else if ("checkin".equals(type)) {
                 // Filter only checked-in members
-                List<EventMember> checkedInMembers = eventMembers.stream()
-                        .filter(m -> m.getCheckedIn() != null && m.getCheckedIn())
-                        .collect(Collectors.toList());
-                excelData = excelExportService.exportCheckinDataToExcel(checkedInMembers, event, category);
-                filename = String.format("%s_checkin_%s.xlsx",
-                        event.getName().replaceAll("[^a-zA-Z0-9]", "_"), category);
+                return download(String.format("%s_checkin_%s", eventName, category), exportFormat,
+                        out -> excelExportService.exportCheckinData(event,
+                                m -> m.checkedIn() != null && m.checkedIn(), exportFormat, out));
             } else {
                 return ResponseEntity.badRequest().build();
             }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", filename);
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
-
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Failed to export categorized data", e);
             return ResponseEntity.internalServerError().build();
@@ -557,55 +559,25 @@ public class EventController {
     }
 
     @GetMapping("/{id}/export/filtered/{category}")
-    public ResponseEntity<byte[]> exportFilteredEventMembers(@PathVariable Long id, @PathVariable String category) {
+    public ResponseEntity<StreamingResponseBody> exportFilteredEventMembers(@PathVariable Long id, @PathVariable String category,
+                                                                            @RequestParam(required = false) String format) {
         try {
+            ExcelExportService.Format exportFormat = ExcelExportService.Format.of(format);
             Optional<Event> eventOpt = eventRepository.findById(id);
             if (!eventOpt.isPresent()) {
                 return ResponseEntity.badRequest().build();
             }
 
             Event event = eventOpt.get();
-            List<EventMember> eventMembers = eventMemberRepository.findByEvent(event);
 
             // Filter based on category
-            List<EventMember> filteredMembers = eventMembers.stream()
-                    .filter(member -> {
-                        switch (category.toLowerCase()) {
-                            case "registered":
-                                return member.getHasRegistered() != null && member.getHasRegistered();
-                            case "attending":
-                                return member.getIsAttending() != null && member.getIsAttending();
-                            case "not_attending":
-                                return member.getIsAttending() != null && !member.getIsAttending();
-                            case "special_vote":
-                                return member.getIsSpecialVote() != null && member.getIsSpecialVote();
-                            case "voted":
-                                return member.getHasVoted() != null && member.getHasVoted();
-                            case "checked_in":
-                                return member.getCheckedIn() != null && member.getCheckedIn();
-                            case "not_checked_in":
-                                return member.getCheckedIn() == null || !member.getCheckedIn();
-                            case "with_email":
-                                return member.getHasEmail() != null && member.getHasEmail();
-                            case "with_mobile":
-                                return member.getHasMobile() != null && member.getHasMobile();
-                            default:
-                                return true; // Return all if category not recognized
-                        }
-                    })
-                    .collect(Collectors.toList());
+            Predicate<EventMemberExportRow> filter = ExcelExportService.filteredCategory(category);
 
-            byte[] excelData = excelExportService.exportFilteredEventMembersToExcel(filteredMembers, event);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment",
-                    event.getName().replaceAll("[^a-zA-Z0-9]", "_") + "_" + category + "_members.xlsx");
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
+            return download(event.getName().replaceAll("[^a-zA-Z0-9]", "_") + "_" + category + "_members", exportFormat,
+                    out -> excelExportService.exportFilteredEventMembers(event, filter, exportFormat, out));
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Failed to export filtered event members", e);
             return ResponseEntity.internalServerError().build();
@@ -613,102 +585,52 @@ public class EventController {
     }
 
     @GetMapping("/{id}/export/checkin/{category}")
-    public ResponseEntity<byte[]> exportCheckinData(@PathVariable Long id, @PathVariable String category) {
+    public ResponseEntity<StreamingResponseBody> exportCheckinData(@PathVariable Long id, @PathVariable String category,
+                                                                   @RequestParam(required = false) String format) {
         try {
+            ExcelExportService.Format exportFormat = ExcelExportService.Format.of(format);
             Optional<Event> eventOpt = eventRepository.findById(id);
             if (!eventOpt.isPresent()) {
                 return ResponseEntity.badRequest().build();
             }
 
             Event event = eventOpt.get();
-            List<EventMember> eventMembers = eventMemberRepository.findByEvent(event);
 
             // Filter based on check-in category
-            List<EventMember> filteredMembers = eventMembers.stream()
-                    .filter(member -> {
-                        switch (category.toLowerCase()) {
-                            case "all":
-                                return true;
-                            case "checked_in":
-                                return member.getCheckedIn() != null && member.getCheckedIn();
-                            case "not_checked_in":
-                                return member.getCheckedIn() == null || !member.getCheckedIn();
-                            case "registered_checked_in":
-                                return (member.getHasRegistered() != null && member.getHasRegistered()) &&
-                                        (member.getCheckedIn() != null && member.getCheckedIn());
-                            case "registered_not_checked_in":
-                                return (member.getHasRegistered() != null && member.getHasRegistered()) &&
-                                        (member.getCheckedIn() == null || !member.getCheckedIn());
-                            case "attending_checked_in":
-                                return (member.getIsAttending() != null && member.getIsAttending()) &&
-                                        (member.getCheckedIn() != null && member.getCheckedIn());
-                            case "attending_not_checked_in":
-                                return (member.getIsAttending() != null && member.getIsAttending()) &&
-                                        (member.getCheckedIn() == null || !member.getCheckedIn());
-                            default:
-                                return true;
-                        }
-                    })
-                    .collect(Collectors.toList());
-
-            byte[] excelData = excelExportService.exportCheckinDataToExcel(filteredMembers, event, category);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment",
-                    event.getName().replaceAll("[^a-zA-Z0-9]", "_") + "_checkin_" + category + ".xlsx");
+            Predicate<EventMemberExportRow> filter = ExcelExportService.checkinCategory(category);
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
+            return download(event.getName().replaceAll("[^a-zA-Z0-9]", "_") + "_checkin_" + category, exportFormat,
+                    out -> excelExportService.exportCheckinData(event, filter, exportFormat, out));
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Failed to export check-in data", e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
-    private List<EventMember> filterMembersByCategory(List<EventMember> members, String category) {
-        return members.stream().filter(member -> {
-            switch (category) {
-                case "all":
-                    return true;
-                case "registered":
-                    return member.getHasRegistered() != null && member.getHasRegistered();
-                case "attending":
-                    return member.getIsAttending() != null && member.getIsAttending();
-                case "not_attending":
-                    return member.getIsAttending() != null && !member.getIsAttending();
-                case "special_vote":
-                    return member.getIsSpecialVote() != null && member.getIsSpecialVote();
-                case "has_email":
-                    return member.getHasEmail() != null && member.getHasEmail();
-                case "has_mobile":
-                    return member.getHasMobile() != null && member.getHasMobile();
-                case "sms_only":
-                    return (member.getHasMobile() != null && member.getHasMobile()) &&
-                            (member.getHasEmail() == null || !member.getHasEmail());
-                case "email_only":
-                    return (member.getHasEmail() != null && member.getHasEmail()) &&
-                            (member.getHasMobile() == null || !member.getHasMobile());
-                case "northern":
-                    return member.getRegionDesc() != null && member.getRegionDesc().toLowerCase().contains("northern");
-                case "central":
-                    return member.getRegionDesc() != null && member.getRegionDesc().toLowerCase().contains("central");
-                case "southern":
-                    return member.getRegionDesc() != null && member.getRegionDesc().toLowerCase().contains("southern");
-                case "checked_in":
-                    return member.getCheckedIn() != null && member.getCheckedIn();
-                case "not_checked_in":
-                    return member.getCheckedIn() == null || !member.getCheckedIn();
-                case "voted":
-                    return member.getHasVoted() != null && member.getHasVoted();
-                case "not_voted":
-                    return member.getHasVoted() == null || !member.getHasVoted();
-                default:
-                    return true;
-            }
-        }).collect(Collectors.toList());
+    // 导出直接写入响应流（服务端游标 + SXSSF/CSV），不在内存中拼出整个文件
+    private ResponseEntity<StreamingResponseBody> download(String baseName, ExcelExportService.Format format,
+                                                           StreamingResponseBody export) {
+        String filename = baseName + "." + format.extension();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(format.mediaType());
+        headers.setContentDispositionFormData("attachment", filename);
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(out -> {
+                    long start = System.currentTimeMillis();
+                    try {
+                        export.writeTo(out);
+                        log.info("Exported {} in {} ms", filename, System.currentTimeMillis() - start);
+                    } catch (IOException | RuntimeException e) {
+                        // 响应头已发出，只能中断下载并记录
+                        log.error("Failed to stream export {}", filename, e);
+                        throw e;
+                    }
+                });
     }
 
     @PostMapping("/{id}/checkin/manual")
@@ -759,7 +681,11 @@ public class EventController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            if (member.getCheckedIn() != null && member.getCheckedIn()) {
+            // Check in unless already checked in, here or by a concurrent request
+            boolean checkedIn = !Boolean.TRUE.equals(member.getCheckedIn()) && checkinService.checkIn(member,
+                    new CheckinService.Checkin(null, location != null ? location : "Manual Check-in", null, null, null, null, true))
+                    .isPresent();
+            if (!checkedIn) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("status", "warning");
                 response.put("message", "Member already checked in");
@@ -776,13 +702,6 @@ public class EventController {
                 return ResponseEntity.ok(response);
             }
 
-            member.setIsAttending(true);
-            member.setCheckedIn(true);
-            member.setCheckInTime(LocalDateTime.now());
-            member.setCheckInLocation(location != null ? location : "Manual Check-in");
-
-            eventMemberRepository.save(member);
-
             Map<String, Object> response = new HashMap<>();
             Map<String, Object> data = new HashMap<>();
 
@@ -813,13 +732,17 @@ public class EventController {
         log.info("QR checkin requested for event: {}", id);
 
         try {
-            String token = (String) request.get("token");
+            // qrData carries the scanned payload (signed ticket, JSON or plain token); token is the older field
+            String qrData = (String) request.get("qrData");
+            if (qrData == null || qrData.trim().isEmpty()) {
+                qrData = (String) request.get("token");
+            }
             String location = (String) request.get("location");
 
-            if (token == null || token.trim().isEmpty()) {
+            if (qrData == null || qrData.trim().isEmpty()) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("status", "error");
-                response.put("message", "token is required");
+                response.put("message", "qrData or token is required");
                 return ResponseEntity.badRequest().body(response);
             }
 
@@ -833,21 +756,7 @@ public class EventController {
 
             Event event = eventOpt.get();
 
-            EventMember member;
-            try {
-                UUID tokenUuid = UUID.fromString(token);
-                member = eventMemberRepository.findByToken(tokenUuid).orElse(null);
-                if (member != null && !member.getEvent().getId().equals(id)) {
-                    member = null;
-                }
-            } catch (IllegalArgumentException e) {
-                log.warn("Invalid token format: {}", token);
-                Map<String, Object> response = new HashMap<>();
-                response.put("status", "error");
-                response.put("message", "Invalid QR code format");
-                return ResponseEntity.badRequest().body(response);
-            }
-
+            CheckinKeyRow member = checkinCacheService.resolve(id, qrData).orElse(null);
             if (member == null) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("status", "error");
@@ -855,16 +764,23 @@ public class EventController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            if (member.getCheckedIn() != null && member.getCheckedIn()) {
+            // Check in unless already checked in, here or by a concurrent request
+            Optional<CheckedInMemberRow> checkedIn = member.isCheckedIn() ? Optional.empty()
+                    : checkinService.checkIn(member.id(),
+                            new CheckinService.Checkin(null, location != null ? location : "QR Check-in", null, null, null, null, true));
+            if (checkedIn.isEmpty()) {
+                CheckinKeyRow current = member.isCheckedIn() ? member
+                        : checkinCacheService.reload(id, member.id()).orElse(member);
+
                 Map<String, Object> response = new HashMap<>();
                 response.put("status", "warning");
                 response.put("message", "Member already checked in");
 
                 Map<String, Object> data = new HashMap<>();
-                data.put("membershipNumber", member.getMembershipNumber());
-                data.put("name", member.getName());
-                data.put("primaryEmail", member.getPrimaryEmail());
-                data.put("previousCheckinTime", member.getCheckInTime());
+                data.put("membershipNumber", current.membershipNumber());
+                data.put("name", current.name());
+                data.put("previousCheckinTime", current.checkInTime());
+                data.put("previousCheckinLocation", current.checkInLocation());
                 data.put("eventName", event.getName());
                 data.put("alreadyCheckedIn", true);
                 response.put("data", data);
@@ -872,29 +788,29 @@ public class EventController {
                 return ResponseEntity.ok(response);
             }
 
-            member.setIsAttending(true);
-            member.setCheckedIn(true);
-            member.setCheckInTime(LocalDateTime.now());
-            member.setCheckInLocation(location != null ? location : "QR Check-in");
-
-            eventMemberRepository.save(member);
-
+            CheckedInMemberRow row = checkedIn.get();
             Map<String, Object> response = new HashMap<>();
             Map<String, Object> data = new HashMap<>();
 
-            data.put("membershipNumber", member.getMembershipNumber());
-            data.put("name", member.getName());
-            data.put("primaryEmail", member.getPrimaryEmail());
-            data.put("checkinTime", member.getCheckInTime());
+            data.put("membershipNumber", row.membershipNumber());
+            data.put("name", row.name());
+            data.put("primaryEmail", row.primaryEmail());
+            data.put("checkinTime", row.checkInTime());
             data.put("eventName", event.getName());
 
             response.put("status", "success");
             response.put("message", "Check-in successful");
             response.put("data", data);
 
-            log.info("QR check-in successful for member: {}", member.getMembershipNumber());
+            log.info("QR check-in successful for member: {}", row.membershipNumber());
             return ResponseEntity.ok(response);
 
+        } catch (InvalidTicketException e) {
+            log.warn("Rejected ticket scanned for event {}: {}", id, e.getMessage());
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             log.error("QR check-in failed", e);
             Map<String, Object> response = new HashMap<>();
@@ -0,0 +1,96 @@
+package nz.etu.voting.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.response.ApiResponse;
+import nz.etu.voting.domain.entity.ExportJob;
+import nz.etu.voting.service.ExcelExportService;
+import nz.etu.voting.service.ExportJobService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Background exports. Submit with {@code POST /api/admin/exports}, poll {@code GET /api/admin/exports/{jobId}} until
+ * the status is COMPLETED, then fetch {@code GET /api/admin/exports/{jobId}/download} while the file has not expired.
+ */
+@RestController
+@RequestMapping("/api/admin/exports")
+@CrossOrigin(origins = {"http://localhost:3000","http://10.0.9.238:3000","https://events.etu.nz"})
+@RequiredArgsConstructor
+@Slf4j
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+
+    //    body: {eventId, type, category, format} - type: members/attendees/notifications/filtered/checkin,
+    //    category 与同步导出端点相同, format: xlsx (默认)/csv/csv.gz
+    @PostMapping
+    public ResponseEntity<ApiResponse<ExportJob>> submitExport(@RequestBody Map<String, Object> request,
+                                                               Authentication authentication) {
+        try {
+            Long eventId = request.get("eventId") != null ? Long.valueOf(request.get("eventId").toString()) : null;
+            if (eventId == null) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Event ID is required"));
+            }
+
+            ExportJobService.Submission submission = exportJobService.submit(eventId,
+                    (String) request.get("type"), (String) request.get("category"), (String) request.get("format"),
+                    authentication != null ? authentication.getName() : null);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success(
+                    submission.deduplicated() ? "An identical export is already in progress" : "Export queued",
+                    submission.job()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to submit export: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(ApiResponse.error("Failed to submit export: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<ExportJob>>> getRecentExports(@RequestParam Long eventId) {
+        return ResponseEntity.ok(ApiResponse.success("Exports retrieved successfully", exportJobService.getRecentJobs(eventId)));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ApiResponse<ExportJob>> getExport(@PathVariable String jobId) {
+        return exportJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(ApiResponse.success("Export retrieved successfully", job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("Export not found")));
+    }
+
+    // 404 unknown job, 409 not finished (or failed), 410 expired
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<Resource> downloadExport(@PathVariable String jobId) {
+        Optional<ExportJob> found = exportJobService.getJob(jobId);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ExportJob job = found.get();
+        if (job.getStatus() != ExportJob.Status.COMPLETED && job.getStatus() != ExportJob.Status.EXPIRED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        Optional<Path> file = exportJobService.getFile(job);
+        if (file.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(ExcelExportService.Format.valueOf(job.getFormat()).mediaType());
+        headers.setContentDispositionFormData("attachment", job.getFileName());
+        return ResponseEntity.ok().headers(headers).body(new FileSystemResource(file.get()));
+    }
+}
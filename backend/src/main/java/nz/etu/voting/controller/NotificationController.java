@@ -2,6 +2,7 @@ package nz.etu.voting.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.NotificationCount;
 import nz.etu.voting.domain.dto.request.BulkNotificationRequest;
 import nz.etu.voting.domain.dto.request.CreateTemplateRequest;
 import nz.etu.voting.domain.dto.response.ApiResponse;
@@ -243,30 +244,16 @@ public class NotificationController {
         try {
             Map<String, Object> stats = new HashMap<>();
 
-//            统计所有通知日志
-            long totalEmailSuccess = logRepository.findAll().stream()
-                    .filter(log -> (log.getNotificationType() == NotificationLog.NotificationType.EMAIL ||
-                            log.getNotificationType() == NotificationLog.NotificationType.AUTO_EMAIL)
-                            && log.getIsSuccessful())
-                    .count();
-
-            long totalEmailFailed = logRepository.findAll().stream()
-                    .filter(log -> (log.getNotificationType() == NotificationLog.NotificationType.EMAIL ||
-                            log.getNotificationType() == NotificationLog.NotificationType.AUTO_EMAIL)
-                            && !log.getIsSuccessful())
-                    .count();
-
-            long totalSmsSuccess = logRepository.findAll().stream()
-                    .filter(log -> (log.getNotificationType() == NotificationLog.NotificationType.SMS ||
-                            log.getNotificationType() == NotificationLog.NotificationType.AUTO_SMS)
-                            && log.getIsSuccessful())
-                    .count();
-
-            long totalSmsFailed = logRepository.findAll().stream()
-                    .filter(log -> (log.getNotificationType() == NotificationLog.NotificationType.SMS ||
-                            log.getNotificationType() == NotificationLog.NotificationType.AUTO_SMS)
-                            && !log.getIsSuccessful())
-                    .count();
+//            统计所有通知日志 (数据库端 GROUP BY 聚合)
+            List<NotificationCount> counts = logRepository.countByTypeAndSuccess();
+            long totalEmailSuccess = NotificationCount.sum(counts, true,
+                    NotificationLog.NotificationType.EMAIL, NotificationLog.NotificationType.AUTO_EMAIL);
+            long totalEmailFailed = NotificationCount.sum(counts, false,
+                    NotificationLog.NotificationType.EMAIL, NotificationLog.NotificationType.AUTO_EMAIL);
+            long totalSmsSuccess = NotificationCount.sum(counts, true,
+                    NotificationLog.NotificationType.SMS, NotificationLog.NotificationType.AUTO_SMS);
+            long totalSmsFailed = NotificationCount.sum(counts, false,
+                    NotificationLog.NotificationType.SMS, NotificationLog.NotificationType.AUTO_SMS);
 
 //            计算待发送数量（这里简化为0，实际应该从队列系统获取）
             long emailPending = 0;
@@ -298,15 +285,16 @@ public class NotificationController {
             Event event = eventOpt.get();
             Map<String, Object> stats = new HashMap<>();
 
-            Long emailSuccess = logRepository.countSuccessfulByEventAndType(event, NotificationLog.NotificationType.EMAIL);
-            Long emailFailed = logRepository.countFailedByEventAndType(event, NotificationLog.NotificationType.EMAIL);
-            Long autoEmailSuccess = logRepository.countSuccessfulByEventAndType(event, NotificationLog.NotificationType.AUTO_EMAIL);
-            Long autoEmailFailed = logRepository.countFailedByEventAndType(event, NotificationLog.NotificationType.AUTO_EMAIL);
+            List<NotificationCount> counts = logRepository.countByTypeAndSuccessForEvent(event);
+            long emailSuccess = NotificationCount.sum(counts, true, NotificationLog.NotificationType.EMAIL);
+            long emailFailed = NotificationCount.sum(counts, false, NotificationLog.NotificationType.EMAIL);
+            long autoEmailSuccess = NotificationCount.sum(counts, true, NotificationLog.NotificationType.AUTO_EMAIL);
+            long autoEmailFailed = NotificationCount.sum(counts, false, NotificationLog.NotificationType.AUTO_EMAIL);
 
-            Long smsSuccess = logRepository.countSuccessfulByEventAndType(event, NotificationLog.NotificationType.SMS);
-            Long smsFailed = logRepository.countFailedByEventAndType(event, NotificationLog.NotificationType.SMS);
-            Long autoSmsSuccess = logRepository.countSuccessfulByEventAndType(event, NotificationLog.NotificationType.AUTO_SMS);
-            Long autoSmsFailed = logRepository.countFailedByEventAndType(event, NotificationLog.NotificationType.AUTO_SMS);
+            long smsSuccess = NotificationCount.sum(counts, true, NotificationLog.NotificationType.SMS);
+            long smsFailed = NotificationCount.sum(counts, false, NotificationLog.NotificationType.SMS);
+            long autoSmsSuccess = NotificationCount.sum(counts, true, NotificationLog.NotificationType.AUTO_SMS);
+            long autoSmsFailed = NotificationCount.sum(counts, false, NotificationLog.NotificationType.AUTO_SMS);
 
             stats.put("primaryEmail", Map.of(
                     "manual_success", emailSuccess,
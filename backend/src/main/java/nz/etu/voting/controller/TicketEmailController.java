@@ -2,14 +2,21 @@ package nz.etu.voting.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventMemberCheckinRow;
 import nz.etu.voting.domain.dto.response.ApiResponse;
 import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.domain.entity.EventCounter;
 import nz.etu.voting.domain.entity.EventMember;
+import nz.etu.voting.domain.entity.SyncProgress;
 import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.service.CheckinService;
+import nz.etu.voting.service.EventCounterService;
 import nz.etu.voting.service.TicketEmailService;
 import nz.etu.voting.service.QRCodeService;
-import org.springframework.http.MediaType;
+import nz.etu.voting.service.SignedTicketService;
+import nz.etu.voting.service.TicketPregenerationService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -33,6 +40,10 @@ public class TicketEmailController {
     private final EventRepository eventRepository;
     private final EventMemberRepository eventMemberRepository;
     private final QRCodeService qrCodeService;
+    private final SignedTicketService signedTicketService;
+    private final EventCounterService eventCounterService;
+    private final CheckinService checkinService;
+    private final TicketPregenerationService ticketPregenerationService;
 
     // Send ticket emails to all confirmed attendees for a specific event
     @PostMapping("/event/{eventId}/send-all")
@@ -44,12 +55,16 @@ public class TicketEmailController {
             Event event = eventRepository.findById(eventId)
                     .orElseThrow(() -> new IllegalArgumentException("Event not found"));
 
+            // 先批量分配票据令牌并在后台预生成二维码，邮件里的票据页面打开时直接读缓存
+            SyncProgress pregeneration = ticketPregenerationService.start(event, "send-all");
+
             int sentCount = ticketEmailService.sendTicketEmailsToAttendingMembers(event);
 
             Map<String, Object> result = new HashMap<>();
             result.put("eventId", eventId);
             result.put("eventName", event.getName());
             result.put("emailsSent", sentCount);
+            result.put("pregenerationSyncId", pregeneration.getSyncId());
             result.put("message", String.format("Successfully sent %d ticket emails", sentCount));
 
             return ResponseEntity.ok(ApiResponse.success("Ticket emails sent successfully", result));
@@ -60,6 +75,30 @@ public class TicketEmailController {
         }
     }
 
+    // Assign missing ticket tokens and pre-render every ticket QR code; poll /api/admin/sync/progress/{syncId}
+    @PostMapping("/event/{eventId}/pregenerate")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> pregenerateTickets(@PathVariable Long eventId) {
+        try {
+            Event event = eventRepository.findById(eventId)
+                    .orElseThrow(() -> new IllegalArgumentException("Event not found"));
+
+            SyncProgress progress = ticketPregenerationService.start(event, "admin");
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("eventId", eventId);
+            result.put("syncId", progress.getSyncId());
+            result.put("status", progress.getStatus().name());
+            result.put("totalRecords", progress.getTotalRecords());
+            result.put("message", progress.getMessage());
+
+            return ResponseEntity.ok(ApiResponse.success("Ticket pre-generation started", result));
+
+        } catch (Exception e) {
+            log.error("Failed to start ticket pre-generation for event {}: {}", eventId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to start ticket pre-generation: " + e.getMessage()));
+        }
+    }
+
     // Send ticket email to a single member
     @PostMapping("/member/{eventMemberId}/send")
     public ResponseEntity<ApiResponse<Map<String, Object>>> sendTicketEmailToMember(
@@ -108,20 +147,11 @@ public class TicketEmailController {
             Event event = eventRepository.findById(eventId)
                     .orElseThrow(() -> new IllegalArgumentException("Event not found"));
 
-            List<EventMember> attendingMembers = eventMemberRepository.findByEventAndIsAttendingTrue(event);
-            long totalAttending = attendingMembers.size();
-
-            long ticketEmailsSent = attendingMembers.stream()
-                    .mapToLong(em -> em.getQrCodeEmailSent() ? 1L : 0L)
-                    .sum();
-
-            long pendingTicketEmails = attendingMembers.stream()
-                    .filter(em -> !em.getQrCodeEmailSent() && em.getPrimaryEmail() != null && !em.getPrimaryEmail().isEmpty())
-                    .count();
-
-            long noEmailAddress = attendingMembers.stream()
-                    .filter(em -> em.getPrimaryEmail() == null || em.getPrimaryEmail().isEmpty())
-                    .count();
+            Map<String, Long> counters = eventCounterService.getEventTotals(event.getId());
+            long totalAttending = EventCounterService.count(counters, EventCounter.Metric.ATTENDING);
+            long ticketEmailsSent = EventCounterService.count(counters, EventCounter.Metric.TICKET_SENT);
+            long pendingTicketEmails = EventCounterService.count(counters, EventCounter.Metric.TICKET_PENDING);
+            long noEmailAddress = EventCounterService.count(counters, EventCounter.Metric.ATTENDING_NO_EMAIL);
 
             Map<String, Object> stats = new HashMap<>();
             stats.put("eventId", eventId);
@@ -184,11 +214,9 @@ public class TicketEmailController {
             List<Event> activeEvents = eventRepository.findTop20ByIsActiveTrueOrderByEventDateDesc();
             List<Map<String, Object>> overview = activeEvents.stream()
                     .map(event -> {
-                        List<EventMember> attendingMembers = eventMemberRepository.findByEventAndIsAttendingTrue(event);
-                        long totalAttending = attendingMembers.size();
-                        long ticketsSent = attendingMembers.stream()
-                                .mapToLong(em -> Boolean.TRUE.equals(em.getQrCodeEmailSent()) ? 1L : 0L)
-                                .sum();
+                        Map<String, Long> counters = eventCounterService.getEventTotals(event.getId());
+                        long totalAttending = EventCounterService.count(counters, EventCounter.Metric.ATTENDING);
+                        long ticketsSent = EventCounterService.count(counters, EventCounter.Metric.TICKET_SENT);
 
                         Map<String, Object> eventStats = new HashMap<>();
                         eventStats.put("eventId", event.getId());
@@ -394,10 +422,13 @@ public class TicketEmailController {
         }
     }
 
-    // Generate QR code for BMM ticket
+    // Generate QR code for BMM ticket - PNG by default, SVG / text via ?format= or Accept
     @GetMapping("/bmm-ticket/{token}/qrcode")
-    public ResponseEntity<byte[]> getBMMTicketQRCode(@PathVariable String token) {
+    public ResponseEntity<byte[]> getBMMTicketQRCode(@PathVariable String token,
+                                                     @RequestParam(required = false) String format,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
+            QRCodeService.Format qrFormat = QRCodeService.Format.negotiate(format, accept);
             UUID ticketToken = UUID.fromString(token);
             Optional<EventMember> memberOpt = eventMemberRepository.findByTicketToken(ticketToken);
 
@@ -411,24 +442,20 @@ public class TicketEmailController {
                 return ResponseEntity.badRequest().build();
             }
 
-            // Generate QR code data for BMM check-in
-            String qrData = String.format(
-                    "{\"type\":\"bmm_checkin\",\"membershipNumber\":\"%s\",\"name\":\"%s\",\"token\":\"%s\",\"eventId\":%d,\"venue\":\"%s\",\"datetime\":\"%s\"}",
-                    member.getMembershipNumber(),
-                    member.getName(),
-                    member.getTicketToken(),
-                    member.getEvent().getId(),
-                    member.getAssignedVenue() != null ? member.getAssignedVenue() :
-                            (member.getForumDesc() != null ? member.getForumDesc() : "TBA"),
-                    member.getAssignedDateTime() != null ? member.getAssignedDateTime().toString() : "TBA"
-            );
+            // Signed compact ticket - scanners verify it without a database lookup
+            String qrData = signedTicketService.encode(member);
 
-            byte[] qrCode = qrCodeService.generateQRCodeImage(qrData, 300, 300);
+            QRCodeService.QRImage qrCode = qrCodeService.qrCode(qrData, 300, qrFormat);
 
             return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_PNG)
-                    .body(qrCode);
+                    .contentType(qrCode.format().mediaType())
+                    .eTag(qrCode.etag())
+                    .cacheControl(qrCodeService.cacheControl())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(qrCode.data());
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Failed to generate BMM QR code: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
@@ -448,6 +475,19 @@ public class TicketEmailController {
 
             EventMember member = null;
 
+            // Signed ticket scanned from the QR code
+            if (SignedTicketService.isTicket(token)) {
+                Optional<SignedTicketService.Ticket> ticket = signedTicketService.verify(token);
+                if (ticket.isEmpty()) {
+                    return ResponseEntity.badRequest().body(ApiResponse.error("Invalid or expired ticket"));
+                }
+                member = eventMemberRepository.findById(ticket.get().eventMemberId())
+                        .filter(m -> m.getEvent().getId() == ticket.get().eventId()
+                                && ticket.get().issuedFor(m.getToken(), m.getTicketToken()))
+                        .orElse(null);
+                token = null;
+            }
+
             // Try to find by ticket token first
             if (token != null) {
                 try {
@@ -479,15 +519,9 @@ public class TicketEmailController {
                 return ResponseEntity.badRequest().body(ApiResponse.error("Member not found or not eligible for BMM check-in"));
             }
 
-            // Perform check-in
-            boolean alreadyCheckedIn = member.getCheckedIn();
-
-            if (!alreadyCheckedIn) {
-                member.setCheckedIn(true);
-                member.setCheckInTime(java.time.LocalDateTime.now());
-                member.setCheckInMethod("QR_SCAN");
-                eventMemberRepository.save(member);
-            }
+            // Perform check-in; a concurrent scan of the same ticket reports already checked in
+            boolean alreadyCheckedIn = Boolean.TRUE.equals(member.getCheckedIn()) || checkinService.checkIn(member,
+                    new CheckinService.Checkin(null, null, null, "QR_SCAN", null, null, false)).isEmpty();
 
             Map<String, Object> result = new HashMap<>();
             result.put("alreadyCheckedIn", alreadyCheckedIn);
@@ -513,38 +547,29 @@ public class TicketEmailController {
         try {
             log.info("Fetching BMM checked-in members list");
 
-            // Find all EventMembers who are checked in and have BMM attendance confirmed
-            List<EventMember> checkedInMembers = eventMemberRepository.findByCheckedInTrueAndBmmRegistrationStage("ATTENDANCE_CONFIRMED");
+            // Checked-in members with BMM attendance confirmed, most recent check-in first
+            List<EventMemberCheckinRow> checkedInMembers = eventMemberRepository.findCheckedInRowsByBmmRegistrationStage("ATTENDANCE_CONFIRMED");
 
             List<Map<String, Object>> membersList = checkedInMembers.stream()
                     .map(member -> {
                         Map<String, Object> memberInfo = new HashMap<>();
-                        memberInfo.put("id", member.getId());
-                        memberInfo.put("membershipNumber", member.getMembershipNumber());
-                        memberInfo.put("name", member.getName());
-                        memberInfo.put("primaryEmail", member.getPrimaryEmail());
-                        memberInfo.put("regionDesc", member.getRegionDesc());
-                        memberInfo.put("assignedVenue", member.getAssignedVenue());
-                        memberInfo.put("checkInTime", member.getCheckInTime());
-                        memberInfo.put("specialVoteEligible", member.getSpecialVoteEligible());
-                        memberInfo.put("ticketToken", member.getTicketToken());
+                        memberInfo.put("id", member.id());
+                        memberInfo.put("membershipNumber", member.membershipNumber());
+                        memberInfo.put("name", member.name());
+                        memberInfo.put("primaryEmail", member.primaryEmail());
+                        memberInfo.put("regionDesc", member.regionDesc());
+                        memberInfo.put("assignedVenue", member.assignedVenue());
+                        memberInfo.put("checkInTime", member.checkInTime());
+                        memberInfo.put("specialVoteEligible", member.specialVoteEligible());
+                        memberInfo.put("ticketToken", member.ticketToken());
 
                         // Format check-in time for display
-                        if (member.getCheckInTime() != null) {
-                            memberInfo.put("checkInTimeFormatted", member.getCheckInTime().toString());
+                        if (member.checkInTime() != null) {
+                            memberInfo.put("checkInTimeFormatted", member.checkInTime().toString());
                         }
 
                         return memberInfo;
                     })
-                    .sorted((m1, m2) -> {
-                        // Sort by check-in time, most recent first
-                        java.time.LocalDateTime time1 = (java.time.LocalDateTime) ((Map<String, Object>) m1).get("checkInTime");
-                        java.time.LocalDateTime time2 = (java.time.LocalDateTime) ((Map<String, Object>) m2).get("checkInTime");
-                        if (time1 == null && time2 == null) return 0;
-                        if (time1 == null) return 1;
-                        if (time2 == null) return -1;
-                        return time2.compareTo(time1);
-                    })
                     .toList();
 
             // Get statistics
@@ -2,17 +2,29 @@ package nz.etu.voting.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.CheckedInMemberRow;
+import nz.etu.voting.domain.dto.CheckinKeyRow;
+import nz.etu.voting.domain.dto.EventMemberPreviewRow;
 import nz.etu.voting.domain.dto.response.ApiResponse;
 import nz.etu.voting.domain.entity.Event;
-import nz.etu.voting.domain.entity.EventMember;
+import nz.etu.voting.domain.entity.EventCounter;
 import nz.etu.voting.domain.entity.OrganizerToken;
+import nz.etu.voting.exception.InvalidTicketException;
+import nz.etu.voting.exception.ResourceNotFoundException;
 import nz.etu.voting.repository.EventMemberRepository;
 import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.OrganizerTokenRepository;
+import nz.etu.voting.service.AdminQueryCacheService;
+import nz.etu.voting.service.CheckinCacheService;
+import nz.etu.voting.service.CheckinService;
+import nz.etu.voting.service.EventCounterService;
+import nz.etu.voting.service.LiveStatsStreamService;
 import nz.etu.voting.service.QRCodeService;
+import nz.etu.voting.service.ScannerSyncService;
 import org.springframework.http.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -29,6 +41,12 @@ public class VenueCheckinController {
     private final EventRepository eventRepository;
     private final OrganizerTokenRepository organizerTokenRepository;
     private final QRCodeService qrCodeService;
+    private final EventCounterService eventCounterService;
+    private final AdminQueryCacheService adminQueryCacheService;
+    private final LiveStatsStreamService liveStatsStreamService;
+    private final CheckinCacheService checkinCacheService;
+    private final CheckinService checkinService;
+    private final ScannerSyncService scannerSyncService;
     private final org.springframework.web.client.RestTemplate restTemplate;
 
     @Value("${app.api.baseUrl:http://localhost:8080}")
@@ -38,6 +56,8 @@ public class VenueCheckinController {
             "Northern Region", "Central Region", "Southern Region"
     );
 
+    private static final com.fasterxml.jackson.databind.ObjectMapper JSON = new com.fasterxml.jackson.databind.ObjectMapper();
+
     // 支持所有具体的venue名称，不仅限于region
     private static final boolean ALLOW_ALL_VENUES = true;
 
@@ -200,50 +220,7 @@ public class VenueCheckinController {
             }
 
             // Get all forums from bmm-venues-config.json
-            List<String> allForums = new ArrayList<>();
-
-            try {
-                // Load venues from configuration file
-                java.io.InputStream inputStream = getClass().getResourceAsStream("/bmm-venues-config.json");
-                if (inputStream != null) {
-                    com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                    Map<String, Object> config = mapper.readValue(inputStream, Map.class);
-
-                    // Get all venues from venues array
-                    List<Map<String, Object>> venues = (List<Map<String, Object>>) config.get("venues");
-                    if (venues != null) {
-                        for (Map<String, Object> venue : venues) {
-                            String forumDesc = (String) venue.get("forumDesc");
-                            if (forumDesc != null && !allForums.contains(forumDesc)) {
-                                allForums.add(forumDesc);
-                            }
-                        }
-                    }
-
-                    // Also add venue names from forumVenueMapping as independent forums
-                    // This allows venues like Kaitaia to be selected directly
-                    Map<String, List<Map<String, Object>>> forumMapping =
-                            (Map<String, List<Map<String, Object>>>) config.get("forumVenueMapping");
-                    if (forumMapping != null) {
-                        for (Map.Entry<String, List<Map<String, Object>>> entry : forumMapping.entrySet()) {
-                            List<Map<String, Object>> mappedVenues = entry.getValue();
-                            if (mappedVenues != null) {
-                                for (Map<String, Object> mappedVenue : mappedVenues) {
-                                    String venueName = (String) mappedVenue.get("venueName");
-                                    if (venueName != null && !allForums.contains(venueName)) {
-                                        allForums.add(venueName); // Add Kaitaia, Hokitika, Reefton as independent forums
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                log.error("Failed to load forums from config: {}", e.getMessage());
-            }
-
-            // Sort alphabetically
-            Collections.sort(allForums);
+            List<String> allForums = adminQueryCacheService.getConfiguredForums();
 
             log.info("Found {} forums from config: {}", allForums.size(), allForums);
 
@@ -275,7 +252,7 @@ public class VenueCheckinController {
             }
 
             // Get all distinct forums from database
-            List<String> allForums = eventMemberRepository.findDistinctForumDescByEvent(event);
+            List<String> allForums = adminQueryCacheService.getForumDescs(event);
 
             if (allForums.isEmpty()) {
                 return ResponseEntity.badRequest().body(ApiResponse.error("No forums found for this event"));
@@ -336,63 +313,48 @@ public class VenueCheckinController {
             @RequestParam String venue,
             @RequestBody Map<String, String> request) {
         try {
+            // qrData is the scanned payload, as for /scan; token and membershipNumber are the older fields
+            String qrData = request.get("qrData");
             String token = request.get("token");
             String membershipNumber = request.get("membershipNumber");
 
-            Optional<Event> eventOpt = eventRepository.findById(eventId);
-            if (!eventOpt.isPresent()) {
+            if (checkinCacheService.preload(eventId).isEmpty()) {
                 return ResponseEntity.badRequest().body(ApiResponse.error("Event not found"));
             }
 
-            EventMember member = null;
-
-//            Search by token first
-            if (token != null && !token.trim().isEmpty()) {
-                try {
-                    UUID memberToken = UUID.fromString(token);
-                    Optional<EventMember> memberOpt = eventMemberRepository.findByToken(memberToken);
-                    if (memberOpt.isPresent()) {
-                        member = memberOpt.get();
-                    }
-                } catch (IllegalArgumentException e) {
-                    log.warn("Invalid token format: {}", token);
-                }
+//            Resolve against the event's in-memory lookup table, like /scan
+            Optional<CheckinKeyRow> found = checkinCacheService.resolve(eventId, qrData);
+            if (found.isEmpty() && token != null && !token.trim().isEmpty()) {
+                found = checkinCacheService.find(eventId, token);
             }
-
-//            If token search fails, search by membership number
-            if (member == null && membershipNumber != null && !membershipNumber.trim().isEmpty()) {
-                Optional<EventMember> memberOpt = eventMemberRepository.findByEventAndMembershipNumber(
-                        eventOpt.get(), membershipNumber);
-                if (memberOpt.isPresent()) {
-                    member = memberOpt.get();
-                }
+            if (found.isEmpty() && membershipNumber != null && !membershipNumber.trim().isEmpty()) {
+                found = checkinCacheService.find(eventId, membershipNumber);
             }
-
-            if (member == null) {
+            Optional<EventMemberPreviewRow> details = found.flatMap(row -> eventMemberRepository.findPreviewRowById(row.id()));
+            if (details.isEmpty()) {
                 return ResponseEntity.badRequest().body(ApiResponse.error("Member not found with provided information"));
             }
 
-            if (!member.getEvent().getId().equals(eventId)) {
-                return ResponseEntity.badRequest().body(ApiResponse.error("Member does not belong to this event"));
-            }
+            CheckinKeyRow member = found.get();
+            boolean attending = Boolean.TRUE.equals(details.get().isAttending());
 
 //            Build member information preview
             Map<String, Object> response = new HashMap<>();
-            Map<String, Object> memberInfo = buildDetailedMemberInfo(member);
+            Map<String, Object> memberInfo = buildDetailedMemberInfo(member, details.get());
 
             response.put("memberInfo", memberInfo);
-            response.put("alreadyCheckedIn", member.getCheckedIn());
+            response.put("alreadyCheckedIn", member.isCheckedIn());
             response.put("currentVenue", venue);
-            response.put("isAttending", member.getIsAttending());
+            response.put("isAttending", details.get().isAttending());
 
-            if (member.getCheckedIn()) {
-                response.put("checkInTime", member.getCheckInTime());
-                response.put("previousVenue", member.getCheckInLocation());
+            if (member.isCheckedIn()) {
+                response.put("checkInTime", member.checkInTime());
+                response.put("previousVenue", member.checkInLocation());
                 response.put("status", "ALREADY_CHECKED_IN");
                 response.put("message", String.format("Member already checked in at %s (%s)",
-                        member.getCheckInLocation() != null ? member.getCheckInLocation() : "Unknown location",
-                        member.getCheckInTime()));
-            } else if (!member.getIsAttending()) {
+                        member.checkInLocation() != null ? member.checkInLocation() : "Unknown location",
+                        member.checkInTime()));
+            } else if (!attending) {
                 response.put("status", "NOT_ATTENDING");
                 response.put("message", "Member has not confirmed attendance for this event");
             } else {
@@ -402,6 +364,9 @@ public class VenueCheckinController {
 
             return ResponseEntity.ok(ApiResponse.success("Member information retrieved", response));
 
+        } catch (InvalidTicketException e) {
+            log.warn("Rejected ticket previewed at {} for event {}: {}", venue, eventId, e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Failed to preview member info: {}", e.getMessage(), e);
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve member information"));
@@ -425,158 +390,148 @@ public class VenueCheckinController {
                 return ResponseEntity.badRequest().body(ApiResponse.error("QR data cannot be empty"));
             }
 
-            Optional<Event> eventOpt = eventRepository.findById(eventId);
-            if (!eventOpt.isPresent()) {
+            Optional<Event.EventType> eventType = checkinCacheService.preload(eventId);
+            if (eventType.isEmpty()) {
                 return ResponseEntity.badRequest().body(ApiResponse.error("Event not found"));
             }
-
-            Event event = eventOpt.get();
-            if (!event.getEventType().equals(Event.EventType.BMM_VOTING)) {
+            if (eventType.get() != Event.EventType.BMM_VOTING) {
                 return ResponseEntity.badRequest().body(ApiResponse.error("This function is only available for BMM Voting events"));
             }
 
-            EventMember member = null;
-
-//            Try to parse QR data and find member
-            try {
-//                Try JSON parsing first
-                if (qrData.startsWith("{")) {
-//                    Parse as JSON
-                    String membershipNumber = extractFromJson(qrData, "membershipNumber");
-                    String token = extractFromJson(qrData, "token");
-
-                    if (token != null) {
-                        try {
-                            UUID memberToken = UUID.fromString(token);
-                            Optional<EventMember> memberOpt = eventMemberRepository.findByToken(memberToken);
-                            if (memberOpt.isPresent()) {
-                                member = memberOpt.get();
-                            }
-                        } catch (IllegalArgumentException e) {
-                            log.warn("Invalid token format in QR data: {}", token);
-                        }
-                    }
-
-                    if (member == null && membershipNumber != null) {
-                        Optional<EventMember> memberOpt2 = eventMemberRepository.findByEventAndMembershipNumber(event, membershipNumber);
-                        if (memberOpt2.isPresent()) {
-                            member = memberOpt2.get();
-                        }
-                    }
-                } else {
-//                    Try as plain membership number or token
-                    Optional<EventMember> memberOpt3 = eventMemberRepository.findByEventAndMembershipNumber(event, qrData.trim());
-                    if (memberOpt3.isPresent()) {
-                        member = memberOpt3.get();
-                    }
-
-                    if (member == null) {
-                        try {
-                            UUID memberToken = UUID.fromString(qrData.trim());
-                            Optional<EventMember> memberOpt = eventMemberRepository.findByToken(memberToken);
-                            if (memberOpt.isPresent() && memberOpt.get().getEvent().getId().equals(eventId)) {
-                                member = memberOpt.get();
-                            }
-                        } catch (IllegalArgumentException e) {
-//                            Not a valid UUID, ignore
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("Failed to parse QR data: {}", e.getMessage());
-            }
-
-            if (member == null) {
+//            Resolve the QR code against the event's in-memory lookup table
+            Optional<CheckinKeyRow> found = checkinCacheService.resolve(eventId, qrData);
+            if (found.isEmpty()) {
                 return ResponseEntity.badRequest().body(ApiResponse.error("Member not found for this QR code"));
             }
 
-//            Check if member is already checked in
-            if (member.getCheckedIn()) {
-                String previousVenue = member.getCheckInLocation();
-                log.warn("Member {} already checked in at {} (scanning at {})",
-                        member.getMembershipNumber(), previousVenue, venue);
-
-                Map<String, Object> response = new HashMap<>();
-                response.put("memberName", member.getName());
-                response.put("membershipNumber", member.getMembershipNumber());
-                response.put("previousCheckinTime", member.getCheckInTime());
-                response.put("previousCheckinLocation", previousVenue);
-                response.put("currentVenue", venue);
-                response.put("alreadyCheckedIn", true);
-
-                // Create custom warning response
-                ApiResponse<Map<String, Object>> warningResponse = ApiResponse.<Map<String, Object>>builder()
-                        .status("warning")
-                        .message("Member already checked in at " + (previousVenue != null ? previousVenue : "unknown location"))
-                        .data(response)
-                        .timestamp(LocalDateTime.now())
-                        .build();
-                return ResponseEntity.ok(warningResponse);
-            }
-
-//            Perform check-in with admin tracking
-            member.setCheckedIn(true);
-            member.setCheckInTime(LocalDateTime.now());
-            member.setCheckInLocation(venue);
-            if (location != null && !location.trim().isEmpty()) {
-                member.setCheckInLocation(location);
+            CheckinKeyRow member = found.get();
+            if (member.isCheckedIn()) {
+                return alreadyCheckedIn(member, venue);
             }
 
-            // CRITICAL: 新增：记录管理员信息
+//            Perform check-in with admin tracking - only succeeds if no other scanner got there first
+            String adminCheckinInfo = null;
             if (adminName != null && !adminName.trim().isEmpty()) {
                 // 使用registrationData JSON字段存储管理员信息
-                try {
-                    String adminInfo = String.format(
-                            "{\"checkedInByAdmin\":\"%s\",\"adminEmail\":\"%s\",\"adminToken\":\"%s\",\"checkinVenue\":\"%s\",\"checkinTimestamp\":\"%s\"}",
-                            adminName,
-                            adminEmail != null ? adminEmail : "",
-                            adminToken,
-                            venue,
-                            LocalDateTime.now().toString()
-                    );
-
-                    // 如果已有registrationData，则合并信息
-                    String existingData = member.getRegistrationData();
-                    if (existingData != null && !existingData.trim().isEmpty()) {
-                        // 简单合并：在现有JSON最后添加管理员信息
-                        if (existingData.endsWith("}")) {
-                            existingData = existingData.substring(0, existingData.length() - 1) +
-                                    ",\"adminCheckinInfo\":" + adminInfo + "}";
-                        } else {
-                            existingData = "{\"adminCheckinInfo\":" + adminInfo + "}";
-                        }
-                        member.setRegistrationData(existingData);
-                    } else {
-                        member.setRegistrationData("{\"adminCheckinInfo\":" + adminInfo + "}");
-                    }
-
-                    log.info("Admin checkin info recorded: {} scanned member {} at {} venue",
-                            adminName, member.getMembershipNumber(), venue);
-                } catch (Exception e) {
-                    log.warn("Failed to record admin checkin info: {}", e.getMessage());
+                Map<String, String> adminInfo = new LinkedHashMap<>();
+                adminInfo.put("checkedInByAdmin", adminName);
+                adminInfo.put("adminEmail", adminEmail != null ? adminEmail : "");
+                adminInfo.put("adminToken", adminToken);
+                adminInfo.put("checkinVenue", venue);
+                adminInfo.put("checkinTimestamp", LocalDateTime.now().toString());
+                adminCheckinInfo = JSON.writeValueAsString(adminInfo);
+            }
+            String checkinLocation = location != null && !location.trim().isEmpty() ? location : venue;
+
+            Optional<CheckedInMemberRow> checkedIn = checkinService.checkIn(member.id(),
+                    new CheckinService.Checkin(null, checkinLocation, null, null, null, adminCheckinInfo, false));
+            if (checkedIn.isEmpty()) {
+                Optional<CheckinKeyRow> current = checkinCacheService.reload(eventId, member.id());
+                if (current.isEmpty()) {
+                    return ResponseEntity.badRequest().body(ApiResponse.error("Member not found for this QR code"));
                 }
+                return alreadyCheckedIn(current.get(), venue);
             }
 
-            eventMemberRepository.save(member);
+            CheckedInMemberRow row = checkedIn.get();
+            if (adminCheckinInfo != null) {
+                log.info("Admin checkin info recorded: {} scanned member {} at {} venue",
+                        adminName, row.membershipNumber(), venue);
+            }
 
-            Map<String, Object> response = buildDetailedMemberInfo(member);
+            Map<String, Object> response = buildDetailedMemberInfo(row);
             response.put("venue", venue);
-            response.put("checkinLocation", member.getCheckInLocation());
+            response.put("checkinLocation", row.checkInLocation());
             response.put("scanMethod", "venue_scanner");
             response.put("adminName", adminName);        // 返回管理员信息供前端显示
-            response.put("checkinTime", member.getCheckInTime());
+            response.put("checkinTime", row.checkInTime());
 
             log.info("BMM venue checkin successful for member: {} at {} region by admin: {}",
-                    member.getMembershipNumber(), venue, adminName != null ? adminName : "Unknown");
+                    row.membershipNumber(), venue, adminName != null ? adminName : "Unknown");
 
             return ResponseEntity.ok(ApiResponse.success("Member checked in successfully at " + venue, response));
 
+        } catch (InvalidTicketException e) {
+            log.warn("Rejected ticket scanned at {} for event {}: {}", venue, eventId, e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("BMM venue checkin failed: {}", e.getMessage(), e);
             return ResponseEntity.badRequest().body(ApiResponse.error("Venue checkin failed: " + e.getMessage()));
         }
     }
 
+    //    Offline scanning: compact roster of the venue's forum (hashed codes, names, check-in state), or the changes
+    //    since a previous roster version. Responses are gzip-compressed by the server.
+    @GetMapping("/roster/{eventId}")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getScannerRoster(
+            @PathVariable Long eventId,
+            @RequestParam String adminToken,
+            @RequestParam(required = false) String venue,
+            @RequestParam(required = false) Long since) {
+        try {
+            String error = validateScanner(eventId, adminToken);
+            if (error != null) {
+                return ResponseEntity.badRequest().body(ApiResponse.error(error));
+            }
+
+            String forum = null;
+            if (venue != null && !venue.trim().isEmpty()) {
+                forum = getForumDescForVenue(venue);
+                if (forum == null) {
+                    forum = venue;
+                }
+            }
+            return ResponseEntity.ok(ApiResponse.success("Roster retrieved successfully",
+                    scannerSyncService.getRoster(eventId, forum, since)));
+
+        } catch (Exception e) {
+            log.error("Failed to build scanner roster for event {}: {}", eventId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve roster: " + e.getMessage()));
+        }
+    }
+
+    //    Offline scanning: upload scans made while offline
+    //    body: {deviceId, adminName, adminEmail, scans: [{scanId, qrData, scannedAt (epoch ms), location}]}
+    @PostMapping("/sync/{eventId}")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> uploadScans(
+            @PathVariable Long eventId,
+            @RequestParam String adminToken,
+            @RequestParam String venue,
+            @RequestBody Map<String, Object> request) {
+        try {
+            String error = validateScanner(eventId, adminToken);
+            if (error != null) {
+                return ResponseEntity.badRequest().body(ApiResponse.error(error));
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> rawScans = (List<Map<String, Object>>) request.get("scans");
+            if (rawScans == null || rawScans.isEmpty()) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("No scans provided"));
+            }
+
+            List<ScannerSyncService.Scan> scans = new ArrayList<>(rawScans.size());
+            for (Map<String, Object> scan : rawScans) {
+                Object scannedAt = scan.get("scannedAt");
+                scans.add(new ScannerSyncService.Scan(
+                        scan.get("scanId") != null ? scan.get("scanId").toString() : null,
+                        (String) scan.get("qrData"),
+                        scannedAt instanceof Number number ? number.longValue() : null,
+                        (String) scan.get("location")));
+            }
+
+            Map<String, Object> response = scannerSyncService.upload(eventId, venue, adminToken,
+                    (String) request.get("deviceId"), (String) request.get("adminName"), (String) request.get("adminEmail"), scans);
+            return ResponseEntity.ok(ApiResponse.success("Scans synchronised", response));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Offline scan upload failed for event {}: {}", eventId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.error("Scan upload failed: " + e.getMessage()));
+        }
+    }
+
     //    Validate token endpoint
     @GetMapping("/validate")
     public ResponseEntity<ApiResponse<Map<String, Object>>> validateToken(
@@ -614,9 +569,13 @@ public class VenueCheckinController {
                 return ResponseEntity.badRequest().body(ApiResponse.error("Token does not belong to this event"));
             }
 
+//            Scanner opened: load the event's check-in lookup table before the first scan arrives
+            checkinCacheService.preload(eventId);
+
 //            Get venue statistics - using forumDesc instead of regionDesc
-            long totalMembersInRegion = eventMemberRepository.countByEventAndForumDesc(event, venue);
-            long checkedInInRegion = eventMemberRepository.countByEventAndForumDescAndCheckedInTrue(event, venue);
+            Map<String, Long> forumCounters = eventCounterService.getBucket(event.getId(), EventCounter.Dimension.FORUM, venue);
+            long totalMembersInRegion = EventCounterService.count(forumCounters, EventCounter.Metric.MEMBERS);
+            long checkedInInRegion = EventCounterService.count(forumCounters, EventCounter.Metric.CHECKED_IN);
 
             Map<String, Object> response = new HashMap<>();
             response.put("event", Map.of(
@@ -640,25 +599,56 @@ public class VenueCheckinController {
         }
     }
 
-    //    Helper method to extract values from JSON string
-    private String extractFromJson(String jsonStr, String key) {
-        try {
-            int keyIndex = jsonStr.indexOf("\"" + key + "\"");
-            if (keyIndex == -1) return null;
-
-            int colonIndex = jsonStr.indexOf(":", keyIndex);
-            if (colonIndex == -1) return null;
-
-            int startIndex = jsonStr.indexOf("\"", colonIndex) + 1;
-            if (startIndex == 0) return null;
+    // Error message, or null when the token is an active scanner link of this BMM event
+    private String validateScanner(Long eventId, String adminToken) {
+        Optional<Event.EventType> eventType = checkinCacheService.preload(eventId);
+        if (eventType.isEmpty()) {
+            return "Event not found";
+        }
+        if (eventType.get() != Event.EventType.BMM_VOTING) {
+            return "This function is only available for BMM Voting events";
+        }
+        Optional<OrganizerToken> organizerToken = organizerTokenRepository.findByTokenAndIsActiveTrue(adminToken);
+        if (organizerToken.isEmpty()) {
+            return "Invalid or expired token";
+        }
+        if (!organizerToken.get().getEvent().getId().equals(eventId)) {
+            return "Token does not belong to this event";
+        }
+        return null;
+    }
 
-            int endIndex = jsonStr.indexOf("\"", startIndex);
-            if (endIndex == -1) return null;
+    private ResponseEntity<ApiResponse<Map<String, Object>>> alreadyCheckedIn(CheckinKeyRow member, String venue) {
+        String previousVenue = member.checkInLocation();
+        log.warn("Member {} already checked in at {} (scanning at {})",
+                member.membershipNumber(), previousVenue, venue);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("memberName", member.name());
+        response.put("membershipNumber", member.membershipNumber());
+        response.put("previousCheckinTime", member.checkInTime());
+        response.put("previousCheckinLocation", previousVenue);
+        response.put("currentVenue", venue);
+        response.put("alreadyCheckedIn", true);
+
+        // Create custom warning response
+        ApiResponse<Map<String, Object>> warningResponse = ApiResponse.<Map<String, Object>>builder()
+                .status("warning")
+                .message("Member already checked in at " + (previousVenue != null ? previousVenue : "unknown location"))
+                .data(response)
+                .timestamp(LocalDateTime.now())
+                .build();
+        return ResponseEntity.ok(warningResponse);
+    }
 
-            return jsonStr.substring(startIndex, endIndex);
-        } catch (Exception e) {
-            return null;
+    //    Live BMM check-in statistics (SSE) - pushes counter deltas instead of polling /bmm-stats
+    @GetMapping("/bmm-stats/{eventId}/stream")
+    public SseEmitter streamBmmStats(@PathVariable Long eventId,
+                                     @RequestParam(required = false) Set<EventCounter.Dimension> dimensions) {
+        if (!eventRepository.existsById(eventId)) {
+            throw new ResourceNotFoundException("Event not found: " + eventId);
         }
+        return liveStatsStreamService.subscribe(eventId, dimensions);
     }
 
     //    Get BMM check-in statistics for all regions
@@ -674,10 +664,11 @@ public class VenueCheckinController {
             Map<String, Object> stats = new HashMap<>();
 
 //            Overall stats
-            long totalMembers = eventMemberRepository.countByEvent(event);
-            long totalAttending = eventMemberRepository.countByEventAndIsAttendingTrue(event);
-            long totalCheckedIn = eventMemberRepository.countByEventAndCheckedInTrue(event);
-            long totalSpecialVote = eventMemberRepository.countByEventAndIsSpecialVoteTrue(event);
+            Map<String, Long> totals = eventCounterService.getEventTotals(event.getId());
+            long totalMembers = EventCounterService.count(totals, EventCounter.Metric.MEMBERS);
+            long totalAttending = EventCounterService.count(totals, EventCounter.Metric.ATTENDING);
+            long totalCheckedIn = EventCounterService.count(totals, EventCounter.Metric.CHECKED_IN);
+            long totalSpecialVote = EventCounterService.count(totals, EventCounter.Metric.SPECIAL_VOTE);
 
             stats.put("overall", Map.of(
                     "totalMembers", totalMembers,
@@ -689,11 +680,13 @@ public class VenueCheckinController {
 
 //            Regional breakdown
             Map<String, Object> regionStats = new HashMap<>();
+            Map<String, Map<String, Long>> regionCounters = eventCounterService.getBreakdown(event.getId(), EventCounter.Dimension.REGION);
             for (String region : BMM_REGIONS) {
-                long regionTotal = eventMemberRepository.countByEventAndRegionDesc(event, region);
-                long regionAttending = eventMemberRepository.countByEventAndRegionDescAndIsAttendingTrue(event, region);
-                long regionCheckedIn = eventMemberRepository.countByEventAndRegionDescAndCheckedInTrue(event, region);
-                long regionSpecialVote = eventMemberRepository.countByEventAndRegionDescAndIsSpecialVoteTrue(event, region);
+                Map<String, Long> counters = regionCounters.get(region);
+                long regionTotal = EventCounterService.count(counters, EventCounter.Metric.MEMBERS);
+                long regionAttending = EventCounterService.count(counters, EventCounter.Metric.ATTENDING);
+                long regionCheckedIn = EventCounterService.count(counters, EventCounter.Metric.CHECKED_IN);
+                long regionSpecialVote = EventCounterService.count(counters, EventCounter.Metric.SPECIAL_VOTE);
 
                 regionStats.put(region, Map.of(
                         "total", regionTotal,
@@ -718,21 +711,41 @@ public class VenueCheckinController {
     }
 
     //    Build detailed member information for display
-    private Map<String, Object> buildDetailedMemberInfo(EventMember member) {
+    private Map<String, Object> buildDetailedMemberInfo(CheckinKeyRow member, EventMemberPreviewRow details) {
+        Map<String, Object> memberInfo = new HashMap<>();
+        memberInfo.put("id", member.id());
+        memberInfo.put("membershipNumber", member.membershipNumber());
+        memberInfo.put("name", member.name());
+        memberInfo.put("primaryEmail", details.primaryEmail());
+        memberInfo.put("region", details.regionDesc());
+        memberInfo.put("workplace", details.workplace());
+        memberInfo.put("employer", details.employer());
+        memberInfo.put("isAttending", details.isAttending());
+        memberInfo.put("isSpecialVote", details.isSpecialVote());
+        memberInfo.put("checkedIn", member.isCheckedIn());
+        memberInfo.put("checkInTime", member.checkInTime());
+        memberInfo.put("checkInLocation", member.checkInLocation());
+        memberInfo.put("registrationStatus", details.registrationStatus());
+
+        return memberInfo;
+    }
+
+    //    Same fields, from the row returned by the check-in UPDATE
+    private Map<String, Object> buildDetailedMemberInfo(CheckedInMemberRow member) {
         Map<String, Object> memberInfo = new HashMap<>();
-        memberInfo.put("id", member.getId());
-        memberInfo.put("membershipNumber", member.getMembershipNumber());
-        memberInfo.put("name", member.getName());
-        memberInfo.put("primaryEmail", member.getPrimaryEmail());
-        memberInfo.put("region", member.getRegionDesc());
-        memberInfo.put("workplace", member.getWorkplace());
-        memberInfo.put("employer", member.getEmployer());
-        memberInfo.put("isAttending", member.getIsAttending());
-        memberInfo.put("isSpecialVote", member.getIsSpecialVote());
-        memberInfo.put("checkedIn", member.getCheckedIn());
-        memberInfo.put("checkInTime", member.getCheckInTime());
-        memberInfo.put("checkInLocation", member.getCheckInLocation());
-        memberInfo.put("registrationStatus", member.getRegistrationStatus());
+        memberInfo.put("id", member.id());
+        memberInfo.put("membershipNumber", member.membershipNumber());
+        memberInfo.put("name", member.name());
+        memberInfo.put("primaryEmail", member.primaryEmail());
+        memberInfo.put("region", member.regionDesc());
+        memberInfo.put("workplace", member.workplace());
+        memberInfo.put("employer", member.employer());
+        memberInfo.put("isAttending", member.isAttending());
+        memberInfo.put("isSpecialVote", member.isSpecialVote());
+        memberInfo.put("checkedIn", true);
+        memberInfo.put("checkInTime", member.checkInTime());
+        memberInfo.put("checkInLocation", member.checkInLocation());
+        memberInfo.put("registrationStatus", member.registrationStatus());
 
         return memberInfo;
     }
@@ -0,0 +1,28 @@
+package nz.etu.voting.domain.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A member as left by a successful check-in: the display fields the scanners show, read back from the
+ * check-in UPDATE itself, plus the counter state it moved the member into.
+ */
+public record CheckedInMemberRow(
+        Long id,
+        Long eventId,
+        String membershipNumber,
+        String name,
+        String primaryEmail,
+        String regionDesc,
+        String forumDesc,
+        String workplace,
+        String employer,
+        Boolean isAttending,
+        Boolean isSpecialVote,
+        LocalDateTime checkInTime,
+        String checkInLocation,
+        String checkInMethod,
+        String checkInVenue,
+        String checkInAdminName,
+        String registrationStatus,
+        EventCounterState counterState) {
+}
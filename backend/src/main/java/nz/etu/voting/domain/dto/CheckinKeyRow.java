@@ -0,0 +1,36 @@
+package nz.etu.voting.domain.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The few EventMember columns a venue scan needs to resolve a QR code and answer an already-checked-in scan,
+ * held per event by {@link nz.etu.voting.service.CheckinCacheService}.
+ */
+public record CheckinKeyRow(
+        Long id,
+        Long eventId,
+        UUID token,
+        UUID ticketToken,
+        String memberToken,
+        String membershipNumber,
+        String name,
+        String forumDesc,
+        Boolean checkedIn,
+        LocalDateTime checkInTime,
+        String checkInLocation) {
+
+    public static final String SELECT = "SELECT new nz.etu.voting.domain.dto.CheckinKeyRow(" +
+            "em.id, em.event.id, em.token, em.ticketToken, em.memberToken, em.membershipNumber, em.name, em.forumDesc, " +
+            "em.checkedIn, em.checkInTime, em.checkInLocation) FROM EventMember em ";
+
+    public boolean isCheckedIn() {
+        return Boolean.TRUE.equals(checkedIn);
+    }
+
+    // The same member as left by a check-in
+    public CheckinKeyRow checkedIn(CheckedInMemberRow row) {
+        return new CheckinKeyRow(id, eventId, token, ticketToken, memberToken, membershipNumber, name, forumDesc,
+                true, row.checkInTime(), row.checkInLocation());
+    }
+}
@@ -0,0 +1,177 @@
+package nz.etu.voting.domain.dto;
+
+import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.domain.entity.EventCounter;
+import nz.etu.voting.domain.entity.EventCounter.Dimension;
+import nz.etu.voting.domain.entity.EventCounter.Metric;
+import nz.etu.voting.domain.entity.EventMember;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The subset of EventMember state that feeds the live event counters.
+ * Built from an entity, from Hibernate's loaded state, or directly by a JPQL constructor expression during reconciliation.
+ */
+public record EventCounterState(
+        Long eventId,
+        String regionDesc,
+        String forumDesc,
+        String assignedVenueFinal,
+        String bmmRegistrationStage,
+        String bmmStage,
+        Boolean hasRegistered,
+        Boolean isAttending,
+        Boolean isSpecialVote,
+        Boolean checkedIn,
+        Boolean qrCodeEmailSent,
+        String primaryEmail,
+        Boolean attendanceConfirmed,
+        Boolean specialVoteEligible,
+        Boolean specialVoteRequested,
+        String bmmSpecialVoteStatus,
+        LocalDateTime specialVoteCompletedAt,
+        Boolean bmmInvitationSent,
+        Boolean bmmConfirmationRequestSent,
+        LocalDateTime ticketEmailSentAt,
+        LocalDateTime specialVoteSentAt) {
+
+    // EventMember property names in record component order ("event" resolves to the event id)
+    public static final String[] PROPERTIES = {
+            "event", "regionDesc", "forumDesc", "assignedVenueFinal", "bmmRegistrationStage", "bmmStage",
+            "hasRegistered", "isAttending", "isSpecialVote", "checkedIn", "qrCodeEmailSent", "primaryEmail",
+            "attendanceConfirmed", "specialVoteEligible", "specialVoteRequested", "bmmSpecialVoteStatus",
+            "specialVoteCompletedAt", "bmmInvitationSent", "bmmConfirmationRequestSent", "ticketEmailSentAt",
+            "specialVoteSentAt"
+    };
+
+    public static EventCounterState from(EventMember member) {
+        return new EventCounterState(
+                member.getEvent() != null ? member.getEvent().getId() : null,
+                member.getRegionDesc(),
+                member.getForumDesc(),
+                member.getAssignedVenueFinal(),
+                member.getBmmRegistrationStage(),
+                member.getBmmStage(),
+                member.getHasRegistered(),
+                member.getIsAttending(),
+                member.getIsSpecialVote(),
+                member.getCheckedIn(),
+                member.getQrCodeEmailSent(),
+                member.getPrimaryEmail(),
+                member.getAttendanceConfirmed(),
+                member.getSpecialVoteEligible(),
+                member.getSpecialVoteRequested(),
+                member.getBmmSpecialVoteStatus(),
+                member.getSpecialVoteCompletedAt(),
+                member.getBmmInvitationSent(),
+                member.getBmmConfirmationRequestSent(),
+                member.getTicketEmailSentAt(),
+                member.getSpecialVoteSentAt());
+    }
+
+    // values[i] holds the entity value of PROPERTIES[i]
+    public static EventCounterState fromValues(Object[] values) {
+        Object event = values[0];
+        return new EventCounterState(
+                event instanceof Event e ? e.getId() : (Long) event,
+                (String) values[1],
+                (String) values[2],
+                (String) values[3],
+                (String) values[4],
+                (String) values[5],
+                (Boolean) values[6],
+                (Boolean) values[7],
+                (Boolean) values[8],
+                (Boolean) values[9],
+                (Boolean) values[10],
+                (String) values[11],
+                (Boolean) values[12],
+                (Boolean) values[13],
+                (Boolean) values[14],
+                (String) values[15],
+                (LocalDateTime) values[16],
+                (Boolean) values[17],
+                (Boolean) values[18],
+                (LocalDateTime) values[19],
+                (LocalDateTime) values[20]);
+    }
+
+    public EventCounterState withCheckedIn(Boolean checkedIn) {
+        return new EventCounterState(eventId, regionDesc, forumDesc, assignedVenueFinal, bmmRegistrationStage, bmmStage,
+                hasRegistered, isAttending, isSpecialVote, checkedIn, qrCodeEmailSent, primaryEmail, attendanceConfirmed,
+                specialVoteEligible, specialVoteRequested, bmmSpecialVoteStatus, specialVoteCompletedAt, bmmInvitationSent,
+                bmmConfirmationRequestSent, ticketEmailSentAt, specialVoteSentAt);
+    }
+
+    public EventCounterState withIsAttending(Boolean isAttending) {
+        return new EventCounterState(eventId, regionDesc, forumDesc, assignedVenueFinal, bmmRegistrationStage, bmmStage,
+                hasRegistered, isAttending, isSpecialVote, checkedIn, qrCodeEmailSent, primaryEmail, attendanceConfirmed,
+                specialVoteEligible, specialVoteRequested, bmmSpecialVoteStatus, specialVoteCompletedAt, bmmInvitationSent,
+                bmmConfirmationRequestSent, ticketEmailSentAt, specialVoteSentAt);
+    }
+
+    // Every counter row this member contributes one to
+    public Set<EventCounter.Key> keys() {
+        Set<EventCounter.Key> keys = new HashSet<>();
+        if (eventId == null) {
+            return keys;
+        }
+
+        List<String> metrics = metrics();
+        addKeys(keys, Dimension.EVENT, EventCounter.ALL_BUCKET, metrics);
+        addKeys(keys, Dimension.REGION, regionDesc, metrics);
+        addKeys(keys, Dimension.FORUM, forumDesc, metrics);
+        addKeys(keys, Dimension.VENUE, assignedVenueFinal, metrics);
+        return keys;
+    }
+
+    private List<String> metrics() {
+        List<String> metrics = new ArrayList<>();
+        metrics.add(Metric.MEMBERS);
+        metrics.add(Metric.registrationStage(bmmRegistrationStage != null ? bmmRegistrationStage : "PENDING"));
+        if (bmmStage != null) {
+            metrics.add(Metric.bmmStage(bmmStage));
+        }
+
+        if (Boolean.TRUE.equals(hasRegistered)) metrics.add(Metric.REGISTERED);
+        if (Boolean.TRUE.equals(isSpecialVote)) metrics.add(Metric.SPECIAL_VOTE);
+        if (Boolean.TRUE.equals(checkedIn)) metrics.add(Metric.CHECKED_IN);
+        if (Boolean.TRUE.equals(isAttending)) {
+            boolean hasEmail = primaryEmail != null && !primaryEmail.isEmpty();
+            metrics.add(Metric.ATTENDING);
+            if (Boolean.TRUE.equals(qrCodeEmailSent)) {
+                metrics.add(Metric.TICKET_SENT);
+            } else if (hasEmail) {
+                metrics.add(Metric.TICKET_PENDING);
+            }
+            if (!hasEmail) {
+                metrics.add(Metric.ATTENDING_NO_EMAIL);
+            }
+        }
+
+        if (Boolean.TRUE.equals(attendanceConfirmed)) metrics.add(Metric.ATTENDANCE_CONFIRMED);
+        if (Boolean.FALSE.equals(attendanceConfirmed)) metrics.add(Metric.ATTENDANCE_DECLINED);
+        if (Boolean.TRUE.equals(specialVoteEligible)) metrics.add(Metric.SPECIAL_VOTE_ELIGIBLE);
+        if (Boolean.TRUE.equals(specialVoteRequested)) metrics.add(Metric.SPECIAL_VOTE_REQUESTED);
+        if ("APPROVED".equals(bmmSpecialVoteStatus)) metrics.add(Metric.SPECIAL_VOTE_APPROVED);
+        if (specialVoteCompletedAt != null) metrics.add(Metric.SPECIAL_VOTE_COMPLETED);
+        if (Boolean.TRUE.equals(bmmInvitationSent)) metrics.add(Metric.INVITATION_SENT);
+        if (Boolean.TRUE.equals(bmmConfirmationRequestSent)) metrics.add(Metric.CONFIRMATION_REQUEST_SENT);
+        if (ticketEmailSentAt != null) metrics.add(Metric.TICKET_EMAIL_SENT);
+        if (specialVoteSentAt != null) metrics.add(Metric.SPECIAL_VOTE_LINK_SENT);
+        return metrics;
+    }
+
+    private void addKeys(Set<EventCounter.Key> keys, Dimension dimension, String bucket, List<String> metrics) {
+        if (bucket == null || bucket.isBlank()) {
+            return;
+        }
+        for (String metric : metrics) {
+            keys.add(new EventCounter.Key(eventId, dimension, bucket, metric));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package nz.etu.voting.domain.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Check-in state of one EventMember for the staff and admin check-in lists, loaded by a JPQL constructor expression.
+ */
+public record EventMemberCheckinRow(
+        Long id,
+        Long eventId,
+        String membershipNumber,
+        String name,
+        String primaryEmail,
+        String telephoneMobile,
+        String regionDesc,
+        UUID token,
+        UUID ticketToken,
+        String assignedVenue,
+        Boolean hasRegistered,
+        Boolean isAttending,
+        Boolean hasVoted,
+        Boolean isSpecialVote,
+        Boolean specialVoteEligible,
+        Boolean checkedIn,
+        LocalDateTime checkInTime,
+        String checkInVenue,
+        String checkInMethod,
+        String checkInLocation,
+        String checkInAdminName) implements EventMemberRow {
+
+    public static final String SELECT = "SELECT new nz.etu.voting.domain.dto.EventMemberCheckinRow(" +
+            "em.id, em.event.id, em.membershipNumber, em.name, em.primaryEmail, em.telephoneMobile, em.regionDesc, " +
+            "em.token, em.ticketToken, em.assignedVenue, em.hasRegistered, em.isAttending, em.hasVoted, em.isSpecialVote, " +
+            "em.specialVoteEligible, em.checkedIn, em.checkInTime, em.checkInVenue, em.checkInMethod, em.checkInLocation, " +
+            "em.checkInAdminName) FROM EventMember em ";
+}
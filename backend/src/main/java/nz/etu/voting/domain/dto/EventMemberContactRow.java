@@ -0,0 +1,47 @@
+package nz.etu.voting.domain.dto;
+
+import nz.etu.voting.domain.entity.EventMember;
+
+/**
+ * What an email / SMS recipient preview shows for one EventMember: contact details and the fields the audience
+ * was filtered on. Loaded by a JPQL constructor expression instead of the full entity.
+ */
+public record EventMemberContactRow(
+        Long id,
+        String name,
+        String membershipNumber,
+        String verificationCode,
+        String primaryEmail,
+        String telephoneMobile,
+        String regionDesc,
+        String siteIndustryDesc,
+        String siteSubIndustryDesc,
+        String workplace,
+        String workplaceDesc,
+        String employer,
+        String branch,
+        String forumDesc,
+        String membershipTypeDesc,
+        String genderDesc,
+        String ethnicRegionDesc,
+        String occupation,
+        String bargainingGroupDesc,
+        Boolean hasRegistered,
+        Boolean isAttending,
+        Boolean hasVoted) implements EventMemberRow {
+
+    public static final String SELECT = "SELECT new nz.etu.voting.domain.dto.EventMemberContactRow(" +
+            "em.id, em.name, em.membershipNumber, em.verificationCode, em.primaryEmail, em.telephoneMobile, em.regionDesc, " +
+            "em.siteIndustryDesc, em.siteSubIndustryDesc, em.workplace, em.workplaceDesc, em.employer, em.branch, " +
+            "em.forumDesc, em.membershipTypeDesc, em.genderDesc, em.ethnicRegionDesc, em.occupation, " +
+            "em.bargainingGroupDesc, em.hasRegistered, em.isAttending, em.hasVoted) FROM EventMember em ";
+
+    // For audiences that were already loaded as entities
+    public static EventMemberContactRow of(EventMember em) {
+        return new EventMemberContactRow(em.getId(), em.getName(), em.getMembershipNumber(), em.getVerificationCode(),
+                em.getPrimaryEmail(), em.getTelephoneMobile(), em.getRegionDesc(), em.getSiteIndustryDesc(),
+                em.getSiteSubIndustryDesc(), em.getWorkplace(), em.getWorkplaceDesc(), em.getEmployer(), em.getBranch(),
+                em.getForumDesc(), em.getMembershipTypeDesc(), em.getGenderDesc(), em.getEthnicRegionDesc(),
+                em.getOccupation(), em.getBargainingGroupDesc(), em.getHasRegistered(), em.getIsAttending(), em.getHasVoted());
+    }
+}
@@ -0,0 +1,209 @@
+package nz.etu.voting.domain.dto;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Parsed audience filter for an event's members, built from the loose criteria map the admin email/SMS/registration
+ * pages send. Field aliases, region normalisation and the registrationStatus / bmmRegistrationStage shortcuts are
+ * resolved here once, so the in-memory roster filter and the JPA Specification evaluate exactly the same conditions.
+ *
+ * @param equalities EventMember attribute name -> required value, only for the fields actually supplied
+ */
+public record EventMemberCriteria(
+        Boolean hasRegistered,
+        Boolean isAttending,
+        Boolean hasVoted,
+        Boolean checkedIn,
+        Boolean hasEmail,
+        Boolean hasMobile,
+        String registrationStatus,
+        Map<String, String> equalities,
+        String bmmRegistrationStage,
+        String attendanceConfirmed,
+        Set<String> includeForums,
+        Set<String> excludeForums,
+        String specificTimePreference,
+        String bmmStage,
+        String preferenceStatus,
+        String attendanceIntention,
+        String venueAssignment,
+        String searchName,
+        String searchEmail,
+        String searchMembershipNumber) {
+
+    // attendanceConfirmed=no_response: neither confirmed nor declined
+    public static final Set<String> NO_RESPONSE_STAGES = Set.of("PENDING", "INVITED", "PREFERENCE_SUBMITTED", "VENUE_ASSIGNED");
+
+    public static EventMemberCriteria from(Map<String, Object> criteria) {
+        // CRITICAL: 完整的字段映射 - 支持前端发送的所有字段名
+        Boolean hasRegistered = getBoolean(criteria, "hasRegistered");
+        Boolean isAttending = getBoolean(criteria, "isAttending");
+
+        Map<String, String> equalities = new LinkedHashMap<>();
+        putIfPresent(equalities, "regionDesc", normaliseRegion(firstString(criteria, "regionDesc", "region")));
+        putIfPresent(equalities, "genderDesc", firstString(criteria, "genderDesc", "gender"));
+        putIfPresent(equalities, "siteIndustryDesc", firstString(criteria, "siteIndustryDesc", "industry"));
+        putIfPresent(equalities, "siteSubIndustryDesc", firstString(criteria, "siteSubIndustryDesc", "subIndustry"));
+        putIfPresent(equalities, "workplaceDesc", firstString(criteria, "workplaceDesc", "workplace"));
+        putIfPresent(equalities, "employer", firstString(criteria, "employerName", "employer"));
+        putIfPresent(equalities, "bargainingGroupDesc", firstString(criteria, "bargainingGroupDesc", "bargainingGroup"));
+        putIfPresent(equalities, "employmentStatus", getString(criteria, "employmentStatus"));
+        putIfPresent(equalities, "ethnicRegionDesc", firstString(criteria, "ethnicRegionDesc", "ethnicRegion"));
+        putIfPresent(equalities, "jobTitle", getString(criteria, "jobTitle"));
+        putIfPresent(equalities, "department", getString(criteria, "department"));
+        putIfPresent(equalities, "siteCode", getString(criteria, "siteNumber"));
+        putIfPresent(equalities, "branch", firstString(criteria, "branchDesc", "branch"));
+        putIfPresent(equalities, "forumDesc", firstString(criteria, "forumDesc", "forum"));
+        putIfPresent(equalities, "membershipTypeDesc", firstString(criteria, "membershipTypeDesc", "membershipType"));
+        putIfPresent(equalities, "occupation", getString(criteria, "occupation"));
+
+        // CRITICAL: 处理特殊的registrationStatus映射（special_vote 见 specialVoteOnly）
+        String registrationStatus = getString(criteria, "registrationStatus");
+        if (registrationStatus != null) {
+            switch (registrationStatus) {
+                case "registered" -> hasRegistered = true;
+                case "not_registered" -> hasRegistered = false;
+                case "attending" -> isAttending = true;
+                case "not_attending" -> isAttending = false;
+                default -> {
+                }
+            }
+        }
+
+        // CRITICAL: 处理BMM注册阶段映射，精确阶段另外匹配
+        String bmmRegistrationStage = getString(criteria, "bmmRegistrationStage");
+        if (bmmRegistrationStage != null) {
+            switch (bmmRegistrationStage) {
+                case "not_started" -> hasRegistered = false;
+                case "stage1_completed" -> hasRegistered = true;
+                case "stage2_pending" -> {
+                    hasRegistered = true;
+                    isAttending = null; // 还未决定是否出席
+                }
+                case "stage2_confirmed" -> {
+                    hasRegistered = true;
+                    isAttending = true;
+                }
+                default -> {
+                }
+            }
+        }
+
+        return new EventMemberCriteria(
+                hasRegistered,
+                isAttending,
+                getBoolean(criteria, "hasVoted"),
+                getBoolean(criteria, "checkedIn"),
+                getBoolean(criteria, "hasEmail"),
+                getBoolean(criteria, "hasMobile"),
+                registrationStatus,
+                Collections.unmodifiableMap(equalities),
+                bmmRegistrationStage,
+                getString(criteria, "attendanceConfirmed"),
+                lowerCaseSet(getString(criteria, "includeForums")),
+                lowerCaseSet(getString(criteria, "excludeForums")),
+                getString(criteria, "specificTimePreference"),
+                getString(criteria, "bmmStage"),
+                getString(criteria, "preferenceStatus"),
+                getString(criteria, "attendanceIntention"),
+                getString(criteria, "venueAssignment"),
+                lowerCase(getString(criteria, "searchName")),
+                lowerCase(getString(criteria, "searchEmail")),
+                lowerCase(getString(criteria, "searchMembershipNumber")));
+    }
+
+    public boolean specialVoteOnly() {
+        return "special_vote".equals(registrationStatus);
+    }
+
+    // EventMember boolean attribute name -> required value, only for the flags actually supplied
+    public Map<String, Boolean> flags() {
+        Map<String, Boolean> flags = new LinkedHashMap<>();
+        flags.put("hasRegistered", hasRegistered);
+        flags.put("isAttending", isAttending);
+        flags.put("hasVoted", hasVoted);
+        flags.put("checkedIn", checkedIn);
+        flags.put("hasEmail", hasEmail);
+        flags.put("hasMobile", hasMobile);
+        if (specialVoteOnly()) {
+            flags.put("specialVoteRequested", true);
+        }
+        flags.values().removeIf(Objects::isNull);
+        return flags;
+    }
+
+    // SMS-only audience: judged on the actual email / mobile values, not the hasEmail / hasMobile flags alone
+    public boolean smsOnly() {
+        return Boolean.FALSE.equals(hasEmail) && Boolean.TRUE.equals(hasMobile);
+    }
+
+    // Comma-separated time preferences must all be present
+    public List<String> requiredTimePreferences() {
+        if (specificTimePreference == null || "no_preference".equals(specificTimePreference)) {
+            return List.of();
+        }
+        return Arrays.stream(specificTimePreference.split(",")).map(String::trim).toList();
+    }
+
+    private static String normaliseRegion(String regionDesc) {
+        // CRITICAL: Map frontend region values to database values
+        if (regionDesc == null) {
+            return null;
+        }
+        switch (regionDesc.toLowerCase()) {
+            case "northern":
+                return "Northern";
+            case "central":
+                return "Central";
+            case "southern":
+                return "Southern";
+            default:
+                // Keep original if already full name or unknown
+                return regionDesc;
+        }
+    }
+
+    private static void putIfPresent(Map<String, String> equalities, String attribute, String value) {
+        if (value != null) {
+            equalities.put(attribute, value);
+        }
+    }
+
+    private static String firstString(Map<String, Object> criteria, String key, String alias) {
+        String value = getString(criteria, key);
+        return value != null ? value : getString(criteria, alias);
+    }
+
+    private static Set<String> lowerCaseSet(String commaSeparated) {
+        if (commaSeparated == null) {
+            return null;
+        }
+        return Arrays.stream(commaSeparated.split(","))
+                .map(value -> value.trim().toLowerCase())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static String lowerCase(String value) {
+        return value != null ? value.toLowerCase() : null;
+    }
+
+    private static Boolean getBoolean(Map<String, Object> criteria, String key) {
+        Object value = criteria.get(key);
+        if (value == null) return null;
+        if (value instanceof Boolean) return (Boolean) value;
+        if (value instanceof String) {
+            String str = (String) value;
+            if (str.equalsIgnoreCase("true")) return true;
+            if (str.equalsIgnoreCase("false")) return false;
+        }
+        return null;
+    }
+
+    private static String getString(Map<String, Object> criteria, String key) {
+        Object value = criteria.get(key);
+        if (value == null) return null;
+        String str = value.toString().trim();
+        return str.isEmpty() ? null : str;
+    }
+}
@@ -0,0 +1,42 @@
+package nz.etu.voting.domain.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of the event member, check-in and member report exports, streamed from a cursor by a JPQL constructor expression
+ * so an export never hydrates EventMember entities or lazily loads their Member one row at a time.
+ */
+public record EventMemberExportRow(
+        Long id,
+        String membershipNumber,
+        String name,
+        String primaryEmail,
+        String telephoneMobile,
+        Boolean hasEmail,
+        Boolean hasMobile,
+        Boolean hasRegistered,
+        Boolean isAttending,
+        Boolean isSpecialVote,
+        Boolean hasVoted,
+        Boolean checkedIn,
+        String regionDesc,
+        String workplace,
+        String employer,
+        String branch,
+        String absenceReason,
+        LocalDateTime createdAt,
+        LocalDateTime checkInTime,
+        Boolean emailSent,
+        Boolean smsSent,
+        String dataSource,
+        // linked Member's, null when the EventMember has no Member
+        String memberPayrollNumber,
+        String memberSiteNumber) {
+
+    public static final String SELECT = "SELECT new nz.etu.voting.domain.dto.EventMemberExportRow(" +
+            "em.id, em.membershipNumber, em.name, em.primaryEmail, em.telephoneMobile, em.hasEmail, em.hasMobile, " +
+            "em.hasRegistered, em.isAttending, em.isSpecialVote, em.hasVoted, em.checkedIn, em.regionDesc, em.workplace, " +
+            "em.employer, em.branch, em.absenceReason, em.createdAt, em.checkInTime, em.emailSent, em.smsSent, em.dataSource, " +
+            "m.payrollNumber, m.siteNumber) " +
+            "FROM EventMember em LEFT JOIN em.member m ";
+}
@@ -0,0 +1,20 @@
+package nz.etu.voting.domain.dto;
+
+/**
+ * What the venue preview shows about a scanned member besides the check-in state the scan lookup table already holds
+ * ({@link CheckinKeyRow}), loaded by a JPQL constructor expression for one resolved member.
+ */
+public record EventMemberPreviewRow(
+        Long id,
+        String primaryEmail,
+        String regionDesc,
+        String workplace,
+        String employer,
+        Boolean isAttending,
+        Boolean isSpecialVote,
+        String registrationStatus) {
+
+    public static final String SELECT = "SELECT new nz.etu.voting.domain.dto.EventMemberPreviewRow(" +
+            "em.id, em.primaryEmail, em.regionDesc, em.workplace, em.employer, em.isAttending, em.isSpecialVote, " +
+            "em.registrationStatus) FROM EventMember em ";
+}
@@ -0,0 +1,26 @@
+package nz.etu.voting.domain.dto;
+
+import java.util.*;
+
+/**
+ * A narrow read projection of EventMember. Filtered listings first select the matching ids (in order, one page),
+ * then load the projection rows for just those ids; {@link #inIdOrder} restores the page order.
+ */
+public interface EventMemberRow {
+
+    Long id();
+
+    static <R extends EventMemberRow> List<R> inIdOrder(List<Long> ids, Collection<R> rows) {
+        Map<Long, R> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(row.id(), row));
+
+        List<R> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            R row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,87 @@
+package nz.etu.voting.domain.dto;
+
+import nz.etu.voting.domain.entity.EventMember;
+import nz.etu.voting.domain.entity.Member;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One line of an admin member listing: identity, contact, registration and check-in state, plus the linked Member's
+ * classification fields. Loaded by a JPQL constructor expression so list views never hydrate the wide EventMember
+ * entity (TEXT / JSON columns) or lazily load its Member one row at a time.
+ */
+public record EventMemberSummaryRow(
+        Long id,
+        String membershipNumber,
+        String name,
+        String primaryEmail,
+        String telephoneMobile,
+        String verificationCode,
+        String regionDesc,
+        String workplace,
+        String employer,
+        Boolean hasRegistered,
+        Boolean isAttending,
+        Boolean isSpecialVote,
+        String absenceReason,
+        Boolean emailSent,
+        Boolean smsSent,
+        Boolean hasEmail,
+        Boolean hasMobile,
+        LocalDateTime formSubmissionTime,
+        LocalDateTime createdAt,
+        UUID token,
+        Boolean checkedIn,
+        LocalDateTime checkInTime,
+        String checkInAdminName,
+        String checkInAdminUsername,
+        String checkInVenue,
+        String checkInMethod,
+        String checkInLocation,
+        Boolean hasVoted,
+        Boolean qrCodeEmailSent,
+        // linked Member's copy, null when the EventMember has no Member
+        String memberSiteIndustryDesc,
+        String memberSiteSubIndustryDesc,
+        String memberAgeOfMember,
+        String memberBargainingGroupDesc,
+        String memberGenderDesc,
+        String memberEthnicRegionDesc,
+        String memberMembershipTypeDesc,
+        String memberBranchDesc,
+        String memberForumDesc,
+        String memberPayrollNumber,
+        String memberSiteNumber) implements EventMemberRow {
+
+    public static final String SELECT = "SELECT new nz.etu.voting.domain.dto.EventMemberSummaryRow(" +
+            "em.id, em.membershipNumber, em.name, em.primaryEmail, em.telephoneMobile, em.verificationCode, em.regionDesc, " +
+            "em.workplace, em.employer, em.hasRegistered, em.isAttending, em.isSpecialVote, em.absenceReason, em.emailSent, " +
+            "em.smsSent, em.hasEmail, em.hasMobile, em.formSubmissionTime, em.createdAt, em.token, em.checkedIn, " +
+            "em.checkInTime, em.checkInAdminName, em.checkInAdminUsername, em.checkInVenue, em.checkInMethod, " +
+            "em.checkInLocation, em.hasVoted, em.qrCodeEmailSent, m.siteIndustryDesc, m.siteSubIndustryDesc, " +
+            "m.ageOfMember, m.bargainingGroupDesc, m.genderDesc, m.ethnicRegionDesc, m.membershipTypeDesc, m.branchDesc, " +
+            "m.forumDesc, m.payrollNumber, m.siteNumber) FROM EventMember em LEFT JOIN em.member m ";
+
+    // Form submission time, falling back to creation for members added without a form
+    public LocalDateTime registrationTime() {
+        return formSubmissionTime != null ? formSubmissionTime : createdAt;
+    }
+
+    // For a single member that is already loaded as an entity
+    public static EventMemberSummaryRow of(EventMember em) {
+        Member m = em.getMember();
+        return new EventMemberSummaryRow(em.getId(), em.getMembershipNumber(), em.getName(), em.getPrimaryEmail(),
+                em.getTelephoneMobile(), em.getVerificationCode(), em.getRegionDesc(), em.getWorkplace(), em.getEmployer(),
+                em.getHasRegistered(), em.getIsAttending(), em.getIsSpecialVote(), em.getAbsenceReason(), em.getEmailSent(),
+                em.getSmsSent(), em.getHasEmail(), em.getHasMobile(), em.getFormSubmissionTime(), em.getCreatedAt(),
+                em.getToken(), em.getCheckedIn(), em.getCheckInTime(), em.getCheckInAdminName(), em.getCheckInAdminUsername(),
+                em.getCheckInVenue(), em.getCheckInMethod(), em.getCheckInLocation(), em.getHasVoted(), em.getQrCodeEmailSent(),
+                m != null ? m.getSiteIndustryDesc() : null, m != null ? m.getSiteSubIndustryDesc() : null,
+                m != null ? m.getAgeOfMember() : null, m != null ? m.getBargainingGroupDesc() : null,
+                m != null ? m.getGenderDesc() : null, m != null ? m.getEthnicRegionDesc() : null,
+                m != null ? m.getMembershipTypeDesc() : null, m != null ? m.getBranchDesc() : null,
+                m != null ? m.getForumDesc() : null, m != null ? m.getPayrollNumber() : null,
+                m != null ? m.getSiteNumber() : null);
+    }
+}
@@ -0,0 +1,77 @@
+package nz.etu.voting.domain.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * The filterable columns of one EventMember, loaded by a JPQL constructor expression to build the in-memory event roster.
+ */
+public record EventRosterRow(
+        Long id,
+        Long eventId,
+        Boolean hasRegistered,
+        Boolean isAttending,
+        Boolean hasVoted,
+        Boolean checkedIn,
+        Boolean hasEmail,
+        Boolean hasMobile,
+        Boolean specialVoteRequested,
+        Boolean preferredAttending,
+        Boolean isSpecialVote,
+        Boolean initialEmailSent,
+        Boolean registrationConfirmationEmailSent,
+        Boolean attendanceConfirmationEmailSent,
+        Boolean qrCodeEmailSent,
+        Boolean followUpReminderSent,
+        LocalDateTime registrationCompletedAt,
+        LocalDateTime attendanceDecisionMadeAt,
+        String regionDesc,
+        String genderDesc,
+        String siteIndustryDesc,
+        String siteSubIndustryDesc,
+        String workplaceDesc,
+        String employer,
+        String bargainingGroupDesc,
+        String employmentStatus,
+        String ethnicRegionDesc,
+        String jobTitle,
+        String department,
+        String siteCode,
+        String branch,
+        String forumDesc,
+        String membershipTypeDesc,
+        String occupation,
+        String bmmRegistrationStage,
+        String bmmStage,
+        String preferredTimesJson,
+        String preferredVenuesJson,
+        String assignedVenueFinal,
+        String name,
+        String primaryEmail,
+        String membershipNumber,
+        String telephoneMobile) {
+
+    public static final String SELECT = "SELECT new nz.etu.voting.domain.dto.EventRosterRow(" +
+            "em.id, em.event.id, em.hasRegistered, em.isAttending, em.hasVoted, em.checkedIn, em.hasEmail, em.hasMobile, " +
+            "em.specialVoteRequested, em.preferredAttending, em.isSpecialVote, em.initialEmailSent, " +
+            "em.registrationConfirmationEmailSent, em.attendanceConfirmationEmailSent, em.qrCodeEmailSent, " +
+            "em.followUpReminderSent, em.registrationCompletedAt, em.attendanceDecisionMadeAt, em.regionDesc, " +
+            "em.genderDesc, em.siteIndustryDesc, em.siteSubIndustryDesc, em.workplaceDesc, em.employer, " +
+            "em.bargainingGroupDesc, em.employmentStatus, " +
+            "em.ethnicRegionDesc, em.jobTitle, em.department, em.siteCode, em.branch, em.forumDesc, em.membershipTypeDesc, " +
+            "em.occupation, em.bmmRegistrationStage, em.bmmStage, em.preferredTimesJson, em.preferredVenuesJson, " +
+            "em.assignedVenueFinal, em.name, em.primaryEmail, em.membershipNumber, em.telephoneMobile) FROM EventMember em ";
+
+    // Same rules the SMS-only filter has always used: real address, not the temp-email placeholder
+    public boolean hasValidEmail() {
+        return primaryEmail != null && !primaryEmail.trim().isEmpty() && !primaryEmail.contains("@temp-email.etu.nz");
+    }
+
+    // Any non-blank mobile, as the SMS-only preview has always judged it
+    public boolean hasMobileNumber() {
+        return telephoneMobile != null && !telephoneMobile.trim().isEmpty();
+    }
+
+    public boolean hasValidMobile() {
+        return telephoneMobile != null && !telephoneMobile.trim().isEmpty() && telephoneMobile.trim().length() >= 8;
+    }
+}
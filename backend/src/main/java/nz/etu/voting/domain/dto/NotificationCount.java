@@ -0,0 +1,21 @@
+package nz.etu.voting.domain.dto;
+
+import nz.etu.voting.domain.entity.NotificationLog;
+
+import java.util.List;
+
+/**
+ * One row of a GROUP BY notification_type, is_successful aggregate over notification_logs.
+ */
+public record NotificationCount(NotificationLog.NotificationType notificationType, Boolean successful, Long count) {
+
+    public static long sum(List<NotificationCount> counts, boolean successful, NotificationLog.NotificationType... types) {
+        long total = 0;
+        for (NotificationCount count : counts) {
+            if (Boolean.valueOf(successful).equals(count.successful()) && List.of(types).contains(count.notificationType())) {
+                total += count.count();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,32 @@
+package nz.etu.voting.domain.dto;
+
+import nz.etu.voting.domain.entity.NotificationLog;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of the notification log spreadsheet. The content is cut to its first PREVIEW_LENGTH + 1 characters in the
+ * query, which is enough to tell whether the preview needs an ellipsis.
+ */
+public record NotificationLogExportRow(
+        String recipient,
+        NotificationLog.NotificationType notificationType,
+        Boolean isSuccessful,
+        String subject,
+        String contentStart,
+        LocalDateTime sentTime,
+        String errorMessage) {
+
+    public static final int PREVIEW_LENGTH = 100;
+
+    public static final String SELECT = "SELECT new nz.etu.voting.domain.dto.NotificationLogExportRow(" +
+            "nl.recipient, nl.notificationType, nl.isSuccessful, nl.subject, SUBSTRING(nl.content, 1, " + (PREVIEW_LENGTH + 1) +
+            "), nl.sentTime, nl.errorMessage) FROM NotificationLog nl ";
+
+    public String contentPreview() {
+        if (contentStart == null) {
+            return "";
+        }
+        return contentStart.length() > PREVIEW_LENGTH ? contentStart.substring(0, PREVIEW_LENGTH) + "..." : contentStart;
+    }
+}
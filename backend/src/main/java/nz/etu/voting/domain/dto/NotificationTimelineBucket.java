@@ -0,0 +1,21 @@
+package nz.etu.voting.domain.dto;
+
+/**
+ * Notification log count for one (day, stage, region, type, success) bucket, aggregated in Postgres.
+ */
+public interface NotificationTimelineBucket {
+
+    // yyyy-MM-dd
+    String getDay();
+
+    // pre_registration / confirmation / special_vote / other
+    String getStage();
+
+    String getRegion();
+
+    String getNotificationType();
+
+    Boolean getSuccessful();
+
+    Long getTotal();
+}
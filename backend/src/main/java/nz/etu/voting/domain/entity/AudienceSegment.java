@@ -0,0 +1,55 @@
+package nz.etu.voting.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A named, saved audience of one event ("Northern, registered, not attending, has mobile").
+ * Its membership is materialised in audience_segment_members and kept current by AudienceSegmentService,
+ * so previews and sends over the segment read the member set instead of re-evaluating the criteria.
+ */
+@Entity
+@Table(name = "audience_segments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_audience_segments_event_name", columnNames = {"event_id", "name"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AudienceSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    // The criteria map as sent by the admin email/SMS pages, see EventMemberCriteria
+    @Column(name = "criteria_json", columnDefinition = "TEXT", nullable = false)
+    private String criteriaJson;
+
+    @Column(name = "member_count", nullable = false)
+    private Long memberCount;
+
+    @Column(name = "created_by")
+    private String createdBy;
+
+    // Last full evaluation; incremental patches only move updated_at
+    @Column(name = "refreshed_at")
+    private LocalDateTime refreshedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
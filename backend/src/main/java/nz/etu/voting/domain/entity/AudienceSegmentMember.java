@@ -0,0 +1,35 @@
+package nz.etu.voting.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * One EventMember in a saved AudienceSegment. Rows are only written in bulk by AudienceSegmentService.
+ */
+@Entity
+@Table(name = "audience_segment_members",
+        indexes = @Index(name = "idx_audience_segment_members_member", columnList = "event_member_id"))
+@IdClass(AudienceSegmentMember.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AudienceSegmentMember {
+
+    @Id
+    @Column(name = "segment_id", nullable = false)
+    private Long segmentId;
+
+    @Id
+    @Column(name = "event_member_id", nullable = false)
+    private Long eventMemberId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long segmentId;
+        private Long eventMemberId;
+    }
+}
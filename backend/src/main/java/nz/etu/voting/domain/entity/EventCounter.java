@@ -0,0 +1,118 @@
+package nz.etu.voting.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Incrementally maintained live count for one event × dimension × bucket × metric.
+ * Updated in the same transaction as the EventMember change that caused it (see EventCounterService),
+ * and periodically reconciled against event_members.
+ */
+@Entity
+@Table(name = "event_counters",
+        uniqueConstraints = @UniqueConstraint(name = "uk_event_counters_key",
+                columnNames = {"event_id", "dimension", "bucket", "metric"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventCounter {
+
+    public static final String ALL_BUCKET = "ALL";
+
+    // Marker row (EVENT, SEEDED, SEEDED) = 1: the event's counters hold a full count and are maintained by deltas
+    public static final String SEEDED_BUCKET = "SEEDED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension", nullable = false, length = 20)
+    private Dimension dimension;
+
+    @Column(name = "bucket", nullable = false)
+    private String bucket; // ALL for EVENT, otherwise region/forum/venue name
+
+    @Column(name = "metric", nullable = false, length = 100)
+    private String metric;
+
+    @Column(name = "count", nullable = false)
+    private Long count;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum Dimension {
+        EVENT,
+        REGION,
+        FORUM,
+        VENUE
+    }
+
+    // Metric names; stage metrics are parameterised by the stage value
+    public static final class Metric {
+        public static final String MEMBERS = "MEMBERS";
+        public static final String REGISTERED = "REGISTERED";
+        public static final String ATTENDING = "ATTENDING";
+        public static final String SPECIAL_VOTE = "SPECIAL_VOTE";
+        public static final String CHECKED_IN = "CHECKED_IN";
+        public static final String TICKET_SENT = "TICKET_SENT";
+        public static final String TICKET_PENDING = "TICKET_PENDING";
+        public static final String ATTENDING_NO_EMAIL = "ATTENDING_NO_EMAIL";
+        public static final String ATTENDANCE_CONFIRMED = "ATTENDANCE_CONFIRMED";
+        public static final String ATTENDANCE_DECLINED = "ATTENDANCE_DECLINED";
+        public static final String SPECIAL_VOTE_ELIGIBLE = "SPECIAL_VOTE_ELIGIBLE";
+        public static final String SPECIAL_VOTE_REQUESTED = "SPECIAL_VOTE_REQUESTED";
+        public static final String SPECIAL_VOTE_APPROVED = "SPECIAL_VOTE_APPROVED";
+        public static final String SPECIAL_VOTE_COMPLETED = "SPECIAL_VOTE_COMPLETED";
+        public static final String INVITATION_SENT = "INVITATION_SENT";
+        public static final String CONFIRMATION_REQUEST_SENT = "CONFIRMATION_REQUEST_SENT";
+        public static final String TICKET_EMAIL_SENT = "TICKET_EMAIL_SENT";
+        public static final String SPECIAL_VOTE_LINK_SENT = "SPECIAL_VOTE_LINK_SENT";
+
+        private static final String REGISTRATION_STAGE_PREFIX = "REGISTRATION_STAGE:";
+        private static final String BMM_STAGE_PREFIX = "BMM_STAGE:";
+
+        private Metric() {
+        }
+
+        public static String registrationStage(String stage) {
+            return REGISTRATION_STAGE_PREFIX + stage;
+        }
+
+        public static String bmmStage(String stage) {
+            return BMM_STAGE_PREFIX + stage;
+        }
+    }
+
+    public static Key seededMarker(Long eventId) {
+        return new Key(eventId, Dimension.EVENT, SEEDED_BUCKET, SEEDED_BUCKET);
+    }
+
+    public Key toKey() {
+        return new Key(eventId, dimension, bucket, metric);
+    }
+
+    public record Key(Long eventId, Dimension dimension, String bucket, String metric) implements Comparable<Key> {
+
+        private static final Comparator<Key> ORDER = Comparator.comparing(Key::eventId)
+                .thenComparing(Key::dimension)
+                .thenComparing(Key::bucket)
+                .thenComparing(Key::metric);
+
+        // Counter rows are always upserted in this order so concurrent transactions cannot deadlock
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
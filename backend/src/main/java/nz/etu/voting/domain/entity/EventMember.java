@@ -19,7 +19,12 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "event_members")
+@Table(name = "event_members", indexes = {
+        // keyset pagination for the admin member listings: (event, [region,] name, id) and (event, id)
+        @Index(name = "idx_event_members_event_id", columnList = "event_id, id"),
+        @Index(name = "idx_event_members_event_name", columnList = "event_id, name, id"),
+        @Index(name = "idx_event_members_event_region_name", columnList = "event_id, region_desc, name, id")
+})
 public class EventMember {
 
     @Id
@@ -0,0 +1,86 @@
+package nz.etu.voting.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A background export (ExportJobService): what was asked for, where it got to, and the file it wrote to the local
+ * export store. The file is kept until expires_at; after that the job is EXPIRED and only the row remains.
+ */
+@Entity
+@Table(name = "export_jobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", unique = true, nullable = false)
+    private String jobId;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    // members, attendees, notifications, filtered or checkin - see ExcelExportService.export
+    @Column(name = "export_type", nullable = false)
+    private String exportType;
+
+    @Column(name = "category")
+    private String category;
+
+    // ExcelExportService.Format name: XLSX, CSV or CSV_GZIP
+    @Column(name = "format", nullable = false)
+    private String format;
+
+    // Identical requests share a key; only one job per key is queued or running at a time
+    @Column(name = "request_key", nullable = false)
+    private String requestKey;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    // Download file name; the stored file is named after the job id
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "row_count")
+    private Integer rowCount;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_by")
+    private String createdBy;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        EXPIRED
+    }
+}
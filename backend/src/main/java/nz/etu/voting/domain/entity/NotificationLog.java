@@ -10,7 +10,11 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notification_logs")
+@Table(name = "notification_logs", indexes = {
+        @Index(name = "idx_notification_logs_event_type_time", columnList = "event_id, notification_type, sent_time"),
+        @Index(name = "idx_notification_logs_event_member_time", columnList = "event_member_id, sent_time"),
+        @Index(name = "idx_notification_logs_sent_time", columnList = "sent_time")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,29 @@
+package nz.etu.voting.domain.event;
+
+import nz.etu.voting.domain.dto.CheckedInMemberRow;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Published after a transaction that inserted, updated or deleted Event or EventMember rows has committed.
+ * Covers syncs, imports and individual member updates alike, since they all go through JPA.
+ *
+ * @param eventIds         events whose own row or member rows changed
+ * @param eventMemberIds   the EventMember rows that changed (empty when only Event rows did), check-ins included
+ * @param memberProperties EventMember properties updated other than by a check-in; {@link #ANY_PROPERTY} for
+ *                         inserts, deletes, Event row changes and native updates of unknown columns
+ * @param checkIns         members whose only change was a check-in, as the check-in UPDATE returned them, so copies
+ *                         held in memory can be patched without reading the rows back
+ */
+public record EventDataChangedEvent(Set<Long> eventIds, Set<Long> eventMemberIds, Set<String> memberProperties,
+                                    Map<Long, CheckedInMemberRow> checkIns) {
+
+    public static final String ANY_PROPERTY = "*";
+
+    // Whether any of the given EventMember properties may have changed (check-ins aside)
+    public boolean affects(Collection<String> properties) {
+        return memberProperties.contains(ANY_PROPERTY) || properties.stream().anyMatch(memberProperties::contains);
+    }
+}
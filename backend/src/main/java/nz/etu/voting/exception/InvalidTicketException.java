@@ -0,0 +1,9 @@
+package nz.etu.voting.exception;
+
+// A scanned signed ticket that is forged, expired, replaced or for another event
+public class InvalidTicketException extends RuntimeException {
+
+    public InvalidTicketException(String message) {
+        super(message);
+    }
+}
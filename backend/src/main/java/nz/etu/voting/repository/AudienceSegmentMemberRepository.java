@@ -0,0 +1,37 @@
+package nz.etu.voting.repository;
+
+import nz.etu.voting.domain.entity.AudienceSegmentMember;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AudienceSegmentMemberRepository extends JpaRepository<AudienceSegmentMember, AudienceSegmentMember.Key> {
+
+    // Keyset walk over the segment's primary key (segment_id, event_member_id)
+    @Query("SELECT m.eventMemberId FROM AudienceSegmentMember m WHERE m.segmentId = :segmentId " +
+            "AND m.eventMemberId > :afterId ORDER BY m.eventMemberId")
+    List<Long> findMemberIdsAfter(@Param("segmentId") Long segmentId, @Param("afterId") Long afterId, Pageable limit);
+
+    @Query("SELECT m.eventMemberId FROM AudienceSegmentMember m WHERE m.segmentId = :segmentId ORDER BY m.eventMemberId")
+    List<Long> findMemberIds(@Param("segmentId") Long segmentId);
+
+    long countBySegmentId(Long segmentId);
+
+    @Query("SELECT m.eventMemberId FROM AudienceSegmentMember m WHERE m.segmentId = :segmentId AND m.eventMemberId IN :ids")
+    List<Long> findMemberIdsIn(@Param("segmentId") Long segmentId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM AudienceSegmentMember m WHERE m.segmentId = :segmentId AND m.eventMemberId IN :ids")
+    int deleteMembers(@Param("segmentId") Long segmentId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM AudienceSegmentMember m WHERE m.segmentId = :segmentId")
+    int deleteAllMembers(@Param("segmentId") Long segmentId);
+}
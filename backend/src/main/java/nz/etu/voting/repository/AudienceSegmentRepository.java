@@ -0,0 +1,25 @@
+package nz.etu.voting.repository;
+
+import nz.etu.voting.domain.entity.AudienceSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AudienceSegmentRepository extends JpaRepository<AudienceSegment, Long> {
+
+    List<AudienceSegment> findByEventIdOrderByName(Long eventId);
+
+    boolean existsByEventIdAndName(Long eventId, String name);
+
+    @Query("SELECT DISTINCT s.eventId FROM AudienceSegment s")
+    List<Long> findSegmentedEventIds();
+
+    @Modifying
+    @Query("UPDATE AudienceSegment s SET s.memberCount = s.memberCount + :delta, s.updatedAt = CURRENT_TIMESTAMP WHERE s.id = :id")
+    int adjustMemberCount(@Param("id") Long id, @Param("delta") long delta);
+}
@@ -0,0 +1,19 @@
+package nz.etu.voting.repository;
+
+import nz.etu.voting.domain.entity.EventCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EventCounterRepository extends JpaRepository<EventCounter, Long> {
+
+    List<EventCounter> findByEventId(Long eventId);
+
+    List<EventCounter> findByEventIdAndDimension(Long eventId, EventCounter.Dimension dimension);
+
+    List<EventCounter> findByEventIdAndDimensionAndBucket(Long eventId, EventCounter.Dimension dimension, String bucket);
+
+    boolean existsByEventIdAndDimensionAndBucket(Long eventId, EventCounter.Dimension dimension, String bucket);
+}
@@ -0,0 +1,22 @@
+package nz.etu.voting.repository;
+
+import nz.etu.voting.domain.entity.EventMember;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Specification queries that select only EventMember ids. Listings page over ids first and then load a narrow
+ * projection ({@link nz.etu.voting.domain.dto.EventMemberRow}) for that page, instead of fetching whole entities.
+ */
+public interface EventMemberIdQueries {
+
+    // One page of ids in the pageable's sort, or the specification's own ordering when the pageable is unsorted
+    Page<Long> findIdPage(Specification<EventMember> spec, Pageable pageable);
+
+    // First {@code limit} ids in the given sort, no count (keyset continuation)
+    List<Long> findIds(Specification<EventMember> spec, Sort sort, int limit);
+}
@@ -1,19 +1,36 @@
 package nz.etu.voting.repository;
 
+import nz.etu.voting.domain.dto.CheckinKeyRow;
+import nz.etu.voting.domain.dto.EventCounterState;
+import nz.etu.voting.domain.dto.EventMemberCheckinRow;
+import nz.etu.voting.domain.dto.EventMemberPreviewRow;
+import nz.etu.voting.domain.dto.EventMemberContactRow;
+import nz.etu.voting.domain.dto.EventMemberExportRow;
+import nz.etu.voting.domain.dto.EventMemberSummaryRow;
+import nz.etu.voting.domain.dto.EventRosterRow;
 import nz.etu.voting.domain.entity.Event;
 import nz.etu.voting.domain.entity.EventMember;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface EventMemberRepository extends JpaRepository<EventMember, Long> {
+public interface EventMemberRepository extends JpaRepository<EventMember, Long>, JpaSpecificationExecutor<EventMember>,
+        EventMemberIdQueries {
 
     Optional<EventMember> findByToken(UUID token);
 
@@ -160,57 +177,6 @@ public interface EventMemberRepository extends JpaRepository<EventMember, Long>
     @Query("SELECT COUNT(em) FROM EventMember em WHERE em.event = :event AND em.isSpecialVote = true")
     Long countByEventAndIsSpecialVoteTrue(@Param("event") Event event);
 
-    // 新增：多表联合查询 - 同时基于Member表和EventMember表字段进行复杂过滤
-    @Query("SELECT em FROM EventMember em " +
-            "WHERE em.event = :event " +
-            "AND (:hasRegistered IS NULL OR em.hasRegistered = :hasRegistered) " +
-            "AND (:isAttending IS NULL OR em.isAttending = :isAttending) " +
-            "AND (:hasVoted IS NULL OR em.hasVoted = :hasVoted) " +
-            "AND (:checkedIn IS NULL OR em.checkedIn = :checkedIn) " +
-            "AND (:regionDesc IS NULL OR em.regionDesc = :regionDesc) " +
-            "AND (:genderDesc IS NULL OR em.genderDesc = :genderDesc) " +
-            "AND (:siteIndustryDesc IS NULL OR em.siteIndustryDesc = :siteIndustryDesc) " +
-            "AND (:siteSubIndustryDesc IS NULL OR em.siteSubIndustryDesc = :siteSubIndustryDesc) " +
-            "AND (:workplaceDesc IS NULL OR em.workplaceDesc = :workplaceDesc) " +
-            "AND (:employerName IS NULL OR em.employer = :employerName) " +
-            "AND (:bargainingGroupDesc IS NULL OR em.bargainingGroupDesc = :bargainingGroupDesc) " +
-            "AND (:employmentStatus IS NULL OR em.employmentStatus = :employmentStatus) " +
-            "AND (:ethnicRegionDesc IS NULL OR em.ethnicRegionDesc = :ethnicRegionDesc) " +
-            "AND (:jobTitle IS NULL OR em.jobTitle = :jobTitle) " +
-            "AND (:department IS NULL OR em.department = :department) " +
-            "AND (:siteNumber IS NULL OR em.siteCode = :siteNumber) " +
-            "AND (:hasEmail IS NULL OR em.hasEmail = :hasEmail) " +
-            "AND (:hasMobile IS NULL OR em.hasMobile = :hasMobile) " +
-            "AND (:branchDesc IS NULL OR em.branch = :branchDesc) " +
-            "AND (:forumDesc IS NULL OR em.forumDesc = :forumDesc) " +
-            "AND (:membershipTypeDesc IS NULL OR em.membershipTypeDesc = :membershipTypeDesc) " +
-            "AND (:occupation IS NULL OR em.occupation = :occupation)")
-    List<EventMember> findByEventAndMemberCriteria(
-            @Param("event") Event event,
-            @Param("hasRegistered") Boolean hasRegistered,
-            @Param("isAttending") Boolean isAttending,
-            @Param("hasVoted") Boolean hasVoted,
-            @Param("checkedIn") Boolean checkedIn,
-            @Param("regionDesc") String regionDesc,
-            @Param("genderDesc") String genderDesc,
-            @Param("siteIndustryDesc") String siteIndustryDesc,
-            @Param("siteSubIndustryDesc") String siteSubIndustryDesc,
-            @Param("workplaceDesc") String workplaceDesc,
-            @Param("employerName") String employerName,
-            @Param("bargainingGroupDesc") String bargainingGroupDesc,
-            @Param("employmentStatus") String employmentStatus,
-            @Param("ethnicRegionDesc") String ethnicRegionDesc,
-            @Param("jobTitle") String jobTitle,
-            @Param("department") String department,
-            @Param("siteNumber") String siteNumber,
-            @Param("hasEmail") Boolean hasEmail,
-            @Param("hasMobile") Boolean hasMobile,
-            @Param("branchDesc") String branchDesc,
-            @Param("forumDesc") String forumDesc,
-            @Param("membershipTypeDesc") String membershipTypeDesc,
-            @Param("occupation") String occupation
-    );
-
     // 按行业关键词进行多表联合查询
     @Query("SELECT em FROM EventMember em " +
             "WHERE em.event = :event " +
@@ -368,4 +334,93 @@ public interface EventMemberRepository extends JpaRepository<EventMember, Long>
     // Get all distinct forums for an event
     @Query("SELECT DISTINCT em.forumDesc FROM EventMember em WHERE em.event = :event AND em.forumDesc IS NOT NULL ORDER BY em.forumDesc")
     List<String> findDistinctForumDescByEvent(@Param("event") Event event);
-}
\ No newline at end of file
+
+    // Time-windowed activity counts for the real-time dashboard
+    Long countByEventAndFormSubmissionTimeAfter(Event event, LocalDateTime since);
+
+    Long countByEventAndBmmAttendanceConfirmedAtAfter(Event event, LocalDateTime since);
+
+    Long countByEventAndBmmLastInteractionAtAfter(Event event, LocalDateTime since);
+
+    Long countByEventAndBmmInvitationSentAtAfter(Event event, LocalDateTime since);
+
+    // Narrow read of the counter-relevant columns, used to reconcile event_counters
+    @Query("SELECT new nz.etu.voting.domain.dto.EventCounterState(" +
+            "em.event.id, em.regionDesc, em.forumDesc, em.assignedVenueFinal, em.bmmRegistrationStage, em.bmmStage, " +
+            "em.hasRegistered, em.isAttending, em.isSpecialVote, em.checkedIn, em.qrCodeEmailSent, em.primaryEmail, " +
+            "em.attendanceConfirmed, em.specialVoteEligible, em.specialVoteRequested, em.bmmSpecialVoteStatus, " +
+            "em.specialVoteCompletedAt, em.bmmInvitationSent, em.bmmConfirmationRequestSent, em.ticketEmailSentAt, " +
+            "em.specialVoteSentAt) FROM EventMember em WHERE em.event.id = :eventId")
+    List<EventCounterState> findCounterStatesByEventId(@Param("eventId") Long eventId);
+
+    // Columnar roster snapshot (EventRosterService): full load per event, and targeted reloads for patches
+    @Query(EventRosterRow.SELECT + "WHERE em.event.id = :eventId ORDER BY em.id")
+    List<EventRosterRow> findRosterRowsByEventId(@Param("eventId") Long eventId);
+
+    @Query(EventRosterRow.SELECT + "WHERE em.id IN :ids")
+    List<EventRosterRow> findRosterRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Venue scan lookup tables (CheckinCacheService): full load per event, targeted reloads, and single-key misses
+    @Query(CheckinKeyRow.SELECT + "WHERE em.event.id = :eventId")
+    List<CheckinKeyRow> findCheckinKeyRowsByEventId(@Param("eventId") Long eventId);
+
+    @Query(CheckinKeyRow.SELECT + "WHERE em.id IN :ids")
+    List<CheckinKeyRow> findCheckinKeyRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Spreadsheet export rows from a server-side cursor; needs a surrounding transaction and the stream closed after use
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(EventMemberExportRow.SELECT + "WHERE em.event.id = :eventId ORDER BY em.id")
+    Stream<EventMemberExportRow> streamExportRowsByEventId(@Param("eventId") Long eventId);
+
+    // Members who get a ticket: confirmed BMM attendees and anyone marked attending
+    @Query(CheckinKeyRow.SELECT + "WHERE em.event.id = :eventId " +
+            "AND (em.bmmRegistrationStage = 'ATTENDANCE_CONFIRMED' OR em.isAttending = true) ORDER BY em.id")
+    List<CheckinKeyRow> findTicketHolderKeyRows(@Param("eventId") Long eventId);
+
+    @Query(CheckinKeyRow.SELECT + "WHERE em.event.id = :eventId AND em.updatedAt > :since")
+    List<CheckinKeyRow> findCheckinKeyRowsUpdatedSince(@Param("eventId") Long eventId, @Param("since") LocalDateTime since);
+
+    @Query(CheckinKeyRow.SELECT + "WHERE em.event.id = :eventId AND (em.token = :token OR em.ticketToken = :token)")
+    List<CheckinKeyRow> findCheckinKeyRowsByToken(@Param("eventId") Long eventId, @Param("token") UUID token);
+
+    @Query(CheckinKeyRow.SELECT + "WHERE em.event.id = :eventId AND (em.membershipNumber = :key OR em.memberToken = :key)")
+    List<CheckinKeyRow> findCheckinKeyRowsByKey(@Param("eventId") Long eventId, @Param("key") String key);
+
+    // Venue preview details of a member resolved through the scan lookup table
+    @Query(EventMemberPreviewRow.SELECT + "WHERE em.id = :id")
+    Optional<EventMemberPreviewRow> findPreviewRowById(@Param("id") Long id);
+
+    // Narrow list projections, loaded for one page of ids (see EventMemberIdQueries / EventMemberRow.inIdOrder)
+    @Query(EventMemberSummaryRow.SELECT + "WHERE em.id IN :ids")
+    List<EventMemberSummaryRow> findSummaryRowsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(EventMemberContactRow.SELECT + "WHERE em.id IN :ids")
+    List<EventMemberContactRow> findContactRowsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(EventMemberCheckinRow.SELECT + "WHERE em.event.id = :eventId ORDER BY em.name, em.id")
+    List<EventMemberCheckinRow> findCheckinRowsByEventId(@Param("eventId") Long eventId);
+
+    // Newest check-in first, never-timed check-ins last
+    @Query(value = EventMemberCheckinRow.SELECT + "WHERE em.event.id = :eventId AND em.checkedIn = true " +
+            "ORDER BY em.checkInTime DESC NULLS LAST, em.id DESC",
+            countQuery = "SELECT COUNT(em) FROM EventMember em WHERE em.event.id = :eventId AND em.checkedIn = true")
+    Page<EventMemberCheckinRow> findCheckedInRowsByEventId(@Param("eventId") Long eventId, Pageable pageable);
+
+    @Query(EventMemberCheckinRow.SELECT + "WHERE em.checkedIn = true AND em.bmmRegistrationStage = :stage " +
+            "ORDER BY em.checkInTime DESC NULLS LAST, em.id DESC")
+    List<EventMemberCheckinRow> findCheckedInRowsByBmmRegistrationStage(@Param("stage") String bmmRegistrationStage);
+
+    // Quick search, same ranking as MemberRepository.quickSearch (trigram indexes from V3__quick_search_trigram_indexes.sql)
+    @Query(value = "SELECT * FROM event_members em " +
+            "WHERE em.membership_number ILIKE :pattern OR em.name ILIKE :pattern " +
+            "OR em.primary_email ILIKE :pattern OR em.telephone_mobile LIKE :pattern " +
+            "ORDER BY CASE WHEN lower(em.membership_number) = lower(:term) THEN 0 " +
+            "WHEN em.membership_number ILIKE :prefix OR em.name ILIKE :prefix " +
+            "OR em.primary_email ILIKE :prefix OR em.telephone_mobile LIKE :prefix THEN 1 ELSE 2 END, " +
+            "em.name, em.id LIMIT :limit",
+            nativeQuery = true)
+    List<EventMember> quickSearch(@Param("term") String term,
+                                  @Param("pattern") String pattern,
+                                  @Param("prefix") String prefix,
+                                  @Param("limit") int limit);
+}
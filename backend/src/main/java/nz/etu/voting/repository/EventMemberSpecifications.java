@@ -0,0 +1,286 @@
+package nz.etu.voting.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import nz.etu.voting.domain.dto.EventMemberCriteria;
+import nz.etu.voting.domain.entity.EventMember;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JPA Specifications over EventMember. Unlike the old catch-all JPQL with one "(:x IS NULL OR ...)" clause per field,
+ * {@link #matching} only emits predicates for the conditions actually supplied, so Postgres plans each audience
+ * query against the indexes it really uses. Conditions mirror the in-memory roster filter in EventMemberTargetingService.
+ */
+public final class EventMemberSpecifications {
+
+    private static final String TEMP_EMAIL_DOMAIN = "@temp-email.etu.nz";
+
+    private EventMemberSpecifications() {
+    }
+
+    public static Specification<EventMember> inEvent(Long eventId) {
+        return (root, query, cb) -> cb.equal(root.get("event").get("id"), eventId);
+    }
+
+    public static Specification<EventMember> matching(Long eventId, EventMemberCriteria c) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("event").get("id"), eventId));
+
+            c.flags().forEach((attribute, value) -> predicates.add(cb.equal(root.get(attribute), value)));
+            c.equalities().forEach((attribute, value) -> predicates.add(cb.equal(root.get(attribute), value)));
+
+            // BMM注册阶段精确匹配，null视为not_started
+            if (c.bmmRegistrationStage() != null) {
+                predicates.add(equalsOrNullAs(cb, root.get("bmmRegistrationStage"), c.bmmRegistrationStage(), "not_started"));
+            }
+
+            if (c.attendanceConfirmed() != null) {
+                Expression<String> stage = root.get("bmmRegistrationStage");
+                switch (c.attendanceConfirmed()) {
+                    case "confirmed" -> predicates.add(cb.equal(stage, "ATTENDANCE_CONFIRMED"));
+                    case "declined" -> predicates.add(cb.equal(stage, "ATTENDANCE_DECLINED"));
+                    case "no_response" -> predicates.add(cb.or(cb.isNull(stage), stage.in(EventMemberCriteria.NO_RESPONSE_STAGES)));
+                    default -> {
+                    }
+                }
+            }
+
+            // Forum inclusion / exclusion, case-insensitive on trimmed names
+            Expression<String> forum = cb.lower(cb.trim(root.get("forumDesc")));
+            if (c.includeForums() != null) {
+                predicates.add(forum.in(c.includeForums()));
+            }
+            if (c.excludeForums() != null) {
+                predicates.add(cb.or(cb.isNull(root.get("forumDesc")), cb.not(forum.in(c.excludeForums()))));
+            }
+
+            if (c.specificTimePreference() != null) {
+                Expression<String> prefs = root.get("preferredTimesJson");
+                if ("no_preference".equals(c.specificTimePreference())) {
+                    predicates.add(cb.or(cb.isNull(prefs), cb.equal(prefs, ""), cb.equal(prefs, "[]")));
+                } else {
+                    predicates.add(cb.notEqual(prefs, ""));
+                    for (String required : c.requiredTimePreferences()) {
+                        predicates.add(cb.like(prefs, containsPattern(required), '\\'));
+                    }
+                }
+            }
+
+            // BMM Stage, null视为INVITED
+            if (c.bmmStage() != null) {
+                predicates.add(equalsOrNullAs(cb, root.get("bmmStage"), c.bmmStage(), "INVITED"));
+            }
+
+            if (c.preferenceStatus() != null) {
+                Expression<String> venues = root.get("preferredVenuesJson");
+                Predicate hasPreferences = cb.and(cb.isNotNull(venues), cb.notEqual(venues, ""));
+                switch (c.preferenceStatus()) {
+                    case "submitted" -> predicates.add(hasPreferences);
+                    case "submitted_attending" -> predicates.add(cb.and(hasPreferences, cb.isTrue(root.get("preferredAttending"))));
+                    case "not_submitted" -> predicates.add(cb.or(cb.isNull(venues), cb.equal(venues, "")));
+                    // Include those who said yes and those who didn't answer
+                    case "exclude_not_attending" -> predicates.add(cb.or(cb.isNull(root.get("preferredAttending")),
+                            cb.isTrue(root.get("preferredAttending"))));
+                    default -> {
+                    }
+                }
+            }
+
+            if (c.attendanceIntention() != null) {
+                switch (c.attendanceIntention()) {
+                    case "intend_yes" -> predicates.add(cb.isTrue(root.get("preferredAttending")));
+                    case "intend_no" -> predicates.add(cb.isFalse(root.get("preferredAttending")));
+                    case "not_specified" -> predicates.add(cb.isNull(root.get("preferredAttending")));
+                    default -> {
+                    }
+                }
+            }
+
+            Expression<String> venue = root.get("assignedVenueFinal");
+            if ("assigned".equals(c.venueAssignment())) {
+                predicates.add(cb.and(cb.isNotNull(venue), cb.notEqual(venue, "")));
+            } else if ("not_assigned".equals(c.venueAssignment())) {
+                predicates.add(cb.or(cb.isNull(venue), cb.equal(venue, "")));
+            }
+
+            // CRITICAL: SMS-only based on actual primary_email and telephone_mobile values
+            if (c.smsOnly()) {
+                predicates.add(validMobile(root, cb));
+                predicates.add(cb.not(validEmail(root, cb)));
+            }
+
+            // 搜索过滤 - 名字、邮箱、会员号模糊匹配
+            if (c.searchName() != null) {
+                predicates.add(cb.like(cb.lower(root.get("name")), containsPattern(c.searchName()), '\\'));
+            }
+            if (c.searchEmail() != null) {
+                predicates.add(cb.like(cb.lower(root.get("primaryEmail")), containsPattern(c.searchEmail()), '\\'));
+            }
+            if (c.searchMembershipNumber() != null) {
+                predicates.add(cb.like(cb.lower(root.get("membershipNumber")), containsPattern(c.searchMembershipNumber()), '\\'));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // hasEmail flag plus a real address (not blank, not the temp-email placeholder)
+    public static Specification<EventMember> emailable() {
+        return (root, query, cb) -> cb.and(cb.isTrue(root.get("hasEmail")), validEmail(root, cb));
+    }
+
+    // Any non-blank mobile, as the SMS previews have always required
+    public static Specification<EventMember> hasMobileNumber() {
+        return (root, query, cb) -> cb.and(cb.isNotNull(root.get("telephoneMobile")),
+                cb.notEqual(cb.trim(root.get("telephoneMobile")), ""));
+    }
+
+    // No usable email: missing, blank or the temp-email placeholder
+    public static Specification<EventMember> noValidEmail() {
+        return (root, query, cb) -> cb.not(validEmail(root, cb));
+    }
+
+    public static Specification<EventMember> flagEquals(String attribute, boolean value) {
+        return (root, query, cb) -> value ? cb.isTrue(root.get(attribute)) : cb.isFalse(root.get(attribute));
+    }
+
+    // Case-insensitive substring match on any of the given attributes
+    public static Specification<EventMember> containsAny(String term, String... attributes) {
+        return (root, query, cb) -> {
+            String pattern = containsPattern(term.toLowerCase());
+            Predicate[] matches = new Predicate[attributes.length];
+            for (int i = 0; i < attributes.length; i++) {
+                matches[i] = cb.like(cb.lower(root.get(attributes[i])), pattern, '\\');
+            }
+            return cb.or(matches);
+        };
+    }
+
+    public static Specification<EventMember> isSpecialVote() {
+        return (root, query, cb) -> cb.isTrue(root.get("isSpecialVote"));
+    }
+
+    // Registered but not attending and no absence reason given
+    public static Specification<EventMember> registrationIncomplete() {
+        return (root, query, cb) -> cb.and(
+                cb.isTrue(root.get("hasRegistered")),
+                cb.or(cb.isNull(root.get("isAttending")), cb.isFalse(root.get("isAttending"))),
+                cb.or(cb.isNull(root.get("absenceReason")), cb.equal(cb.trim(root.get("absenceReason")), "")));
+    }
+
+    // hasRegistered false or never set
+    public static Specification<EventMember> notRegistered() {
+        return (root, query, cb) -> cb.or(cb.isNull(root.get("hasRegistered")), cb.isFalse(root.get("hasRegistered")));
+    }
+
+    // Equality / substring match on the linked Member row's own copy of a field
+    public static Specification<EventMember> memberAttributeEquals(String attribute, String value) {
+        return (root, query, cb) -> cb.equal(root.join("member", JoinType.LEFT).get(attribute), value);
+    }
+
+    public static Specification<EventMember> memberAttributeContains(String attribute, String value) {
+        return (root, query, cb) -> cb.like(root.join("member", JoinType.LEFT).get(attribute), containsPattern(value), '\\');
+    }
+
+    public static Specification<EventMember> attributeEquals(String attribute, String value) {
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    // Registration dashboard contact buckets: hasBoth / emailOnly / mobileOnly / hasNone
+    public static Specification<EventMember> contactInfo(String contactInfo) {
+        return (root, query, cb) -> {
+            Expression<String> email = root.get("primaryEmail");
+            Expression<String> mobile = root.get("telephoneMobile");
+            Predicate hasEmail = cb.and(cb.isNotNull(email), cb.notEqual(cb.trim(email), ""),
+                    cb.notLike(email, containsPattern("@temp.etu.nz"), '\\'));
+            Predicate hasMobile = cb.and(cb.isNotNull(mobile), cb.notEqual(cb.trim(mobile), ""));
+            return switch (contactInfo) {
+                case "hasBoth" -> cb.and(hasEmail, hasMobile);
+                case "emailOnly" -> cb.and(hasEmail, cb.not(hasMobile));
+                case "mobileOnly" -> cb.and(cb.not(hasEmail), hasMobile);
+                case "hasNone" -> cb.and(cb.not(hasEmail), cb.not(hasMobile));
+                default -> null;
+            };
+        };
+    }
+
+    // Keyset continuation: rows after the last id of the previous page (use with id ordering)
+    public static Specification<EventMember> idAfter(Long lastId) {
+        return (root, query, cb) -> lastId == null ? null : cb.greaterThan(root.get("id"), lastId);
+    }
+
+    // Keyset continuation for any sort: rows strictly after the cursor's (k1, k2, ...) in that sort's direction
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<EventMember> after(KeysetScrollPosition position, Sort sort) {
+        return (root, query, cb) -> {
+            Map<String, Object> keys = position.getKeys();
+            List<Predicate> alternatives = new ArrayList<>();
+            List<Predicate> tiedSoFar = new ArrayList<>();
+            for (Sort.Order order : sort) {
+                Comparable value = (Comparable) keys.get(order.getProperty());
+                if (value == null) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                Expression<Comparable> key = root.get(order.getProperty());
+                List<Predicate> alternative = new ArrayList<>(tiedSoFar);
+                alternative.add(order.isAscending() ? cb.greaterThan(key, value) : cb.lessThan(key, value));
+                alternatives.add(cb.and(alternative.toArray(new Predicate[0])));
+                tiedSoFar.add(cb.equal(key, value));
+            }
+            return cb.or(alternatives.toArray(new Predicate[0]));
+        };
+    }
+
+    // Newest registration first (form submission, falling back to creation), nulls last, id as tie-breaker.
+    // Ordering is skipped on the count query Spring Data derives from the same specification.
+    public static Specification<EventMember> orderByRegistrationTimeDesc() {
+        return (root, query, cb) -> {
+            if (!Long.class.equals(query.getResultType())) {
+                query.orderBy(((HibernateCriteriaBuilder) cb).desc(
+                        cb.coalesce(root.<LocalDateTime>get("formSubmissionTime"), root.get("createdAt")), false),
+                        cb.desc(root.get("id")));
+            }
+            return null;
+        };
+    }
+
+    public static Specification<EventMember> orderByCreatedAtDesc() {
+        return (root, query, cb) -> {
+            if (!Long.class.equals(query.getResultType())) {
+                query.orderBy(((HibernateCriteriaBuilder) cb).desc(root.get("createdAt"), false), cb.desc(root.get("id")));
+            }
+            return null;
+        };
+    }
+
+    private static Predicate validEmail(Root<EventMember> root, CriteriaBuilder cb) {
+        Expression<String> email = root.get("primaryEmail");
+        return cb.and(cb.isNotNull(email), cb.notEqual(cb.trim(email), ""),
+                cb.notLike(email, containsPattern(TEMP_EMAIL_DOMAIN), '\\'));
+    }
+
+    private static Predicate validMobile(Root<EventMember> root, CriteriaBuilder cb) {
+        Expression<String> mobile = root.get("telephoneMobile");
+        return cb.and(cb.isNotNull(mobile), cb.ge(cb.length(cb.trim(mobile)), 8));
+    }
+
+    private static Predicate equalsOrNullAs(CriteriaBuilder cb, Expression<String> column, String value, String nullMeaning) {
+        return value.equals(nullMeaning) ? cb.or(cb.isNull(column), cb.equal(column, value)) : cb.equal(column, value);
+    }
+
+    private static String containsPattern(String value) {
+        return "%" + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,22 @@
+package nz.etu.voting.repository;
+
+import nz.etu.voting.domain.entity.ExportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExportJobRepository extends JpaRepository<ExportJob, Long> {
+
+    Optional<ExportJob> findByJobId(String jobId);
+
+    List<ExportJob> findTop20ByEventIdOrderByCreatedAtDesc(Long eventId);
+
+    List<ExportJob> findByStatusIn(Collection<ExportJob.Status> statuses);
+
+    List<ExportJob> findByStatusAndExpiresAtBefore(ExportJob.Status status, LocalDateTime time);
+}
@@ -1,12 +1,17 @@
 package nz.etu.voting.repository;
 
 import nz.etu.voting.domain.entity.Member;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.List;
@@ -22,6 +27,8 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
 
     Optional<Member> findByMembershipNumber(String membershipNumber);
 
+    List<Member> findByMembershipNumberIn(Collection<String> membershipNumbers);
+
     Optional<Member> findByTelephoneMobile(String telephoneMobile);
 
     List<Member> findByHasRegisteredTrue();
@@ -33,6 +40,9 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
 
     List<Member> findByPrimaryEmailIn(List<String> primaryEmails);
 
+    // Keyset-paginated scan over all members (see KeysetCursor)
+    Window<Member> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
 //    Count methods for migration
 
     //    按数据源统计
@@ -88,4 +98,18 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     long countByIsAttendingTrue();
 
     Long countByIsSpecialVoteTrue();
-}
\ No newline at end of file
+
+    //    快速搜索：ILIKE 走 pg_trgm GIN 索引（见 V3__quick_search_trigram_indexes.sql），精确会员号优先，其次前缀匹配
+    @Query(value = "SELECT * FROM members m " +
+            "WHERE m.membership_number ILIKE :pattern OR m.fore1 ILIKE :pattern OR m.surname ILIKE :pattern " +
+            "OR m.primary_email ILIKE :pattern OR m.telephone_mobile LIKE :pattern " +
+            "ORDER BY CASE WHEN lower(m.membership_number) = lower(:term) THEN 0 " +
+            "WHEN m.membership_number ILIKE :prefix OR m.fore1 ILIKE :prefix OR m.surname ILIKE :prefix " +
+            "OR m.primary_email ILIKE :prefix OR m.telephone_mobile LIKE :prefix THEN 1 ELSE 2 END, " +
+            "m.surname, m.fore1, m.id LIMIT :limit",
+            nativeQuery = true)
+    List<Member> quickSearch(@Param("term") String term,
+                             @Param("pattern") String pattern,
+                             @Param("prefix") String prefix,
+                             @Param("limit") int limit);
+}
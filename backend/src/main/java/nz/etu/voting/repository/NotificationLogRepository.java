@@ -1,16 +1,23 @@
 package nz.etu.voting.repository;
 
+import jakarta.persistence.QueryHint;
+import nz.etu.voting.domain.dto.NotificationCount;
+import nz.etu.voting.domain.dto.NotificationLogExportRow;
+import nz.etu.voting.domain.dto.NotificationTimelineBucket;
 import nz.etu.voting.domain.entity.Event;
 import nz.etu.voting.domain.entity.EventMember;
 import nz.etu.voting.domain.entity.Member;
 import nz.etu.voting.domain.entity.NotificationLog;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface NotificationLogRepository extends JpaRepository<NotificationLog, Long> {
@@ -23,6 +30,11 @@ public interface NotificationLogRepository extends JpaRepository<NotificationLog
 
     List<NotificationLog> findByEvent(Event event);
 
+    // Spreadsheet export rows from a server-side cursor; needs a surrounding transaction and the stream closed after use
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(NotificationLogExportRow.SELECT + "WHERE nl.event.id = :eventId ORDER BY nl.id")
+    Stream<NotificationLogExportRow> streamExportRowsByEventId(@Param("eventId") Long eventId);
+
     List<NotificationLog> findByEventAndNotificationType(Event event, NotificationLog.NotificationType type);
 
     @Query("SELECT COUNT(nl) FROM NotificationLog nl WHERE nl.event = :event AND nl.notificationType = :type AND nl.isSuccessful = true")
@@ -47,4 +59,37 @@ public interface NotificationLogRepository extends JpaRepository<NotificationLog
 
     List<NotificationLog> findByNotificationTypeOrderBySentTimeDesc(NotificationLog.NotificationType notificationType);
 
-}
\ No newline at end of file
+    // Aggregates computed in Postgres so response times stay flat as the log grows
+    @Query("SELECT new nz.etu.voting.domain.dto.NotificationCount(nl.notificationType, nl.isSuccessful, COUNT(nl)) " +
+            "FROM NotificationLog nl GROUP BY nl.notificationType, nl.isSuccessful")
+    List<NotificationCount> countByTypeAndSuccess();
+
+    @Query("SELECT new nz.etu.voting.domain.dto.NotificationCount(nl.notificationType, nl.isSuccessful, COUNT(nl)) " +
+            "FROM NotificationLog nl WHERE nl.event = :event GROUP BY nl.notificationType, nl.isSuccessful")
+    List<NotificationCount> countByTypeAndSuccessForEvent(@Param("event") Event event);
+
+    @Query("SELECT COUNT(nl) FROM NotificationLog nl WHERE nl.eventMember.event = :event AND nl.sentTime BETWEEN :startTime AND :endTime")
+    Long countByEventMemberEventAndSentTimeBetween(@Param("event") Event event,
+                                                   @Param("startTime") LocalDateTime startTime,
+                                                   @Param("endTime") LocalDateTime endTime);
+
+    // Timeline buckets by day / stage (from email_type or template_code) / member region / type / success
+    @Query(value = "SELECT to_char(nl.sent_time, 'YYYY-MM-DD') AS day, " +
+            "CASE WHEN lower(coalesce(nl.email_type, '')) LIKE '%pre_registration%' OR lower(coalesce(nl.template_code, '')) LIKE '%pre_registration%' THEN 'pre_registration' " +
+            "     WHEN lower(coalesce(nl.email_type, '')) LIKE '%confirmation%' OR lower(coalesce(nl.template_code, '')) LIKE '%confirmation%' THEN 'confirmation' " +
+            "     WHEN lower(coalesce(nl.email_type, '')) LIKE '%special_vote%' OR lower(coalesce(nl.template_code, '')) LIKE '%special_vote%' THEN 'special_vote' " +
+            "     ELSE 'other' END AS stage, " +
+            "coalesce(em.region, 'Unknown') AS region, " +
+            "nl.notification_type AS notificationType, " +
+            "nl.is_successful AS successful, " +
+            "COUNT(*) AS total " +
+            "FROM notification_logs nl JOIN event_members em ON em.id = nl.event_member_id " +
+            "WHERE em.event_id = :eventId AND nl.sent_time BETWEEN :startTime AND :endTime " +
+            "AND (CAST(:region AS varchar) IS NULL OR em.region = :region) " +
+            "GROUP BY 1, 2, 3, 4, 5",
+            nativeQuery = true)
+    List<NotificationTimelineBucket> aggregateTimeline(@Param("eventId") Long eventId,
+                                                       @Param("startTime") LocalDateTime startTime,
+                                                       @Param("endTime") LocalDateTime endTime,
+                                                       @Param("region") String region);
+}
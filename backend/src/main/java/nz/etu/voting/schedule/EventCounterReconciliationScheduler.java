@@ -0,0 +1,33 @@
+package nz.etu.voting.schedule;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.repository.EventRepository;
+import nz.etu.voting.service.EventCounterService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "counters.reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class EventCounterReconciliationScheduler {
+
+    private final EventRepository eventRepository;
+    private final EventCounterService eventCounterService;
+
+    //    Recount active events so counters repair any drift from bulk updates that bypass the entity listener
+    @Scheduled(fixedDelayString = "${counters.reconcile.interval:600000}",
+            initialDelayString = "${counters.reconcile.initial-delay:60000}")
+    public void reconcileActiveEvents() {
+        for (Event event : eventRepository.findByIsActiveTrue()) {
+            try {
+                eventCounterService.reconcile(event.getId());
+            } catch (Exception e) {
+                log.error("Failed to reconcile event counters for event {}: {}", event.getId(), e.getMessage(), e);
+            }
+        }
+    }
+}
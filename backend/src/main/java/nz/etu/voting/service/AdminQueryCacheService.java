@@ -0,0 +1,275 @@
+package nz.etu.voting.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.config.CacheConfig;
+import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.domain.entity.EventCounter;
+import nz.etu.voting.domain.event.EventDataChangedEvent;
+import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.repository.EventRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Cached read models behind the admin pages (filter options, forum/venue lists, event overviews).
+ * Data-derived entries are evicted by {@link EventDataChangedEvent} when it touches the columns they are computed
+ * from; config-derived venue lists only expire by TTL.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdminQueryCacheService {
+
+    // filter option name -> EventMember property
+    private static final Map<String, String> FILTER_PROPERTIES = new LinkedHashMap<>();
+
+    static {
+        FILTER_PROPERTIES.put("regions", "regionDesc");
+        FILTER_PROPERTIES.put("industries", "siteIndustryDesc");
+        FILTER_PROPERTIES.put("subIndustries", "siteSubIndustryDesc");
+        FILTER_PROPERTIES.put("workplaces", "workplace");
+        FILTER_PROPERTIES.put("employers", "employer");
+        FILTER_PROPERTIES.put("ages", "ageOfMember");
+        FILTER_PROPERTIES.put("bargainingGroups", "bargainingGroupDesc");
+        FILTER_PROPERTIES.put("genders", "genderDesc");
+        FILTER_PROPERTIES.put("ethnicRegions", "ethnicRegionDesc");
+        FILTER_PROPERTIES.put("membershipTypes", "membershipTypeDesc");
+        FILTER_PROPERTIES.put("branches", "branch");
+        FILTER_PROPERTIES.put("forums", "forumDesc");
+    }
+
+    // EventMember properties the overviews count by, besides Event rows and member inserts/deletes
+    private static final Set<String> OVERVIEW_PROPERTIES = Set.of("hasRegistered", "isAttending");
+
+    private final EventRepository eventRepository;
+    private final EventMemberRepository eventMemberRepository;
+    private final EventCounterService eventCounterService;
+    private final CacheManager cacheManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    //    每个筛选字段的去重排序取值 (SELECT DISTINCT，不再加载整个事件的会员实体)
+    @Cacheable(value = CacheConfig.FILTER_OPTIONS, key = "#eventId")
+    public Map<String, List<String>> getFilterOptions(Long eventId) {
+        Map<String, List<String>> options = new LinkedHashMap<>();
+        FILTER_PROPERTIES.forEach((option, property) -> {
+            List<String> values = entityManager.createQuery(
+                            "SELECT DISTINCT em." + property + " FROM EventMember em " +
+                                    "WHERE em.event.id = :eventId AND em." + property + " IS NOT NULL", String.class)
+                    .setParameter("eventId", eventId)
+                    .getResultList();
+            options.put(option, values.stream()
+                    .filter(s -> !s.trim().isEmpty())
+                    .sorted()
+                    .toList());
+        });
+        log.debug("Filter options computed for event {}", eventId);
+        return Collections.unmodifiableMap(options);
+    }
+
+    @Cacheable(value = CacheConfig.EVENT_FORUMS, key = "#event.id")
+    public List<String> getForumDescs(Event event) {
+        return List.copyOf(eventMemberRepository.findDistinctForumDescByEvent(event));
+    }
+
+    //    bmm-venues-config.json 中的所有论坛及独立场馆名称
+    @Cacheable(value = CacheConfig.VENUE_LISTS, key = "'configuredForums'")
+    @SuppressWarnings("unchecked")
+    public List<String> getConfiguredForums() {
+        List<String> allForums = new ArrayList<>();
+        try (InputStream inputStream = getClass().getResourceAsStream("/bmm-venues-config.json")) {
+            if (inputStream != null) {
+                Map<String, Object> config = new ObjectMapper().readValue(inputStream, Map.class);
+
+                // Get all venues from venues array
+                List<Map<String, Object>> venues = (List<Map<String, Object>>) config.get("venues");
+                if (venues != null) {
+                    for (Map<String, Object> venue : venues) {
+                        String forumDesc = (String) venue.get("forumDesc");
+                        if (forumDesc != null && !allForums.contains(forumDesc)) {
+                            allForums.add(forumDesc);
+                        }
+                    }
+                }
+
+                // Also add venue names from forumVenueMapping as independent forums
+                // This allows venues like Kaitaia to be selected directly
+                Map<String, List<Map<String, Object>>> forumMapping =
+                        (Map<String, List<Map<String, Object>>>) config.get("forumVenueMapping");
+                if (forumMapping != null) {
+                    for (List<Map<String, Object>> mappedVenues : forumMapping.values()) {
+                        if (mappedVenues != null) {
+                            for (Map<String, Object> mappedVenue : mappedVenues) {
+                                String venueName = (String) mappedVenue.get("venueName");
+                                if (venueName != null && !allForums.contains(venueName)) {
+                                    allForums.add(venueName); // Add Kaitaia, Hokitika, Reefton as independent forums
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to load forums from config: {}", e.getMessage());
+        }
+
+        Collections.sort(allForums);
+        return List.copyOf(allForums);
+    }
+
+    //    所有地区的BMM场馆列表 (每个场馆附带region)
+    @Cacheable(value = CacheConfig.VENUE_LISTS, key = "'bmmVenues'")
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> getBmmVenues() {
+        List<Map<String, Object>> allVenues = new ArrayList<>();
+        try (InputStream inputStream = getClass().getResourceAsStream("/bmm-venues-config.json")) {
+            if (inputStream != null) {
+                Map<String, Object> config = new ObjectMapper().readValue(inputStream, Map.class);
+                Map<String, Map<String, Object>> regions = (Map<String, Map<String, Object>>) config.get("regions");
+
+                // Extract venues from all regions
+                for (Map.Entry<String, Map<String, Object>> regionEntry : regions.entrySet()) {
+                    String regionName = regionEntry.getKey();
+                    List<Map<String, Object>> regionVenues = (List<Map<String, Object>>) regionEntry.getValue().get("venues");
+
+                    // Add region name to each venue
+                    for (Map<String, Object> venue : regionVenues) {
+                        venue.put("region", regionName);
+                        allVenues.add(venue);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to load BMM venues config: {}", e.getMessage());
+            // Return sample data as fallback
+            Map<String, Object> venue1 = new HashMap<>();
+            venue1.put("name", "Auckland Central");
+            venue1.put("address", "Alexandra Park – Tasman Room, 233 Green Lane West, Epsom, Auckland");
+            venue1.put("region", "Northern Region");
+            venue1.put("capacity", 800);
+            allVenues.add(venue1);
+        }
+        return List.copyOf(allVenues);
+    }
+
+    //    Dashboard 事件预览列表
+    @Cacheable(value = CacheConfig.EVENT_OVERVIEWS, key = "'dashboard'")
+    public List<Map<String, Object>> getDashboardEvents() {
+        return eventRepository.findTop20ByIsActiveTrueOrderByEventDateDesc()
+                .stream()
+                .map(event -> {
+                    Map<String, Object> eventData = new HashMap<>();
+                    eventData.put("id", event.getId());
+                    eventData.put("name", event.getName());
+                    eventData.put("eventCode", event.getEventCode());
+                    eventData.put("eventType", event.getEventType());
+                    eventData.put("isActive", event.getIsActive());
+                    eventData.put("syncStatus", event.getSyncStatus());
+                    eventData.put("totalMembers", event.getMemberSyncCount());
+                    eventData.put("registeredMembers", eventMemberRepository.countRegisteredByEvent(event));
+                    return eventData;
+                })
+                .toList();
+    }
+
+    //    Reports 页面的事件概览
+    @Cacheable(value = CacheConfig.EVENT_OVERVIEWS, key = "'report'")
+    public Map<String, Object> getEventOverviewReport() {
+        Map<String, Object> data = new HashMap<>();
+
+        List<Event> allEvents = eventRepository.findAll();
+
+        // Event statistics
+        data.put("totalEvents", allEvents.size());
+        data.put("activeEvents", allEvents.stream().filter(e -> e.getIsActive() != null && e.getIsActive()).count());
+        data.put("bmmEvents", allEvents.stream().filter(e -> e.getEventType() == Event.EventType.BMM_VOTING).count());
+
+        // Get current BMM event registration statistics
+        Event currentBmmEvent = allEvents.stream()
+                .filter(e -> e.getEventType() == Event.EventType.BMM_VOTING)
+                .max(Comparator.comparing(Event::getCreatedAt))
+                .orElse(null);
+
+        if (currentBmmEvent != null) {
+            Map<String, Long> totals = eventCounterService.getEventTotals(currentBmmEvent.getId());
+            long totalRegistrations = EventCounterService.count(totals, EventCounter.Metric.REGISTERED);
+            long totalAttending = EventCounterService.count(totals, EventCounter.Metric.ATTENDING);
+
+            data.put("totalRegistrations", totalRegistrations);
+            data.put("totalAttending", totalAttending);
+            data.put("attendanceRate", totalRegistrations > 0 ? (totalAttending * 100.0 / totalRegistrations) : 0);
+            data.put("currentBmmEvent", currentBmmEvent.getName());
+        } else {
+            data.put("totalRegistrations", 0);
+            data.put("totalAttending", 0);
+            data.put("attendanceRate", 0);
+            data.put("currentBmmEvent", "No BMM event found");
+        }
+
+        // Venue breakdown
+        Map<String, Long> venueStats = allEvents.stream()
+                .filter(e -> e.getVenue() != null && !e.getVenue().trim().isEmpty())
+                .collect(Collectors.groupingBy(Event::getVenue, Collectors.counting()));
+        data.put("venueBreakdown", venueStats);
+
+        return Collections.unmodifiableMap(data);
+    }
+
+    // Check-ins and flag updates (emails sent, stages) change none of the columns behind these entries; an
+    // attendance set by a QR check-in reaches the report overview when its entry expires
+    @EventListener
+    public void onEventDataChanged(EventDataChangedEvent event) {
+        if (event.affects(FILTER_PROPERTIES.values())) {
+            Cache filterOptions = cacheManager.getCache(CacheConfig.FILTER_OPTIONS);
+            Cache eventForums = cacheManager.getCache(CacheConfig.EVENT_FORUMS);
+            for (Long eventId : event.eventIds()) {
+                if (filterOptions != null) filterOptions.evict(eventId);
+                if (eventForums != null) eventForums.evict(eventId);
+            }
+            log.debug("Evicted filter options for events {}", event.eventIds());
+        }
+        if (event.affects(OVERVIEW_PROPERTIES)) {
+            Cache overviews = cacheManager.getCache(CacheConfig.EVENT_OVERVIEWS);
+            if (overviews != null) overviews.clear();
+            log.debug("Evicted event overviews after changes to events {}", event.eventIds());
+        }
+    }
+
+    //    每个缓存的命中/未命中统计
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+                com.github.benmanes.caffeine.cache.stats.CacheStats cacheStats = caffeine.stats();
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("size", caffeine.estimatedSize());
+                entry.put("hitCount", cacheStats.hitCount());
+                entry.put("missCount", cacheStats.missCount());
+                entry.put("hitRate", cacheStats.hitRate());
+                entry.put("evictionCount", cacheStats.evictionCount());
+                stats.put(name, entry);
+            }
+        }
+        return stats;
+    }
+
+    public void clearAll() {
+        cacheManager.getCacheNames().forEach(name -> {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) cache.clear();
+        });
+    }
+}
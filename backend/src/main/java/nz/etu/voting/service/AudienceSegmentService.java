@@ -0,0 +1,277 @@
+package nz.etu.voting.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventMemberCriteria;
+import nz.etu.voting.domain.entity.AudienceSegment;
+import nz.etu.voting.domain.event.EventDataChangedEvent;
+import nz.etu.voting.repository.AudienceSegmentMemberRepository;
+import nz.etu.voting.repository.AudienceSegmentRepository;
+import nz.etu.voting.repository.EventRepository;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Saved audience segments: named criteria whose matching EventMembers are materialised in audience_segment_members.
+ * <p>
+ * A segment is evaluated in full once, when it is saved. After that, committed member changes (stage moves, syncs,
+ * check-ins - anything reported by {@link EventDataChangedEvent}) are queued per event and applied in the background:
+ * the criteria are evaluated on the event roster for just the changed rows, and only rows that entered or left the
+ * segment are written. Batches larger than {@code segments.patch-threshold} and the periodic
+ * {@code segments.refresh-interval} pass re-evaluate the event's segments in full. Refreshes and patches of one
+ * event's segments never overlap, so a refresh cannot write a diff taken before a concurrent patch.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AudienceSegmentService {
+
+    private static final String INSERT_MEMBER_SQL =
+            "INSERT INTO audience_segment_members (segment_id, event_member_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    private final AudienceSegmentRepository audienceSegmentRepository;
+    private final AudienceSegmentMemberRepository audienceSegmentMemberRepository;
+    private final EventRepository eventRepository;
+    private final EventMemberTargetingService eventMemberTargetingService;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${segments.patch-threshold:500}")
+    private int patchThreshold;
+
+    // events that have at least one saved segment; changes to other events are ignored
+    private final Set<Long> segmentedEvents = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Long>> pendingChanges = new ConcurrentHashMap<>();
+    // one monitor per event: refreshes (HTTP, periodic) and background patches of its segments run one at a time
+    private final Map<Long, Object> maintenanceLocks = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSegmentedEvents() {
+        segmentedEvents.addAll(audienceSegmentRepository.findSegmentedEventIds());
+    }
+
+    public List<AudienceSegment> getSegments(Long eventId) {
+        return audienceSegmentRepository.findByEventIdOrderByName(eventId);
+    }
+
+    public AudienceSegment getSegment(Long segmentId) {
+        return audienceSegmentRepository.findById(segmentId)
+                .orElseThrow(() -> new RuntimeException("Segment not found"));
+    }
+
+    public AudienceSegment createSegment(Long eventId, String name, Map<String, Object> criteria, String createdBy) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Segment name is required");
+        }
+        if (!eventRepository.existsById(eventId)) {
+            throw new RuntimeException("Event not found");
+        }
+        if (audienceSegmentRepository.existsByEventIdAndName(eventId, name.trim())) {
+            throw new IllegalArgumentException("A segment named '" + name.trim() + "' already exists for this event");
+        }
+
+        String criteriaJson;
+        try {
+            criteriaJson = objectMapper.writeValueAsString(criteria != null ? criteria : Map.of());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid criteria", e);
+        }
+
+        AudienceSegment segment = audienceSegmentRepository.save(AudienceSegment.builder()
+                .eventId(eventId)
+                .name(name.trim())
+                .criteriaJson(criteriaJson)
+                .memberCount(0L)
+                .createdBy(createdBy)
+                .build());
+        segmentedEvents.add(eventId);
+        return refresh(segment);
+    }
+
+    public AudienceSegment refreshSegment(Long segmentId) {
+        return refresh(getSegment(segmentId));
+    }
+
+    public void deleteSegment(Long segmentId) {
+        AudienceSegment segment = getSegment(segmentId);
+        transactionTemplate.executeWithoutResult(status -> {
+            audienceSegmentMemberRepository.deleteAllMembers(segmentId);
+            audienceSegmentRepository.deleteById(segmentId);
+        });
+        if (getSegments(segment.getEventId()).isEmpty()) {
+            segmentedEvents.remove(segment.getEventId());
+            pendingChanges.remove(segment.getEventId());
+        }
+    }
+
+    // Next page of member ids after afterId (null = from the start), in id order
+    public List<Long> getMemberIds(Long segmentId, Long afterId, int size) {
+        return audienceSegmentMemberRepository.findMemberIdsAfter(segmentId, afterId != null ? afterId : 0L,
+                PageRequest.of(0, size));
+    }
+
+    public List<Long> getAllMemberIds(Long segmentId) {
+        return audienceSegmentMemberRepository.findMemberIds(segmentId);
+    }
+
+    @EventListener
+    public void onEventDataChanged(EventDataChangedEvent event) {
+        if (event.eventMemberIds().isEmpty()) {
+            return;
+        }
+        for (Long eventId : event.eventIds()) {
+            if (segmentedEvents.contains(eventId)) {
+                pendingChanges.computeIfAbsent(eventId, id -> ConcurrentHashMap.newKeySet()).addAll(event.eventMemberIds());
+            }
+        }
+    }
+
+    //    合并窗口内的成员变更，只对变更的成员重新求值
+    @Scheduled(fixedDelayString = "${segments.maintain-interval:2000}")
+    public void applyPendingChanges() {
+        for (Long eventId : new ArrayList<>(pendingChanges.keySet())) {
+            Set<Long> changed = pendingChanges.remove(eventId);
+            if (changed == null || changed.isEmpty()) {
+                continue;
+            }
+            try {
+                List<AudienceSegment> segments = getSegments(eventId);
+                if (changed.size() > patchThreshold) {
+                    segments.forEach(this::refresh);
+                    log.info("Audience segments of event {} re-evaluated after {} member changes", eventId, changed.size());
+                } else {
+                    segments.forEach(segment -> patch(segment, changed));
+                }
+            } catch (Exception e) {
+                log.error("Failed to maintain audience segments for event {}: {}", eventId, e.getMessage(), e);
+            }
+        }
+    }
+
+    //    兜底：绕过JPA的改动不会产生EventDataChangedEvent
+    @Scheduled(fixedDelayString = "${segments.refresh-interval:1800000}", initialDelayString = "${segments.refresh-interval:1800000}")
+    public void refreshAll() {
+        for (Long eventId : new ArrayList<>(segmentedEvents)) {
+            for (AudienceSegment segment : getSegments(eventId)) {
+                try {
+                    refresh(segment);
+                } catch (Exception e) {
+                    log.error("Failed to refresh audience segment {}: {}", segment.getId(), e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    // Full re-evaluation, written as a diff against the stored membership
+    private AudienceSegment refresh(AudienceSegment segment) {
+        synchronized (maintenanceLock(segment.getEventId())) {
+            Set<Long> matched = new HashSet<>(eventMemberTargetingService.matchingIds(segment.getEventId(), criteria(segment)));
+            Set<Long> current = new HashSet<>(audienceSegmentMemberRepository.findMemberIds(segment.getId()));
+
+            List<Long> added = matched.stream().filter(id -> !current.contains(id)).sorted().toList();
+            List<Long> removed = current.stream().filter(id -> !matched.contains(id)).sorted().toList();
+
+            transactionTemplate.executeWithoutResult(status -> {
+                insertMembers(segment.getId(), added);
+                deleteMembers(segment.getId(), removed);
+                // counted from the stored rows, not the snapshot, so the count cannot drift from the membership
+                segment.setMemberCount(audienceSegmentMemberRepository.countBySegmentId(segment.getId()));
+                segment.setRefreshedAt(LocalDateTime.now());
+                audienceSegmentRepository.save(segment);
+            });
+            log.info("Audience segment {} ({}) refreshed: {} members, +{} -{}",
+                    segment.getId(), segment.getName(), segment.getMemberCount(), added.size(), removed.size());
+            return segment;
+        }
+    }
+
+    // Incremental: only the changed members are re-evaluated and moved in or out
+    private void patch(AudienceSegment segment, Set<Long> changed) {
+        synchronized (maintenanceLock(segment.getEventId())) {
+            Set<Long> matched = eventMemberTargetingService.matchingAmong(segment.getEventId(), criteria(segment), changed);
+            Set<Long> current = new HashSet<>();
+            List<Long> changedIds = new ArrayList<>(changed);
+            for (int i = 0; i < changedIds.size(); i += ID_CHUNK_SIZE) {
+                current.addAll(audienceSegmentMemberRepository.findMemberIdsIn(segment.getId(),
+                        changedIds.subList(i, Math.min(i + ID_CHUNK_SIZE, changedIds.size()))));
+            }
+
+            List<Long> added = matched.stream().filter(id -> !current.contains(id)).sorted().toList();
+            List<Long> removed = current.stream().filter(id -> !matched.contains(id)).sorted().toList();
+            if (added.isEmpty() && removed.isEmpty()) {
+                return;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                insertMembers(segment.getId(), added);
+                deleteMembers(segment.getId(), removed);
+                audienceSegmentRepository.adjustMemberCount(segment.getId(), added.size() - removed.size());
+            });
+            log.debug("Audience segment {} patched: +{} -{}", segment.getId(), added.size(), removed.size());
+        }
+    }
+
+    private Object maintenanceLock(Long eventId) {
+        return maintenanceLocks.computeIfAbsent(eventId, id -> new Object());
+    }
+
+    private void insertMembers(Long segmentId, List<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_MEMBER_SQL)) {
+                for (int i = 0; i < memberIds.size(); i++) {
+                    statement.setLong(1, segmentId);
+                    statement.setLong(2, memberIds.get(i));
+                    statement.addBatch();
+                    if ((i + 1) % ID_CHUNK_SIZE == 0) {
+                        statement.executeBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    private void deleteMembers(Long segmentId, List<Long> memberIds) {
+        for (int i = 0; i < memberIds.size(); i += ID_CHUNK_SIZE) {
+            audienceSegmentMemberRepository.deleteMembers(segmentId, memberIds.subList(i, Math.min(i + ID_CHUNK_SIZE, memberIds.size())));
+        }
+    }
+
+    // The criteria map the segment was saved with
+    public Map<String, Object> getCriteria(AudienceSegment segment) {
+        try {
+            return objectMapper.readValue(segment.getCriteriaJson(), new TypeReference<Map<String, Object>>() {
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("Invalid criteria stored for segment " + segment.getId(), e);
+        }
+    }
+
+    private EventMemberCriteria criteria(AudienceSegment segment) {
+        return EventMemberCriteria.from(getCriteria(segment));
+    }
+}
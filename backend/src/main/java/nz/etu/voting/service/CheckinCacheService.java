@@ -0,0 +1,309 @@
+package nz.etu.voting.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.CheckedInMemberRow;
+import nz.etu.voting.domain.dto.CheckinKeyRow;
+import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.domain.event.EventDataChangedEvent;
+import nz.etu.voting.exception.InvalidTicketException;
+import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Per-event lookup tables for venue scanning: every ticket token, member token, BMM member token and membership
+ * number of the event maps to a small {@link CheckinKeyRow}, so resolving a scanned code is one hash lookup and an
+ * already-checked-in scan is answered without touching the database.
+ * <p>
+ * Tables are preloaded when a venue scanner opens its link (or on the first scan) and kept current the same way as
+ * the event rosters: committed member changes are reloaded by id, check-ins are patched from the row the check-in
+ * returned, large batches drop the table. A code that is not in the table is looked up once in the database before
+ * the scan is rejected, which also covers rows changed outside JPA; tables older than {@code checkin-cache.max-age}
+ * are rebuilt.
+ * <p>
+ * Signed tickets ({@link SignedTicketService}) are verified in memory and resolved by member id, so a forged or
+ * expired code is rejected without a query.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckinCacheService {
+
+    private final EventMemberRepository eventMemberRepository;
+    private final EventRepository eventRepository;
+    private final SignedTicketService signedTicketService;
+
+    @Value("${checkin-cache.patch-threshold:500}")
+    private int patchThreshold;
+
+    @Value("${checkin-cache.max-age:1800000}")
+    private long maxAge;
+
+    private final Map<Long, Holder> tables = new ConcurrentHashMap<>();
+
+    private static final class Holder {
+        private volatile Table table;
+    }
+
+    private static final class Table {
+        private final Event.EventType eventType;
+        private final Map<String, Long> idsByKey = new ConcurrentHashMap<>();
+        private final Map<Long, CheckinKeyRow> rows = new ConcurrentHashMap<>();
+        private final long builtAt = System.currentTimeMillis();
+
+        private Table(Event.EventType eventType) {
+            this.eventType = eventType;
+        }
+
+        private void put(CheckinKeyRow row) {
+            CheckinKeyRow previous = rows.put(row.id(), row);
+            if (previous != null) {
+                keys(previous).forEach(key -> idsByKey.remove(key, previous.id()));
+            }
+            keys(row).forEach(key -> idsByKey.put(key, row.id()));
+        }
+
+        private void remove(Long id) {
+            CheckinKeyRow previous = rows.remove(id);
+            if (previous != null) {
+                keys(previous).forEach(key -> idsByKey.remove(key, id));
+            }
+        }
+
+        private CheckinKeyRow find(String key) {
+            Long id = idsByKey.get(key);
+            return id != null ? rows.get(id) : null;
+        }
+    }
+
+    // Builds the event's table if needed; empty when the event does not exist
+    public Optional<Event.EventType> preload(Long eventId) {
+        Table table = current(eventId);
+        return table != null ? Optional.of(table.eventType) : Optional.empty();
+    }
+
+    // Resolve a scanned ticket token / member token / membership number within the event
+    public Optional<CheckinKeyRow> find(Long eventId, String code) {
+        String key = normalise(code);
+        Table table = current(eventId);
+        if (key == null || table == null) {
+            return Optional.empty();
+        }
+
+        CheckinKeyRow row = table.find(key);
+        if (row != null) {
+            return Optional.of(row);
+        }
+
+        UUID uuid = parseUuid(key);
+        List<CheckinKeyRow> rows = uuid != null
+                ? eventMemberRepository.findCheckinKeyRowsByToken(eventId, uuid)
+                : eventMemberRepository.findCheckinKeyRowsByKey(eventId, key);
+        rows.forEach(table::put);
+        return Optional.ofNullable(table.find(key));
+    }
+
+    // Resolve scanned QR data: signed tickets, JSON payloads carrying token and/or membershipNumber, or a plain
+    // token / membership number. Throws InvalidTicketException for signed tickets that do not verify.
+    public Optional<CheckinKeyRow> resolve(Long eventId, String qrData) {
+        if (qrData == null || qrData.isBlank()) {
+            return Optional.empty();
+        }
+        String data = qrData.trim();
+        if (SignedTicketService.isTicket(data)) {
+            return Optional.of(resolveTicket(eventId, data));
+        }
+        if (!data.startsWith("{")) {
+            return find(eventId, data);
+        }
+
+        String token = extractFromJson(data, "token");
+        String membershipNumber = extractFromJson(data, "membershipNumber");
+        Optional<CheckinKeyRow> found = token != null ? find(eventId, token) : Optional.empty();
+        if (found.isEmpty() && membershipNumber != null) {
+            found = find(eventId, membershipNumber);
+        }
+        return found;
+    }
+
+    private CheckinKeyRow resolveTicket(Long eventId, String code) {
+        SignedTicketService.Ticket ticket = signedTicketService.verify(code)
+                .orElseThrow(() -> new InvalidTicketException("Invalid or expired ticket"));
+        if (ticket.eventId() != eventId) {
+            throw new InvalidTicketException("Ticket is for a different event");
+        }
+
+        Table table = current(eventId);
+        CheckinKeyRow row = table != null ? table.rows.get(ticket.eventMemberId()) : null;
+        if (row == null) {
+            // genuine ticket for a member the table has not seen yet
+            row = reload(eventId, ticket.eventMemberId()).filter(r -> eventId.equals(r.eventId()))
+                    .orElseThrow(() -> new InvalidTicketException("Ticket holder is no longer registered for this event"));
+        }
+        if (!ticket.issuedFor(row.token(), row.ticketToken())) {
+            throw new InvalidTicketException("Ticket has been replaced");
+        }
+        return row;
+    }
+
+    // Snapshot of every member in the event's table
+    public List<CheckinKeyRow> rows(Long eventId) {
+        Table table = current(eventId);
+        return table != null ? new ArrayList<>(table.rows.values()) : List.of();
+    }
+
+    // Re-read one member, e.g. after losing a check-in race
+    public Optional<CheckinKeyRow> reload(Long eventId, Long eventMemberId) {
+        List<CheckinKeyRow> rows = eventMemberRepository.findCheckinKeyRowsByIds(List.of(eventMemberId));
+        Holder holder = tables.get(eventId);
+        Table table = holder != null ? holder.table : null;
+        if (table != null) {
+            rows.forEach(table::put);
+        }
+        return rows.stream().findFirst();
+    }
+
+    public void invalidate(Long eventId) {
+        tables.remove(eventId);
+    }
+
+    @EventListener
+    public void onEventDataChanged(EventDataChangedEvent event) {
+        Set<Long> cachedEvents = new HashSet<>(event.eventIds());
+        cachedEvents.retainAll(tables.keySet());
+        if (cachedEvents.isEmpty() || event.eventMemberIds().isEmpty()) {
+            return;
+        }
+
+        // check-ins are patched from the rows their UPDATE returned; everything else is read back
+        Set<Long> reloaded = new HashSet<>(event.eventMemberIds());
+        reloaded.removeAll(event.checkIns().keySet());
+        if (reloaded.size() > patchThreshold) {
+            cachedEvents.forEach(this::invalidate);
+            log.info("Check-in lookup tables dropped for events {} after {} member changes", cachedEvents, reloaded.size());
+            return;
+        }
+
+        Map<Long, CheckinKeyRow> changed = reloaded.isEmpty() ? Map.of()
+                : eventMemberRepository.findCheckinKeyRowsByIds(reloaded).stream()
+                .collect(Collectors.toMap(CheckinKeyRow::id, row -> row));
+
+        for (Long eventId : cachedEvents) {
+            Holder holder = tables.get(eventId);
+            if (holder == null) {
+                continue;
+            }
+            // Same monitor as the build: a table being built may have read the members before this commit
+            synchronized (holder) {
+                Table table = holder.table;
+                if (table == null) {
+                    continue;
+                }
+                for (Long id : reloaded) {
+                    CheckinKeyRow row = changed.get(id);
+                    if (row != null && eventId.equals(row.eventId())) {
+                        table.put(row);
+                    } else {
+                        table.remove(id);
+                    }
+                }
+                event.checkIns().values().forEach(row -> markCheckedIn(table, row));
+            }
+        }
+    }
+
+    // A member missing from the table is left to the miss lookup in find()
+    private static void markCheckedIn(Table table, CheckedInMemberRow row) {
+        CheckinKeyRow cached = table.rows.get(row.id());
+        if (cached != null && cached.eventId().equals(row.eventId())) {
+            table.rows.put(row.id(), cached.checkedIn(row));
+        }
+    }
+
+    private Table current(Long eventId) {
+        Holder holder = tables.computeIfAbsent(eventId, id -> new Holder());
+        Table table = holder.table;
+        if (table != null && System.currentTimeMillis() - table.builtAt < maxAge) {
+            return table;
+        }
+
+        synchronized (holder) {
+            table = holder.table;
+            if (table == null || System.currentTimeMillis() - table.builtAt >= maxAge) {
+                Optional<Event> event = eventRepository.findById(eventId);
+                if (event.isEmpty()) {
+                    tables.remove(eventId, holder);
+                    return null;
+                }
+                long start = System.currentTimeMillis();
+                Table built = new Table(event.get().getEventType());
+                eventMemberRepository.findCheckinKeyRowsByEventId(eventId).forEach(built::put);
+                holder.table = built;
+                table = built;
+                log.info("Check-in lookup table built for event {}: {} members in {} ms",
+                        eventId, built.rows.size(), System.currentTimeMillis() - start);
+            }
+            return table;
+        }
+    }
+
+    private static List<String> keys(CheckinKeyRow row) {
+        List<String> keys = new ArrayList<>(4);
+        if (row.token() != null) keys.add(row.token().toString());
+        if (row.ticketToken() != null) keys.add(row.ticketToken().toString());
+        String memberToken = normalise(row.memberToken());
+        if (memberToken != null) keys.add(memberToken);
+        String membershipNumber = normalise(row.membershipNumber());
+        if (membershipNumber != null) keys.add(membershipNumber);
+        return keys;
+    }
+
+    // Every code that identifies the member, in the form scans are looked up by
+    public static List<String> codes(CheckinKeyRow row) {
+        return keys(row);
+    }
+
+    // UUIDs in canonical lower case, anything else trimmed
+    public static String normalise(String code) {
+        if (code == null || code.isBlank()) {
+            return null;
+        }
+        String key = code.trim();
+        UUID uuid = parseUuid(key);
+        return uuid != null ? uuid.toString() : key;
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String extractFromJson(String jsonStr, String key) {
+        int keyIndex = jsonStr.indexOf("\"" + key + "\"");
+        if (keyIndex == -1) return null;
+
+        int colonIndex = jsonStr.indexOf(":", keyIndex);
+        if (colonIndex == -1) return null;
+
+        int startIndex = jsonStr.indexOf("\"", colonIndex) + 1;
+        if (startIndex == 0) return null;
+
+        int endIndex = jsonStr.indexOf("\"", startIndex);
+        if (endIndex == -1) return null;
+
+        return jsonStr.substring(startIndex, endIndex);
+    }
+}
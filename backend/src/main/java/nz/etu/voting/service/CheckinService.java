@@ -0,0 +1,275 @@
+package nz.etu.voting.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.CheckedInMemberRow;
+import nz.etu.voting.domain.dto.EventCounterState;
+import nz.etu.voting.domain.entity.EventMember;
+import nz.etu.voting.repository.EventMemberRepository;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Check-in as a single conditional UPDATE: the row is only flipped while {@code checked_in} is still false, so a
+ * ticket scanned at two doors at once checks the member in exactly once, and the loser learns it from the empty
+ * result rather than by loading the member first. The UPDATE returns what the scanners display and the counter
+ * state, so no entity is loaded; counters and {@link EventDataChangeListener} are told about the change directly.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckinService {
+
+    // Columns are only overwritten by non-null values; adminCheckinInfo is set as a key of the registration_data
+    // object (a missing or non-object registration_data is replaced by an object holding just that key)
+    private static final String SET_CHECKED_IN =
+            "checked_in = true, check_in_time = ?, updated_at = ?, " +
+            "is_attending = CASE WHEN ? THEN true ELSE is_attending END, " +
+            "check_in_location = COALESCE(?, check_in_location), " +
+            "check_in_venue = COALESCE(?, check_in_venue), " +
+            "check_in_method = COALESCE(?, check_in_method), " +
+            "check_in_admin_name = COALESCE(?, check_in_admin_name), " +
+            "registration_data = CASE WHEN CAST(? AS jsonb) IS NULL THEN registration_data " +
+            "  ELSE CAST(CASE WHEN jsonb_typeof(CAST(registration_data AS jsonb)) = 'object' " +
+            "    THEN CAST(registration_data AS jsonb) ELSE CAST('{}' AS jsonb) END " +
+            "    || jsonb_build_object('adminCheckinInfo', CAST(? AS jsonb)) AS json) END ";
+
+    private static final String RETURNING =
+            "RETURNING previous_is_attending, id, membership_number, name, workplace, employer, registration_status, " +
+            "check_in_location, check_in_method, check_in_venue, check_in_admin_name, check_in_time, " +
+            // EventCounterState, in record component order
+            "event_id, region_desc, forum_desc, assigned_venue_final, bmm_registration_stage, bmm_stage, has_registered, " +
+            "is_attending, is_special_vote, checked_in, qr_code_email_sent, primary_email, attendance_confirmed, " +
+            "special_vote_eligible, special_vote_requested, bmm_special_vote_status, special_vote_completed_at, " +
+            "bmm_invitation_sent, bmm_confirmation_request_sent, ticket_email_sent_at, special_vote_sent_at";
+
+    // The CTE locks the row and keeps is_attending as it was before the UPDATE, for the counter transition
+    private static final String CHECK_IN_SQL =
+            "WITH previous AS (SELECT id AS previous_id, is_attending AS previous_is_attending " +
+            "  FROM event_members WHERE id = ? AND checked_in = false FOR UPDATE) " +
+            "UPDATE event_members SET " + SET_CHECKED_IN +
+            "FROM previous WHERE id = previous_id AND checked_in = false " + RETURNING;
+
+    // One row per distinct requested number, in request order: the checked-in member's columns if this statement
+    // checked them in, and whether the number exists in the event at all
+    private static final String BULK_CHECK_IN_SQL =
+            "WITH requested AS (SELECT trim(number) AS requested_number, min(position) AS requested_position " +
+            "  FROM unnest(CAST(? AS text[])) WITH ORDINALITY AS input(number, position) " +
+            "  WHERE trim(number) <> '' GROUP BY trim(number)), " +
+            "previous AS (SELECT id AS previous_id, is_attending AS previous_is_attending " +
+            "  FROM event_members JOIN requested ON membership_number = requested_number " +
+            "  WHERE event_id = ? AND checked_in = false FOR UPDATE OF event_members), " +
+            "updated AS (UPDATE event_members SET " + SET_CHECKED_IN +
+            "  FROM previous WHERE id = previous_id AND checked_in = false " + RETURNING + ") " +
+            "SELECT requested_number, updated.*, EXISTS (SELECT 1 FROM event_members m " +
+            "  WHERE m.event_id = ? AND m.membership_number = requested_number) AS found " +
+            "FROM requested LEFT JOIN updated ON updated.membership_number = requested_number " +
+            "ORDER BY requested_position, updated.id";
+
+    private final EventCounterService eventCounterService;
+    private final EventDataChangeListener eventDataChangeListener;
+    private final EventMemberRepository eventMemberRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * What a check-in path records besides the flag. Null fields leave the column as it is.
+     *
+     * @param time             when the member arrived; null for now (offline scans pass the scan time)
+     * @param adminCheckinInfo JSON object appended to registration_data as {@code adminCheckinInfo}
+     * @param attending        also mark the member as attending (manual and admin QR check-in)
+     */
+    public record Checkin(LocalDateTime time, String location, String venue, String method, String adminName,
+                          String adminCheckinInfo, boolean attending) {
+    }
+
+    // Empty when the member does not exist or was already checked in
+    @Transactional
+    public Optional<CheckedInMemberRow> checkIn(Long eventMemberId, Checkin checkin) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime time = checkin.time() != null ? checkin.time() : now;
+        Boolean[] previousAttending = new Boolean[1];
+        CheckedInMemberRow row = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(CHECK_IN_SQL)) {
+                statement.setLong(1, eventMemberId);
+                bind(statement, 2, checkin, time, now);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    previousAttending[0] = rs.getObject("previous_is_attending", Boolean.class);
+                    return read(rs);
+                }
+            }
+        });
+        if (row == null) {
+            return Optional.empty();
+        }
+
+        recorded(row, previousAttending[0]);
+        return Optional.of(row);
+    }
+
+    public enum BulkStatus { CHECKED_IN, ALREADY_CHECKED_IN, NOT_FOUND }
+
+    // row is only set for CHECKED_IN
+    public record BulkOutcome(String membershipNumber, BulkStatus status, CheckedInMemberRow row) {
+    }
+
+    /**
+     * Checks in every listed membership number of the event in one statement and reports, per distinct number in
+     * request order, whether it was checked in now, was already checked in, or does not exist in the event.
+     */
+    @Transactional
+    public List<BulkOutcome> bulkCheckIn(Long eventId, List<String> membershipNumbers, Checkin checkin) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime time = checkin.time() != null ? checkin.time() : now;
+        List<BulkOutcome> outcomes = new ArrayList<>(membershipNumbers.size());
+        Map<Long, Boolean> previousAttending = new HashMap<>();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(BULK_CHECK_IN_SQL)) {
+                statement.setArray(1, connection.createArrayOf("text",
+                        membershipNumbers.stream().filter(Objects::nonNull).toArray()));
+                statement.setLong(2, eventId);
+                int next = bind(statement, 3, checkin, time, now);
+                statement.setLong(next, eventId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        String number = rs.getString("requested_number");
+                        if (rs.getObject("id") != null) {
+                            CheckedInMemberRow row = read(rs);
+                            previousAttending.put(row.id(), rs.getObject("previous_is_attending", Boolean.class));
+                            outcomes.add(new BulkOutcome(number, BulkStatus.CHECKED_IN, row));
+                        } else {
+                            outcomes.add(new BulkOutcome(number,
+                                    rs.getBoolean("found") ? BulkStatus.ALREADY_CHECKED_IN : BulkStatus.NOT_FOUND, null));
+                        }
+                    }
+                }
+            }
+        });
+
+        outcomes.stream().filter(outcome -> outcome.row() != null)
+                .forEach(outcome -> recorded(outcome.row(), previousAttending.get(outcome.row().id())));
+        return outcomes;
+    }
+
+    /**
+     * For paths that have already loaded the member: the same conditional UPDATE, with its outcome (or, when the
+     * member was checked in meanwhile, the winner's) copied onto the entity so the caller can render it. A managed
+     * entity is made read-only first, so the copy is never flushed back as a full-row UPDATE.
+     */
+    @Transactional
+    public Optional<CheckedInMemberRow> checkIn(EventMember member, Checkin checkin) {
+        Session session = entityManager.unwrap(Session.class);
+        if (session.contains(member)) {
+            session.setReadOnly(member, true);
+        }
+
+        Optional<CheckedInMemberRow> checkedIn = checkIn(member.getId(), checkin);
+        if (checkedIn.isPresent()) {
+            CheckedInMemberRow row = checkedIn.get();
+            member.setCheckedIn(true);
+            member.setCheckInTime(row.checkInTime());
+            member.setCheckInLocation(row.checkInLocation());
+            member.setCheckInVenue(row.checkInVenue());
+            member.setCheckInMethod(row.checkInMethod());
+            member.setCheckInAdminName(row.checkInAdminName());
+            member.setIsAttending(row.isAttending());
+        } else {
+            // 并发扫描：另一台扫描器已签到，显示其结果
+            eventMemberRepository.findCheckinKeyRowsByIds(List.of(member.getId())).stream().findFirst().ifPresent(row -> {
+                member.setCheckedIn(row.isCheckedIn());
+                member.setCheckInTime(row.checkInTime());
+                member.setCheckInLocation(row.checkInLocation());
+            });
+        }
+        return checkedIn;
+    }
+
+    private void recorded(CheckedInMemberRow row, Boolean previousAttending) {
+        EventCounterState after = row.counterState();
+        eventCounterService.recordTransition(after.withCheckedIn(false).withIsAttending(previousAttending), after);
+        eventDataChangeListener.markCheckedIn(row);
+    }
+
+    // Binds the SET_CHECKED_IN parameters from index first; returns the next free index
+    private static int bind(PreparedStatement statement, int first, Checkin checkin, LocalDateTime time,
+                            LocalDateTime now) throws SQLException {
+        statement.setTimestamp(first, Timestamp.valueOf(time));
+        statement.setTimestamp(first + 1, Timestamp.valueOf(now));
+        statement.setBoolean(first + 2, checkin.attending());
+        setString(statement, first + 3, checkin.location());
+        setString(statement, first + 4, checkin.venue());
+        setString(statement, first + 5, checkin.method());
+        setString(statement, first + 6, checkin.adminName());
+        setString(statement, first + 7, checkin.adminCheckinInfo());
+        setString(statement, first + 8, checkin.adminCheckinInfo());
+        return first + 9;
+    }
+
+    private static CheckedInMemberRow read(ResultSet rs) throws SQLException {
+        EventCounterState state = new EventCounterState(
+                rs.getLong("event_id"),
+                rs.getString("region_desc"),
+                rs.getString("forum_desc"),
+                rs.getString("assigned_venue_final"),
+                rs.getString("bmm_registration_stage"),
+                rs.getString("bmm_stage"),
+                rs.getObject("has_registered", Boolean.class),
+                rs.getObject("is_attending", Boolean.class),
+                rs.getObject("is_special_vote", Boolean.class),
+                rs.getObject("checked_in", Boolean.class),
+                rs.getObject("qr_code_email_sent", Boolean.class),
+                rs.getString("primary_email"),
+                rs.getObject("attendance_confirmed", Boolean.class),
+                rs.getObject("special_vote_eligible", Boolean.class),
+                rs.getObject("special_vote_requested", Boolean.class),
+                rs.getString("bmm_special_vote_status"),
+                rs.getObject("special_vote_completed_at", LocalDateTime.class),
+                rs.getObject("bmm_invitation_sent", Boolean.class),
+                rs.getObject("bmm_confirmation_request_sent", Boolean.class),
+                rs.getObject("ticket_email_sent_at", LocalDateTime.class),
+                rs.getObject("special_vote_sent_at", LocalDateTime.class));
+
+        return new CheckedInMemberRow(
+                rs.getLong("id"),
+                state.eventId(),
+                rs.getString("membership_number"),
+                rs.getString("name"),
+                state.primaryEmail(),
+                state.regionDesc(),
+                state.forumDesc(),
+                rs.getString("workplace"),
+                rs.getString("employer"),
+                state.isAttending(),
+                state.isSpecialVote(),
+                rs.getObject("check_in_time", LocalDateTime.class),
+                rs.getString("check_in_location"),
+                rs.getString("check_in_method"),
+                rs.getString("check_in_venue"),
+                rs.getString("check_in_admin_name"),
+                rs.getString("registration_status"),
+                state);
+    }
+
+    private static void setString(PreparedStatement statement, int index, String value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.VARCHAR);
+        } else {
+            statement.setString(index, value);
+        }
+    }
+}
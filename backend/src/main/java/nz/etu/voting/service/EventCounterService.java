@@ -0,0 +1,326 @@
+package nz.etu.voting.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventCounterState;
+import nz.etu.voting.domain.entity.EventCounter;
+import nz.etu.voting.repository.EventCounterRepository;
+import nz.etu.voting.repository.EventMemberRepository;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.event.spi.EventSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live per-event counters (registered, attending, special vote, checked in, ... by event/region/forum/venue).
+ * <p>
+ * EventMember inserts, updates and deletes are turned into counter deltas by {@link EventMemberCounterListener}.
+ * Deltas are summed per Hibernate session and written once, right before the owning transaction commits,
+ * so counters move atomically with the member rows. Bulk JPQL/native updates bypass the listener and must
+ * call {@link #recordTransition(EventCounterState, EventCounterState)} themselves; anything missed is
+ * corrected by the periodic {@link #reconcile(Long)}.
+ * <p>
+ * An event's counters are seeded with a full count on first read (or by the first recount), which also writes the
+ * {@link EventCounter#seededMarker(Long) seeded marker}. Deltas for an event without the marker are dropped rather
+ * than written, since the seed counts those members anyway.
+ * <p>
+ * Delta writers hold a shared per-event advisory lock and {@link #reconcile(Long)} an exclusive one, so a recount
+ * never overwrites deltas committed after it counted the members.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventCounterService {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO event_counters (event_id, dimension, bucket, metric, count, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, now()) " +
+            "ON CONFLICT (event_id, dimension, bucket, metric) " +
+            "DO UPDATE SET count = event_counters.count + EXCLUDED.count, updated_at = now()";
+
+    // pg_advisory_xact_lock(COUNTER_LOCK_SPACE, eventId): shared while writing deltas, exclusive while recounting
+    private static final int COUNTER_LOCK_SPACE = 0x45434e54;
+
+    private final EventCounterRepository eventCounterRepository;
+    private final EventMemberRepository eventMemberRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<EventSource, Map<EventCounter.Key, Long>> pendingBySession = new ConcurrentHashMap<>();
+
+    // Events whose seeded marker has been seen; the marker is never removed once written
+    private final Set<Long> seededEvents = ConcurrentHashMap.newKeySet();
+
+    // Record a member transition made outside the entity lifecycle (e.g. a bulk UPDATE) in the current transaction
+    public void recordTransition(EventCounterState before, EventCounterState after) {
+        recordTransition(entityManager.unwrap(EventSource.class), before, after);
+    }
+
+    public void recordTransition(EventSource session, EventCounterState before, EventCounterState after) {
+        Map<EventCounter.Key, Long> delta = diff(before, after);
+        if (delta.isEmpty()) {
+            return;
+        }
+
+        if (!session.isTransactionInProgress()) {
+            session.doWork(connection -> applyDeltas(connection, delta));
+            return;
+        }
+
+        Map<EventCounter.Key, Long> pending = pendingBySession.computeIfAbsent(session, this::registerFlush);
+        delta.forEach((key, value) -> pending.merge(key, value, Long::sum));
+    }
+
+    public Map<String, Long> getEventTotals(Long eventId) {
+        ensureSeeded(eventId);
+        return toMetricMap(eventCounterRepository.findByEventIdAndDimensionAndBucket(
+                eventId, EventCounter.Dimension.EVENT, EventCounter.ALL_BUCKET));
+    }
+
+    // bucket -> (metric -> count)
+    public Map<String, Map<String, Long>> getBreakdown(Long eventId, EventCounter.Dimension dimension) {
+        ensureSeeded(eventId);
+        Map<String, Map<String, Long>> breakdown = new TreeMap<>();
+        for (EventCounter counter : eventCounterRepository.findByEventIdAndDimension(eventId, dimension)) {
+            if (counter.getCount() != 0) {
+                breakdown.computeIfAbsent(counter.getBucket(), b -> new HashMap<>())
+                        .put(counter.getMetric(), counter.getCount());
+            }
+        }
+        return breakdown;
+    }
+
+    public Map<String, Long> getBucket(Long eventId, EventCounter.Dimension dimension, String bucket) {
+        ensureSeeded(eventId);
+        return toMetricMap(eventCounterRepository.findByEventIdAndDimensionAndBucket(eventId, dimension, bucket));
+    }
+
+    // Every counter of the event, zero rows included
+    public Map<EventCounter.Key, Long> getSnapshot(Long eventId) {
+        ensureSeeded(eventId);
+        Map<EventCounter.Key, Long> snapshot = new HashMap<>();
+        for (EventCounter counter : eventCounterRepository.findByEventId(eventId)) {
+            snapshot.put(counter.toKey(), counter.getCount());
+        }
+        snapshot.remove(EventCounter.seededMarker(eventId));
+        return snapshot;
+    }
+
+    public static long count(Map<String, Long> metrics, String metric) {
+        return metrics == null ? 0L : metrics.getOrDefault(metric, 0L);
+    }
+
+    // Recompute the event's counters from event_members and correct any drift
+    @Transactional
+    public int reconcile(Long eventId) {
+        // 等待进行中的签到提交后再计数，计数期间新的增量排队等待
+        entityManager.unwrap(EventSource.class).doWork(connection -> lockEvents(connection, List.of(eventId), false));
+        return recount(eventId);
+    }
+
+    // Under the exclusive lock: writes the full count and the seeded marker
+    private int recount(Long eventId) {
+        Map<EventCounter.Key, Long> expected = computeCounts(eventId);
+        expected.put(EventCounter.seededMarker(eventId), 1L);
+
+        int corrected = 0;
+        List<EventCounter> stale = new ArrayList<>();
+        for (EventCounter counter : eventCounterRepository.findByEventId(eventId)) {
+            Long count = expected.remove(counter.toKey());
+            if (count == null) {
+                if (counter.getCount() != 0) {
+                    corrected++;
+                }
+                stale.add(counter);
+            } else if (!count.equals(counter.getCount())) {
+                counter.setCount(count);
+                corrected++;
+            }
+        }
+        eventCounterRepository.deleteAll(stale);
+
+        List<EventCounter> missing = toCounters(expected);
+        eventCounterRepository.saveAll(missing);
+        corrected += missing.size();
+
+        if (corrected > 0) {
+            log.info("Reconciled event counters for event {}: {} counters corrected", eventId, corrected);
+        }
+        return corrected;
+    }
+
+    // Seeds in a transaction of its own, so the count does not include the caller's uncommitted changes,
+    // whose deltas are then written on top of the seed when the caller commits
+    private void ensureSeeded(Long eventId) {
+        if (isSeeded(eventId)) {
+            return;
+        }
+        TransactionTemplate seedTransaction = new TransactionTemplate(transactionManager);
+        seedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        seedTransaction.executeWithoutResult(status -> {
+            entityManager.unwrap(EventSource.class).doWork(connection -> lockEvents(connection, List.of(eventId), false));
+            if (!isSeeded(eventId)) {
+                recount(eventId);
+            }
+        });
+        seededEvents.add(eventId);
+    }
+
+    private boolean isSeeded(Long eventId) {
+        if (seededEvents.contains(eventId)) {
+            return true;
+        }
+        if (eventCounterRepository.existsByEventIdAndDimensionAndBucket(
+                eventId, EventCounter.Dimension.EVENT, EventCounter.SEEDED_BUCKET)) {
+            seededEvents.add(eventId);
+            return true;
+        }
+        return false;
+    }
+
+    private Map<EventCounter.Key, Long> computeCounts(Long eventId) {
+        Map<EventCounter.Key, Long> counts = new HashMap<>();
+        for (EventCounterState state : eventMemberRepository.findCounterStatesByEventId(eventId)) {
+            for (EventCounter.Key key : state.keys()) {
+                counts.merge(key, 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private List<EventCounter> toCounters(Map<EventCounter.Key, Long> counts) {
+        List<EventCounter> counters = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> counters.add(EventCounter.builder()
+                .eventId(key.eventId())
+                .dimension(key.dimension())
+                .bucket(key.bucket())
+                .metric(key.metric())
+                .count(count)
+                .build()));
+        return counters;
+    }
+
+    private Map<String, Long> toMetricMap(List<EventCounter> counters) {
+        Map<String, Long> metrics = new HashMap<>();
+        for (EventCounter counter : counters) {
+            metrics.put(counter.getMetric(), counter.getCount());
+        }
+        return metrics;
+    }
+
+    private Map<EventCounter.Key, Long> diff(EventCounterState before, EventCounterState after) {
+        if (Objects.equals(before, after)) {
+            return Map.of();
+        }
+        Map<EventCounter.Key, Long> delta = new HashMap<>();
+        if (before != null) {
+            before.keys().forEach(key -> delta.merge(key, -1L, Long::sum));
+        }
+        if (after != null) {
+            after.keys().forEach(key -> delta.merge(key, 1L, Long::sum));
+        }
+        delta.values().removeIf(value -> value == 0L);
+        return delta;
+    }
+
+    // First delta in a transaction: write the accumulated deltas after Hibernate's final flush, before commit
+    private Map<EventCounter.Key, Long> registerFlush(EventSource session) {
+        BeforeTransactionCompletionProcess flush = sessionImplementor -> {
+            Map<EventCounter.Key, Long> pending = pendingBySession.remove(session);
+            if (pending != null && !pending.isEmpty()) {
+                sessionImplementor.doWork(connection -> applyDeltas(connection, pending));
+            }
+        };
+        AfterTransactionCompletionProcess cleanup = (success, sessionImplementor) -> pendingBySession.remove(session);
+        session.getActionQueue().registerProcess(flush);
+        session.getActionQueue().registerProcess(cleanup);
+        return new HashMap<>();
+    }
+
+    private void applyDeltas(Connection connection, Map<EventCounter.Key, Long> deltas) throws SQLException {
+        List<EventCounter.Key> keys = new ArrayList<>(deltas.keySet());
+        Collections.sort(keys);
+        List<Long> eventIds = keys.stream().map(EventCounter.Key::eventId).distinct().toList();
+        lockEvents(connection, eventIds, true);
+
+        // 未播种的活动不写增量：首次读取时的全量计数会包含这些会员
+        Set<Long> seeded = findSeeded(connection, eventIds);
+        keys.removeIf(key -> !seeded.contains(key.eventId()));
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+            for (EventCounter.Key key : keys) {
+                long delta = deltas.get(key);
+                if (delta == 0L) {
+                    continue;
+                }
+                statement.setLong(1, key.eventId());
+                statement.setString(2, key.dimension().name());
+                statement.setString(3, key.bucket());
+                statement.setString(4, key.metric());
+                statement.setLong(5, delta);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    // Checked under the shared lock, so a seed in progress has either committed its marker or not started counting
+    private Set<Long> findSeeded(Connection connection, List<Long> eventIds) throws SQLException {
+        Set<Long> seeded = new HashSet<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long eventId : eventIds) {
+            if (seededEvents.contains(eventId)) {
+                seeded.add(eventId);
+            } else {
+                unknown.add(eventId);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return seeded;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT event_id FROM event_counters WHERE event_id = ANY (?) AND dimension = ? AND bucket = ?")) {
+            statement.setArray(1, connection.createArrayOf("bigint", unknown.toArray()));
+            statement.setString(2, EventCounter.Dimension.EVENT.name());
+            statement.setString(3, EventCounter.SEEDED_BUCKET);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    seeded.add(rs.getLong(1));
+                }
+            }
+        }
+        seededEvents.addAll(seeded);
+        return seeded;
+    }
+
+    // Event ids in ascending order, so concurrent writers always lock in the same order
+    private static void lockEvents(Connection connection, List<Long> eventIds, boolean shared) throws SQLException {
+        String sql = shared ? "SELECT pg_advisory_xact_lock_shared(?, ?)" : "SELECT pg_advisory_xact_lock(?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (Long eventId : eventIds) {
+                statement.setInt(1, COUNTER_LOCK_SPACE);
+                statement.setInt(2, eventId.intValue());
+                statement.execute();
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package nz.etu.voting.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import nz.etu.voting.domain.dto.CheckedInMemberRow;
+import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.domain.entity.EventMember;
+import nz.etu.voting.domain.event.EventDataChangedEvent;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hibernate listener that collects the ids of events whose Event/EventMember rows changed in the current
+ * transaction, and which member properties were updated, and publishes a single {@link EventDataChangedEvent} once
+ * it commits (nothing on rollback). Check-ins made by native SQL are reported with their returned rows.
+ */
+@Component
+@RequiredArgsConstructor
+public class EventDataChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final Set<String> ANY = Set.of(EventDataChangedEvent.ANY_PROPERTY);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        markChanged(event.getEntity(), ANY);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        int[] dirty = event.getDirtyProperties();
+        if (dirty == null) {
+            markChanged(event.getEntity(), ANY);
+            return;
+        }
+        String[] names = event.getPersister().getPropertyNames();
+        Set<String> properties = new HashSet<>(dirty.length);
+        for (int index : dirty) {
+            properties.add(names[index]);
+        }
+        markChanged(event.getEntity(), properties);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        markChanged(event.getEntity(), ANY);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void markChanged(Object entity, Set<String> properties) {
+        if (entity instanceof EventMember member && member.getEvent() != null) {
+            record(member.getEvent().getId(), member.getId(), properties, null);
+        } else if (entity instanceof Event e && e.getId() != null) {
+            record(e.getId(), null, ANY, null);
+        }
+    }
+
+    // Report a member row changed by native SQL, which bypasses the entity listeners
+    public void markChanged(Long eventId, Long eventMemberId) {
+        record(eventId, eventMemberId, ANY, null);
+    }
+
+    // Report a check-in made by native SQL, with the row its UPDATE returned
+    public void markCheckedIn(CheckedInMemberRow row) {
+        record(row.eventId(), row.id(), Set.of(), row);
+    }
+
+    private void record(Long eventId, Long eventMemberId, Set<String> properties, CheckedInMemberRow checkIn) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Changes single = new Changes();
+            single.add(eventId, eventMemberId, properties, checkIn);
+            applicationEventPublisher.publishEvent(single.toEvent());
+            return;
+        }
+
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            Changes pending = new Changes();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // REQUIRES_NEW transactions (e.g. per-batch sync saves) must collect into their own set
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(EventDataChangeListener.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(EventDataChangeListener.this, pending);
+                }
+
+                @Override
+                public void afterCommit() {
+                    applicationEventPublisher.publishEvent(pending.toEvent());
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EventDataChangeListener.this);
+                }
+            });
+            changes = pending;
+        }
+        changes.add(eventId, eventMemberId, properties, checkIn);
+    }
+
+    private static final class Changes {
+        private final Set<Long> eventIds = new HashSet<>();
+        private final Set<Long> eventMemberIds = new HashSet<>();
+        private final Set<String> memberProperties = new HashSet<>();
+        private final Map<Long, CheckedInMemberRow> checkIns = new HashMap<>();
+        // members changed other than by a check-in; their check-in rows are not the whole story
+        private final Set<Long> updatedIds = new HashSet<>();
+
+        private void add(Long eventId, Long eventMemberId, Set<String> properties, CheckedInMemberRow checkIn) {
+            eventIds.add(eventId);
+            memberProperties.addAll(properties);
+            if (eventMemberId == null) {
+                return;
+            }
+            eventMemberIds.add(eventMemberId);
+            if (checkIn != null) {
+                checkIns.put(eventMemberId, checkIn);
+            } else {
+                updatedIds.add(eventMemberId);
+            }
+        }
+
+        private EventDataChangedEvent toEvent() {
+            Map<Long, CheckedInMemberRow> checkInsOnly = new HashMap<>(checkIns);
+            checkInsOnly.keySet().removeAll(updatedIds);
+            return new EventDataChangedEvent(Set.copyOf(eventIds), Set.copyOf(eventMemberIds),
+                    Set.copyOf(memberProperties), Map.copyOf(checkInsOnly));
+        }
+    }
+}
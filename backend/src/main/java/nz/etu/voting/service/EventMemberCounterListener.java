@@ -0,0 +1,98 @@
+package nz.etu.voting.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import nz.etu.voting.domain.dto.EventCounterState;
+import nz.etu.voting.domain.entity.EventMember;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate listener that feeds every EventMember insert/update/delete into the live event counters.
+ * Uses the persistence context's loaded state as the "before" image, so no extra reads are needed.
+ */
+@Component
+@RequiredArgsConstructor
+public class EventMemberCounterListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final EventCounterService eventCounterService;
+
+    private volatile int[] propertyIndexes;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof EventMember) {
+            eventCounterService.recordTransition(event.getSession(), null,
+                    toState(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        // oldState is only missing for detached updates that were never loaded; reconciliation covers those
+        if (event.getEntity() instanceof EventMember && event.getOldState() != null) {
+            eventCounterService.recordTransition(event.getSession(),
+                    toState(event.getPersister(), event.getOldState()),
+                    toState(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof EventMember && event.getDeletedState() != null) {
+            eventCounterService.recordTransition(event.getSession(),
+                    toState(event.getPersister(), event.getDeletedState()), null);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private EventCounterState toState(EntityPersister persister, Object[] state) {
+        int[] indexes = resolveIndexes(persister);
+        Object[] values = new Object[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            values[i] = state[indexes[i]];
+        }
+        return EventCounterState.fromValues(values);
+    }
+
+    private int[] resolveIndexes(EntityPersister persister) {
+        int[] indexes = propertyIndexes;
+        if (indexes == null) {
+            String[] names = persister.getPropertyNames();
+            indexes = new int[EventCounterState.PROPERTIES.length];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = indexOf(names, EventCounterState.PROPERTIES[i]);
+            }
+            propertyIndexes = indexes;
+        }
+        return indexes;
+    }
+
+    private static int indexOf(String[] names, String property) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("EventMember has no mapped property " + property);
+    }
+}
@@ -2,13 +2,27 @@ package nz.etu.voting.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventMemberContactRow;
+import nz.etu.voting.domain.dto.EventMemberCriteria;
+import nz.etu.voting.domain.dto.EventMemberRow;
+import nz.etu.voting.domain.dto.EventMemberSummaryRow;
 import nz.etu.voting.domain.entity.Event;
 import nz.etu.voting.domain.entity.EventMember;
 import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.repository.EventMemberSpecifications;
 import nz.etu.voting.repository.EventRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -22,9 +36,12 @@ public class EventMemberTargetingService {
 
     private final EventMemberRepository eventMemberRepository;
     private final EventRepository eventRepository;
+    private final EventRosterService eventRosterService;
+
+    private static final int LOAD_CHUNK_SIZE = 1000;
 
     /**
-     * 根据复杂条件过滤事件成员 - 多表联合查询
+     * 根据复杂条件过滤事件成员 - 在内存中的事件名册(EventRoster)上求值，只按id加载命中的实体
      */
     public List<EventMember> getFilteredEventMembers(Long eventId, Map<String, Object> criteria) {
         Optional<Event> eventOpt = eventRepository.findById(eventId);
@@ -36,441 +53,272 @@ public class EventMemberTargetingService {
         Event event = eventOpt.get();
         log.info("Filtering event members for event: {} with criteria: {}", event.getName(), criteria);
 
-        // CRITICAL: 完整的字段映射 - 支持前端发送的所有字段名
-        // EventMember状态字段
-        Boolean hasRegistered = getBooleanFromCriteria(criteria, "hasRegistered");
-        Boolean isAttending = getBooleanFromCriteria(criteria, "isAttending");
-        Boolean hasVoted = getBooleanFromCriteria(criteria, "hasVoted");
-        Boolean checkedIn = getBooleanFromCriteria(criteria, "checkedIn");
-
-        // Member表字段 - 支持多种字段名映射
-        String regionDesc = getStringFromCriteria(criteria, "regionDesc");
-        if (regionDesc == null) regionDesc = getStringFromCriteria(criteria, "region");
-
-        // CRITICAL: Map frontend region values to database values
-        if (regionDesc != null) {
-            switch (regionDesc.toLowerCase()) {
-                case "northern":
-                    regionDesc = "Northern";
-                    break;
-                case "central":
-                    regionDesc = "Central";
-                    break;
-                case "southern":
-                    regionDesc = "Southern";
-                    break;
-                // Keep original if already full name
-                case "northern region":
-                case "central region":
-                case "southern region":
-                    break;
-                default:
-                    log.debug("Unknown region value: {}, keeping original", regionDesc);
-                    break;
-            }
-        }
+        List<EventMember> filteredMembers = loadEventMembers(getFilteredEventMemberIds(eventId, criteria));
 
-        String genderDesc = getStringFromCriteria(criteria, "genderDesc");
-        if (genderDesc == null) genderDesc = getStringFromCriteria(criteria, "gender");
-
-        // 行业字段映射
-        String siteSubIndustryDesc = getStringFromCriteria(criteria, "siteSubIndustryDesc");
-        if (siteSubIndustryDesc == null) siteSubIndustryDesc = getStringFromCriteria(criteria, "subIndustry");
-
-        String siteIndustryDesc = getStringFromCriteria(criteria, "siteIndustryDesc");
-        if (siteIndustryDesc == null) siteIndustryDesc = getStringFromCriteria(criteria, "industry");
-
-        String workplaceDesc = getStringFromCriteria(criteria, "workplaceDesc");
-        if (workplaceDesc == null) workplaceDesc = getStringFromCriteria(criteria, "workplace");
-
-        String employerName = getStringFromCriteria(criteria, "employerName");
-        if (employerName == null) employerName = getStringFromCriteria(criteria, "employer");
-
-        String bargainingGroupDesc = getStringFromCriteria(criteria, "bargainingGroupDesc");
-        if (bargainingGroupDesc == null) bargainingGroupDesc = getStringFromCriteria(criteria, "bargainingGroup");
-
-        String branchDesc = getStringFromCriteria(criteria, "branchDesc");
-        if (branchDesc == null) branchDesc = getStringFromCriteria(criteria, "branch");
-
-        String forumDesc = getStringFromCriteria(criteria, "forumDesc");
-        if (forumDesc == null) forumDesc = getStringFromCriteria(criteria, "forum");
-
-        String membershipTypeDesc = getStringFromCriteria(criteria, "membershipTypeDesc");
-        if (membershipTypeDesc == null) membershipTypeDesc = getStringFromCriteria(criteria, "membershipType");
-
-        String ethnicRegionDesc = getStringFromCriteria(criteria, "ethnicRegionDesc");
-        if (ethnicRegionDesc == null) ethnicRegionDesc = getStringFromCriteria(criteria, "ethnicRegion");
-
-        String occupation = getStringFromCriteria(criteria, "occupation");
-        String employmentStatus = getStringFromCriteria(criteria, "employmentStatus");
-        String jobTitle = getStringFromCriteria(criteria, "jobTitle");
-        String department = getStringFromCriteria(criteria, "department");
-        String siteNumber = getStringFromCriteria(criteria, "siteNumber");
-
-        Boolean hasEmail = getBooleanFromCriteria(criteria, "hasEmail");
-        Boolean hasMobile = getBooleanFromCriteria(criteria, "hasMobile");
-
-        // 搜索字段
-        String searchName = getStringFromCriteria(criteria, "searchName");
-        String searchEmail = getStringFromCriteria(criteria, "searchEmail");
-        String searchMembershipNumber = getStringFromCriteria(criteria, "searchMembershipNumber");
-
-        // CRITICAL: 处理BMM注册阶段
-        String bmmRegistrationStage = getStringFromCriteria(criteria, "bmmRegistrationStage");
-
-        // BMM specific filters
-        String bmmStage = getStringFromCriteria(criteria, "bmmStage");
-        String preferenceStatus = getStringFromCriteria(criteria, "preferenceStatus");
-        String attendanceIntention = getStringFromCriteria(criteria, "attendanceIntention");
-        String venueAssignment = getStringFromCriteria(criteria, "venueAssignment");
-
-        // CRITICAL: 处理特殊的registrationStatus映射
-        String registrationStatus = getStringFromCriteria(criteria, "registrationStatus");
-        if (registrationStatus != null && !registrationStatus.isEmpty()) {
-            switch (registrationStatus) {
-                case "registered":
-                    hasRegistered = true;
-                    break;
-                case "not_registered":
-                    hasRegistered = false;
-                    break;
-                case "attending":
-                    isAttending = true;
-                    break;
-                case "not_attending":
-                    isAttending = false;
-                    break;
-                case "special_vote":
-                    // 这个需要在查询结果中过滤，因为数据库查询不支持
-                    break;
-            }
-        }
+        log.info("Found {} members matching criteria for event: {}", filteredMembers.size(), event.getName());
+        return filteredMembers;
+    }
 
-        // CRITICAL: 处理BMM注册阶段映射
-        if (bmmRegistrationStage != null && !bmmRegistrationStage.isEmpty()) {
-            switch (bmmRegistrationStage) {
-                case "not_started":
-                    hasRegistered = false;
-                    break;
-                case "stage1_completed":
-                    hasRegistered = true;
-                    // 可以在后处理中进一步过滤
-                    break;
-                case "stage2_pending":
-                    hasRegistered = true;
-                    isAttending = null; // 还未决定是否出席
-                    break;
-                case "stage2_confirmed":
-                    hasRegistered = true;
-                    isAttending = true;
-                    break;
-            }
-        }
+    /**
+     * 只返回命中的EventMember id（按id排序），不加载实体
+     */
+    public List<Long> getFilteredEventMemberIds(Long eventId, Map<String, Object> criteria) {
+        BiFunction<EventRoster, RoaringBitmap, RoaringBitmap> filter = buildRosterFilter(criteria);
+        return eventRosterService.query(eventId, roster -> roster.ids(filter.apply(roster, roster.all())));
+    }
 
-        log.info("🔍 Applied field mapping - Registration: {}, Attending: {}, Region: {}, SubIndustry: {}, BMM Stage: {}",
-                hasRegistered, isAttending, regionDesc, siteSubIndustryDesc, bmmRegistrationStage);
-        log.info("📱 Contact filters - hasEmail: {}, hasMobile: {}", hasEmail, hasMobile);
-
-        // CRITICAL: 使用多表联合查询
-        List<EventMember> filteredMembers = eventMemberRepository.findByEventAndMemberCriteria(
-                event, hasRegistered, isAttending, hasVoted, checkedIn,
-                regionDesc, genderDesc, siteIndustryDesc, siteSubIndustryDesc, workplaceDesc,
-                employerName, bargainingGroupDesc, employmentStatus, ethnicRegionDesc,
-                jobTitle, department, siteNumber, hasEmail, hasMobile,
-                branchDesc, forumDesc, membershipTypeDesc, occupation
-        );
-
-        // CRITICAL: 后处理：处理数据库查询无法直接支持的复杂条件
-        if (registrationStatus != null && registrationStatus.equals("special_vote")) {
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> em.getSpecialVoteRequested() != null && em.getSpecialVoteRequested())
-                    .collect(Collectors.toList());
-        }
+    /**
+     * 发送预览的受众：条件命中总数，以及其中该渠道真正能送达的成员id（按id排序）。两者都在同一次名册求值中由位图运算得出
+     */
+    public Audience getEmailAudience(Long eventId, Map<String, Object> criteria) {
+        BiFunction<EventRoster, RoaringBitmap, RoaringBitmap> filter = buildRosterFilter(criteria);
+        return getAudience(eventId, roster -> filter.apply(roster, roster.all()), EventMemberTargetingService::emailable);
+    }
 
-        // CRITICAL: 后处理BMM注册阶段的精确过滤
-        if (bmmRegistrationStage != null && !bmmRegistrationStage.isEmpty()) {
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        String stage = em.getBmmRegistrationStage();
-                        if (stage == null) stage = "not_started";
-                        return stage.equals(bmmRegistrationStage);
-                    })
-                    .collect(Collectors.toList());
-        }
+    // Over an already materialised member set, e.g. a saved audience segment
+    public Audience getEmailAudience(Long eventId, Collection<Long> memberIds) {
+        return getAudience(eventId, roster -> roster.rowsOf(memberIds), EventMemberTargetingService::emailable);
+    }
 
-        // Filter by attendance confirmation status
-        String attendanceConfirmed = getStringFromCriteria(criteria, "attendanceConfirmed");
-        if (attendanceConfirmed != null && !attendanceConfirmed.isEmpty()) {
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        String stage = em.getBmmRegistrationStage();
-                        switch (attendanceConfirmed) {
-                            case "confirmed":
-                                return "ATTENDANCE_CONFIRMED".equals(stage);
-                            case "declined":
-                                return "ATTENDANCE_DECLINED".equals(stage);
-                            case "no_response":
-                                // No response means not confirmed and not declined
-                                return stage == null || 
-                                       "PENDING".equals(stage) || 
-                                       "INVITED".equals(stage) || 
-                                       "PREFERENCE_SUBMITTED".equals(stage) ||
-                                       "VENUE_ASSIGNED".equals(stage);
-                            default:
-                                return true; // Show all if unknown filter value
-                        }
-                    })
-                    .collect(Collectors.toList());
-            log.info("Applied attendance confirmation filter: {} - remaining members: {}", attendanceConfirmed, filteredMembers.size());
-        }
+    public Audience getSmsOnlyAudience(Long eventId, Map<String, Object> criteria) {
+        BiFunction<EventRoster, RoaringBitmap, RoaringBitmap> filter = buildRosterFilter(criteria);
+        return getAudience(eventId, roster -> filter.apply(roster, roster.all()), EventMemberTargetingService::smsOnly);
+    }
 
-        // Handle forum inclusion filter (only include specific forums)
-        String includeForums = getStringFromCriteria(criteria, "includeForums");
-        if (includeForums != null && !includeForums.isEmpty()) {
-            String[] forumsToInclude = includeForums.split(",");
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        String forum = em.getForumDesc();
-                        if (forum == null) return false; // Exclude if no forum when filtering for specific forums
-                        for (String includeForum : forumsToInclude) {
-                            if (forum.trim().equalsIgnoreCase(includeForum.trim())) {
-                                return true;
-                            }
-                        }
-                        return false;
-                    })
-                    .collect(Collectors.toList());
-            log.info("Applied forum inclusion filter: {} - remaining members: {}", includeForums, filteredMembers.size());
-        }
+    public Audience getSmsOnlyAudience(Long eventId, Collection<Long> memberIds) {
+        return getAudience(eventId, roster -> roster.rowsOf(memberIds), EventMemberTargetingService::smsOnly);
+    }
 
-        // Handle forum exclusion filter
-        String excludeForums = getStringFromCriteria(criteria, "excludeForums");
-        if (excludeForums != null && !excludeForums.isEmpty()) {
-            String[] forumsToExclude = excludeForums.split(",");
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        String forum = em.getForumDesc();
-                        if (forum == null) return true; // Don't exclude if no forum
-                        for (String excludeForum : forumsToExclude) {
-                            if (forum.trim().equalsIgnoreCase(excludeForum.trim())) {
-                                return false;
-                            }
-                        }
-                        return true;
-                    })
-                    .collect(Collectors.toList());
-            log.info("Applied forum exclusion filter: {} - remaining members: {}", excludeForums, filteredMembers.size());
-        }
+    public record Audience(int totalFiltered, List<Long> recipientIds) {
+    }
 
-        // Handle specific time preference filter
-        String specificTimePreference = getStringFromCriteria(criteria, "specificTimePreference");
-        if (specificTimePreference != null && !specificTimePreference.isEmpty()) {
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        String prefs = em.getPreferredTimesJson();
-                        
-                        if ("no_preference".equals(specificTimePreference)) {
-                            return prefs == null || prefs.isEmpty() || "[]".equals(prefs);
-                        }
-                        
-                        if (prefs == null || prefs.isEmpty()) return false;
-                        
-                        // Handle combination filters
-                        if (specificTimePreference.contains(",")) {
-                            String[] requiredPrefs = specificTimePreference.split(",");
-                            for (String reqPref : requiredPrefs) {
-                                if (!prefs.contains(reqPref.trim())) {
-                                    return false;
-                                }
-                            }
-                            return true;
-                        }
-                        
-                        // Handle single preference filter
-                        return prefs.contains(specificTimePreference);
-                    })
-                    .collect(Collectors.toList());
-            log.info("Applied time preference filter: {} - remaining members: {}", specificTimePreference, filteredMembers.size());
-        }
+    private Audience getAudience(Long eventId, Function<EventRoster, RoaringBitmap> selection,
+                                 BiConsumer<EventRoster, RoaringBitmap> reachable) {
+        return eventRosterService.query(eventId, roster -> {
+            RoaringBitmap rows = selection.apply(roster);
+            int totalFiltered = rows.getCardinality();
+            reachable.accept(roster, rows);
+            return new Audience(totalFiltered, roster.ids(rows));
+        });
+    }
 
-        // Handle new BMM filters
-        // 1. BMM Stage filter
-        if (bmmStage != null && !bmmStage.isEmpty()) {
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        String stage = em.getBmmStage();
-                        if (stage == null) stage = "INVITED";
-                        return stage.equals(bmmStage);
-                    })
-                    .collect(Collectors.toList());
-        }
+    private static void emailable(EventRoster roster, RoaringBitmap rows) {
+        roster.retain(rows, EventRoster.Flag.HAS_EMAIL, true);
+        roster.retain(rows, EventRoster.Flag.VALID_EMAIL, true);
+    }
 
-        // 2. Preference Status filter
-        if (preferenceStatus != null && !preferenceStatus.isEmpty()) {
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        boolean hasPreferences = em.getPreferredVenuesJson() != null &&
-                                !em.getPreferredVenuesJson().isEmpty();
-                        if (preferenceStatus.equals("submitted")) {
-                            return hasPreferences;
-                        } else if (preferenceStatus.equals("submitted_attending")) {
-                            // Filter for members who submitted preferences AND indicated they plan to attend
-                            return hasPreferences &&
-                                    em.getPreferredAttending() != null &&
-                                    em.getPreferredAttending();
-                        } else if (preferenceStatus.equals("not_submitted")) {
-                            return !hasPreferences;
-                        } else if (preferenceStatus.equals("exclude_not_attending")) {
-                            // Exclude members who explicitly said they're not attending
-                            // Include: 1) Those who said yes, 2) Those who didn't submit preference at all
-                            Boolean preferredAttending = em.getPreferredAttending();
-                            return preferredAttending == null || preferredAttending == true;
-                        }
-                        return true;
-                    })
-                    .collect(Collectors.toList());
-        }
+    // SMS-only: any mobile on file and no real email address
+    private static void smsOnly(EventRoster roster, RoaringBitmap rows) {
+        roster.retain(rows, EventRoster.Flag.HAS_MOBILE_NUMBER, true);
+        roster.retain(rows, EventRoster.Flag.VALID_EMAIL, false);
+    }
 
-        // 3. Attendance Intention filter
-        if (attendanceIntention != null && !attendanceIntention.isEmpty()) {
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        Boolean preferredAttending = em.getPreferredAttending();
-                        switch (attendanceIntention) {
-                            case "intend_yes":
-                                return preferredAttending != null && preferredAttending;
-                            case "intend_no":
-                                return preferredAttending != null && !preferredAttending;
-                            case "not_specified":
-                                return preferredAttending == null;
-                            default:
-                                return true;
-                        }
-                    })
-                    .collect(Collectors.toList());
-        }
+    /**
+     * 只在给定的候选成员上求值（保存的受众分组做增量维护用），返回其中仍满足条件的id；不在名册里的候选视为不满足
+     */
+    public Set<Long> matchingAmong(Long eventId, EventMemberCriteria criteria, Collection<Long> candidateIds) {
+        BiFunction<EventRoster, RoaringBitmap, RoaringBitmap> filter = rosterFilter(criteria);
+        return eventRosterService.query(eventId, roster ->
+                new HashSet<>(roster.ids(filter.apply(roster, roster.rowsOf(candidateIds)))));
+    }
 
-        // 4. Venue Assignment filter
-        if (venueAssignment != null && !venueAssignment.isEmpty()) {
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        boolean hasVenue = em.getAssignedVenueFinal() != null &&
-                                !em.getAssignedVenueFinal().isEmpty();
-                        if (venueAssignment.equals("assigned")) {
-                            return hasVenue;
-                        } else if (venueAssignment.equals("not_assigned")) {
-                            return !hasVenue;
-                        }
-                        return true;
-                    })
-                    .collect(Collectors.toList());
-        }
+    // Whole-event evaluation of an already parsed criteria, without the request logging
+    public List<Long> matchingIds(Long eventId, EventMemberCriteria criteria) {
+        BiFunction<EventRoster, RoaringBitmap, RoaringBitmap> filter = rosterFilter(criteria);
+        return eventRosterService.query(eventId, roster -> roster.ids(filter.apply(roster, roster.all())));
+    }
 
-        // 如果指定了主行业但没有子行业，使用行业关键词搜索
-        if (siteIndustryDesc != null && siteSubIndustryDesc == null) {
-            List<EventMember> industryMatches = eventMemberRepository.findByEventAndIndustryKeyword(event, siteIndustryDesc);
-            // 取交集
-            filteredMembers = filteredMembers.stream()
-                    .filter(industryMatches::contains)
-                    .collect(Collectors.toList());
+    /**
+     * 按id分块加载实体，按id排序返回
+     */
+    public List<EventMember> loadEventMembers(List<Long> ids) {
+        List<EventMember> members = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i += LOAD_CHUNK_SIZE) {
+            members.addAll(eventMemberRepository.findAllById(ids.subList(i, Math.min(i + LOAD_CHUNK_SIZE, ids.size()))));
         }
+        members.sort(Comparator.comparing(EventMember::getId));
+        return members;
+    }
 
-        log.info("Found {} members matching criteria for event: {}", filteredMembers.size(), event.getName());
+    /**
+     * 分页查询：只为实际提供的条件生成谓词（EventMemberSpecifications），extra 为调用方附加条件，可为null。
+     * 先分页取id，再只为这一页加载列表投影，不加载完整实体
+     */
+    public Page<EventMemberSummaryRow> findSummaryPageByCriteria(Long eventId, Map<String, Object> criteria,
+                                                              Specification<EventMember> extra, Pageable pageable) {
+        Page<Long> ids = eventMemberRepository.findIdPage(toSpecification(eventId, criteria, extra), pageable);
+        return rowPage(ids, eventMemberRepository::findSummaryRowsByIds);
+    }
 
-        // CRITICAL: Filter based on actual primary_email and telephone_mobile values
-        if (Boolean.FALSE.equals(hasEmail) && Boolean.TRUE.equals(hasMobile)) {
-            // SMS-only filter: has mobile but no valid email
-            log.info("🔍 Applying SMS-only filter based on actual field values");
-            long beforeCount = filteredMembers.size();
+    // Email / SMS recipient previews
+    public Page<EventMemberContactRow> findContactPageByCriteria(Long eventId, Map<String, Object> criteria,
+                                                              Specification<EventMember> extra, Pageable pageable) {
+        Page<Long> ids = eventMemberRepository.findIdPage(toSpecification(eventId, criteria, extra), pageable);
+        return rowPage(ids, eventMemberRepository::findContactRowsByIds);
+    }
 
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        String email = em.getPrimaryEmail();
-                        String mobile = em.getTelephoneMobile();
+    /**
+     * 只计数，不加载实体
+     */
+    public long countByCriteria(Long eventId, Map<String, Object> criteria, Specification<EventMember> extra) {
+        return eventMemberRepository.count(toSpecification(eventId, criteria, extra));
+    }
 
-                        // Has valid mobile
-                        boolean hasValidMobile = mobile != null && !mobile.trim().isEmpty() && mobile.trim().length() >= 8;
+    /**
+     * Keyset分页：按id升序返回 afterId 之后的最多 limit 条，没有OFFSET也没有额外的count查询
+     */
+    public List<EventMember> findSliceByCriteria(Long eventId, Map<String, Object> criteria,
+                                                 Specification<EventMember> extra, Long afterId, int limit) {
+        Specification<EventMember> spec = toSpecification(eventId, criteria, extra).and(EventMemberSpecifications.idAfter(afterId));
+        return eventMemberRepository.findBy(spec, query -> query.sortBy(Sort.by("id")).limit(limit).all());
+    }
 
-                        // No valid email
-                        boolean hasValidEmail = email != null && !email.trim().isEmpty() && !email.contains("@temp-email.etu.nz");
+    private <R extends EventMemberRow> Page<R> rowPage(Page<Long> ids, Function<Collection<Long>, List<R>> loader) {
+        List<R> rows = ids.isEmpty() ? List.of() : EventMemberRow.inIdOrder(ids.getContent(), loader.apply(ids.getContent()));
+        return new PageImpl<>(rows, ids.getPageable(), ids.getTotalElements());
+    }
 
-                        return hasValidMobile && !hasValidEmail;
-                    })
-                    .collect(Collectors.toList());
+    private Specification<EventMember> toSpecification(Long eventId, Map<String, Object> criteria, Specification<EventMember> extra) {
+        Specification<EventMember> spec = EventMemberSpecifications.matching(eventId, EventMemberCriteria.from(criteria));
+        return extra != null ? spec.and(extra) : spec;
+    }
 
-            log.info("📱 SMS-only filter applied: {} → {} members (removed {} with valid emails)",
-                    beforeCount, filteredMembers.size(), beforeCount - filteredMembers.size());
-        }
+    /**
+     * 把前端条件解析成名册上的过滤函数；条件语义由 EventMemberCriteria 统一，与 EventMemberSpecifications 保持一致
+     */
+    private BiFunction<EventRoster, RoaringBitmap, RoaringBitmap> buildRosterFilter(Map<String, Object> criteria) {
+        EventMemberCriteria c = EventMemberCriteria.from(criteria);
+        log.info("🔍 Applied field mapping - Registration: {}, Attending: {}, Equalities: {}, BMM Stage: {}",
+                c.hasRegistered(), c.isAttending(), c.equalities(), c.bmmRegistrationStage());
+        log.info("📱 Contact filters - hasEmail: {}, hasMobile: {}", c.hasEmail(), c.hasMobile());
+        return rosterFilter(c);
+    }
 
-        // 搜索过滤 - 基于名字、邮箱、会员号的模糊匹配
-        if (searchName != null && !searchName.trim().isEmpty()) {
-            String searchNameLower = searchName.trim().toLowerCase();
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        String name = em.getName();
-                        return name != null && name.toLowerCase().contains(searchNameLower);
-                    })
-                    .collect(Collectors.toList());
-            log.info("🔍 Name search filter '{}' applied: {} members found", searchName, filteredMembers.size());
-        }
+    // Narrows the given rows in place and returns them, so it can run over a whole event or just a few changed rows
+    private BiFunction<EventRoster, RoaringBitmap, RoaringBitmap> rosterFilter(EventMemberCriteria c) {
+        return (roster, rows) -> {
+            c.flags().forEach((attribute, value) -> roster.retain(rows, EventRoster.Flag.forAttribute(attribute), value));
+            c.equalities().forEach((attribute, value) -> roster.retainEquals(rows, EventRoster.Text.forAttribute(attribute), value));
+            // 主行业等值匹配已经蕴含原来的行业关键词(LIKE)交集，不再单独查询
+
+            // BMM注册阶段精确过滤，null视为not_started
+            if (c.bmmRegistrationStage() != null) {
+                roster.retain(rows, EventRoster.Text.REGISTRATION_STAGE, c.bmmRegistrationStage()::equals,
+                        "not_started".equals(c.bmmRegistrationStage()));
+            }
 
-        if (searchEmail != null && !searchEmail.trim().isEmpty()) {
-            String searchEmailLower = searchEmail.trim().toLowerCase();
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        String email = em.getPrimaryEmail();
-                        return email != null && email.toLowerCase().contains(searchEmailLower);
-                    })
-                    .collect(Collectors.toList());
-            log.info("🔍 Email search filter '{}' applied: {} members found", searchEmail, filteredMembers.size());
-        }
+            // Filter by attendance confirmation status
+            if (c.attendanceConfirmed() != null) {
+                switch (c.attendanceConfirmed()) {
+                    case "confirmed":
+                        roster.retainEquals(rows, EventRoster.Text.REGISTRATION_STAGE, "ATTENDANCE_CONFIRMED");
+                        break;
+                    case "declined":
+                        roster.retainEquals(rows, EventRoster.Text.REGISTRATION_STAGE, "ATTENDANCE_DECLINED");
+                        break;
+                    case "no_response":
+                        // No response means not confirmed and not declined
+                        roster.retain(rows, EventRoster.Text.REGISTRATION_STAGE, EventMemberCriteria.NO_RESPONSE_STAGES::contains, true);
+                        break;
+                    default:
+                        break; // Show all if unknown filter value
+                }
+            }
 
-        if (searchMembershipNumber != null && !searchMembershipNumber.trim().isEmpty()) {
-            String searchMembershipLower = searchMembershipNumber.trim().toLowerCase();
-            filteredMembers = filteredMembers.stream()
-                    .filter(em -> {
-                        String membershipNumber = em.getMembershipNumber();
-                        return membershipNumber != null && membershipNumber.toLowerCase().contains(searchMembershipLower);
-                    })
-                    .collect(Collectors.toList());
-            log.info("🔍 Membership number search filter '{}' applied: {} members found", searchMembershipNumber, filteredMembers.size());
-        }
+            // Forum inclusion / exclusion, case-insensitive on trimmed names
+            if (c.includeForums() != null) {
+                roster.retain(rows, EventRoster.Text.FORUM, forum -> c.includeForums().contains(forum.trim().toLowerCase()), false);
+            }
+            if (c.excludeForums() != null) {
+                roster.retain(rows, EventRoster.Text.FORUM, forum -> !c.excludeForums().contains(forum.trim().toLowerCase()), true);
+            }
 
-        // Log contact method statistics based on actual values
-        if (hasEmail != null || hasMobile != null) {
-            long smsOnlyCount = filteredMembers.stream()
-                    .filter(em -> {
-                        String email = em.getPrimaryEmail();
-                        String mobile = em.getTelephoneMobile();
-                        boolean hasValidMobile = mobile != null && !mobile.trim().isEmpty() && mobile.trim().length() >= 8;
-                        boolean hasValidEmail = email != null && !email.trim().isEmpty() && !email.contains("@temp-email.etu.nz");
-                        return hasValidMobile && !hasValidEmail;
-                    })
-                    .count();
-            long emailOnlyCount = filteredMembers.stream()
-                    .filter(em -> {
-                        String email = em.getPrimaryEmail();
-                        String mobile = em.getTelephoneMobile();
-                        boolean hasValidMobile = mobile != null && !mobile.trim().isEmpty() && mobile.trim().length() >= 8;
-                        boolean hasValidEmail = email != null && !email.trim().isEmpty() && !email.contains("@temp-email.etu.nz");
-                        return hasValidEmail && !hasValidMobile;
-                    })
-                    .count();
-            long bothCount = filteredMembers.stream()
-                    .filter(em -> {
-                        String email = em.getPrimaryEmail();
-                        String mobile = em.getTelephoneMobile();
-                        boolean hasValidMobile = mobile != null && !mobile.trim().isEmpty() && mobile.trim().length() >= 8;
-                        boolean hasValidEmail = email != null && !email.trim().isEmpty() && !email.contains("@temp-email.etu.nz");
-                        return hasValidEmail && hasValidMobile;
-                    })
-                    .count();
-
-            log.info("📊 Contact method breakdown (based on actual values) - SMS only: {}, Email only: {}, Both: {}",
-                    smsOnlyCount, emailOnlyCount, bothCount);
-        }
+            // Specific time preference; a comma-separated value requires all of them
+            if (c.specificTimePreference() != null) {
+                if ("no_preference".equals(c.specificTimePreference())) {
+                    roster.retain(rows, EventRoster.Text.TIME_PREFERENCES, prefs -> prefs.isEmpty() || "[]".equals(prefs), true);
+                } else {
+                    List<String> required = c.requiredTimePreferences();
+                    roster.retain(rows, EventRoster.Text.TIME_PREFERENCES,
+                            prefs -> !prefs.isEmpty() && required.stream().allMatch(prefs::contains), false);
+                }
+            }
 
-        return filteredMembers;
+            // BMM Stage filter, null视为INVITED
+            if (c.bmmStage() != null) {
+                roster.retain(rows, EventRoster.Text.BMM_STAGE, c.bmmStage()::equals, "INVITED".equals(c.bmmStage()));
+            }
+
+            // Preference Status filter
+            if (c.preferenceStatus() != null) {
+                switch (c.preferenceStatus()) {
+                    case "submitted":
+                        roster.retain(rows, EventRoster.Flag.HAS_PREFERENCES, true);
+                        break;
+                    case "submitted_attending":
+                        roster.retain(rows, EventRoster.Flag.HAS_PREFERENCES, true);
+                        roster.retain(rows, EventRoster.Flag.PREFERRED_ATTENDING, true);
+                        break;
+                    case "not_submitted":
+                        roster.retain(rows, EventRoster.Flag.HAS_PREFERENCES, false);
+                        break;
+                    case "exclude_not_attending":
+                        // Include those who said yes and those who didn't answer
+                        roster.exclude(rows, EventRoster.Flag.PREFERRED_ATTENDING, false);
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            // Attendance Intention filter
+            if (c.attendanceIntention() != null) {
+                switch (c.attendanceIntention()) {
+                    case "intend_yes":
+                        roster.retain(rows, EventRoster.Flag.PREFERRED_ATTENDING, true);
+                        break;
+                    case "intend_no":
+                        roster.retain(rows, EventRoster.Flag.PREFERRED_ATTENDING, false);
+                        break;
+                    case "not_specified":
+                        roster.retainUnset(rows, EventRoster.Flag.PREFERRED_ATTENDING);
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            // Venue Assignment filter
+            if ("assigned".equals(c.venueAssignment())) {
+                roster.retain(rows, EventRoster.Flag.HAS_VENUE, true);
+            } else if ("not_assigned".equals(c.venueAssignment())) {
+                roster.retain(rows, EventRoster.Flag.HAS_VENUE, false);
+            }
+
+            // CRITICAL: SMS-only filter based on actual primary_email and telephone_mobile values
+            if (c.smsOnly()) {
+                roster.retain(rows, EventRoster.Flag.VALID_MOBILE, true);
+                roster.retain(rows, EventRoster.Flag.VALID_EMAIL, false);
+            }
+
+            // 搜索过滤 - 基于名字、邮箱、会员号的模糊匹配
+            if (c.searchName() != null) {
+                roster.retainContains(rows, EventRoster.Search.NAME, c.searchName());
+            }
+            if (c.searchEmail() != null) {
+                roster.retainContains(rows, EventRoster.Search.EMAIL, c.searchEmail());
+            }
+            if (c.searchMembershipNumber() != null) {
+                roster.retainContains(rows, EventRoster.Search.MEMBERSHIP_NUMBER, c.searchMembershipNumber());
+            }
+
+            if (c.hasEmail() != null || c.hasMobile() != null) {
+                log.info("📊 Contact method breakdown (based on actual values) - valid email: {}, valid mobile: {}, total: {}",
+                        roster.count(rows, EventRoster.Flag.VALID_EMAIL, true),
+                        roster.count(rows, EventRoster.Flag.VALID_MOBILE, true), rows.getCardinality());
+            }
+            return rows;
+        };
     }
 
     /**
@@ -555,41 +403,46 @@ public class EventMemberTargetingService {
      * 获取过滤预览数据 - 不实际发送，只返回匹配的成员数据用于预览
      */
     public Map<String, Object> getFilterPreview(Long eventId, Map<String, Object> criteria) {
-        List<EventMember> filteredMembers = getFilteredEventMembers(eventId, criteria);
+        if (!eventRepository.existsById(eventId)) {
+            log.warn("Event with ID {} not found", eventId);
+            return getEmptyPreview();
+        }
 
-        Map<String, Object> preview = new HashMap<>();
-        preview.put("totalCount", filteredMembers.size());
-        preview.put("emailableCount", filteredMembers.stream()
-                .mapToLong(em -> em.getHasEmail() ? 1 : 0).sum());
-        preview.put("smsableCount", filteredMembers.stream()
-                .mapToLong(em -> em.getHasMobile() ? 1 : 0).sum());
-
-        // 按地区分组统计
-        Map<String, Long> regionBreakdown = filteredMembers.stream()
-                .filter(em -> em.getRegionDesc() != null)
-                .collect(Collectors.groupingBy(
-                        em -> em.getRegionDesc(),
-                        Collectors.counting()
-                ));
-        preview.put("regionBreakdown", regionBreakdown);
-
-        // 按行业分组统计
-        Map<String, Long> industryBreakdown = filteredMembers.stream()
-                .filter(em -> em.getSiteSubIndustryDesc() != null)
-                .collect(Collectors.groupingBy(
-                        em -> em.getSiteSubIndustryDesc(),
-                        Collectors.counting()
-                ));
-        preview.put("industryBreakdown", industryBreakdown);
-
-        // 按注册状态分组统计
-        Map<String, Long> registrationBreakdown = filteredMembers.stream()
-                .collect(Collectors.groupingBy(
-                        em -> em.getHasRegistered() ? "Registered" : "Not Registered",
-                        Collectors.counting()
-                ));
-        preview.put("registrationBreakdown", registrationBreakdown);
+        BiFunction<EventRoster, RoaringBitmap, RoaringBitmap> filter = buildRosterFilter(criteria);
+        return eventRosterService.query(eventId, roster -> {
+            RoaringBitmap rows = filter.apply(roster, roster.all());
 
+            Map<String, Object> preview = new HashMap<>();
+            preview.put("totalCount", rows.getCardinality());
+            preview.put("emailableCount", (long) roster.count(rows, EventRoster.Flag.HAS_EMAIL, true));
+            preview.put("smsableCount", (long) roster.count(rows, EventRoster.Flag.HAS_MOBILE, true));
+
+            // 按地区 / 行业分组统计
+            preview.put("regionBreakdown", roster.facet(rows, EventRoster.Text.REGION));
+            preview.put("industryBreakdown", roster.facet(rows, EventRoster.Text.SUB_INDUSTRY));
+
+            // 按注册状态分组统计
+            long registered = roster.count(rows, EventRoster.Flag.HAS_REGISTERED, true);
+            Map<String, Long> registrationBreakdown = new HashMap<>();
+            if (registered > 0) {
+                registrationBreakdown.put("Registered", registered);
+            }
+            if (rows.getCardinality() > registered) {
+                registrationBreakdown.put("Not Registered", rows.getCardinality() - registered);
+            }
+            preview.put("registrationBreakdown", registrationBreakdown);
+            return preview;
+        });
+    }
+
+    private Map<String, Object> getEmptyPreview() {
+        Map<String, Object> preview = new HashMap<>();
+        preview.put("totalCount", 0);
+        preview.put("emailableCount", 0L);
+        preview.put("smsableCount", 0L);
+        preview.put("regionBreakdown", Map.of());
+        preview.put("industryBreakdown", Map.of());
+        preview.put("registrationBreakdown", Map.of());
         return preview;
     }
 
@@ -797,24 +650,4 @@ public class EventMemberTargetingService {
         log.info("Comprehensive report generated for event: {} with {} total members", event.getName(), totalMembers);
         return report;
     }
-
-    // 工具方法
-    private Boolean getBooleanFromCriteria(Map<String, Object> criteria, String key) {
-        Object value = criteria.get(key);
-        if (value == null) return null;
-        if (value instanceof Boolean) return (Boolean) value;
-        if (value instanceof String) {
-            String str = (String) value;
-            if (str.equalsIgnoreCase("true")) return true;
-            if (str.equalsIgnoreCase("false")) return false;
-        }
-        return null;
-    }
-
-    private String getStringFromCriteria(Map<String, Object> criteria, String key) {
-        Object value = criteria.get(key);
-        if (value == null) return null;
-        String str = value.toString().trim();
-        return str.isEmpty() ? null : str;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,422 @@
+package nz.etu.voting.service;
+
+import nz.etu.voting.domain.dto.EventRosterRow;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Columnar in-memory snapshot of one event's filterable EventMember fields, indexed as compressed bitmaps over a
+ * dense row number.
+ * <p>
+ * Low-cardinality strings are dictionary-encoded with one {@link RoaringBitmap} posting list per distinct value
+ * (plus one for null), nullable booleans are a pair of bitmaps (true / false, neither = null), timestamps are a
+ * plain column and free-text search columns are kept lower-cased. A filter is a RoaringBitmap of row numbers that
+ * each {@code retain*} call narrows in place, so criteria are bitmap AND / OR / ANDNOT and counts and facets are
+ * intersection cardinalities that never visit individual rows. Only substring search and {@code since} ranges
+ * scan, and only the rows still selected.
+ * <p>
+ * Not thread-safe on its own: {@link EventRosterService} guards reads and patches with a read/write lock.
+ */
+public class EventRoster {
+
+    // Columns carry the EventMember attribute they mirror, so EventMemberCriteria equalities map onto them directly
+    public enum Text {
+        REGION("regionDesc"), GENDER("genderDesc"), INDUSTRY("siteIndustryDesc"), SUB_INDUSTRY("siteSubIndustryDesc"),
+        WORKPLACE("workplaceDesc"), EMPLOYER("employer"), BARGAINING_GROUP("bargainingGroupDesc"),
+        EMPLOYMENT_STATUS("employmentStatus"), ETHNIC_REGION("ethnicRegionDesc"), JOB_TITLE("jobTitle"),
+        DEPARTMENT("department"), SITE_CODE("siteCode"), BRANCH("branch"), FORUM("forumDesc"),
+        MEMBERSHIP_TYPE("membershipTypeDesc"), OCCUPATION("occupation"), REGISTRATION_STAGE("bmmRegistrationStage"),
+        BMM_STAGE("bmmStage"), TIME_PREFERENCES("preferredTimesJson");
+
+        private final String attribute;
+
+        Text(String attribute) {
+            this.attribute = attribute;
+        }
+
+        public static Text forAttribute(String attribute) {
+            for (Text column : values()) {
+                if (column.attribute.equals(attribute)) {
+                    return column;
+                }
+            }
+            throw new IllegalArgumentException("No roster column for attribute " + attribute);
+        }
+    }
+
+    public enum Flag {
+        HAS_REGISTERED("hasRegistered"), IS_ATTENDING("isAttending"), HAS_VOTED("hasVoted"), CHECKED_IN("checkedIn"),
+        HAS_EMAIL("hasEmail"), HAS_MOBILE("hasMobile"), SPECIAL_VOTE_REQUESTED("specialVoteRequested"),
+        PREFERRED_ATTENDING("preferredAttending"), IS_SPECIAL_VOTE("isSpecialVote"),
+        INITIAL_EMAIL_SENT("initialEmailSent"), REGISTRATION_CONFIRMATION_SENT("registrationConfirmationEmailSent"),
+        ATTENDANCE_CONFIRMATION_SENT("attendanceConfirmationEmailSent"), QR_CODE_SENT("qrCodeEmailSent"),
+        FOLLOW_UP_SENT("followUpReminderSent"),
+        // derived, never null
+        HAS_PREFERENCES(null), HAS_VENUE(null), VALID_EMAIL(null), VALID_MOBILE(null), HAS_MOBILE_NUMBER(null);
+
+        private final String attribute;
+
+        Flag(String attribute) {
+            this.attribute = attribute;
+        }
+
+        public static Flag forAttribute(String attribute) {
+            for (Flag flag : values()) {
+                if (attribute.equals(flag.attribute)) {
+                    return flag;
+                }
+            }
+            throw new IllegalArgumentException("No roster flag for attribute " + attribute);
+        }
+    }
+
+    public enum Search {
+        NAME, EMAIL, MEMBERSHIP_NUMBER
+    }
+
+    public enum Time {
+        REGISTRATION_COMPLETED, ATTENDANCE_DECIDED
+    }
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final Long eventId;
+    private final long builtAt = System.currentTimeMillis();
+
+    private int size;
+    private long[] ids;
+    private final RoaringBitmap live = new RoaringBitmap();
+    private final Map<Long, Integer> rowById = new HashMap<>();
+
+    // per row current code (-1 = null), needed to move the row between postings when it changes
+    private final int[][] codes = new int[Text.values().length][];
+    private final List<List<String>> dictionaries = new ArrayList<>();
+    private final List<Map<String, Integer>> dictionaryIndexes = new ArrayList<>();
+    private final List<List<RoaringBitmap>> postings = new ArrayList<>();
+    private final RoaringBitmap[] nullRows = new RoaringBitmap[Text.values().length];
+
+    private final RoaringBitmap[] trueBits = new RoaringBitmap[Flag.values().length];
+    private final RoaringBitmap[] falseBits = new RoaringBitmap[Flag.values().length];
+
+    // epoch microseconds (UTC-naive, the precision of a Postgres timestamp), NO_TIME for null
+    private final long[][] times = new long[Time.values().length][];
+
+    private final String[][] search = new String[Search.values().length][];
+
+    public EventRoster(Long eventId, List<EventRosterRow> rows) {
+        this.eventId = eventId;
+        int capacity = Math.max(16, rows.size());
+        ids = new long[capacity];
+        for (Text column : Text.values()) {
+            codes[column.ordinal()] = new int[capacity];
+            dictionaries.add(new ArrayList<>());
+            dictionaryIndexes.add(new HashMap<>());
+            postings.add(new ArrayList<>());
+            nullRows[column.ordinal()] = new RoaringBitmap();
+        }
+        for (Flag flag : Flag.values()) {
+            trueBits[flag.ordinal()] = new RoaringBitmap();
+            falseBits[flag.ordinal()] = new RoaringBitmap();
+        }
+        for (Time column : Time.values()) {
+            times[column.ordinal()] = new long[capacity];
+        }
+        for (Search column : Search.values()) {
+            search[column.ordinal()] = new String[capacity];
+        }
+        rows.forEach(this::upsert);
+
+        // bulk-built bitmaps are mostly long runs (flags, regions, stages); later patches keep working on them
+        live.runOptimize();
+        postings.forEach(column -> column.forEach(RoaringBitmap::runOptimize));
+        for (int f = 0; f < trueBits.length; f++) {
+            trueBits[f].runOptimize();
+            falseBits[f].runOptimize();
+        }
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public int liveCount() {
+        return live.getCardinality();
+    }
+
+    // ---- patching ----
+
+    public void upsert(EventRosterRow row) {
+        Integer existing = rowById.get(row.id());
+        int r = existing != null ? existing : append(row.id());
+
+        setText(r, Text.REGION, row.regionDesc());
+        setText(r, Text.GENDER, row.genderDesc());
+        setText(r, Text.INDUSTRY, row.siteIndustryDesc());
+        setText(r, Text.SUB_INDUSTRY, row.siteSubIndustryDesc());
+        setText(r, Text.WORKPLACE, row.workplaceDesc());
+        setText(r, Text.EMPLOYER, row.employer());
+        setText(r, Text.BARGAINING_GROUP, row.bargainingGroupDesc());
+        setText(r, Text.EMPLOYMENT_STATUS, row.employmentStatus());
+        setText(r, Text.ETHNIC_REGION, row.ethnicRegionDesc());
+        setText(r, Text.JOB_TITLE, row.jobTitle());
+        setText(r, Text.DEPARTMENT, row.department());
+        setText(r, Text.SITE_CODE, row.siteCode());
+        setText(r, Text.BRANCH, row.branch());
+        setText(r, Text.FORUM, row.forumDesc());
+        setText(r, Text.MEMBERSHIP_TYPE, row.membershipTypeDesc());
+        setText(r, Text.OCCUPATION, row.occupation());
+        setText(r, Text.REGISTRATION_STAGE, row.bmmRegistrationStage());
+        setText(r, Text.BMM_STAGE, row.bmmStage());
+        setText(r, Text.TIME_PREFERENCES, row.preferredTimesJson());
+
+        setFlag(r, Flag.HAS_REGISTERED, row.hasRegistered());
+        setFlag(r, Flag.IS_ATTENDING, row.isAttending());
+        setFlag(r, Flag.HAS_VOTED, row.hasVoted());
+        setFlag(r, Flag.CHECKED_IN, row.checkedIn());
+        setFlag(r, Flag.HAS_EMAIL, row.hasEmail());
+        setFlag(r, Flag.HAS_MOBILE, row.hasMobile());
+        setFlag(r, Flag.SPECIAL_VOTE_REQUESTED, row.specialVoteRequested());
+        setFlag(r, Flag.PREFERRED_ATTENDING, row.preferredAttending());
+        setFlag(r, Flag.IS_SPECIAL_VOTE, row.isSpecialVote());
+        setFlag(r, Flag.INITIAL_EMAIL_SENT, row.initialEmailSent());
+        setFlag(r, Flag.REGISTRATION_CONFIRMATION_SENT, row.registrationConfirmationEmailSent());
+        setFlag(r, Flag.ATTENDANCE_CONFIRMATION_SENT, row.attendanceConfirmationEmailSent());
+        setFlag(r, Flag.QR_CODE_SENT, row.qrCodeEmailSent());
+        setFlag(r, Flag.FOLLOW_UP_SENT, row.followUpReminderSent());
+        setFlag(r, Flag.HAS_PREFERENCES, row.preferredVenuesJson() != null && !row.preferredVenuesJson().isEmpty());
+        setFlag(r, Flag.HAS_VENUE, row.assignedVenueFinal() != null && !row.assignedVenueFinal().isEmpty());
+        setFlag(r, Flag.VALID_EMAIL, row.hasValidEmail());
+        setFlag(r, Flag.VALID_MOBILE, row.hasValidMobile());
+        setFlag(r, Flag.HAS_MOBILE_NUMBER, row.hasMobileNumber());
+
+        setTime(r, Time.REGISTRATION_COMPLETED, row.registrationCompletedAt());
+        setTime(r, Time.ATTENDANCE_DECIDED, row.attendanceDecisionMadeAt());
+
+        setSearch(r, Search.NAME, row.name());
+        setSearch(r, Search.EMAIL, row.primaryEmail());
+        setSearch(r, Search.MEMBERSHIP_NUMBER, row.membershipNumber());
+
+        live.add(r);
+    }
+
+    // A check-in only moves these two flags; false when the member is not in the roster
+    public boolean checkIn(Long id, Boolean isAttending) {
+        Integer r = rowById.get(id);
+        if (r == null) {
+            return false;
+        }
+        setFlag(r, Flag.CHECKED_IN, true);
+        setFlag(r, Flag.IS_ATTENDING, isAttending);
+        return true;
+    }
+
+    // Only the live bit is cleared; stale postings of a dead row are harmless since every filter starts from live
+    public void remove(Long id) {
+        Integer r = rowById.remove(id);
+        if (r != null) {
+            live.remove(r);
+        }
+    }
+
+    private int append(Long id) {
+        if (size == ids.length) {
+            int capacity = size + (size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            for (int c = 0; c < codes.length; c++) {
+                codes[c] = Arrays.copyOf(codes[c], capacity);
+            }
+            for (int c = 0; c < times.length; c++) {
+                times[c] = Arrays.copyOf(times[c], capacity);
+            }
+            for (int c = 0; c < search.length; c++) {
+                search[c] = Arrays.copyOf(search[c], capacity);
+            }
+        }
+        int r = size++;
+        ids[r] = id;
+        rowById.put(id, r);
+        for (int c = 0; c < codes.length; c++) {
+            codes[c][r] = -1;
+            nullRows[c].add(r);
+        }
+        return r;
+    }
+
+    private void setText(int r, Text column, String value) {
+        int c = column.ordinal();
+        int code = -1;
+        if (value != null) {
+            List<String> dictionary = dictionaries.get(c);
+            List<RoaringBitmap> columnPostings = postings.get(c);
+            code = dictionaryIndexes.get(c).computeIfAbsent(value, v -> {
+                dictionary.add(v);
+                columnPostings.add(new RoaringBitmap());
+                return dictionary.size() - 1;
+            });
+        }
+
+        int previous = codes[c][r];
+        if (previous == code) {
+            return;
+        }
+        (previous < 0 ? nullRows[c] : postings.get(c).get(previous)).remove(r);
+        (code < 0 ? nullRows[c] : postings.get(c).get(code)).add(r);
+        codes[c][r] = code;
+    }
+
+    private void setFlag(int r, Flag flag, Boolean value) {
+        set(trueBits[flag.ordinal()], r, Boolean.TRUE.equals(value));
+        set(falseBits[flag.ordinal()], r, Boolean.FALSE.equals(value));
+    }
+
+    private static void set(RoaringBitmap bits, int r, boolean value) {
+        if (value) {
+            bits.add(r);
+        } else {
+            bits.remove(r);
+        }
+    }
+
+    private void setTime(int r, Time column, LocalDateTime value) {
+        times[column.ordinal()][r] = value != null ? micros(value) : NO_TIME;
+    }
+
+    private void setSearch(int r, Search column, String value) {
+        search[column.ordinal()][r] = value != null ? value.toLowerCase() : null;
+    }
+
+    private static long micros(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000;
+    }
+
+    // ---- querying ----
+
+    public RoaringBitmap all() {
+        return live.clone();
+    }
+
+    // Live rows of the given EventMember ids; unknown ids are skipped
+    public RoaringBitmap rowsOf(Collection<Long> memberIds) {
+        RoaringBitmap rows = new RoaringBitmap();
+        for (Long id : memberIds) {
+            Integer r = rowById.get(id);
+            if (r != null) {
+                rows.add(r);
+            }
+        }
+        return rows;
+    }
+
+    // Keep rows whose flag equals value; a null value means "no filter" (the value, not the row, is null)
+    public void retain(RoaringBitmap rows, Flag flag, Boolean value) {
+        if (value != null) {
+            rows.and(value ? trueBits[flag.ordinal()] : falseBits[flag.ordinal()]);
+        }
+    }
+
+    // Drop rows whose flag equals value (rows where it is null stay)
+    public void exclude(RoaringBitmap rows, Flag flag, boolean value) {
+        rows.andNot(value ? trueBits[flag.ordinal()] : falseBits[flag.ordinal()]);
+    }
+
+    // Keep rows whose flag is null
+    public void retainUnset(RoaringBitmap rows, Flag flag) {
+        rows.andNot(trueBits[flag.ordinal()]);
+        rows.andNot(falseBits[flag.ordinal()]);
+    }
+
+    // Keep rows equal to value (SQL semantics: null never matches); a null value means "no filter"
+    public void retainEquals(RoaringBitmap rows, Text column, String value) {
+        if (value != null) {
+            Integer code = dictionaryIndexes.get(column.ordinal()).get(value);
+            if (code != null) {
+                rows.and(postings.get(column.ordinal()).get(code));
+            } else {
+                rows.clear();
+            }
+        }
+    }
+
+    // Keep rows whose value matches: the predicate runs once per distinct value and the matching postings are ORed
+    public void retain(RoaringBitmap rows, Text column, Predicate<String> matches, boolean keepNull) {
+        List<String> dictionary = dictionaries.get(column.ordinal());
+        List<RoaringBitmap> columnPostings = postings.get(column.ordinal());
+        List<RoaringBitmap> matching = new ArrayList<>();
+        for (int code = 0; code < dictionary.size(); code++) {
+            if (matches.test(dictionary.get(code))) {
+                matching.add(columnPostings.get(code));
+            }
+        }
+        if (keepNull) {
+            matching.add(nullRows[column.ordinal()]);
+        }
+        rows.and(RoaringBitmap.or(matching.iterator()));
+    }
+
+    // Keep rows whose timestamp is at or after since (null never matches)
+    public void retainSince(RoaringBitmap rows, Time column, LocalDateTime since) {
+        long from = micros(since);
+        long[] values = times[column.ordinal()];
+        RoaringBitmap matched = new RoaringBitmap();
+        rows.forEach((int r) -> {
+            if (values[r] != NO_TIME && values[r] >= from) {
+                matched.add(r);
+            }
+        });
+        rows.and(matched);
+    }
+
+    // Keep rows whose lower-cased column contains the (already lower-cased) needle
+    public void retainContains(RoaringBitmap rows, Search column, String needle) {
+        String[] values = search[column.ordinal()];
+        RoaringBitmap matched = new RoaringBitmap();
+        rows.forEach((int r) -> {
+            if (values[r] != null && values[r].contains(needle)) {
+                matched.add(r);
+            }
+        });
+        rows.and(matched);
+    }
+
+    public int count(RoaringBitmap rows, Flag flag, boolean value) {
+        return RoaringBitmap.andCardinality(rows, value ? trueBits[flag.ordinal()] : falseBits[flag.ordinal()]);
+    }
+
+    // value -> row count, null values skipped
+    public Map<String, Long> facet(RoaringBitmap rows, Text column) {
+        List<String> dictionary = dictionaries.get(column.ordinal());
+        List<RoaringBitmap> columnPostings = postings.get(column.ordinal());
+        Map<String, Long> facet = new HashMap<>();
+        for (int code = 0; code < dictionary.size(); code++) {
+            int count = RoaringBitmap.andCardinality(rows, columnPostings.get(code));
+            if (count > 0) {
+                facet.put(dictionary.get(code), (long) count);
+            }
+        }
+        return facet;
+    }
+
+    // EventMember ids of the rows, in id order
+    public List<Long> ids(RoaringBitmap rows) {
+        int[] rowNumbers = rows.toArray();
+        long[] selected = new long[rowNumbers.length];
+        for (int i = 0; i < rowNumbers.length; i++) {
+            selected[i] = ids[rowNumbers[i]];
+        }
+        Arrays.sort(selected);
+
+        List<Long> result = new ArrayList<>(selected.length);
+        for (long id : selected) {
+            result.add(id);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,136 @@
+package nz.etu.voting.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventRosterRow;
+import nz.etu.voting.domain.event.EventDataChangedEvent;
+import nz.etu.voting.repository.EventMemberRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Owns the per-event {@link EventRoster} snapshots used for audience filtering and facet counts.
+ * <p>
+ * A roster is built lazily on first use. Small commits (member updates) are patched in by reloading just the
+ * changed rows, check-ins by flipping their flags; large ones (syncs, imports) drop the roster so the next query
+ * rebuilds it in one pass. A patch waits for a build in progress, so a change committed while the build was reading
+ * is still applied to the new roster.
+ * Rosters older than {@code roster.max-age} are rebuilt as a safety net for changes made outside JPA.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventRosterService {
+
+    private final EventMemberRepository eventMemberRepository;
+
+    @Value("${roster.patch-threshold:500}")
+    private int patchThreshold;
+
+    @Value("${roster.max-age:1800000}")
+    private long maxAge;
+
+    private final Map<Long, Holder> rosters = new ConcurrentHashMap<>();
+
+    private static final class Holder {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile EventRoster roster;
+    }
+
+    // Run a read-only evaluation against the event's roster
+    public <T> T query(Long eventId, Function<EventRoster, T> evaluation) {
+        Holder holder = rosters.computeIfAbsent(eventId, id -> new Holder());
+        EventRoster roster = current(eventId, holder);
+
+        holder.lock.readLock().lock();
+        try {
+            return evaluation.apply(roster);
+        } finally {
+            holder.lock.readLock().unlock();
+        }
+    }
+
+    public void invalidate(Long eventId) {
+        rosters.remove(eventId);
+    }
+
+    @EventListener
+    public void onEventDataChanged(EventDataChangedEvent event) {
+        Set<Long> cachedEvents = new HashSet<>(event.eventIds());
+        cachedEvents.retainAll(rosters.keySet());
+        if (cachedEvents.isEmpty() || event.eventMemberIds().isEmpty()) {
+            return;
+        }
+
+        // check-ins are patched from the rows their UPDATE returned; everything else is read back
+        Set<Long> reloaded = new HashSet<>(event.eventMemberIds());
+        reloaded.removeAll(event.checkIns().keySet());
+        if (reloaded.size() > patchThreshold) {
+            cachedEvents.forEach(this::invalidate);
+            log.info("Event roster dropped for events {} after {} member changes", cachedEvents, reloaded.size());
+            return;
+        }
+
+        Map<Long, EventRosterRow> changed = reloaded.isEmpty() ? Map.of()
+                : eventMemberRepository.findRosterRowsByIds(reloaded).stream()
+                .collect(Collectors.toMap(EventRosterRow::id, row -> row));
+
+        for (Long eventId : cachedEvents) {
+            Holder holder = rosters.get(eventId);
+            if (holder == null) {
+                continue;
+            }
+            // 在锁内检查：构建中的名单可能在本次提交前读取了成员，等构建完成后再打补丁
+            holder.lock.writeLock().lock();
+            try {
+                if (holder.roster == null) {
+                    continue;
+                }
+                for (Long id : reloaded) {
+                    EventRosterRow row = changed.get(id);
+                    if (row != null && eventId.equals(row.eventId())) {
+                        holder.roster.upsert(row);
+                    } else {
+                        holder.roster.remove(id);
+                    }
+                }
+                // a checked-in member missing from the roster was added outside JPA; the max-age rebuild picks it up
+                event.checkIns().values().stream()
+                        .filter(row -> eventId.equals(row.eventId()))
+                        .forEach(row -> holder.roster.checkIn(row.id(), row.isAttending()));
+            } finally {
+                holder.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private EventRoster current(Long eventId, Holder holder) {
+        EventRoster roster = holder.roster;
+        if (roster != null && System.currentTimeMillis() - roster.getBuiltAt() < maxAge) {
+            return roster;
+        }
+
+        holder.lock.writeLock().lock();
+        try {
+            roster = holder.roster;
+            if (roster == null || System.currentTimeMillis() - roster.getBuiltAt() >= maxAge) {
+                long start = System.currentTimeMillis();
+                roster = new EventRoster(eventId, eventMemberRepository.findRosterRowsByEventId(eventId));
+                holder.roster = roster;
+                log.info("Event roster built for event {}: {} members in {} ms",
+                        eventId, roster.liveCount(), System.currentTimeMillis() - start);
+            }
+            return roster;
+        } finally {
+            holder.lock.writeLock().unlock();
+        }
+    }
+}
@@ -2,366 +2,550 @@ package nz.etu.voting.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.EventMemberExportRow;
+import nz.etu.voting.domain.dto.NotificationLogExportRow;
 import nz.etu.voting.domain.entity.Event;
-import nz.etu.voting.domain.entity.EventMember;
 import nz.etu.voting.domain.entity.Member;
-import nz.etu.voting.domain.entity.NotificationLog;
 import nz.etu.voting.repository.EventMemberRepository;
-import nz.etu.voting.repository.MemberRepository;
 import nz.etu.voting.repository.NotificationLogRepository;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
-
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Spreadsheet exports, written straight to the response stream as XLSX, CSV or gzip-compressed CSV. Event exports
+ * read narrow projection rows from a server-side cursor (fetch size 500); every export has one list of
+ * {@link Column}s that both formats write. XLSX goes through an SXSSF workbook that keeps only {@link #ROW_WINDOW}
+ * rows in memory and flushes the rest to a compressed temp file, with fixed column widths (autoSizeColumn would
+ * measure every cell of the sheet); CSV (RFC 4180, UTF-8) is written row by row through a small buffer, so it needs
+ * neither temp files nor a second pass.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ExcelExportService {
 
-    private final EventMemberRepository eventMemberRepository;
-    private final MemberRepository memberRepository;
-    private final NotificationLogRepository notificationLogRepository;
-
-    public byte[] exportEventMembersToExcel(Event event) throws IOException {
-        List<EventMember> members = eventMemberRepository.findByEvent(event);
-
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+    public static final Set<String> EXPORT_TYPES = Set.of("members", "attendees", "notifications", "filtered", "checkin");
 
-            Sheet sheet = workbook.createSheet("Event Members");
+    private static final int ROW_WINDOW = 100;
+    private static final int CSV_BUFFER = 64 * 1024;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    public enum Format {
+        XLSX("xlsx", MediaType.APPLICATION_OCTET_STREAM),
+        CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)),
+        CSV_GZIP("csv.gz", new MediaType("application", "gzip"));
 
-            CellStyle headerStyle = createHeaderStyle(workbook);
+        private final String extension;
+        private final MediaType mediaType;
 
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
 
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {
-                    "Membership Number", "Name", "Email", "Mobile Phone",
-                    "Has Email", "Has Mobile", "Registered", "Attending",
-                    "Special Vote", "Voted", "Checked In", "Absence Reason",
-                    "Registration Date", "Check In Time"
-            };
-
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
+        public String extension() {
+            return extension;
+        }
 
+        public MediaType mediaType() {
+            return mediaType;
+        }
 
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            int rowNum = 1;
-
-            for (EventMember member : members) {
-                Row row = sheet.createRow(rowNum++);
-
-                row.createCell(0).setCellValue(member.getMembershipNumber());
-                row.createCell(1).setCellValue(member.getName());
-                row.createCell(2).setCellValue(member.getPrimaryEmail() != null ? member.getPrimaryEmail() : "");
-                row.createCell(3).setCellValue(member.getTelephoneMobile() != null ? member.getTelephoneMobile() : "");
-                row.createCell(4).setCellValue(member.getHasEmail() ? "Yes" : "No");
-                row.createCell(5).setCellValue(member.getHasMobile() ? "Yes" : "No");
-                row.createCell(6).setCellValue(member.getHasRegistered() ? "Yes" : "No");
-                row.createCell(7).setCellValue(member.getIsAttending() ? "Yes" : "No");
-                row.createCell(8).setCellValue(member.getIsSpecialVote() ? "Yes" : "No");
-                row.createCell(9).setCellValue(member.getHasVoted() ? "Yes" : "No");
-                row.createCell(10).setCellValue(member.getCheckedIn() ? "Yes" : "No");
-                row.createCell(11).setCellValue(member.getAbsenceReason() != null ? member.getAbsenceReason() : "");
-                row.createCell(12).setCellValue(member.getCreatedAt() != null ? member.getCreatedAt().format(formatter) : "");
-                row.createCell(13).setCellValue(member.getCheckInTime() != null ? member.getCheckInTime().format(formatter) : "");
+        // ?format= value: xlsx (default), csv, or csv.gz / gz for gzip-compressed CSV
+        public static Format of(String format) {
+            if (format == null || format.isBlank()) {
+                return XLSX;
             }
-
-
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+            switch (format.trim().toLowerCase(Locale.ROOT)) {
+                case "xlsx":
+                case "excel":
+                    return XLSX;
+                case "csv":
+                    return CSV;
+                case "csv.gz":
+                case "csv-gz":
+                case "gz":
+                case "gzip":
+                    return CSV_GZIP;
+                default:
+                    throw new IllegalArgumentException("Unsupported export format: " + format);
             }
-
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
         }
     }
 
-    public byte[] exportFilteredMembersToExcel(List<Member> members) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-
-            Sheet sheet = workbook.createSheet("Filtered Members");
-
-            CellStyle headerStyle = createHeaderStyle(workbook);
-
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {
-                    "Membership Number", "Name", "Primary Email", "Mobile Phone", "Financial Indicator",
-                    "First Name", "Known As", "Surname", "DOB", "Employee Ref", "Occupation",
-                    "Address Line 1", "Address Line 2", "Address Line 3", "Address Line 4", "Address Line 5", "Postcode",
-                    "Has Email", "Has Mobile", "Registered", "Attending",
-                    "Special Vote", "Voted", "Checked In", "Region", "Branch", "Forum",
-                    "Industry", "Sub Industry", "Employer", "Workplace", "Last Payment Date",
-                    "Membership Type", "EPMU Member Type", "Age", "Gender", "Ethnic Region",
-                    "Bargaining Group", "Data Source", "Created At"
-            };
-
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
+    // One export column: header, XLSX width in characters, and the cell text of a row
+    private record Column<T>(String header, int width, Function<T, String> value) {
+    }
 
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            int rowNum = 1;
-
-            for (Member member : members) {
-                Row row = sheet.createRow(rowNum++);
-                int cellIndex = 0;
-
-                // Basic info
-                row.createCell(cellIndex++).setCellValue(member.getMembershipNumber() != null ? member.getMembershipNumber() : "");
-                row.createCell(cellIndex++).setCellValue(member.getName() != null ? member.getName() : "");
-                row.createCell(cellIndex++).setCellValue(member.getPrimaryEmail() != null ? member.getPrimaryEmail() : "");
-                row.createCell(cellIndex++).setCellValue(member.getTelephoneMobile() != null ? member.getTelephoneMobile() : "");
-                row.createCell(cellIndex++).setCellValue(member.getFinancialIndicator() != null ? member.getFinancialIndicator() : "");
-
-                // Personal details
-                row.createCell(cellIndex++).setCellValue(member.getFore1() != null ? member.getFore1() : "");
-                row.createCell(cellIndex++).setCellValue(member.getKnownAs() != null ? member.getKnownAs() : "");
-                row.createCell(cellIndex++).setCellValue(member.getSurname() != null ? member.getSurname() : "");
-                row.createCell(cellIndex++).setCellValue(member.getDob() != null ? member.getDob() : "");
-                row.createCell(cellIndex++).setCellValue(member.getEmployeeRef() != null ? member.getEmployeeRef() : "");
-                row.createCell(cellIndex++).setCellValue(member.getOccupation() != null ? member.getOccupation() : "");
-
-                // Address
-                row.createCell(cellIndex++).setCellValue(member.getAddRes1() != null ? member.getAddRes1() : "");
-                row.createCell(cellIndex++).setCellValue(member.getAddRes2() != null ? member.getAddRes2() : "");
-                row.createCell(cellIndex++).setCellValue(member.getAddRes3() != null ? member.getAddRes3() : "");
-                row.createCell(cellIndex++).setCellValue(member.getAddRes4() != null ? member.getAddRes4() : "");
-                row.createCell(cellIndex++).setCellValue(member.getAddRes5() != null ? member.getAddRes5() : "");
-                row.createCell(cellIndex++).setCellValue(member.getAddResPc() != null ? member.getAddResPc() : "");
-
-                // Status fields
-                row.createCell(cellIndex++).setCellValue(member.getHasEmail() != null ? (member.getHasEmail() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getHasMobile() != null ? (member.getHasMobile() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getHasRegistered() != null ? (member.getHasRegistered() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getIsAttending() != null ? (member.getIsAttending() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getIsSpecialVote() != null ? (member.getIsSpecialVote() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getHasVoted() != null ? (member.getHasVoted() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getCheckinTime() != null ? "Yes" : "No");
-
-                // Organization info
-                row.createCell(cellIndex++).setCellValue(member.getRegionDesc() != null ? member.getRegionDesc() : "");
-                row.createCell(cellIndex++).setCellValue(member.getBranchDesc() != null ? member.getBranchDesc() : "");
-                row.createCell(cellIndex++).setCellValue(member.getForumDesc() != null ? member.getForumDesc() : "");
-                row.createCell(cellIndex++).setCellValue(member.getSiteIndustryDesc() != null ? member.getSiteIndustryDesc() : "");
-                row.createCell(cellIndex++).setCellValue(member.getSiteSubIndustryDesc() != null ? member.getSiteSubIndustryDesc() : "");
-                row.createCell(cellIndex++).setCellValue(member.getEmployerName() != null ? member.getEmployerName() : "");
-                row.createCell(cellIndex++).setCellValue(member.getWorkplaceDesc() != null ? member.getWorkplaceDesc() : "");
-
-                // Membership details
-                row.createCell(cellIndex++).setCellValue(member.getLastPaymentDate() != null ? member.getLastPaymentDate() : "");
-                row.createCell(cellIndex++).setCellValue(member.getMembershipTypeDesc() != null ? member.getMembershipTypeDesc() : "");
-                row.createCell(cellIndex++).setCellValue(member.getEpmuMemTypeDesc() != null ? member.getEpmuMemTypeDesc() : "");
-                row.createCell(cellIndex++).setCellValue(member.getAgeOfMember() != null ? member.getAgeOfMember() : "");
-                row.createCell(cellIndex++).setCellValue(member.getGenderDesc() != null ? member.getGenderDesc() : "");
-                row.createCell(cellIndex++).setCellValue(member.getEthnicRegionDesc() != null ? member.getEthnicRegionDesc() : "");
-                row.createCell(cellIndex++).setCellValue(member.getBargainingGroupDesc() != null ? member.getBargainingGroupDesc() : "");
-
-                // System fields
-                row.createCell(cellIndex++).setCellValue(member.getDataSource() != null ? member.getDataSource() : "");
-                row.createCell(cellIndex++).setCellValue(member.getCreatedAt() != null ? member.getCreatedAt().format(formatter) : "");
-            }
+    private static final List<Column<EventMemberExportRow>> EVENT_MEMBER_COLUMNS = List.of(
+            new Column<>("Membership Number", 18, EventMemberExportRow::membershipNumber),
+            new Column<>("Name", 28, EventMemberExportRow::name),
+            new Column<>("Email", 32, EventMemberExportRow::primaryEmail),
+            new Column<>("Mobile Phone", 16, EventMemberExportRow::telephoneMobile),
+            new Column<>("Has Email", 10, m -> yesNo(m.hasEmail())),
+            new Column<>("Has Mobile", 11, m -> yesNo(m.hasMobile())),
+            new Column<>("Registered", 11, m -> yesNo(m.hasRegistered())),
+            new Column<>("Attending", 10, m -> yesNo(m.isAttending())),
+            new Column<>("Special Vote", 13, m -> yesNo(m.isSpecialVote())),
+            new Column<>("Voted", 8, m -> yesNo(m.hasVoted())),
+            new Column<>("Checked In", 11, m -> yesNo(m.checkedIn())),
+            new Column<>("Absence Reason", 30, EventMemberExportRow::absenceReason),
+            new Column<>("Registration Date", 20, m -> format(m.createdAt())),
+            new Column<>("Check In Time", 20, m -> format(m.checkInTime())));
+
+    private static final List<Column<EventMemberExportRow>> FILTERED_EVENT_MEMBER_COLUMNS = List.of(
+            new Column<>("Membership Number", 18, EventMemberExportRow::membershipNumber),
+            new Column<>("Name", 28, EventMemberExportRow::name),
+            new Column<>("Email", 32, EventMemberExportRow::primaryEmail),
+            new Column<>("Mobile Phone", 16, EventMemberExportRow::telephoneMobile),
+            // payroll number and site number from linked Member
+            new Column<>("Payroll Number", 16, EventMemberExportRow::memberPayrollNumber),
+            new Column<>("Site Number", 12, EventMemberExportRow::memberSiteNumber),
+            new Column<>("Has Email", 10, m -> yesNo(m.hasEmail())),
+            new Column<>("Has Mobile", 11, m -> yesNo(m.hasMobile())),
+            new Column<>("Registered", 11, m -> yesNo(m.hasRegistered())),
+            new Column<>("Attending", 10, m -> yesNo(m.isAttending())),
+            new Column<>("Special Vote", 13, m -> yesNo(m.isSpecialVote())),
+            new Column<>("Voted", 8, m -> yesNo(m.hasVoted())),
+            new Column<>("Checked In", 11, m -> yesNo(m.checkedIn())),
+            new Column<>("Region", 20, EventMemberExportRow::regionDesc),
+            new Column<>("Workplace", 30, EventMemberExportRow::workplace),
+            new Column<>("Employer", 30, EventMemberExportRow::employer),
+            new Column<>("Branch", 20, EventMemberExportRow::branch),
+            new Column<>("Absence Reason", 30, EventMemberExportRow::absenceReason),
+            new Column<>("Registration Date", 20, m -> format(m.createdAt())),
+            new Column<>("Check In Time", 20, m -> format(m.checkInTime())));
+
+    private static final List<Column<EventMemberExportRow>> CHECKIN_COLUMNS = List.of(
+            new Column<>("Membership Number", 18, EventMemberExportRow::membershipNumber),
+            new Column<>("Name", 28, EventMemberExportRow::name),
+            new Column<>("Email", 32, EventMemberExportRow::primaryEmail),
+            new Column<>("Mobile Phone", 16, EventMemberExportRow::telephoneMobile),
+            new Column<>("Payroll Number", 16, EventMemberExportRow::memberPayrollNumber),
+            new Column<>("Site Number", 12, EventMemberExportRow::memberSiteNumber),
+            new Column<>("Check In Time", 20, m -> format(m.checkInTime())),
+            new Column<>("Check In Status", 16, m -> Boolean.TRUE.equals(m.checkedIn()) ? "Checked In" : "Not Checked In"),
+            new Column<>("Region", 20, EventMemberExportRow::regionDesc),
+            new Column<>("Workplace", 30, EventMemberExportRow::workplace),
+            new Column<>("Employer", 30, EventMemberExportRow::employer),
+            new Column<>("Branch", 20, EventMemberExportRow::branch),
+            new Column<>("Registration Status", 20, m -> Boolean.TRUE.equals(m.hasRegistered()) ? "Registered" : "Not Registered"),
+            new Column<>("Attendance Status", 18, m -> Boolean.TRUE.equals(m.isAttending()) ? "Attending" : "Not Attending"),
+            new Column<>("Special Vote", 13, m -> yesNo(m.isSpecialVote())),
+            new Column<>("Voted Status", 13, m -> Boolean.TRUE.equals(m.hasVoted()) ? "Voted" : "Not Voted"));
+
+    // The BMM member report (AdminReportsController); booleans as true/false for the tools it is fed into
+    private static final List<Column<EventMemberExportRow>> MEMBER_REPORT_COLUMNS = List.of(
+            new Column<>("MemberNumber", 18, EventMemberExportRow::membershipNumber),
+            new Column<>("Name", 28, EventMemberExportRow::name),
+            new Column<>("Email", 32, EventMemberExportRow::primaryEmail),
+            new Column<>("Mobile", 16, EventMemberExportRow::telephoneMobile),
+            new Column<>("Region", 20, EventMemberExportRow::regionDesc),
+            new Column<>("Workplace", 30, EventMemberExportRow::workplace),
+            new Column<>("Employer", 30, EventMemberExportRow::employer),
+            new Column<>("Registered", 11, m -> trueFalse(m.hasRegistered())),
+            new Column<>("Attending", 10, m -> trueFalse(m.isAttending())),
+            new Column<>("CheckedIn", 10, m -> trueFalse(m.checkedIn())),
+            new Column<>("SpecialVote", 12, m -> trueFalse(m.isSpecialVote())),
+            new Column<>("EmailSent", 10, m -> trueFalse(m.emailSent())),
+            new Column<>("SmsSent", 10, m -> trueFalse(m.smsSent())),
+            new Column<>("DataSource", 24, EventMemberExportRow::dataSource),
+            new Column<>("CreatedAt", 24, m -> m.createdAt() != null ? m.createdAt().toString() : ""));
+
+    private static final List<Column<NotificationLogExportRow>> NOTIFICATION_LOG_COLUMNS = List.of(
+            new Column<>("Recipient", 32, NotificationLogExportRow::recipient),
+            new Column<>("Type", 14, log -> log.notificationType() != null ? log.notificationType().toString() : ""),
+            new Column<>("Status", 10, log -> Boolean.TRUE.equals(log.isSuccessful()) ? "Success" : "Failed"),
+            new Column<>("Subject", 40, NotificationLogExportRow::subject),
+            new Column<>("Content Preview", 60, NotificationLogExportRow::contentPreview),
+            new Column<>("Sent At", 20, log -> format(log.sentTime())),
+            new Column<>("Error Message", 40, NotificationLogExportRow::errorMessage),
+            new Column<>("Retry Count", 12, log -> "0")); // NotificationLog doesn't have retry count field
+
+    private static final List<Column<Member>> FILTERED_MEMBER_COLUMNS = List.of(
+            // Basic info
+            new Column<>("Membership Number", 18, Member::getMembershipNumber),
+            new Column<>("Name", 28, Member::getName),
+            new Column<>("Primary Email", 32, Member::getPrimaryEmail),
+            new Column<>("Mobile Phone", 16, Member::getTelephoneMobile),
+            new Column<>("Financial Indicator", 20, Member::getFinancialIndicator),
+            // Personal details
+            new Column<>("First Name", 16, Member::getFore1),
+            new Column<>("Known As", 16, Member::getKnownAs),
+            new Column<>("Surname", 18, Member::getSurname),
+            new Column<>("DOB", 12, Member::getDob),
+            new Column<>("Employee Ref", 14, Member::getEmployeeRef),
+            new Column<>("Occupation", 24, Member::getOccupation),
+            // Address
+            new Column<>("Address Line 1", 28, Member::getAddRes1),
+            new Column<>("Address Line 2", 28, Member::getAddRes2),
+            new Column<>("Address Line 3", 22, Member::getAddRes3),
+            new Column<>("Address Line 4", 22, Member::getAddRes4),
+            new Column<>("Address Line 5", 22, Member::getAddRes5),
+            new Column<>("Postcode", 10, Member::getAddResPc),
+            // Status fields
+            new Column<>("Has Email", 10, m -> yesNo(m.getHasEmail())),
+            new Column<>("Has Mobile", 11, m -> yesNo(m.getHasMobile())),
+            new Column<>("Registered", 11, m -> yesNo(m.getHasRegistered())),
+            new Column<>("Attending", 10, m -> yesNo(m.getIsAttending())),
+            new Column<>("Special Vote", 13, m -> yesNo(m.getIsSpecialVote())),
+            new Column<>("Voted", 8, m -> yesNo(m.getHasVoted())),
+            new Column<>("Checked In", 11, m -> m.getCheckinTime() != null ? "Yes" : "No"),
+            // Organization info
+            new Column<>("Region", 20, Member::getRegionDesc),
+            new Column<>("Branch", 20, Member::getBranchDesc),
+            new Column<>("Forum", 24, Member::getForumDesc),
+            new Column<>("Industry", 24, Member::getSiteIndustryDesc),
+            new Column<>("Sub Industry", 24, Member::getSiteSubIndustryDesc),
+            new Column<>("Employer", 30, Member::getEmployerName),
+            new Column<>("Workplace", 30, Member::getWorkplaceDesc),
+            // Membership details
+            new Column<>("Last Payment Date", 18, Member::getLastPaymentDate),
+            new Column<>("Membership Type", 20, Member::getMembershipTypeDesc),
+            new Column<>("EPMU Member Type", 20, Member::getEpmuMemTypeDesc),
+            new Column<>("Age", 6, Member::getAgeOfMember),
+            new Column<>("Gender", 10, Member::getGenderDesc),
+            new Column<>("Ethnic Region", 16, Member::getEthnicRegionDesc),
+            new Column<>("Bargaining Group", 24, Member::getBargainingGroupDesc),
+            // System fields
+            new Column<>("Data Source", 14, Member::getDataSource),
+            new Column<>("Created At", 20, m -> format(m.getCreatedAt())));
 
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
+    private final EventMemberRepository eventMemberRepository;
+    private final NotificationLogRepository notificationLogRepository;
 
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
+    // Returns the number of rows written
+    @Transactional(readOnly = true)
+    public int exportEventMembers(Event event, Format format, OutputStream out) throws IOException {
+        try (Stream<EventMemberExportRow> members = eventMemberRepository.streamExportRowsByEventId(event.getId())) {
+            return write(format, "Event Members", EVENT_MEMBER_COLUMNS, members.iterator(), out);
         }
     }
 
+    public int exportFilteredMembers(List<Member> members, Format format, OutputStream out) throws IOException {
+        return write(format, "Filtered Members", FILTERED_MEMBER_COLUMNS, members.iterator(), out);
+    }
+
     //    exportEventAttendeesToExcel method removed - EventAttendee table no longer exists
 //    All attendee data is now available through EventMember table
-    public byte[] exportNotificationLogsToExcel(Event event) throws IOException {
-        List<NotificationLog> logs = notificationLogRepository.findByEvent(event);
-
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+    @Transactional(readOnly = true)
+    public int exportNotificationLogs(Event event, Format format, OutputStream out) throws IOException {
+        try (Stream<NotificationLogExportRow> logs = notificationLogRepository.streamExportRowsByEventId(event.getId())) {
+            return write(format, "Notification Logs", NOTIFICATION_LOG_COLUMNS, logs.iterator(), out);
+        }
+    }
 
-            Sheet sheet = workbook.createSheet("Notification Logs");
+    // The event's members matching the filter
+    @Transactional(readOnly = true)
+    public int exportFilteredEventMembers(Event event, Predicate<EventMemberExportRow> filter, Format format,
+                                          OutputStream out) throws IOException {
+        try (Stream<EventMemberExportRow> members = eventMemberRepository.streamExportRowsByEventId(event.getId())) {
+            return write(format, "Event Members", FILTERED_EVENT_MEMBER_COLUMNS, members.filter(filter).iterator(), out);
+        }
+    }
 
+    // The event's members matching the filter, with check-in columns first
+    @Transactional(readOnly = true)
+    public int exportCheckinData(Event event, Predicate<EventMemberExportRow> filter, Format format,
+                                 OutputStream out) throws IOException {
+        try (Stream<EventMemberExportRow> members = eventMemberRepository.streamExportRowsByEventId(event.getId())) {
+            return write(format, "Check-in Data", CHECKIN_COLUMNS, members.filter(filter).iterator(), out);
+        }
+    }
 
-            CellStyle headerStyle = createHeaderStyle(workbook);
+    // The BMM member report, with the report's own column names
+    @Transactional(readOnly = true)
+    public int exportMembersReport(Event event, Predicate<EventMemberExportRow> filter, Format format,
+                                   OutputStream out) throws IOException {
+        try (Stream<EventMemberExportRow> members = eventMemberRepository.streamExportRowsByEventId(event.getId())) {
+            return write(format, "Members Report", MEMBER_REPORT_COLUMNS, members.filter(filter).iterator(), out);
+        }
+    }
 
+    // One export by kind, as background export jobs name them: members and attendees take a memberCategory (none = the
+    // plain member sheet), filtered a filteredCategory, checkin a checkinCategory; notifications has no category
+    @Transactional(readOnly = true)
+    public int export(Event event, String type, String category, Format format, OutputStream out) throws IOException {
+        switch (type) {
+            case "members":
+            case "attendees":
+                return category == null ? exportEventMembers(event, format, out)
+                        : exportFilteredEventMembers(event, memberCategory(category), format, out);
+            case "notifications":
+                return exportNotificationLogs(event, format, out);
+            case "filtered":
+                return exportFilteredEventMembers(event, filteredCategory(category), format, out);
+            case "checkin":
+                return exportCheckinData(event, checkinCategory(category), format, out);
+            default:
+                throw new IllegalArgumentException("Unknown export type: " + type);
+        }
+    }
 
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {
-                    "Recipient", "Type", "Status", "Subject", "Content Preview",
-                    "Sent At", "Error Message", "Retry Count"
-            };
+    // Categories of /export/{members|attendees}/{category}
+    public static Predicate<EventMemberExportRow> memberCategory(String category) {
+        return member -> {
+            switch (category != null ? category : "all") {
+                case "all":
+                    return true;
+                case "registered":
+                    return member.hasRegistered() != null && member.hasRegistered();
+                case "attending":
+                    return member.isAttending() != null && member.isAttending();
+                case "not_attending":
+                    return member.isAttending() != null && !member.isAttending();
+                case "special_vote":
+                    return member.isSpecialVote() != null && member.isSpecialVote();
+                case "has_email":
+                    return member.hasEmail() != null && member.hasEmail();
+                case "has_mobile":
+                    return member.hasMobile() != null && member.hasMobile();
+                case "sms_only":
+                    return (member.hasMobile() != null && member.hasMobile()) &&
+                            (member.hasEmail() == null || !member.hasEmail());
+                case "email_only":
+                    return (member.hasEmail() != null && member.hasEmail()) &&
+                            (member.hasMobile() == null || !member.hasMobile());
+                case "northern":
+                    return member.regionDesc() != null && member.regionDesc().toLowerCase().contains("northern");
+                case "central":
+                    return member.regionDesc() != null && member.regionDesc().toLowerCase().contains("central");
+                case "southern":
+                    return member.regionDesc() != null && member.regionDesc().toLowerCase().contains("southern");
+                case "checked_in":
+                    return member.checkedIn() != null && member.checkedIn();
+                case "not_checked_in":
+                    return member.checkedIn() == null || !member.checkedIn();
+                case "voted":
+                    return member.hasVoted() != null && member.hasVoted();
+                case "not_voted":
+                    return member.hasVoted() == null || !member.hasVoted();
+                default:
+                    return true;
+            }
+        };
+    }
 
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
+    // Categories of /export/filtered/{category}, case-insensitive
+    public static Predicate<EventMemberExportRow> filteredCategory(String category) {
+        return member -> {
+            switch (category != null ? category.toLowerCase() : "") {
+                case "registered":
+                    return member.hasRegistered() != null && member.hasRegistered();
+                case "attending":
+                    return member.isAttending() != null && member.isAttending();
+                case "not_attending":
+                    return member.isAttending() != null && !member.isAttending();
+                case "special_vote":
+                    return member.isSpecialVote() != null && member.isSpecialVote();
+                case "voted":
+                    return member.hasVoted() != null && member.hasVoted();
+                case "checked_in":
+                    return member.checkedIn() != null && member.checkedIn();
+                case "not_checked_in":
+                    return member.checkedIn() == null || !member.checkedIn();
+                case "with_email":
+                    return member.hasEmail() != null && member.hasEmail();
+                case "with_mobile":
+                    return member.hasMobile() != null && member.hasMobile();
+                default:
+                    return true; // Return all if category not recognized
             }
+        };
+    }
 
+    // Categories of /export/checkin/{category}, case-insensitive
+    public static Predicate<EventMemberExportRow> checkinCategory(String category) {
+        return member -> {
+            switch (category != null ? category.toLowerCase() : "all") {
+                case "all":
+                    return true;
+                case "checked_in":
+                    return member.checkedIn() != null && member.checkedIn();
+                case "not_checked_in":
+                    return member.checkedIn() == null || !member.checkedIn();
+                case "registered_checked_in":
+                    return (member.hasRegistered() != null && member.hasRegistered()) &&
+                            (member.checkedIn() != null && member.checkedIn());
+                case "registered_not_checked_in":
+                    return (member.hasRegistered() != null && member.hasRegistered()) &&
+                            (member.checkedIn() == null || !member.checkedIn());
+                case "attending_checked_in":
+                    return (member.isAttending() != null && member.isAttending()) &&
+                            (member.checkedIn() != null && member.checkedIn());
+                case "attending_not_checked_in":
+                    return (member.isAttending() != null && member.isAttending()) &&
+                            (member.checkedIn() == null || !member.checkedIn());
+                default:
+                    return true;
+            }
+        };
+    }
 
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            int rowNum = 1;
+    private static <T> int write(Format format, String sheetName, List<Column<T>> columns, Iterator<T> rows,
+                                 OutputStream out) throws IOException {
+        try (TableWriter writer = format == Format.XLSX
+                ? new SheetWriter(sheetName, columns, out)
+                : new CsvWriter(columns, out, format == Format.CSV_GZIP)) {
+            String[] values = new String[columns.size()];
+            while (rows.hasNext()) {
+                T row = rows.next();
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = columns.get(i).value().apply(row);
+                }
+                writer.row(values);
+            }
+            return writer.finish();
+        }
+    }
 
-            for (NotificationLog log : logs) {
-                Row row = sheet.createRow(rowNum++);
+    private static String yesNo(Boolean value) {
+        return Boolean.TRUE.equals(value) ? "Yes" : "No";
+    }
 
-                row.createCell(0).setCellValue(log.getRecipient() != null ? log.getRecipient() : "");
-                row.createCell(1).setCellValue(log.getNotificationType() != null ? log.getNotificationType().toString() : "");
-                row.createCell(2).setCellValue(log.getIsSuccessful() != null ? (log.getIsSuccessful() ? "Success" : "Failed") : "Failed");
-                row.createCell(3).setCellValue(log.getSubject() != null ? log.getSubject() : "");
-                row.createCell(4).setCellValue(log.getContent() != null ?
-                        (log.getContent().length() > 100 ? log.getContent().substring(0, 100) + "..." : log.getContent()) : "");
-                row.createCell(5).setCellValue(log.getSentTime() != null ? log.getSentTime().format(formatter) : "");
-                row.createCell(6).setCellValue(log.getErrorMessage() != null ? log.getErrorMessage() : "");
-                row.createCell(7).setCellValue("0"); // NotificationLog doesn't have retry count field
-            }
+    private static String trueFalse(Boolean value) {
+        return Boolean.TRUE.equals(value) ? "true" : "false";
+    }
 
+    private static String format(LocalDateTime time) {
+        return time != null ? time.format(DATE_TIME) : "";
+    }
 
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
+    // Header row first, then one call per data row; nulls are written as empty cells
+    private interface TableWriter extends Closeable {
+        void row(String[] values) throws IOException;
 
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
-        }
+        // Completes the output (leaving the stream open); returns the number of data rows
+        int finish() throws IOException;
     }
 
-    public byte[] exportFilteredEventMembersToExcel(List<EventMember> members, Event event) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+    // One sheet of a streaming workbook: a styled header row, fixed column widths (in characters) and string cells
+    private static final class SheetWriter implements TableWriter {
+        private final SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        private final Sheet sheet;
+        private final OutputStream out;
+        private int rowNum = 1;
 
-            Sheet sheet = workbook.createSheet("Event Members");
+        private SheetWriter(String name, List<? extends Column<?>> columns, OutputStream out) {
+            this.out = out;
+            workbook.setCompressTempFiles(true);
+            sheet = workbook.createSheet(name);
 
             CellStyle headerStyle = createHeaderStyle(workbook);
-
             Row headerRow = sheet.createRow(0);
-            String[] headers = {
-                    "Membership Number", "Name", "Email", "Mobile Phone", "Payroll Number", "Site Number",
-                    "Has Email", "Has Mobile", "Registered", "Attending", "Special Vote", "Voted", "Checked In",
-                    "Region", "Workplace", "Employer", "Branch", "Absence Reason", "Registration Date", "Check In Time"
-            };
-
-            for (int i = 0; i < headers.length; i++) {
+            for (int i = 0; i < columns.size(); i++) {
+                Column<?> column = columns.get(i);
                 Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
+                cell.setCellValue(column.header());
                 cell.setCellStyle(headerStyle);
+                sheet.setColumnWidth(i, Math.max(column.width(), column.header().length() + 2) * 256);
             }
+        }
 
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            int rowNum = 1;
-
-            for (EventMember member : members) {
-                Row row = sheet.createRow(rowNum++);
-                int cellIndex = 0;
-
-                row.createCell(cellIndex++).setCellValue(member.getMembershipNumber() != null ? member.getMembershipNumber() : "");
-                row.createCell(cellIndex++).setCellValue(member.getName() != null ? member.getName() : "");
-                row.createCell(cellIndex++).setCellValue(member.getPrimaryEmail() != null ? member.getPrimaryEmail() : "");
-                row.createCell(cellIndex++).setCellValue(member.getTelephoneMobile() != null ? member.getTelephoneMobile() : "");
-
-                // Add payroll number and site number from linked Member
-                row.createCell(cellIndex++).setCellValue(member.getMember() != null && member.getMember().getPayrollNumber() != null ?
-                        member.getMember().getPayrollNumber() : "");
-                row.createCell(cellIndex++).setCellValue(member.getMember() != null && member.getMember().getSiteNumber() != null ?
-                        member.getMember().getSiteNumber() : "");
-
-                row.createCell(cellIndex++).setCellValue(member.getHasEmail() != null ? (member.getHasEmail() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getHasMobile() != null ? (member.getHasMobile() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getHasRegistered() != null ? (member.getHasRegistered() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getIsAttending() != null ? (member.getIsAttending() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getIsSpecialVote() != null ? (member.getIsSpecialVote() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getHasVoted() != null ? (member.getHasVoted() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getCheckedIn() != null ? (member.getCheckedIn() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getRegionDesc() != null ? member.getRegionDesc() : "");
-                row.createCell(cellIndex++).setCellValue(member.getWorkplace() != null ? member.getWorkplace() : "");
-                row.createCell(cellIndex++).setCellValue(member.getEmployer() != null ? member.getEmployer() : "");
-                row.createCell(cellIndex++).setCellValue(member.getBranch() != null ? member.getBranch() : "");
-                row.createCell(cellIndex++).setCellValue(member.getAbsenceReason() != null ? member.getAbsenceReason() : "");
-                row.createCell(cellIndex++).setCellValue(member.getCreatedAt() != null ? member.getCreatedAt().format(formatter) : "");
-                row.createCell(cellIndex++).setCellValue(member.getCheckInTime() != null ? member.getCheckInTime().format(formatter) : "");
+        @Override
+        public void row(String[] values) {
+            Row row = sheet.createRow(rowNum++);
+            for (int i = 0; i < values.length; i++) {
+                row.createCell(i).setCellValue(values[i] != null ? values[i] : "");
             }
+        }
 
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
+        @Override
+        public int finish() throws IOException {
+            workbook.write(out);
+            out.flush();
+            return rowNum - 1;
+        }
 
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
+        @Override
+        public void close() throws IOException {
+            workbook.dispose();
+            workbook.close();
         }
     }
 
-    public byte[] exportCheckinDataToExcel(List<EventMember> members, Event event, String category) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-
-            Sheet sheet = workbook.createSheet("Check-in Data");
-
-            CellStyle headerStyle = createHeaderStyle(workbook);
-
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {
-                    "Membership Number", "Name", "Email", "Mobile Phone", "Payroll Number", "Site Number",
-                    "Check In Time", "Check In Status", "Region", "Workplace", "Employer", "Branch",
-                    "Registration Status", "Attendance Status", "Special Vote", "Voted Status"
-            };
+    // RFC 4180: CRLF line ends, fields quoted only when they hold a comma, quote or line break
+    private static final class CsvWriter implements TableWriter {
+        private final GZIPOutputStream gzip;
+        private final Writer writer;
+        private int rows;
+
+        private CsvWriter(List<? extends Column<?>> columns, OutputStream out, boolean compress) throws IOException {
+            gzip = compress ? new GZIPOutputStream(out, CSV_BUFFER) : null;
+            writer = new BufferedWriter(new OutputStreamWriter(compress ? gzip : out, StandardCharsets.UTF_8), CSV_BUFFER);
+            for (int i = 0; i < columns.size(); i++) {
+                field(i, columns.get(i).header());
+            }
+            writer.write("\r\n");
+        }
 
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
+        @Override
+        public void row(String[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                field(i, values[i]);
             }
+            writer.write("\r\n");
+            rows++;
+        }
 
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            int rowNum = 1;
-
-            for (EventMember member : members) {
-                Row row = sheet.createRow(rowNum++);
-                int cellIndex = 0;
-
-                row.createCell(cellIndex++).setCellValue(member.getMembershipNumber() != null ? member.getMembershipNumber() : "");
-                row.createCell(cellIndex++).setCellValue(member.getName() != null ? member.getName() : "");
-                row.createCell(cellIndex++).setCellValue(member.getPrimaryEmail() != null ? member.getPrimaryEmail() : "");
-                row.createCell(cellIndex++).setCellValue(member.getTelephoneMobile() != null ? member.getTelephoneMobile() : "");
-
-                // Add payroll number and site number from linked Member
-                row.createCell(cellIndex++).setCellValue(member.getMember() != null && member.getMember().getPayrollNumber() != null ?
-                        member.getMember().getPayrollNumber() : "");
-                row.createCell(cellIndex++).setCellValue(member.getMember() != null && member.getMember().getSiteNumber() != null ?
-                        member.getMember().getSiteNumber() : "");
-
-                row.createCell(cellIndex++).setCellValue(member.getCheckInTime() != null ? member.getCheckInTime().format(formatter) : "");
-                row.createCell(cellIndex++).setCellValue(member.getCheckedIn() != null ? (member.getCheckedIn() ? "Checked In" : "Not Checked In") : "Not Checked In");
-                row.createCell(cellIndex++).setCellValue(member.getRegionDesc() != null ? member.getRegionDesc() : "");
-                row.createCell(cellIndex++).setCellValue(member.getWorkplace() != null ? member.getWorkplace() : "");
-                row.createCell(cellIndex++).setCellValue(member.getEmployer() != null ? member.getEmployer() : "");
-                row.createCell(cellIndex++).setCellValue(member.getBranch() != null ? member.getBranch() : "");
-                row.createCell(cellIndex++).setCellValue(member.getHasRegistered() != null ? (member.getHasRegistered() ? "Registered" : "Not Registered") : "Not Registered");
-                row.createCell(cellIndex++).setCellValue(member.getIsAttending() != null ? (member.getIsAttending() ? "Attending" : "Not Attending") : "Not Attending");
-                row.createCell(cellIndex++).setCellValue(member.getIsSpecialVote() != null ? (member.getIsSpecialVote() ? "Yes" : "No") : "No");
-                row.createCell(cellIndex++).setCellValue(member.getHasVoted() != null ? (member.getHasVoted() ? "Voted" : "Not Voted") : "Not Voted");
+        private void field(int index, String value) throws IOException {
+            if (index > 0) {
+                writer.write(',');
             }
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
 
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+        @Override
+        public int finish() throws IOException {
+            writer.flush();
+            if (gzip != null) {
+                gzip.finish();
             }
+            return rows;
+        }
 
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
+        @Override
+        public void close() {
+            // the response stream belongs to the caller; finish() already wrote everything
         }
     }
 
-    private CellStyle createHeaderStyle(Workbook workbook) {
+    private static CellStyle createHeaderStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         Font font = workbook.createFont();
         font.setBold(true);
@@ -375,4 +559,4 @@ public class ExcelExportService {
         style.setBorderTop(BorderStyle.THIN);
         return style;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,276 @@
+package nz.etu.voting.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.domain.entity.ExportJob;
+import nz.etu.voting.repository.EventRepository;
+import nz.etu.voting.repository.ExportJobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports run as background jobs instead of inside the HTTP request. A submitted export (any kind of
+ * {@link ExcelExportService#export}) is queued on a bounded pool, written to a file in the local export store and
+ * kept there for the TTL; the client polls the job and downloads the file by job id. A submission identical to a job
+ * that is still queued or running (same event, kind, category and format) gets that job back rather than a second
+ * one, so repeated clicks while a large export runs cost nothing.
+ * <p>
+ * Jobs are rows of export_jobs. Files are {@code <dir>/<jobId>.<extension>}, written to a {@code .part} file and
+ * moved into place when complete; expired files are deleted by {@link #purgeExpired()}. Jobs cut short by a restart
+ * are marked failed at startup.
+ */
+@Slf4j
+@Service
+public class ExportJobService {
+
+    private static final String PART_SUFFIX = ".part";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ExportJobRepository exportJobRepository;
+    private final EventRepository eventRepository;
+    private final ExcelExportService excelExportService;
+    private final ThreadPoolExecutor executor;
+    private final Path dir;
+    private final long ttl;
+
+    // requestKey -> jobId of the job queued or running for it
+    private final Map<String, String> active = new ConcurrentHashMap<>();
+
+    public record Submission(ExportJob job, boolean deduplicated) {
+    }
+
+    public ExportJobService(ExportJobRepository exportJobRepository,
+                            EventRepository eventRepository,
+                            ExcelExportService excelExportService,
+                            @Value("${exports.jobs.threads:2}") int threads,
+                            @Value("${exports.jobs.queue-capacity:20}") int queueCapacity,
+                            @Value("${exports.jobs.dir:${java.io.tmpdir}/etu-exports}") String dir,
+                            @Value("${exports.jobs.ttl:3600000}") long ttl) {
+        this.exportJobRepository = exportJobRepository;
+        this.eventRepository = eventRepository;
+        this.excelExportService = excelExportService;
+        this.dir = Paths.get(dir);
+        this.ttl = ttl;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "export-job-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Jobs a previous run left queued or running never finish; their files and partial files are removed
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterruptedJobs() {
+        List<ExportJob> interrupted = exportJobRepository.findByStatusIn(
+                List.of(ExportJob.Status.PENDING, ExportJob.Status.RUNNING));
+        for (ExportJob job : interrupted) {
+            try {
+                Files.deleteIfExists(file(job));
+            } catch (IOException e) {
+                log.warn("Failed to remove export {}: {}", job.getJobId(), e.getMessage());
+            }
+            job.setStatus(ExportJob.Status.FAILED);
+            job.setErrorMessage("Interrupted by a server restart");
+            job.setCompletedAt(LocalDateTime.now());
+        }
+        exportJobRepository.saveAll(interrupted);
+
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> parts = Files.newDirectoryStream(dir, "*" + PART_SUFFIX)) {
+                for (Path part : parts) {
+                    Files.deleteIfExists(part);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to clean partial export files in {}: {}", dir, e.getMessage());
+            }
+        }
+        if (!interrupted.isEmpty()) {
+            log.info("Marked {} interrupted export jobs as failed", interrupted.size());
+        }
+    }
+
+    public Submission submit(Long eventId, String type, String category, String format, String createdBy) {
+        ExcelExportService.Format exportFormat = ExcelExportService.Format.of(format);
+        String exportType = type != null ? type.trim().toLowerCase(Locale.ROOT) : null;
+        if (exportType == null || !ExcelExportService.EXPORT_TYPES.contains(exportType)) {
+            throw new IllegalArgumentException("Unknown export type: " + type);
+        }
+        String exportCategory = category != null && !category.isBlank() && !"notifications".equals(exportType)
+                ? category.trim() : null;
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new IllegalArgumentException("Event not found"));
+
+        String requestKey = String.join(":", eventId.toString(), exportType,
+                exportCategory != null ? exportCategory : "", exportFormat.name());
+
+        synchronized (active) {
+            String current = active.get(requestKey);
+            if (current != null) {
+                Optional<ExportJob> running = exportJobRepository.findByJobId(current)
+                        .filter(job -> job.getStatus() == ExportJob.Status.PENDING
+                                || job.getStatus() == ExportJob.Status.RUNNING);
+                if (running.isPresent()) {
+                    return new Submission(running.get(), true);
+                }
+            }
+
+            String baseName = event.getName().replaceAll("[^a-zA-Z0-9]", "_") + "_" + exportType
+                    + (exportCategory != null ? "_" + exportCategory.replaceAll("[^a-zA-Z0-9_]", "_") : "");
+            ExportJob job = exportJobRepository.save(ExportJob.builder()
+                    .jobId(UUID.randomUUID().toString())
+                    .eventId(eventId)
+                    .exportType(exportType)
+                    .category(exportCategory)
+                    .format(exportFormat.name())
+                    .requestKey(requestKey)
+                    .status(ExportJob.Status.PENDING)
+                    .fileName(baseName + "." + exportFormat.extension())
+                    .createdBy(createdBy)
+                    .build());
+
+            active.put(requestKey, job.getJobId());
+            try {
+                executor.execute(() -> run(job.getJobId()));
+            } catch (RejectedExecutionException e) {
+                active.remove(requestKey, job.getJobId());
+                fail(job, "Export queue is full");
+                throw new IllegalStateException("Too many exports are queued, please try again shortly");
+            }
+            log.info("Export job {} queued: event {} {} {} {}", job.getJobId(), eventId, exportType,
+                    exportCategory != null ? exportCategory : "-", exportFormat);
+            return new Submission(job, false);
+        }
+    }
+
+    public Optional<ExportJob> getJob(String jobId) {
+        return exportJobRepository.findByJobId(jobId);
+    }
+
+    public List<ExportJob> getRecentJobs(Long eventId) {
+        return exportJobRepository.findTop20ByEventIdOrderByCreatedAtDesc(eventId);
+    }
+
+    // The job's file while it is completed and not expired
+    public Optional<Path> getFile(ExportJob job) {
+        if (job.getStatus() != ExportJob.Status.COMPLETED
+                || job.getExpiresAt() == null || job.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        Path file = file(job);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    @Scheduled(fixedDelayString = "${exports.jobs.cleanup-interval:300000}")
+    public void purgeExpired() {
+        for (ExportJob job : exportJobRepository.findByStatusAndExpiresAtBefore(
+                ExportJob.Status.COMPLETED, LocalDateTime.now())) {
+            try {
+                Files.deleteIfExists(file(job));
+                job.setStatus(ExportJob.Status.EXPIRED);
+                exportJobRepository.save(job);
+            } catch (Exception e) {
+                log.warn("Failed to remove expired export {}: {}", job.getJobId(), e.getMessage());
+            }
+        }
+    }
+
+    private void run(String jobId) {
+        ExportJob job = exportJobRepository.findByJobId(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Path part = null;
+        try {
+            job.setStatus(ExportJob.Status.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            exportJobRepository.save(job);
+
+            Event event = eventRepository.findById(job.getEventId())
+                    .orElseThrow(() -> new IllegalStateException("Event not found"));
+            Files.createDirectories(dir);
+            part = dir.resolve(job.getJobId() + PART_SUFFIX);
+
+            int rows;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part))) {
+                rows = excelExportService.export(event, job.getExportType(), job.getCategory(),
+                        ExcelExportService.Format.valueOf(job.getFormat()), out);
+            }
+            Path file = file(job);
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            LocalDateTime now = LocalDateTime.now();
+            job.setStatus(ExportJob.Status.COMPLETED);
+            job.setRowCount(rows);
+            job.setFileSize(Files.size(file));
+            job.setCompletedAt(now);
+            job.setExpiresAt(now.plus(Duration.ofMillis(ttl)));
+            exportJobRepository.save(job);
+            log.info("Export job {} completed in {} ms: {} rows, {} bytes", job.getJobId(),
+                    System.currentTimeMillis() - start, rows, job.getFileSize());
+        } catch (Exception e) {
+            log.error("Export job {} failed: {}", job.getJobId(), e.getMessage(), e);
+            if (part != null) {
+                try {
+                    Files.deleteIfExists(part);
+                } catch (IOException ignored) {
+                    // removed at the next startup
+                }
+            }
+            fail(job, e.getMessage());
+        } finally {
+            active.remove(job.getRequestKey(), job.getJobId());
+        }
+    }
+
+    private void fail(ExportJob job, String message) {
+        job.setStatus(ExportJob.Status.FAILED);
+        job.setErrorMessage(message != null && message.length() > MAX_ERROR_LENGTH
+                ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        job.setCompletedAt(LocalDateTime.now());
+        try {
+            exportJobRepository.save(job);
+        } catch (Exception e) {
+            log.warn("Failed to save export job {}: {}", job.getJobId(), e.getMessage());
+        }
+    }
+
+    private Path file(ExportJob job) {
+        return dir.resolve(job.getJobId() + "." + ExcelExportService.Format.valueOf(job.getFormat()).extension());
+    }
+}
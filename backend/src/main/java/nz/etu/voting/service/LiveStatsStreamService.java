@@ -0,0 +1,171 @@
+package nz.etu.voting.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.entity.EventCounter;
+import nz.etu.voting.domain.event.EventDataChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Server-Sent Events stream of an event's live counters for the check-in / registration dashboards.
+ * <p>
+ * A new subscriber gets a "snapshot" with every counter. After that, committed changes only mark the event dirty;
+ * a scheduled push re-reads the counters at most once per interval and sends a "delta" containing just the
+ * counters whose value changed (absolute values, so a missed or duplicated delta never corrupts the dashboard).
+ * Database load therefore depends on the number of events being watched, not on the number of open screens.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LiveStatsStreamService {
+
+    private final EventCounterService eventCounterService;
+
+    @Value("${live-stats.emitter-timeout:1800000}")
+    private long emitterTimeout;
+
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, Map<EventCounter.Key, Long>> lastPushed = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyEvents = ConcurrentHashMap.newKeySet();
+
+    private record Subscriber(SseEmitter emitter, Set<EventCounter.Dimension> dimensions) {
+    }
+
+    // dimensions: which counter groups the screen needs (null/empty = all)
+    public SseEmitter subscribe(Long eventId, Set<EventCounter.Dimension> dimensions) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        Subscriber subscriber = new Subscriber(emitter,
+                dimensions == null || dimensions.isEmpty() ? EnumSet.allOf(EventCounter.Dimension.class) : EnumSet.copyOf(dimensions));
+
+        Runnable remove = () -> unsubscribe(eventId, subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        Map<EventCounter.Key, Long> snapshot = eventCounterService.getSnapshot(eventId);
+        lastPushed.putIfAbsent(eventId, snapshot);
+        subscribers.computeIfAbsent(eventId, id -> new CopyOnWriteArrayList<>()).add(subscriber);
+
+        send(eventId, subscriber, "snapshot", snapshot);
+        log.info("Live stats subscriber added for event {} ({} open)", eventId, subscribers.get(eventId).size());
+        return emitter;
+    }
+
+    @EventListener
+    public void onEventDataChanged(EventDataChangedEvent event) {
+        for (Long eventId : event.eventIds()) {
+            if (subscribers.containsKey(eventId)) {
+                dirtyEvents.add(eventId);
+            }
+        }
+    }
+
+    //    合并窗口内的所有变更，每个事件最多推送一次
+    @Scheduled(fixedDelayString = "${live-stats.push-interval:500}")
+    public void pushUpdates() {
+        for (Iterator<Long> it = dirtyEvents.iterator(); it.hasNext(); ) {
+            Long eventId = it.next();
+            it.remove();
+            try {
+                pushDelta(eventId);
+            } catch (Exception e) {
+                log.error("Failed to push live stats for event {}: {}", eventId, e.getMessage(), e);
+            }
+        }
+    }
+
+    //    保持连接 (代理/负载均衡器会关闭长时间无数据的连接)
+    @Scheduled(fixedRateString = "${live-stats.heartbeat-interval:25000}")
+    public void heartbeat() {
+        subscribers.forEach((eventId, list) -> {
+            for (Subscriber subscriber : list) {
+                try {
+                    subscriber.emitter().send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe(eventId, subscriber);
+                }
+            }
+        });
+    }
+
+    private void pushDelta(Long eventId) {
+        List<Subscriber> list = subscribers.get(eventId);
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+
+        Map<EventCounter.Key, Long> current = eventCounterService.getSnapshot(eventId);
+        Map<EventCounter.Key, Long> previous = lastPushed.getOrDefault(eventId, Map.of());
+        lastPushed.put(eventId, current);
+
+        Map<EventCounter.Key, Long> changed = new HashMap<>();
+        current.forEach((key, count) -> {
+            if (!count.equals(previous.get(key))) {
+                changed.put(key, count);
+            }
+        });
+        previous.keySet().forEach(key -> {
+            if (!current.containsKey(key)) {
+                changed.put(key, 0L);
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        for (Subscriber subscriber : list) {
+            send(eventId, subscriber, "delta", changed);
+        }
+    }
+
+    private void send(Long eventId, Subscriber subscriber, String name, Map<EventCounter.Key, Long> counters) {
+        Map<String, Map<String, Map<String, Long>>> payload = toPayload(counters, subscriber.dimensions());
+        if (payload.isEmpty() && !"snapshot".equals(name)) {
+            return;
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", eventId);
+        data.put("counters", payload);
+        data.put("timestamp", System.currentTimeMillis());
+        try {
+            subscriber.emitter().send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(eventId, subscriber);
+        }
+    }
+
+    // dimension -> bucket -> metric -> count
+    private Map<String, Map<String, Map<String, Long>>> toPayload(Map<EventCounter.Key, Long> counters,
+                                                                  Set<EventCounter.Dimension> dimensions) {
+        Map<String, Map<String, Map<String, Long>>> payload = new TreeMap<>();
+        counters.forEach((key, count) -> {
+            if (dimensions.contains(key.dimension())) {
+                payload.computeIfAbsent(key.dimension().name(), d -> new TreeMap<>())
+                        .computeIfAbsent(key.bucket(), b -> new TreeMap<>())
+                        .put(key.metric(), count);
+            }
+        });
+        return payload;
+    }
+
+    private void unsubscribe(Long eventId, Subscriber subscriber) {
+        subscribers.computeIfPresent(eventId, (id, list) -> {
+            list.remove(subscriber);
+            if (list.isEmpty()) {
+                lastPushed.remove(eventId);
+                return null;
+            }
+            return list;
+        });
+    }
+}
@@ -1,31 +1,128 @@
 package nz.etu.voting.service;
 
-import com.google.zxing.BarcodeFormat;
 import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.config.CacheConfig;
 import nz.etu.voting.domain.entity.EventMember;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
-import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class QRCodeService {
 
+    private static final int DEFAULT_SIZE = 300;
+    private static final int QUIET_ZONE = 1;
+    private static final String RENDERER_VERSION = "1";
+    private static final Map<EncodeHintType, Object> HINTS = Map.of(EncodeHintType.CHARACTER_SET, "UTF-8");
+
+    private final SignedTicketService signedTicketService;
+    private final CacheManager cacheManager;
+
+    @Value("${qr.png-max-age:3600}")
+    private long pngMaxAge;
+
+    // 空值则不落盘
+    @Value("${qr.disk-cache.dir:}")
+    private String diskCacheDir;
+
+    //    输出格式：PNG位图；SVG矢量（邮件、票据页，任意尺寸清晰）；TEXT半块字符（终端、自助机），后两者不经过AWT
+    public enum Format {
+        PNG(MediaType.IMAGE_PNG),
+        SVG(MediaType.valueOf("image/svg+xml")),
+        TEXT(new MediaType("text", "plain", StandardCharsets.UTF_8));
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType mediaType() {
+            return mediaType;
+        }
+
+        // ?format= (png, svg, txt/text) wins; otherwise the client's most preferred type it names explicitly,
+        // PNG for wildcards or no Accept header. IllegalArgumentException for an unknown format parameter
+        public static Format negotiate(String format, String accept) {
+            if (format != null && !format.isBlank()) {
+                return switch (format.trim().toLowerCase()) {
+                    case "png" -> PNG;
+                    case "svg" -> SVG;
+                    case "txt", "text" -> TEXT;
+                    default -> throw new IllegalArgumentException("Unsupported QR code format: " + format);
+                };
+            }
+            if (accept == null || accept.isBlank()) {
+                return PNG;
+            }
+
+            List<MediaType> accepted;
+            try {
+                accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            } catch (InvalidMediaTypeException e) {
+                return PNG;
+            }
+            accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+            for (MediaType type : accepted) {
+                if (type.getQualityValue() == 0) {
+                    continue;
+                }
+                if (type.isWildcardType() || type.isWildcardSubtype()) {
+                    return PNG;
+                }
+                for (Format candidate : values()) {
+                    if (candidate.mediaType.equalsTypeAndSubtype(type)) {
+                        return candidate;
+                    }
+                }
+            }
+            return PNG;
+        }
+    }
+
+    //    图像字节及其强ETag（内容哈希，内容不变则ETag不变）
+    public record QRImage(byte[] data, String etag, Format format) {
+    }
+
     public byte[] generateQRCodeForEventMember(EventMember eventMember) {
+        return memberQRCode(eventMember, Format.PNG).data();
+    }
+
+    public QRImage memberQRCode(EventMember eventMember, Format format) {
         try {
-            String qrContent = buildQRContent(eventMember);
-            return generateQRCodeImage(qrContent, 300, 300);
+            return qrCode(buildQRContent(eventMember), DEFAULT_SIZE, format);
         } catch (Exception e) {
             log.error("Failed to generate QR code for member {}: {}",
                     eventMember.getMembershipNumber(), e.getMessage());
@@ -34,42 +131,233 @@ public class QRCodeService {
     }
 
     public byte[] generateQRCodeImage(String content, int width, int height) throws WriterException, IOException {
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
+        if (width != height) {
+            return encodePng(render(content, width, height));
+        }
+        return qrCode(content, width, Format.PNG).data();
+    }
 
-        Map<EncodeHintType, Object> hints = new HashMap<>();
-        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H);
-        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-        hints.put(EncodeHintType.MARGIN, 1);
+    // Square image for the content from the memory cache, else rendered; PNGs also go through the on-disk store
+    public QRImage qrCode(String content, int size, Format format) throws WriterException, IOException {
+        String hash = payloadHash(content, size, format);
+        Cache cache = cacheManager.getCache(CacheConfig.QR_CODES);
+        if (cache != null) {
+            byte[] cached = cache.get(hash, byte[].class);
+            if (cached != null) {
+                return new QRImage(cached, hash, format);
+            }
+        }
 
-        BitMatrix bitMatrix = qrCodeWriter.encode(content, BarcodeFormat.QR_CODE, width, height, hints);
+        byte[] data = switch (format) {
+            case PNG -> {
+                byte[] png = readStored(hash);
+                if (png == null) {
+                    png = encodePng(render(content, size, size));
+                    store(hash, png);
+                }
+                yield png;
+            }
+            case SVG -> svg(modules(content), size).getBytes(StandardCharsets.UTF_8);
+            case TEXT -> text(modules(content)).getBytes(StandardCharsets.UTF_8);
+        };
+        if (cache != null) {
+            cache.put(hash, data);
+        }
+        return new QRImage(data, hash, format);
+    }
 
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        Graphics2D graphics = image.createGraphics();
-        graphics.setColor(Color.WHITE);
-        graphics.fillRect(0, 0, width, height);
-        graphics.setColor(Color.BLACK);
+    // Renders into the on-disk store only (bulk runs would otherwise flush the memory cache);
+    // false when the PNG was already stored or there is no store
+    public boolean pregenerate(String content, int size) throws WriterException, IOException {
+        Path path = storedPath(payloadHash(content, size, Format.PNG));
+        if (path == null || Files.exists(path)) {
+            return false;
+        }
+        store(path, encodePng(render(content, size, size)));
+        return true;
+    }
+
+    public int defaultSize() {
+        return DEFAULT_SIZE;
+    }
+
+    public CacheControl cacheControl() {
+        return CacheControl.maxAge(pngMaxAge, TimeUnit.SECONDS).cachePrivate();
+    }
+
+    // Modules are written straight into a 1-bit packed raster (0 = black, 1 = white), one scaled row per module
+    // row copied down the module height, with the same scaling and centring as QRCodeWriter
+    private static BufferedImage render(String content, int width, int height) throws WriterException {
+        ByteMatrix modules = modules(content);
+        int inputWidth = modules.getWidth();
+        int inputHeight = modules.getHeight();
+        int outputWidth = Math.max(width, inputWidth + QUIET_ZONE * 2);
+        int outputHeight = Math.max(height, inputHeight + QUIET_ZONE * 2);
+        int multiple = Math.min(outputWidth / (inputWidth + QUIET_ZONE * 2), outputHeight / (inputHeight + QUIET_ZONE * 2));
+        int leftPadding = (outputWidth - inputWidth * multiple) / 2;
+        int topPadding = (outputHeight - inputHeight * multiple) / 2;
+
+        BufferedImage image = new BufferedImage(outputWidth, outputHeight, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] raster = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        int stride = (outputWidth + 7) / 8;
+        Arrays.fill(raster, (byte) 0xFF);
 
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                if (bitMatrix.get(x, y)) {
-                    graphics.fillRect(x, y, 1, 1);
+        byte[] row = new byte[stride];
+        for (int y = 0; y < inputHeight; y++) {
+            Arrays.fill(row, (byte) 0xFF);
+            for (int x = 0; x < inputWidth; x++) {
+                if (modules.get(x, y) == 1) {
+                    clearBits(row, leftPadding + x * multiple, multiple);
                 }
             }
+            int top = topPadding + y * multiple;
+            for (int i = 0; i < multiple; i++) {
+                System.arraycopy(row, 0, raster, (top + i) * stride, stride);
+            }
         }
+        return image;
+    }
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    // One stroked path of horizontal runs in module units, each row a chain of relative moves; the viewBox includes
+    // the quiet zone, so the image scales crisply to any size (size only sets the default width and height)
+    private static String svg(ByteMatrix modules, int size) {
+        int width = modules.getWidth() + QUIET_ZONE * 2;
+        int height = modules.getHeight() + QUIET_ZONE * 2;
+        StringBuilder path = new StringBuilder(modules.getWidth() * modules.getHeight() / 2);
+        for (int y = 0; y < modules.getHeight(); y++) {
+            int pen = -1;
+            int x = 0;
+            while (x < modules.getWidth()) {
+                if (modules.get(x, y) != 1) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < modules.getWidth() && modules.get(x, y) == 1) {
+                    x++;
+                }
+                if (pen < 0) {
+                    path.append('M').append(start + QUIET_ZONE).append(' ').append(y + QUIET_ZONE).append(".5");
+                } else {
+                    path.append('m').append(start - pen).append(" 0");
+                }
+                path.append('h').append(x - start);
+                pen = x;
+            }
+        }
+        return "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + size + "\" height=\"" + size +
+                "\" viewBox=\"0 0 " + width + " " + height + "\" shape-rendering=\"crispEdges\">" +
+                "<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>" +
+                "<path stroke=\"#000\" d=\"" + path + "\"/></svg>";
+    }
+
+    // Two module rows per line in half-block characters, dark on light, quiet zone included
+    private static String text(ByteMatrix modules) {
+        int width = modules.getWidth() + QUIET_ZONE * 2;
+        int height = modules.getHeight() + QUIET_ZONE * 2;
+        StringBuilder out = new StringBuilder((width + 1) * (height + 1) / 2);
+        for (int y = 0; y < height; y += 2) {
+            for (int x = 0; x < width; x++) {
+                boolean top = dark(modules, x - QUIET_ZONE, y - QUIET_ZONE);
+                boolean bottom = dark(modules, x - QUIET_ZONE, y + 1 - QUIET_ZONE);
+                out.append(top ? (bottom ? '\u2588' : '\u2580') : (bottom ? '\u2584' : ' '));
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    private static boolean dark(ByteMatrix modules, int x, int y) {
+        return x >= 0 && y >= 0 && x < modules.getWidth() && y < modules.getHeight() && modules.get(x, y) == 1;
+    }
+
+    private static ByteMatrix modules(String content) throws WriterException {
+        return Encoder.encode(content, ErrorCorrectionLevel.H, HINTS).getMatrix();
+    }
+
+    // Clears count bits from bit offset start, whole bytes at a time where possible
+    private static void clearBits(byte[] row, int start, int count) {
+        int end = start + count;
+        while (start < end && (start & 7) != 0) {
+            row[start >> 3] &= (byte) ~(0x80 >>> (start & 7));
+            start++;
+        }
+        while (end - start >= 8) {
+            row[start >> 3] = 0;
+            start += 8;
+        }
+        while (start < end) {
+            row[start >> 3] &= (byte) ~(0x80 >>> (start & 7));
+            start++;
+        }
+    }
+
+    // Content-addressed: <dir>/<first two hex digits>/<hash>.png, so a file never needs invalidating
+    private Path storedPath(String hash) {
+        return diskCacheDir.isBlank() ? null : Path.of(diskCacheDir, hash.substring(0, 2), hash + ".png");
+    }
+
+    private byte[] readStored(String hash) {
+        Path path = storedPath(hash);
+        if (path == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read stored QR code {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(String hash, byte[] png) {
+        Path path = storedPath(hash);
+        if (path == null) {
+            return;
+        }
+        try {
+            store(path, png);
+        } catch (IOException e) {
+            log.warn("Failed to store QR code {}: {}", path, e.getMessage());
+        }
+    }
+
+    // Written to a temporary file and moved into place, so readers never see a partial PNG
+    private static void store(Path path, byte[] png) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, png);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(2048);
         ImageIO.write(image, "PNG", outputStream);
         return outputStream.toByteArray();
     }
 
-    private String buildQRContent(EventMember eventMember) {
+    // Renderer version, format, size and content; a renderer change must bump the version so clients drop old ETags.
+    // PNG hashes carry no format so stored PNGs keep their names
+    private static String payloadHash(String content, int size, Format format) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String prefix = format == Format.PNG ? "" : format.name() + ":";
+            digest.update((RENDERER_VERSION + ":" + prefix + size + ":").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
-        return String.format("{\"membershipNumber\":\"%s\",\"name\":\"%s\",\"eventId\":%d,\"token\":\"%s\",\"checkInUrl\":\"https://events.etu.nz/api/checkin/%s\"}",
-                eventMember.getMembershipNumber(),
-                eventMember.getName(),
-                eventMember.getEvent().getId(),
-                eventMember.getToken().toString(),
-                eventMember.getToken().toString());
+    //    签名的紧凑票据，扫码端无需查库即可验证
+    private String buildQRContent(EventMember eventMember) {
+        return signedTicketService.encode(eventMember);
     }
 
     public String generateStaffScannerQRCode(Long eventId, String membershipNumber, String token) {
@@ -84,13 +372,8 @@ public class QRCodeService {
                 eventId, venueName, adminToken, System.currentTimeMillis());
     }
 
-    //    为会员生成包含更多信息的QR码
+    //    会员签到QR码内容（签名票据）
     public String generateMemberQRCode(EventMember eventMember) {
-        return String.format("{\"membershipNumber\":\"%s\",\"name\":\"%s\",\"eventId\":%d,\"token\":\"%s\",\"type\":\"member_checkin\",\"timestamp\":%d}",
-                eventMember.getMembershipNumber(),
-                eventMember.getName(),
-                eventMember.getEvent().getId(),
-                eventMember.getToken().toString(),
-                System.currentTimeMillis());
-    }
-}
\ No newline at end of file
+        return signedTicketService.encode(eventMember);
+    }
+}
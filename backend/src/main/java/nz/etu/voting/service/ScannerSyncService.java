@@ -0,0 +1,241 @@
+package nz.etu.voting.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.CheckedInMemberRow;
+import nz.etu.voting.domain.dto.CheckinKeyRow;
+import nz.etu.voting.exception.InvalidTicketException;
+import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Offline venue scanning. A scanner downloads its venue's roster once, resolves scans on the device against hashed
+ * member codes, and uploads the scans it made in batches whenever it has a connection; after that it only pulls the
+ * members changed since its roster version.
+ * <p>
+ * Roster codes are {@code hex(first 8 bytes of SHA-256(eventId + ":" + code))}, where code is a token, ticket token,
+ * member token, membership number or the member's signed ticket ({@link SignedTicketService}), trimmed, with
+ * UUIDs in lower case - the same normalisation as {@link CheckinCacheService}. Versions are server epoch
+ * milliseconds and deliberately overlap the previous window, so a row committed while a roster was being served is
+ * sent again rather than missed.
+ * <p>
+ * Uploads are idempotent: each scan goes through the conditional check-in of {@link CheckinService}, scans are
+ * applied in scan-time order, the first scan of a member wins, and re-uploading a scan that was already applied
+ * (same member, time and location) reports it as checked in again instead of as a conflict.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScannerSyncService {
+
+    public static final String METHOD = "OFFLINE_QR_SCAN";
+
+    private static final List<String> ROSTER_FIELDS =
+            List.of("id", "codes", "name", "checkedIn", "checkInTime", "checkInLocation");
+    private static final int HASH_BYTES = 8;
+
+    private final CheckinCacheService checkinCacheService;
+    private final CheckinService checkinService;
+    private final EventMemberRepository eventMemberRepository;
+    private final EventRepository eventRepository;
+    private final SignedTicketService signedTicketService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${scanner.roster-overlap:60000}")
+    private long rosterOverlap;
+
+    @Value("${scanner.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    public record Scan(String scanId, String qrData, Long scannedAt, String location) {
+    }
+
+    // Full roster of the forum (null = whole event), or just the changes since a previous version
+    public Map<String, Object> getRoster(Long eventId, String forum, Long since) {
+        long version = System.currentTimeMillis() - rosterOverlap;
+        long ticketExpiry = signedTicketService.expiresAt(eventRepository.findById(eventId)
+                .orElseThrow(() -> new IllegalArgumentException("Event not found")));
+
+        List<CheckinKeyRow> rows;
+        List<Long> removed = new ArrayList<>();
+        if (since == null) {
+            rows = checkinCacheService.rows(eventId).stream()
+                    .filter(row -> forum == null || forum.equals(row.forumDesc()))
+                    .toList();
+        } else {
+            rows = new ArrayList<>();
+            for (CheckinKeyRow row : eventMemberRepository.findCheckinKeyRowsUpdatedSince(eventId, toLocalDateTime(since))) {
+                if (forum == null || forum.equals(row.forumDesc())) {
+                    rows.add(row);
+                } else {
+                    // moved to another forum, or never on this roster - the device drops it if it has it
+                    removed.add(row.id());
+                }
+            }
+        }
+
+        List<List<Object>> members = new ArrayList<>(rows.size());
+        rows.stream().sorted(Comparator.comparing(CheckinKeyRow::id)).forEach(row -> members.add(Arrays.asList(
+                row.id(),
+                codeHashes(eventId, row, ticketExpiry),
+                row.name(),
+                row.isCheckedIn() ? 1 : 0,
+                row.checkInTime() != null ? toMillis(row.checkInTime()) : null,
+                row.checkInLocation())));
+        Collections.sort(removed);
+
+        Map<String, Object> roster = new LinkedHashMap<>();
+        roster.put("eventId", eventId);
+        roster.put("forum", forum);
+        roster.put("version", version);
+        roster.put("full", since == null);
+        roster.put("hash", "sha256-64");
+        roster.put("fields", ROSTER_FIELDS);
+        roster.put("members", members);
+        roster.put("removed", removed);
+        return roster;
+    }
+
+    public Map<String, Object> upload(Long eventId, String venue, String adminToken, String deviceId,
+                                      String adminName, String adminEmail, List<Scan> scans) {
+        if (scans.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " scans per upload");
+        }
+
+        long now = System.currentTimeMillis();
+        List<Scan> ordered = new ArrayList<>(scans);
+        ordered.sort(Comparator.comparing(scan -> scanTime(scan, now)));
+
+        Map<String, Integer> totals = new TreeMap<>();
+        List<Map<String, Object>> results = new ArrayList<>(ordered.size());
+        for (Scan scan : ordered) {
+            Map<String, Object> result = apply(eventId, venue, adminToken, deviceId, adminName, adminEmail, scan,
+                    toLocalDateTime(scanTime(scan, now)));
+            totals.merge((String) result.get("status"), 1, Integer::sum);
+            results.add(result);
+        }
+
+        log.info("Offline scanner {} at {} uploaded {} scans for event {}: {}", deviceId, venue, scans.size(), eventId, totals);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("results", results);
+        response.put("totals", totals);
+        response.put("version", System.currentTimeMillis() - rosterOverlap);
+        return response;
+    }
+
+    private Map<String, Object> apply(Long eventId, String venue, String adminToken, String deviceId, String adminName,
+                                      String adminEmail, Scan scan, LocalDateTime scannedAt) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scanId", scan.scanId());
+
+        Optional<CheckinKeyRow> found;
+        try {
+            found = checkinCacheService.resolve(eventId, scan.qrData());
+        } catch (InvalidTicketException e) {
+            result.put("status", "INVALID");
+            result.put("message", e.getMessage());
+            return result;
+        }
+        if (found.isEmpty()) {
+            result.put("status", scan.qrData() == null || scan.qrData().isBlank() ? "INVALID" : "NOT_FOUND");
+            return result;
+        }
+
+        CheckinKeyRow member = found.get();
+        String location = scan.location() != null && !scan.location().isBlank() ? scan.location() : venue;
+        if (!member.isCheckedIn()) {
+            Optional<CheckedInMemberRow> checkedIn = checkinService.checkIn(member.id(), new CheckinService.Checkin(
+                    scannedAt, location, null, METHOD, null,
+                    adminCheckinInfo(adminName, adminEmail, adminToken, venue, deviceId, scan.scanId(), scannedAt), false));
+            if (checkedIn.isPresent()) {
+                CheckedInMemberRow row = checkedIn.get();
+                return outcome(result, "CHECKED_IN", row.id(), row.name(), row.checkInTime(), row.checkInLocation());
+            }
+            member = checkinCacheService.reload(eventId, member.id()).orElse(member);
+        }
+
+        // 同一扫描重复上传（如上次响应丢失）按成功处理
+        boolean replay = scannedAt.equals(member.checkInTime()) && Objects.equals(location, member.checkInLocation());
+        outcome(result, replay ? "CHECKED_IN" : "ALREADY_CHECKED_IN", member.id(), member.name(),
+                member.checkInTime(), member.checkInLocation());
+        if (replay) {
+            result.put("replay", true);
+        }
+        return result;
+    }
+
+    private List<String> codeHashes(Long eventId, CheckinKeyRow row, long ticketExpiry) {
+        List<String> hashes = new ArrayList<>(5);
+        CheckinCacheService.codes(row).forEach(code -> hashes.add(hash(eventId, code)));
+        UUID ticketToken = row.ticketToken() != null ? row.ticketToken() : row.token();
+        if (ticketToken != null) {
+            hashes.add(hash(eventId, signedTicketService.encode(eventId, row.id(), ticketToken, ticketExpiry)));
+        }
+        return hashes;
+    }
+
+    private static Map<String, Object> outcome(Map<String, Object> result, String status, Long memberId, String name,
+                                               LocalDateTime checkInTime, String checkInLocation) {
+        result.put("status", status);
+        result.put("memberId", memberId);
+        result.put("name", name);
+        result.put("checkInTime", checkInTime != null ? toMillis(checkInTime) : null);
+        result.put("checkInLocation", checkInLocation);
+        return result;
+    }
+
+    private String adminCheckinInfo(String adminName, String adminEmail, String adminToken, String venue,
+                                    String deviceId, String scanId, LocalDateTime scannedAt) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("checkedInByAdmin", adminName != null ? adminName : "");
+        info.put("adminEmail", adminEmail != null ? adminEmail : "");
+        info.put("adminToken", adminToken);
+        info.put("checkinVenue", venue);
+        info.put("checkinTimestamp", scannedAt.toString());
+        info.put("deviceId", deviceId);
+        info.put("scanId", scanId);
+        info.put("offline", true);
+        try {
+            return objectMapper.writeValueAsString(info);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialise check-in info", e);
+        }
+    }
+
+    // Device clocks may run ahead; a scan can not have happened after it was received
+    private static long scanTime(Scan scan, long now) {
+        return scan.scannedAt() != null ? Math.min(scan.scannedAt(), now) : now;
+    }
+
+    public static String hash(Long eventId, String code) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((eventId + ":" + code).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, HASH_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()).truncatedTo(ChronoUnit.MILLIS);
+    }
+}
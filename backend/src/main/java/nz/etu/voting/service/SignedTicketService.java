@@ -0,0 +1,215 @@
+package nz.etu.voting.service;
+
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.domain.entity.EventMember;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Compact signed tickets for member QR codes, verifiable without a database lookup.
+ * <p>
+ * A ticket is {@code "ET1:" + base32(body + mac)} where body is the varint event id, varint EventMember id, the
+ * member's ticket token (16 bytes) and the expiry in epoch seconds (4 bytes), and mac is the first 10 bytes of
+ * HMAC-SHA256 over the prefix and body. Base32 keeps the whole code in the QR alphanumeric character set, so a
+ * ticket of about 60 characters fits a version 5 code at error correction H.
+ * <p>
+ * The expiry is derived from the event (its date, else its creation, plus {@code qr.ticket-validity-days}), so the
+ * same member always gets the same code. Codes signed with {@code qr.previous-signing-key} still verify, which lets
+ * the key be rotated without reissuing tickets that are already out.
+ */
+@Slf4j
+@Service
+public class SignedTicketService {
+
+    public static final String PREFIX = "ET1:";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_BYTES = 10;
+    private static final int MIN_KEY_BYTES = 32;
+    private static final char[] BASE32 = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567".toCharArray();
+
+    private final byte[] signingKey;
+    private final byte[] previousSigningKey;
+    private final long validityDays;
+
+    public record Ticket(long eventId, long eventMemberId, UUID ticketToken, long expiresAt) {
+
+        // The EventMember token the ticket was issued for, whichever of the two it was
+        public boolean issuedFor(UUID token, UUID ticketToken) {
+            return this.ticketToken.equals(ticketToken) || this.ticketToken.equals(token);
+        }
+    }
+
+    public SignedTicketService(@Value("${qr.signing-key}") String signingKey,
+                               @Value("${qr.previous-signing-key:}") String previousSigningKey,
+                               @Value("${qr.ticket-validity-days:365}") long validityDays) {
+        if (signingKey == null || signingKey.isBlank()) {
+            throw new IllegalStateException("qr.signing-key (QR_SIGNING_KEY) must be set");
+        }
+        this.signingKey = checkKey("qr.signing-key", signingKey);
+        this.previousSigningKey = previousSigningKey == null || previousSigningKey.isBlank()
+                ? null : checkKey("qr.previous-signing-key", previousSigningKey);
+        this.validityDays = validityDays;
+    }
+
+    // A short key can be brute-forced offline from any issued ticket; refuse to start rather than sign with one
+    private static byte[] checkKey(String property, String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < MIN_KEY_BYTES) {
+            throw new IllegalStateException(property + " must be at least " + MIN_KEY_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    public static boolean isTicket(String code) {
+        return code != null && code.startsWith(PREFIX);
+    }
+
+    // The member's check-in code; tickets are issued for the ticket token where there is one
+    public String encode(EventMember member) {
+        UUID token = member.getTicketToken() != null ? member.getTicketToken() : member.getToken();
+        return encode(member.getEvent().getId(), member.getId(), token, expiresAt(member.getEvent()));
+    }
+
+    public String encode(long eventId, long eventMemberId, UUID ticketToken, long expiresAt) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(32);
+        writeVarint(body, eventId);
+        writeVarint(body, eventMemberId);
+        body.writeBytes(ByteBuffer.allocate(20)
+                .putLong(ticketToken.getMostSignificantBits())
+                .putLong(ticketToken.getLeastSignificantBits())
+                .putInt((int) expiresAt)
+                .array());
+
+        byte[] payload = body.toByteArray();
+        byte[] signed = Arrays.copyOf(payload, payload.length + MAC_BYTES);
+        System.arraycopy(mac(signingKey, payload), 0, signed, payload.length, MAC_BYTES);
+        return PREFIX + base32(signed);
+    }
+
+    // Empty unless the code is a well-formed, correctly signed and unexpired ticket
+    public Optional<Ticket> verify(String code) {
+        if (!isTicket(code)) {
+            return Optional.empty();
+        }
+        byte[] signed = unbase32(code.substring(PREFIX.length()).trim());
+        if (signed == null || signed.length <= MAC_BYTES + 20) {
+            return Optional.empty();
+        }
+
+        byte[] payload = Arrays.copyOf(signed, signed.length - MAC_BYTES);
+        byte[] mac = Arrays.copyOfRange(signed, payload.length, signed.length);
+        if (!matches(signingKey, payload, mac) && (previousSigningKey == null || !matches(previousSigningKey, payload, mac))) {
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long eventId = readVarint(buffer);
+        long eventMemberId = readVarint(buffer);
+        if (eventId < 0 || eventMemberId < 0 || buffer.remaining() != 20) {
+            return Optional.empty();
+        }
+        UUID ticketToken = new UUID(buffer.getLong(), buffer.getLong());
+        long expiresAt = Integer.toUnsignedLong(buffer.getInt());
+        if (expiresAt * 1000 < System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Ticket(eventId, eventMemberId, ticketToken, expiresAt));
+    }
+
+    // Epoch seconds; fixed per event so a member's code does not change between requests
+    public long expiresAt(Event event) {
+        LocalDateTime from = event.getEventDate() != null ? event.getEventDate()
+                : event.getCreatedAt() != null ? event.getCreatedAt() : LocalDateTime.now();
+        return from.plusDays(validityDays).atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static boolean matches(byte[] key, byte[] payload, byte[] mac) {
+        return MessageDigest.isEqual(Arrays.copyOf(mac(key, payload), MAC_BYTES), mac);
+    }
+
+    private static byte[] mac(byte[] key, byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            mac.update(PREFIX.getBytes(StandardCharsets.US_ASCII));
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign ticket", e);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    // -1 when malformed
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 63 && buffer.hasRemaining(); shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    // RFC 4648 base32 without padding
+    private static String base32(byte[] data) {
+        StringBuilder out = new StringBuilder((data.length * 8 + 4) / 5);
+        int buffer = 0;
+        int bits = 0;
+        for (byte b : data) {
+            buffer = (buffer << 8) | (b & 0xFF);
+            bits += 8;
+            while (bits >= 5) {
+                out.append(BASE32[(buffer >>> (bits - 5)) & 0x1F]);
+                bits -= 5;
+            }
+        }
+        if (bits > 0) {
+            out.append(BASE32[(buffer << (5 - bits)) & 0x1F]);
+        }
+        return out.toString();
+    }
+
+    private static byte[] unbase32(String text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(text.length() * 5 / 8);
+        int buffer = 0;
+        int bits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toUpperCase(text.charAt(i));
+            int value = c >= 'A' && c <= 'Z' ? c - 'A' : c >= '2' && c <= '7' ? c - '2' + 26 : -1;
+            if (value < 0) {
+                return null;
+            }
+            buffer = (buffer << 5) | value;
+            bits += 5;
+            if (bits >= 8) {
+                out.write((buffer >>> (bits - 8)) & 0xFF);
+                bits -= 8;
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,256 @@
+package nz.etu.voting.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.dto.CheckinKeyRow;
+import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.domain.entity.SyncProgress;
+import nz.etu.voting.repository.EventMemberRepository;
+import nz.etu.voting.repository.SyncProgressRepository;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ticket pre-generation ahead of a bulk send. Every ticket holder of the event (see
+ * {@link EventMemberRepository#findTicketHolderKeyRows}) without a ticket token gets one in a single UPDATE, then
+ * their signed-ticket QR PNGs are rendered on a fork-join pool into the content-addressed store of
+ * {@link QRCodeService}, so the ticket pages and the images in ticket emails are served from disk instead of being
+ * rendered on the first view.
+ * <p>
+ * Jobs report progress through a {@link SyncProgress} row (type {@code TICKET_PREGENERATION}, polled at
+ * {@code /api/admin/sync/progress/{syncId}}); one job runs per event at a time, and re-running a job only renders
+ * tickets whose PNG is not stored yet.
+ */
+@Slf4j
+@Service
+public class TicketPregenerationService {
+
+    public static final String SYNC_TYPE = "TICKET_PREGENERATION";
+
+    private static final String ASSIGN_TICKET_TOKENS_SQL =
+            "UPDATE event_members SET ticket_token = gen_random_uuid(), " +
+            "ticket_status = COALESCE(ticket_status, 'GENERATED'), updated_at = now() " +
+            "WHERE event_id = ? AND ticket_token IS NULL " +
+            "AND (bmm_registration_stage = 'ATTENDANCE_CONFIRMED' OR is_attending = true) " +
+            "RETURNING id";
+
+    // Leaf size of the fork-join split, and how often progress is written back
+    private static final int RENDER_BATCH = 50;
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+
+    private final EventMemberRepository eventMemberRepository;
+    private final SyncProgressRepository syncProgressRepository;
+    private final QRCodeService qrCodeService;
+    private final SignedTicketService signedTicketService;
+    private final EventDataChangeListener eventDataChangeListener;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool pool;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // eventId -> syncId of the job in progress
+    private final Map<Long, String> running = new ConcurrentHashMap<>();
+
+    public TicketPregenerationService(EventMemberRepository eventMemberRepository,
+                                      SyncProgressRepository syncProgressRepository,
+                                      QRCodeService qrCodeService,
+                                      SignedTicketService signedTicketService,
+                                      EventDataChangeListener eventDataChangeListener,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${tickets.pregenerate.parallelism:0}") int parallelism) {
+        this.eventMemberRepository = eventMemberRepository;
+        this.syncProgressRepository = syncProgressRepository;
+        this.qrCodeService = qrCodeService;
+        this.signedTicketService = signedTicketService;
+        this.eventDataChangeListener = eventDataChangeListener;
+        this.transactionTemplate = transactionTemplate;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Assigns missing ticket tokens now and renders in the background; the running job when there already is one
+    public SyncProgress start(Event event, String createdBy) {
+        synchronized (running) {
+            String current = running.get(event.getId());
+            if (current != null) {
+                return syncProgressRepository.findBySyncId(current).orElseThrow();
+            }
+
+            int assigned = assignTicketTokens(event.getId());
+            List<CheckinKeyRow> holders = eventMemberRepository.findTicketHolderKeyRows(event.getId());
+
+            SyncProgress progress = syncProgressRepository.save(SyncProgress.builder()
+                    .syncId(UUID.randomUUID().toString())
+                    .syncType(SYNC_TYPE)
+                    .status(SyncProgress.SyncStatus.IN_PROGRESS)
+                    .totalRecords(holders.size())
+                    .processedRecords(0)
+                    .errorCount(0)
+                    .startTime(LocalDateTime.now())
+                    .message(String.format("Assigned %d ticket tokens", assigned))
+                    .createdBy(createdBy)
+                    .event(event)
+                    .build());
+            running.put(event.getId(), progress.getSyncId());
+
+            Job job = new Job(progress, holders, signedTicketService.expiresAt(event), assigned);
+            pool.execute(() -> run(job));
+            log.info("Ticket pre-generation {} started for event {}: {} ticket holders, {} tokens assigned",
+                    progress.getSyncId(), event.getId(), holders.size(), assigned);
+            return progress;
+        }
+    }
+
+    // One statement for every ticket holder still without a token; returns how many were assigned
+    public int assignTicketTokens(Long eventId) {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> assigned = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+                List<Long> result = new ArrayList<>();
+                try (PreparedStatement statement = connection.prepareStatement(ASSIGN_TICKET_TOKENS_SQL)) {
+                    statement.setLong(1, eventId);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            result.add(rs.getLong(1));
+                        }
+                    }
+                }
+                return result;
+            });
+            // 票据令牌也是扫码键，通知签到查找表和离线名单
+            assigned.forEach(id -> eventDataChangeListener.markChanged(eventId, id));
+            return assigned;
+        });
+        return ids != null ? ids.size() : 0;
+    }
+
+    private void run(Job job) {
+        String syncId = job.progress.getSyncId();
+        long start = System.currentTimeMillis();
+        try {
+            new RenderTask(job, 0, job.holders.size()).invoke();
+            job.finish(job.failed.get() == 0 ? SyncProgress.SyncStatus.COMPLETED : SyncProgress.SyncStatus.FAILED);
+            log.info("Ticket pre-generation {} finished in {} ms: {}", syncId, System.currentTimeMillis() - start, job.summary());
+        } catch (Exception e) {
+            log.error("Ticket pre-generation {} failed: {}", syncId, e.getMessage(), e);
+            job.finish(SyncProgress.SyncStatus.FAILED);
+        } finally {
+            running.remove(job.progress.getEvent().getId(), syncId);
+        }
+    }
+
+    private final class Job {
+        private final SyncProgress progress;
+        private final List<CheckinKeyRow> holders;
+        private final long ticketExpiry;
+        private final int assigned;
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger rendered = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private long reportedAt = System.currentTimeMillis();
+
+        private Job(SyncProgress progress, List<CheckinKeyRow> holders, long ticketExpiry, int assigned) {
+            this.progress = progress;
+            this.holders = holders;
+            this.ticketExpiry = ticketExpiry;
+            this.assigned = assigned;
+        }
+
+        private void render(CheckinKeyRow row) {
+            UUID ticketToken = row.ticketToken() != null ? row.ticketToken() : row.token();
+            try {
+                if (ticketToken != null && qrCodeService.pregenerate(
+                        signedTicketService.encode(row.eventId(), row.id(), ticketToken, ticketExpiry),
+                        qrCodeService.defaultSize())) {
+                    rendered.incrementAndGet();
+                }
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.warn("Failed to pre-generate ticket QR code for member {}: {}", row.id(), e.getMessage());
+            }
+            processed.incrementAndGet();
+        }
+
+        // At most one progress write per interval, from whichever worker gets here first
+        private void report() {
+            long now = System.currentTimeMillis();
+            synchronized (this) {
+                if (now - reportedAt < PROGRESS_INTERVAL_MS) {
+                    return;
+                }
+                reportedAt = now;
+                save();
+            }
+        }
+
+        private synchronized void finish(SyncProgress.SyncStatus status) {
+            progress.setStatus(status);
+            progress.setEndTime(LocalDateTime.now());
+            save();
+        }
+
+        private void save() {
+            progress.setProcessedRecords(processed.get());
+            progress.setErrorCount(failed.get());
+            progress.setMessage(summary());
+            try {
+                syncProgressRepository.save(progress);
+            } catch (Exception e) {
+                log.warn("Failed to save ticket pre-generation progress {}: {}", progress.getSyncId(), e.getMessage());
+            }
+        }
+
+        private String summary() {
+            return String.format("Assigned %d ticket tokens; %d of %d QR codes rendered, %d already stored, %d failed",
+                    assigned, rendered.get(), holders.size(), processed.get() - rendered.get() - failed.get(), failed.get());
+        }
+    }
+
+    // Halves the range until it is one batch, so idle workers steal the other halves
+    private static final class RenderTask extends RecursiveAction {
+        private final Job job;
+        private final int from;
+        private final int to;
+
+        private RenderTask(Job job, int from, int to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= RENDER_BATCH) {
+                for (int i = from; i < to; i++) {
+                    job.render(job.holders.get(i));
+                }
+                job.report();
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RenderTask(job, from, middle), new RenderTask(job, middle, to));
+        }
+    }
+}
@@ -10,6 +10,7 @@ import nz.etu.voting.domain.dto.request.NonAttendanceRequest;
 import nz.etu.voting.domain.dto.response.BmmAssignmentResponse;
 import nz.etu.voting.domain.dto.response.BmmStatistics;
 import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.domain.entity.EventCounter;
 import nz.etu.voting.domain.entity.EventMember;
 import nz.etu.voting.domain.entity.FinancialForm;
 import nz.etu.voting.domain.entity.NotificationTemplate;
@@ -19,6 +20,7 @@ import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.FinancialFormRepository;
 import nz.etu.voting.repository.NotificationTemplateRepository;
 import nz.etu.voting.service.BmmService;
+import nz.etu.voting.service.EventCounterService;
 import nz.etu.voting.service.NotificationService;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
@@ -40,6 +42,7 @@ public class BmmServiceImpl implements BmmService {
     private final EventRepository eventRepository;
     private final NotificationTemplateRepository notificationTemplateRepository;
     private final NotificationService notificationService;
+    private final EventCounterService eventCounterService;
     private final RabbitTemplate rabbitTemplate;
     private final ObjectMapper objectMapper;
 
@@ -455,37 +458,39 @@ public class BmmServiceImpl implements BmmService {
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new RuntimeException("Event not found with ID: " + eventId));
 
-        List<EventMember> allMembers = eventMemberRepository.findByEvent(event);
+        Map<String, Long> totals = eventCounterService.getEventTotals(event.getId());
 
         // Calculate overall statistics
         BmmStatistics statistics = BmmStatistics.builder()
-                .totalMembers((long) allMembers.size())
-                .preferenceSubmitted(countByStage(allMembers, "PREFERENCE_SUBMITTED"))
-                .venueAssigned(countByStage(allMembers, "VENUE_ASSIGNED"))
-                .attendanceConfirmed(countByField(allMembers, em -> Boolean.TRUE.equals(em.getAttendanceConfirmed())))
-                .attendanceDeclined(countByField(allMembers, em -> Boolean.FALSE.equals(em.getAttendanceConfirmed())))
-                .ticketsIssued(countByStage(allMembers, "TICKET_ISSUED"))
-                .checkedIn(countByStage(allMembers, "CHECKED_IN"))
-                .pendingInvitations(countByStage(allMembers, "INVITED"))
-                .pendingAssignments(countByStage(allMembers, "PREFERENCE_SUBMITTED"))
-                .pendingConfirmations(countByStage(allMembers, "VENUE_ASSIGNED"))
-                .pendingTickets(countByStage(allMembers, "ATTENDANCE_CONFIRMED"))
-                .specialVoteEligible(countByField(allMembers, em -> Boolean.TRUE.equals(em.getSpecialVoteEligible())))
-                .specialVoteRequested(countByField(allMembers, em -> Boolean.TRUE.equals(em.getSpecialVoteRequested())))
-                .specialVoteApproved(countByField(allMembers, em -> "APPROVED".equals(em.getBmmSpecialVoteStatus())))
-                .specialVoteCompleted(countByField(allMembers, em -> em.getSpecialVoteCompletedAt() != null))
-                .invitationEmailsSent(countByField(allMembers, em -> Boolean.TRUE.equals(em.getBmmInvitationSent())))
-                .confirmationRequestsSent(countByField(allMembers, em -> Boolean.TRUE.equals(em.getBmmConfirmationRequestSent())))
-                .ticketEmailsSent(countByField(allMembers, em -> em.getTicketEmailSentAt() != null))
-                .specialVoteLinksSent(countByField(allMembers, em -> em.getSpecialVoteSentAt() != null))
+                .totalMembers(counter(totals, EventCounter.Metric.MEMBERS))
+                .preferenceSubmitted(countByStage(totals, "PREFERENCE_SUBMITTED"))
+                .venueAssigned(countByStage(totals, "VENUE_ASSIGNED"))
+                .attendanceConfirmed(counter(totals, EventCounter.Metric.ATTENDANCE_CONFIRMED))
+                .attendanceDeclined(counter(totals, EventCounter.Metric.ATTENDANCE_DECLINED))
+                .ticketsIssued(countByStage(totals, "TICKET_ISSUED"))
+                .checkedIn(countByStage(totals, "CHECKED_IN"))
+                .pendingInvitations(countByStage(totals, "INVITED"))
+                .pendingAssignments(countByStage(totals, "PREFERENCE_SUBMITTED"))
+                .pendingConfirmations(countByStage(totals, "VENUE_ASSIGNED"))
+                .pendingTickets(countByStage(totals, "ATTENDANCE_CONFIRMED"))
+                .specialVoteEligible(counter(totals, EventCounter.Metric.SPECIAL_VOTE_ELIGIBLE))
+                .specialVoteRequested(counter(totals, EventCounter.Metric.SPECIAL_VOTE_REQUESTED))
+                .specialVoteApproved(counter(totals, EventCounter.Metric.SPECIAL_VOTE_APPROVED))
+                .specialVoteCompleted(counter(totals, EventCounter.Metric.SPECIAL_VOTE_COMPLETED))
+                .invitationEmailsSent(counter(totals, EventCounter.Metric.INVITATION_SENT))
+                .confirmationRequestsSent(counter(totals, EventCounter.Metric.CONFIRMATION_REQUEST_SENT))
+                .ticketEmailsSent(counter(totals, EventCounter.Metric.TICKET_EMAIL_SENT))
+                .specialVoteLinksSent(counter(totals, EventCounter.Metric.SPECIAL_VOTE_LINK_SENT))
                 .build();
 
         // Calculate regional statistics
-        Map<String, BmmStatistics.RegionalStats> regionalStats = calculateRegionalStats(allMembers);
+        Map<String, BmmStatistics.RegionalStats> regionalStats = calculateRegionalStats(
+                eventCounterService.getBreakdown(event.getId(), EventCounter.Dimension.REGION));
         statistics.setRegionalStats(regionalStats);
 
         // Calculate venue statistics
-        Map<String, BmmStatistics.VenueStats> venueStats = calculateVenueStats(allMembers);
+        Map<String, BmmStatistics.VenueStats> venueStats = calculateVenueStats(
+                eventCounterService.getBreakdown(event.getId(), EventCounter.Dimension.VENUE));
         statistics.setVenueStats(venueStats);
 
         log.info("Successfully calculated BMM statistics for event ID: {}", eventId);
@@ -797,39 +802,32 @@ public class BmmServiceImpl implements BmmService {
         }
     }
 
-    private Long countByStage(List<EventMember> members, String stage) {
-        return members.stream()
-                .filter(em -> stage.equals(em.getBmmStage()))
-                .count();
+    private Long countByStage(Map<String, Long> counters, String stage) {
+        return EventCounterService.count(counters, EventCounter.Metric.bmmStage(stage));
     }
 
-    private Long countByField(List<EventMember> members, java.util.function.Predicate<EventMember> condition) {
-        return members.stream()
-                .filter(condition)
-                .count();
+    private Long counter(Map<String, Long> counters, String metric) {
+        return EventCounterService.count(counters, metric);
     }
 
-    private Map<String, BmmStatistics.RegionalStats> calculateRegionalStats(List<EventMember> allMembers) {
+    private Map<String, BmmStatistics.RegionalStats> calculateRegionalStats(Map<String, Map<String, Long>> countersByRegion) {
         Map<String, BmmStatistics.RegionalStats> regionalStats = new HashMap<>();
 
-        Map<String, List<EventMember>> membersByRegion = allMembers.stream()
-                .collect(Collectors.groupingBy(EventMember::getRegionDesc));
-
-        for (Map.Entry<String, List<EventMember>> entry : membersByRegion.entrySet()) {
+        for (Map.Entry<String, Map<String, Long>> entry : countersByRegion.entrySet()) {
             String region = entry.getKey();
-            List<EventMember> members = entry.getValue();
+            Map<String, Long> counters = entry.getValue();
 
             BmmStatistics.RegionalStats stats = BmmStatistics.RegionalStats.builder()
                     .region(region)
-                    .totalMembers((long) members.size())
-                    .preferenceSubmitted(countByStage(members, "PREFERENCE_SUBMITTED"))
-                    .venueAssigned(countByStage(members, "VENUE_ASSIGNED"))
-                    .attendanceConfirmed(countByField(members, em -> Boolean.TRUE.equals(em.getAttendanceConfirmed())))
-                    .attendanceDeclined(countByField(members, em -> Boolean.FALSE.equals(em.getAttendanceConfirmed())))
-                    .ticketsIssued(countByStage(members, "TICKET_ISSUED"))
-                    .checkedIn(countByStage(members, "CHECKED_IN"))
-                    .specialVoteEligible(countByField(members, em -> Boolean.TRUE.equals(em.getSpecialVoteEligible())))
-                    .specialVoteRequested(countByField(members, em -> Boolean.TRUE.equals(em.getSpecialVoteRequested())))
+                    .totalMembers(counter(counters, EventCounter.Metric.MEMBERS))
+                    .preferenceSubmitted(countByStage(counters, "PREFERENCE_SUBMITTED"))
+                    .venueAssigned(countByStage(counters, "VENUE_ASSIGNED"))
+                    .attendanceConfirmed(counter(counters, EventCounter.Metric.ATTENDANCE_CONFIRMED))
+                    .attendanceDeclined(counter(counters, EventCounter.Metric.ATTENDANCE_DECLINED))
+                    .ticketsIssued(countByStage(counters, "TICKET_ISSUED"))
+                    .checkedIn(countByStage(counters, "CHECKED_IN"))
+                    .specialVoteEligible(counter(counters, EventCounter.Metric.SPECIAL_VOTE_ELIGIBLE))
+                    .specialVoteRequested(counter(counters, EventCounter.Metric.SPECIAL_VOTE_REQUESTED))
                     .build();
 
             regionalStats.put(region, stats);
@@ -838,25 +836,22 @@ public class BmmServiceImpl implements BmmService {
         return regionalStats;
     }
 
-    private Map<String, BmmStatistics.VenueStats> calculateVenueStats(List<EventMember> allMembers) {
+    private Map<String, BmmStatistics.VenueStats> calculateVenueStats(Map<String, Map<String, Long>> countersByVenue) {
         Map<String, BmmStatistics.VenueStats> venueStats = new HashMap<>();
 
-        Map<String, List<EventMember>> membersByVenue = allMembers.stream()
-                .filter(em -> em.getAssignedVenueFinal() != null)
-                .collect(Collectors.groupingBy(EventMember::getAssignedVenueFinal));
-
-        for (Map.Entry<String, List<EventMember>> entry : membersByVenue.entrySet()) {
+        for (Map.Entry<String, Map<String, Long>> entry : countersByVenue.entrySet()) {
             String venue = entry.getKey();
-            List<EventMember> members = entry.getValue();
+            Map<String, Long> counters = entry.getValue();
+            long assigned = counter(counters, EventCounter.Metric.MEMBERS);
 
             BmmStatistics.VenueStats stats = BmmStatistics.VenueStats.builder()
                     .venue(venue)
-                    .assigned((long) members.size())
-                    .confirmed(countByField(members, em -> Boolean.TRUE.equals(em.getAttendanceConfirmed())))
-                    .declined(countByField(members, em -> Boolean.FALSE.equals(em.getAttendanceConfirmed())))
-                    .checkedIn(countByStage(members, "CHECKED_IN"))
+                    .assigned(assigned)
+                    .confirmed(counter(counters, EventCounter.Metric.ATTENDANCE_CONFIRMED))
+                    .declined(counter(counters, EventCounter.Metric.ATTENDANCE_DECLINED))
+                    .checkedIn(countByStage(counters, "CHECKED_IN"))
                     .capacity(100) // Default capacity - would come from venue configuration
-                    .utilizationRate(members.size() / 100.0) // Utilization rate based on capacity
+                    .utilizationRate(assigned / 100.0) // Utilization rate based on capacity
                     .build();
 
             venueStats.put(venue, stats);
@@ -2,6 +2,8 @@ package nz.etu.voting.service.impl;
 
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nz.etu.voting.domain.dto.response.ImportResponse;
@@ -13,6 +15,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -36,8 +39,15 @@ public class ImportServiceImpl implements ImportService {
     private final MemberRepository memberRepository;
     private final VerificationCodeGenerator verificationCodeGenerator;
     private final RestTemplate restTemplate;
+    private final TransactionTemplate transactionTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${import.csv.chunk-size:500}")
+    private int csvChunkSize;
+
     @Value("${informer.base.url:https://etu-inf5-rsau.aptsolutions.net}")
     private String informerBaseUrl;
 
@@ -296,17 +306,12 @@ public class ImportServiceImpl implements ImportService {
         }
     }
 
+    // Not one transaction: every chunk of rows commits on its own, see importInChunks
     @Override
-    @Transactional
     public ImportResponse importMembersFromCsv(MultipartFile file) {
         if (file.isEmpty()) {
             throw new IllegalArgumentException("File is empty");
         }
-        List<String> errors = new ArrayList<>();
-        List<Member> membersToSave = new ArrayList<>();
-        int totalRecords = 0;
-        int successCount = 0;
-        int failureCount = 0;
 
         try (Reader reader = new InputStreamReader(file.getInputStream());
              CSVReader csvReader = new CSVReader(reader)) {
@@ -342,59 +347,23 @@ public class ImportServiceImpl implements ImportService {
                 }
             }
 
-            String[] line;
-            int rowNum = 1;
-            while ((line = csvReader.readNext()) != null) {
-                rowNum++;
-                totalRecords++;
-                try {
-                    Member member;
-                    if (isFinancialDeclarationFormat) {
-                        member = processFinancialDeclarationRow(line, headerMap, rowNum);
-                    } else {
-                        member = processRow(line, headerMap, rowNum);
-                    }
-
-                    membersToSave.add(member);
-                    successCount++;
-                } catch (Exception e) {
-                    failureCount++;
-                    errors.add("Row " + rowNum + ": " + e.getMessage());
-                    log.error("Error processing row {}: {}", rowNum, e.getMessage());
-                }
-            }
-
-            if (!membersToSave.isEmpty()) {
-                log.info("Saving {} members to database", membersToSave.size());
-                memberRepository.saveAll(membersToSave);
+            if (isFinancialDeclarationFormat) {
+                return importInChunks(csvReader, headerMap, "Membership Number", this::processFinancialDeclarationRow);
             }
+            return importInChunks(csvReader, headerMap, "membership_number", this::processRow);
         } catch (IOException | CsvValidationException e) {
             log.error("Error reading CSV file: {}", e.getMessage(), e);
             throw new IllegalArgumentException("Error reading CSV file: " + e.getMessage(), e);
         }
-
-        return ImportResponse.builder()
-                .total(totalRecords)
-                .success(successCount)
-                .failed(failureCount)
-                .errors(errors)
-                .build();
     }
 
     @Override
-    @Transactional
     public ImportResponse importMembersFromCsvWithDetails(MultipartFile file) {
         log.info("Starting CSV member import");
         if (file.isEmpty()) {
             throw new IllegalArgumentException("File is empty");
         }
 
-        List<String> errors = new ArrayList<>();
-        List<Member> membersToSave = new ArrayList<>();
-        int totalRecords = 0;
-        int successCount = 0;
-        int failureCount = 0;
-
         try (Reader reader = new InputStreamReader(file.getInputStream());
              CSVReader csvReader = new CSVReader(reader)) {
 
@@ -417,42 +386,136 @@ public class ImportServiceImpl implements ImportService {
                 throw new IllegalArgumentException("CSV must contain required columns: Member Number, Link to Member Primary Email, Link to Member Forename1, Link to Member Surname");
             }
 
-            String[] line;
-            int rowNum = 1;
-            while ((line = csvReader.readNext()) != null) {
-                rowNum++;
-                totalRecords++;
-                try {
-                    Member member = processSpecialMemberRow(line, headerMap, rowNum);
-                    membersToSave.add(member);
-                    successCount++;
-                } catch (Exception e) {
-                    failureCount++;
-                    errors.add("Row " + rowNum + ": " + e.getMessage());
-                    log.error("Error processing row {}: {}", rowNum, e.getMessage());
-                }
-            }
-
-            log.info("Processed {} records, success: {}, failed: {}", totalRecords, successCount, failureCount);
-
-            if (!membersToSave.isEmpty()) {
-                log.info("Saving {} members to database", membersToSave.size());
-                memberRepository.saveAll(membersToSave);
-            }
+            return importInChunks(csvReader, headerMap, "Member Number", this::processSpecialMemberRow);
         } catch (IOException | CsvValidationException e) {
             log.error("Error reading CSV file: {}", e.getMessage(), e);
             throw new IllegalArgumentException("Error reading CSV file: " + e.getMessage(), e);
         }
+    }
+
+    // Turns one CSV row into the member to save; existingMembers holds the chunk's members by membership number
+    @FunctionalInterface
+    private interface RowProcessor {
+        Member process(String[] row, Map<String, Integer> headerMap, int rowNum, Map<String, Member> existingMembers);
+    }
+
+    private record CsvRow(int rowNum, String[] values) {
+    }
 
+    private static final class ImportTotals {
+        private int total;
+        private int success;
+        private int failed;
+        private final List<String> errors = new ArrayList<>();
+
+        private void fail(int rowNum, String message) {
+            failed++;
+            errors.add("Row " + rowNum + ": " + message);
+        }
+    }
+
+    //    按块流式导入：每块 csvChunkSize 行，一次 IN 查询预取已有会员，整块在自己的事务中保存
+    private ImportResponse importInChunks(CSVReader csvReader, Map<String, Integer> headerMap, String keyHeader,
+                                          RowProcessor processor) throws IOException, CsvValidationException {
+        long start = System.currentTimeMillis();
+        ImportTotals totals = new ImportTotals();
+        List<CsvRow> chunk = new ArrayList<>(csvChunkSize);
+
+        String[] line;
+        int rowNum = 1;
+        while ((line = csvReader.readNext()) != null) {
+            rowNum++;
+            totals.total++;
+            chunk.add(new CsvRow(rowNum, line));
+            if (chunk.size() >= csvChunkSize) {
+                importChunk(chunk, headerMap, keyHeader, processor, totals);
+                chunk = new ArrayList<>(csvChunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, headerMap, keyHeader, processor, totals);
+        }
+
+        log.info("Imported {} CSV rows in {} ms, success: {}, failed: {}",
+                totals.total, System.currentTimeMillis() - start, totals.success, totals.failed);
         return ImportResponse.builder()
-                .total(totalRecords)
-                .success(successCount)
-                .failed(failureCount)
-                .errors(errors)
+                .total(totals.total)
+                .success(totals.success)
+                .failed(totals.failed)
+                .errors(totals.errors)
                 .build();
     }
 
-    private Member processRow(String[] row, Map<String, Integer> headerMap, int rowNum) {
+    // Row errors are recorded as they happen; if saving the chunk fails, its rows are retried one by one
+    // so the error is reported against the row that caused it
+    private void importChunk(List<CsvRow> chunk, Map<String, Integer> headerMap, String keyHeader,
+                             RowProcessor processor, ImportTotals totals) {
+        Set<String> membershipNumbers = new HashSet<>();
+        for (CsvRow row : chunk) {
+            String membershipNumber = getValueByHeader(row.values(), headerMap, keyHeader);
+            if (membershipNumber != null && !membershipNumber.trim().isEmpty()) {
+                membershipNumbers.add(membershipNumber.trim());
+            }
+        }
+
+        ImportTotals chunkTotals = new ImportTotals();
+        try {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Map<String, Member> existingMembers = new HashMap<>();
+                    if (!membershipNumbers.isEmpty()) {
+                        memberRepository.findByMembershipNumberIn(membershipNumbers)
+                                .forEach(member -> existingMembers.put(member.getMembershipNumber(), member));
+                    }
+
+                    // 同一文件中重复的会员号更新同一个实体，而不是插入第二个
+                    Set<Member> membersToSave = Collections.newSetFromMap(new IdentityHashMap<>());
+                    for (CsvRow row : chunk) {
+                        try {
+                            Member member = processor.process(row.values(), headerMap, row.rowNum(), existingMembers);
+                            existingMembers.put(member.getMembershipNumber(), member);
+                            membersToSave.add(member);
+                            chunkTotals.success++;
+                        } catch (Exception e) {
+                            chunkTotals.fail(row.rowNum(), e.getMessage());
+                            log.error("Error processing row {}: {}", row.rowNum(), e.getMessage());
+                        }
+                    }
+                    memberRepository.saveAll(membersToSave);
+                });
+            } finally {
+                // With open-in-view the request's EntityManager outlives the chunk transaction; clearing it keeps
+                // only the current chunk managed instead of dirty-checking every earlier row at each commit
+                entityManager.clear();
+            }
+        } catch (Exception e) {
+            if (chunk.size() == 1) {
+                totals.fail(chunk.get(0).rowNum(), "Failed to save member: " + rootCauseMessage(e));
+                log.error("Error saving row {}: {}", chunk.get(0).rowNum(), rootCauseMessage(e));
+                return;
+            }
+            log.warn("Failed to save rows {}-{}, retrying them one by one: {}", chunk.get(0).rowNum(),
+                    chunk.get(chunk.size() - 1).rowNum(), rootCauseMessage(e));
+            for (CsvRow row : chunk) {
+                importChunk(List.of(row), headerMap, keyHeader, processor, totals);
+            }
+            return;
+        }
+
+        totals.success += chunkTotals.success;
+        totals.failed += chunkTotals.failed;
+        totals.errors.addAll(chunkTotals.errors);
+    }
+
+    private static String rootCauseMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    private Member processRow(String[] row, Map<String, Integer> headerMap, int rowNum, Map<String, Member> existingMembers) {
         String name = getValueByHeader(row, headerMap, "name");
         String email = getValueByHeader(row, headerMap, "email");
         String membershipNumber = getValueByHeader(row, headerMap, "membership_number");
@@ -468,7 +531,7 @@ public class ImportServiceImpl implements ImportService {
         }
 
 //        检查是否已存在会员（优先按会员号查找）
-        Optional<Member> existingMemberByNumber = memberRepository.findByMembershipNumber(membershipNumber.trim());
+        Optional<Member> existingMemberByNumber = Optional.ofNullable(existingMembers.get(membershipNumber.trim()));
 
         if (existingMemberByNumber.isPresent()) {
 //            更新现有会员信息
@@ -536,7 +599,8 @@ public class ImportServiceImpl implements ImportService {
         setOptionalField(row, headerMap, "location", member::setLocation);
     }
 
-    private Member processSpecialMemberRow(String[] row, Map<String, Integer> headerMap, int rowNum) {
+    private Member processSpecialMemberRow(String[] row, Map<String, Integer> headerMap, int rowNum,
+                                           Map<String, Member> existingMembers) {
         try {
             log.debug("Processing row {}", rowNum);
 
@@ -570,7 +634,7 @@ public class ImportServiceImpl implements ImportService {
             String department = getValueByHeader(row, headerMap, "Link to Member Site Industry Desc");
             String jobTitle = getValueByHeader(row, headerMap, "Link to Member Site Sub Industry Desc");
 
-            Optional<Member> existingMemberByNumber = memberRepository.findByMembershipNumber(memberNumber.trim());
+            Optional<Member> existingMemberByNumber = Optional.ofNullable(existingMembers.get(memberNumber.trim()));
 
             if (existingMemberByNumber.isPresent()) {
                 Member existingMember = existingMemberByNumber.get();
@@ -649,7 +713,8 @@ public class ImportServiceImpl implements ImportService {
     }
 
     //    deal with Financial Declaration format
-    private Member processFinancialDeclarationRow(String[] row, Map<String, Integer> headerMap, int rowNum) {
+    private Member processFinancialDeclarationRow(String[] row, Map<String, Integer> headerMap, int rowNum,
+                                                   Map<String, Member> existingMembers) {
         try {
             log.debug("Processing Financial Declaration row {}", rowNum);
 
@@ -738,7 +803,7 @@ public class ImportServiceImpl implements ImportService {
             String payrollNumber = getValueByHeader(row, headerMap, "Payroll Number (if known)");
 
 //            if exist member
-            Optional<Member> existingMember = memberRepository.findByMembershipNumber(membershipNumber.trim());
+            Optional<Member> existingMember = Optional.ofNullable(existingMembers.get(membershipNumber.trim()));
 
             if (existingMember.isPresent()) {
 //                update member
@@ -358,17 +358,13 @@ public class MemberServiceImpl implements MemberService {
     public List<Map<String, Object>> quickSearchMembers(String searchTerm) {
         List<Map<String, Object>> results = new ArrayList<>();
 
+        // 转义LIKE通配符，按包含/前缀两种模式交给数据库（pg_trgm索引）排序和截断
+        String escaped = searchTerm.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        String pattern = "%" + escaped + "%";
+        String prefix = escaped + "%";
+
         // Search in Member table first
-        List<Member> members = memberRepository.findAll().stream()
-                .filter(member ->
-                        (member.getMembershipNumber() != null && member.getMembershipNumber().toLowerCase().contains(searchTerm.toLowerCase())) ||
-                                (member.getFore1() != null && member.getFore1().toLowerCase().contains(searchTerm.toLowerCase())) ||
-                                (member.getSurname() != null && member.getSurname().toLowerCase().contains(searchTerm.toLowerCase())) ||
-                                (member.getPrimaryEmail() != null && member.getPrimaryEmail().toLowerCase().contains(searchTerm.toLowerCase())) ||
-                                (member.getTelephoneMobile() != null && member.getTelephoneMobile().contains(searchTerm))
-                )
-                .limit(10)
-                .collect(Collectors.toList());
+        List<Member> members = memberRepository.quickSearch(searchTerm, pattern, prefix, 10);
 
         for (Member member : members) {
             Map<String, Object> result = new HashMap<>();
@@ -385,15 +381,7 @@ public class MemberServiceImpl implements MemberService {
         }
 
         // Also search in EventMember table for BMM-specific data
-        List<EventMember> eventMembers = eventMemberRepository.findAll().stream()
-                .filter(em ->
-                        (em.getMembershipNumber() != null && em.getMembershipNumber().toLowerCase().contains(searchTerm.toLowerCase())) ||
-                                (em.getName() != null && em.getName().toLowerCase().contains(searchTerm.toLowerCase())) ||
-                                (em.getPrimaryEmail() != null && em.getPrimaryEmail().toLowerCase().contains(searchTerm.toLowerCase())) ||
-                                (em.getTelephoneMobile() != null && em.getTelephoneMobile().contains(searchTerm))
-                )
-                .limit(5)
-                .collect(Collectors.toList());
+        List<EventMember> eventMembers = eventMemberRepository.quickSearch(searchTerm, pattern, prefix, 5);
 
         for (EventMember eventMember : eventMembers) {
             // Avoid duplicates
@@ -8,11 +8,17 @@ import nz.etu.voting.domain.entity.Member;
 import nz.etu.voting.repository.EventRepository;
 import nz.etu.voting.repository.EventMemberRepository;
 import nz.etu.voting.service.EmailService;
+import nz.etu.voting.service.EventMemberTargetingService;
+import nz.etu.voting.service.EventRoster;
+import nz.etu.voting.service.EventRosterService;
 import nz.etu.voting.service.SmartNotificationService;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -23,6 +29,8 @@ public class SmartNotificationServiceImpl implements SmartNotificationService {
     private final EventRepository eventRepository;
     private final EventMemberRepository eventMemberRepository;
     private final EmailService emailService;
+    private final EventRosterService eventRosterService;
+    private final EventMemberTargetingService eventMemberTargetingService;
 
     @Override
     @Transactional
@@ -116,60 +124,107 @@ public class SmartNotificationServiceImpl implements SmartNotificationService {
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new RuntimeException("Event not found"));
 
-        switch (emailType.toUpperCase()) {
-            case "INITIAL_INVITATION":
-                return eventMemberRepository.findMembersNeedingInitialEmail(event);
-            case "REGISTRATION_CONFIRMATION":
-                return since != null ?
-                        eventMemberRepository.findNewlyRegisteredMembersNeedingEmail(event, since) :
-                        eventMemberRepository.findMembersNeedingRegistrationConfirmation(event);
-            case "ATTENDANCE_CONFIRMATION":
-                return since != null ?
-                        eventMemberRepository.findAttendingMembersSince(event, since)
-                                .stream()
-                                .filter(member -> member.getAttendanceConfirmationEmailSent() != null && !member.getAttendanceConfirmationEmailSent())
-                                .collect(Collectors.toList()) :
-                        eventMemberRepository.findMembersNeedingAttendanceConfirmation(event);
-            case "QR_CODE":
-                return since != null ?
-                        eventMemberRepository.findNewlyAttendingMembersNeedingQRCode(event, since) :
-                        eventMemberRepository.findMembersNeedingQRCode(event);
-            case "FOLLOW_UP_REMINDER":
-                return eventMemberRepository.findMembersNeedingFollowUpReminder(event);
-            case "MANUFACTURING_FOOD_SURVEY":
-                return eventMemberRepository.findMembersByIndustryFields(event, "manufacturing food");
-            default:
-                return Collections.emptyList();
+        String type = emailType.toUpperCase();
+        if ("MANUFACTURING_FOOD_SURVEY".equals(type)) {
+//            按关联Member的行业/雇主模糊匹配，不在名册里
+            return eventMemberRepository.findMembersByIndustryFields(event, "manufacturing food");
+        }
+
+        Function<EventRoster, RoaringBitmap> audience = audience(type, since);
+        if (audience == null) {
+            return Collections.emptyList();
         }
+        List<Long> ids = eventRosterService.query(eventId, roster -> roster.ids(audience.apply(roster)));
+        return eventMemberTargetingService.loadEventMembers(ids);
     }
 
     @Override
     public Map<String, Long> getMemberFilterStats(Long eventId, LocalDateTime since) {
-        Event event = eventRepository.findById(eventId)
-                .orElseThrow(() -> new RuntimeException("Event not found"));
+        if (!eventRepository.existsById(eventId)) {
+            throw new RuntimeException("Event not found");
+        }
 
-        Map<String, Long> stats = new HashMap<>();
+//        所有计数都是事件名册位图的交集基数，不再逐条查询/加载成员
+        return eventRosterService.query(eventId, roster -> {
+            Map<String, Long> stats = new HashMap<>();
+
+//            基础统计
+            stats.put("totalMembers", (long) roster.liveCount());
+            stats.put("registeredMembers", count(roster, r -> roster.retain(r, EventRoster.Flag.HAS_REGISTERED, true)));
+            stats.put("attendingMembers", count(roster, r -> roster.retain(r, EventRoster.Flag.IS_ATTENDING, true)));
+            stats.put("specialVoteMembers", count(roster, r -> roster.retain(r, EventRoster.Flag.IS_SPECIAL_VOTE, true)));
+
+            if (since != null) {
+//                时间相关统计
+                stats.put("newRegistrationsSince", count(roster,
+                        r -> roster.retainSince(r, EventRoster.Time.REGISTRATION_COMPLETED, since)));
+                stats.put("newAttendeesSince", count(roster, r -> {
+                    roster.retain(r, EventRoster.Flag.IS_ATTENDING, true);
+                    roster.retainSince(r, EventRoster.Time.ATTENDANCE_DECIDED, since);
+                }));
+            }
 
-//        基础统计
-        stats.put("totalMembers", eventMemberRepository.countByEvent(event));
-        stats.put("registeredMembers", eventMemberRepository.countRegisteredByEvent(event));
-        stats.put("attendingMembers", eventMemberRepository.countAttendingByEvent(event));
-        stats.put("specialVoteMembers", eventMemberRepository.countSpecialVoteByEvent(event));
+//            邮件发送统计
+            stats.put("needingInitialEmail", (long) audience("INITIAL_INVITATION", null).apply(roster).getCardinality());
+            stats.put("needingRegistrationConfirmation", (long) audience("REGISTRATION_CONFIRMATION", null).apply(roster).getCardinality());
+            stats.put("needingAttendanceConfirmation", (long) audience("ATTENDANCE_CONFIRMATION", null).apply(roster).getCardinality());
+            stats.put("needingQRCode", (long) audience("QR_CODE", null).apply(roster).getCardinality());
+            stats.put("needingFollowUpReminder", (long) audience("FOLLOW_UP_REMINDER", null).apply(roster).getCardinality());
+            return stats;
+        });
+    }
 
-        if (since != null) {
-//            时间相关统计
-            stats.put("newRegistrationsSince", eventMemberRepository.countNewRegistrationsSince(event, since));
-            stats.put("newAttendeesSince", eventMemberRepository.countNewAttendeesSince(event, since));
-        }
+    private static long count(EventRoster roster, Consumer<RoaringBitmap> filter) {
+        RoaringBitmap rows = roster.all();
+        filter.accept(rows);
+        return rows.getCardinality();
+    }
 
-//        邮件发送统计
-        stats.put("needingInitialEmail", (long) eventMemberRepository.findMembersNeedingInitialEmail(event).size());
-        stats.put("needingRegistrationConfirmation", (long) eventMemberRepository.findMembersNeedingRegistrationConfirmation(event).size());
-        stats.put("needingAttendanceConfirmation", (long) eventMemberRepository.findMembersNeedingAttendanceConfirmation(event).size());
-        stats.put("needingQRCode", (long) eventMemberRepository.findMembersNeedingQRCode(event).size());
-        stats.put("needingFollowUpReminder", (long) eventMemberRepository.findMembersNeedingFollowUpReminder(event).size());
+    /**
+     * 各邮件类型的收件人条件，与 EventMemberRepository 中对应的 findMembersNeeding* / findNewly* 查询一致
+     * （"= false" 不匹配null）。不在名册里的类型返回null
+     */
+    private static Function<EventRoster, RoaringBitmap> audience(String emailType, LocalDateTime since) {
+        return switch (emailType) {
+            case "INITIAL_INVITATION" -> roster -> {
+                RoaringBitmap rows = roster.all();
+                roster.retain(rows, EventRoster.Flag.INITIAL_EMAIL_SENT, false);
+                return rows;
+            };
+            case "REGISTRATION_CONFIRMATION" -> roster -> {
+                RoaringBitmap rows = roster.all();
+                roster.retain(rows, EventRoster.Flag.HAS_REGISTERED, true);
+                if (since != null) {
+                    roster.retainSince(rows, EventRoster.Time.REGISTRATION_COMPLETED, since);
+                    roster.retain(rows, EventRoster.Flag.ATTENDANCE_CONFIRMATION_SENT, false);
+                } else {
+                    roster.retain(rows, EventRoster.Flag.REGISTRATION_CONFIRMATION_SENT, false);
+                }
+                return rows;
+            };
+            case "ATTENDANCE_CONFIRMATION" -> attendingSince(since, EventRoster.Flag.ATTENDANCE_CONFIRMATION_SENT);
+            case "QR_CODE" -> attendingSince(since, EventRoster.Flag.QR_CODE_SENT);
+            case "FOLLOW_UP_REMINDER" -> roster -> {
+                RoaringBitmap rows = roster.all();
+                roster.retain(rows, EventRoster.Flag.HAS_REGISTERED, false);
+                roster.retain(rows, EventRoster.Flag.FOLLOW_UP_SENT, false);
+                return rows;
+            };
+            default -> null;
+        };
+    }
 
-        return stats;
+    // Attending, not yet sent, and (with since) decided at or after since
+    private static Function<EventRoster, RoaringBitmap> attendingSince(LocalDateTime since, EventRoster.Flag sent) {
+        return roster -> {
+            RoaringBitmap rows = roster.all();
+            roster.retain(rows, EventRoster.Flag.IS_ATTENDING, true);
+            roster.retain(rows, sent, false);
+            if (since != null) {
+                roster.retainSince(rows, EventRoster.Time.ATTENDANCE_DECIDED, since);
+            }
+            return rows;
+        };
     }
 
     @Override
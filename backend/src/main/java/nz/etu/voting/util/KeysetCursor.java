@@ -0,0 +1,79 @@
+package nz.etu.voting.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque, URL-safe cursor for keyset (seek) pagination. It carries the sort key values of the last row served,
+ * e.g. {@code {"name": "Smith", "id": 4211}}, so the next page is an index seek on {@code (name, id) > (...)}
+ * rather than an OFFSET scan, and rows added or removed earlier in the listing do not shift later pages.
+ * <p>
+ * Only string and integral keys are supported; integral values always decode as Long.
+ */
+public final class KeysetCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(Map<String, ?> keys) {
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(keys);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encode cursor", e);
+        }
+    }
+
+    // Cursor after the last row of the window, or null when there is nothing further
+    public static String next(Window<?> window) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
+        }
+        return encode(((KeysetScrollPosition) window.positionAt(window.size() - 1)).getKeys());
+    }
+
+    // Cursor after the given row (entity or record projection) under the given sort
+    public static String after(Object row, Sort sort) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        sort.forEach(order -> keys.put(order.getProperty(), read(row, order.getProperty())));
+        return encode(keys);
+    }
+
+    public static KeysetScrollPosition decode(String cursor) {
+        Map<String, Object> raw;
+        try {
+            raw = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor.getBytes(StandardCharsets.US_ASCII)),
+                    new TypeReference<LinkedHashMap<String, Object>>() {
+                    });
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        raw.forEach((key, value) -> keys.put(key, value instanceof Number number ? number.longValue() : value));
+        return ScrollPosition.forward(keys);
+    }
+
+    private static Object read(Object row, String property) {
+        if (row instanceof Record) {
+            try {
+                return row.getClass().getMethod(property).invoke(row);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("No cursor key " + property + " on " + row.getClass().getSimpleName(), e);
+            }
+        }
+        return new BeanWrapperImpl(row).getPropertyValue(property);
+    }
+}
@@ -0,0 +1,513 @@
+-- Baseline: the schema as Hibernate (ddl-auto=update) built it for the last release before migrations were
+-- introduced. Existing databases are baselined at version 1 (spring.flyway.baseline-on-migrate) and skip this
+-- script; it only runs on an empty database. Nothing added after that release belongs here - it goes in V2 onwards.
+
+create table admins (
+    is_active boolean not null,
+    created_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    last_login timestamp(6),
+    updated_at timestamp(6),
+    name varchar(255) not null,
+    password varchar(255) not null,
+    primary_email varchar(255),
+    role varchar(255) not null,
+    username varchar(255) not null unique,
+    primary key (id)
+);
+
+create table event_members (
+    attendance_confirmation_email_sent boolean,
+    attendance_confirmed boolean,
+    attendance_likelihood_score float(53),
+    bmm_confirmation_request_sent boolean,
+    bmm_invitation_sent boolean,
+    checked_in boolean not null,
+    distance_from_venue float(53),
+    email_capable boolean,
+    email_sent boolean,
+    follow_up_reminder_sent boolean,
+    has_email boolean not null,
+    has_mobile boolean not null,
+    has_registered boolean not null,
+    has_voted boolean not null,
+    initial_email_sent boolean,
+    is_attending boolean not null,
+    is_special_vote boolean not null,
+    medical_certificate_provided boolean,
+    preference_special_vote boolean,
+    preferred_attending boolean,
+    qr_code_email_sent boolean,
+    registration_confirmation_email_sent boolean,
+    reminder_sent boolean,
+    sms_capable boolean,
+    sms_sent boolean,
+    special_vote_eligible boolean,
+    special_vote_requested boolean,
+    survey_completed boolean,
+    time_preference_priority integer,
+    venue_preference_priority integer,
+    verification_code varchar(6) not null,
+    assigned_date_time timestamp(6),
+    assigned_datetime_final timestamp(6),
+    attendance_confirmation_email_sent_at timestamp(6),
+    attendance_decision_at timestamp(6),
+    attendance_decision_made_at timestamp(6),
+    bmm_attendance_confirmed_at timestamp(6),
+    bmm_attendance_declined_at timestamp(6),
+    bmm_confirmation_request_sent_at timestamp(6),
+    bmm_invitation_sent_at timestamp(6),
+    bmm_last_interaction_at timestamp(6),
+    check_in_admin_id bigint,
+    check_in_time timestamp(6),
+    created_at timestamp(6) not null,
+    email_sent_at timestamp(6),
+    event_id bigint not null,
+    financial_form_id bigint,
+    follow_up_reminder_sent_at timestamp(6),
+    form_submission_time timestamp(6),
+    id bigint generated by default as identity,
+    imported_at timestamp(6),
+    initial_email_sent_at timestamp(6),
+    last_activity_at timestamp(6),
+    member_id bigint,
+    preference_submitted_at timestamp(6),
+    qr_code_email_sent_at timestamp(6),
+    registration_completed_at timestamp(6),
+    registration_confirmation_email_sent_at timestamp(6),
+    reminder_sent_at timestamp(6),
+    sms_sent_at timestamp(6),
+    special_vote_application_date timestamp(6),
+    special_vote_applied_at timestamp(6),
+    special_vote_completed_at timestamp(6),
+    special_vote_decision_date timestamp(6),
+    special_vote_reviewed_at timestamp(6),
+    special_vote_sent_at timestamp(6),
+    special_vote_submitted_date timestamp(6),
+    survey_completed_at timestamp(6),
+    ticket_email_sent_at timestamp(6),
+    ticket_generated_at timestamp(6),
+    ticket_sent_at timestamp(6),
+    ticket_sms_sent_at timestamp(6),
+    updated_at timestamp(6),
+    venue_assigned_at timestamp(6),
+    vote_timestamp timestamp(6),
+    ticket_token uuid unique,
+    token uuid not null unique,
+    absence_reason varchar(255),
+    add_res1 varchar(255),
+    add_res2 varchar(255),
+    add_res3 varchar(255),
+    add_res4 varchar(255),
+    add_res5 varchar(255),
+    add_res_pc varchar(255),
+    additional_comments TEXT,
+    address TEXT,
+    age_of_member varchar(255),
+    assigned_region varchar(255),
+    assigned_venue varchar(255),
+    assigned_venue_final varchar(255),
+    attendance_willingness varchar(255),
+    bargaining_group varchar(255),
+    bargaining_group_desc TEXT,
+    bmm_decline_reason varchar(255),
+    bmm_notes TEXT,
+    bmm_registration_stage varchar(255),
+    bmm_special_vote_status varchar(255),
+    bmm_stage varchar(255),
+    branch varchar(255),
+    check_in_admin_name varchar(255),
+    check_in_admin_username varchar(255),
+    check_in_location varchar(255),
+    check_in_method varchar(255),
+    check_in_venue varchar(255),
+    data_source varchar(255),
+    department varchar(255),
+    director_name varchar(255),
+    dob varchar(255),
+    employee_ref varchar(255),
+    employer varchar(255),
+    employer_work_requirement varchar(255),
+    employment_status varchar(255),
+    epmu_mem_type_desc varchar(255),
+    ethnic_origin_desc varchar(255),
+    ethnic_region_desc varchar(255),
+    financial_indicator_description varchar(255),
+    fore1 varchar(255),
+    forum_desc varchar(255),
+    gender_desc varchar(255),
+    import_batch_id varchar(255),
+    industry_filter_criteria varchar(255),
+    job_title varchar(255),
+    known_as varchar(255),
+    last_payment_date varchar(255),
+    location varchar(255),
+    meeting_format varchar(255),
+    member_email varchar(255),
+    member_name varchar(255),
+    member_token varchar(255) unique,
+    membership_number varchar(255) not null,
+    membership_type_desc varchar(255),
+    name varchar(255) not null,
+    non_attendance_reason varchar(255),
+    occupation varchar(255),
+    org_team_p_desc_epmu varchar(255),
+    payroll_number varchar(255),
+    phone_home varchar(255),
+    phone_work varchar(255),
+    preferred_dates_json TEXT,
+    preferred_times TEXT,
+    preferred_times_json TEXT,
+    preferred_venues TEXT,
+    preferred_venues_json TEXT,
+    primary_email varchar(255),
+    region varchar(255),
+    region_desc varchar(255),
+    registration_status varchar(255),
+    registration_step varchar(255),
+    site_code varchar(255),
+    site_industry_desc varchar(255),
+    site_prim_org_name varchar(255),
+    site_sub_industry_desc varchar(255),
+    special_vote_application_reason varchar(255),
+    special_vote_decision_by varchar(255),
+    special_vote_details TEXT,
+    special_vote_eligibility_reason varchar(255),
+    special_vote_preference varchar(255),
+    special_vote_reason varchar(255),
+    special_vote_review_notes TEXT,
+    special_vote_reviewed_by varchar(255),
+    special_vote_status varchar(255),
+    sub_ind_sector varchar(255),
+    suggested_venue TEXT,
+    surname varchar(255),
+    telephone_mobile varchar(255),
+    ticket_pdf_path varchar(255),
+    ticket_sent_method varchar(255),
+    ticket_status varchar(255),
+    venue_assigned_by varchar(255),
+    workplace varchar(255),
+    workplace_desc TEXT,
+    workplace_info TEXT,
+    bmm_preferences JSON,
+    registration_data JSON,
+    survey_responses JSON,
+    primary key (id)
+);
+
+create table event_templates (
+    allows_qr_checkin boolean,
+    email_notification_enabled boolean,
+    expected_participants integer,
+    is_active boolean,
+    is_default_template boolean,
+    max_distance_for_special_vote float(53),
+    requires_absence_reason boolean,
+    requires_attendance_confirmation boolean,
+    requires_medical_certificate boolean,
+    requires_special_vote_option boolean,
+    requires_survey_completion boolean,
+    sms_notification_enabled boolean,
+    special_vote_deadline_days integer,
+    created_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    attendance_question_text varchar(255),
+    created_by varchar(255),
+    email_template_content TEXT,
+    email_template_subject varchar(255),
+    event_type varchar(255) not null check (event_type in ('GENERAL_MEETING','SPECIAL_CONFERENCE','SURVEY_MEETING','BMM_VOTING','BALLOT_VOTING','ANNUAL_MEETING','WORKSHOP','UNION_MEETING')),
+    landing_page_description TEXT,
+    landing_page_title varchar(255),
+    registration_form_instructions TEXT,
+    registration_form_title varchar(255),
+    special_vote_question_text varchar(255),
+    success_message TEXT,
+    target_sub_industry varchar(255),
+    template_description TEXT,
+    template_name varchar(255) not null unique,
+    updated_by varchar(255),
+    default_informer_dataset_ids JSON,
+    enabled_regions JSON,
+    member_filter_criteria JSON,
+    region_specific_settings JSON,
+    registration_steps JSON,
+    reminder_schedule JSON,
+    special_vote_eligibility_criteria JSON,
+    survey_questions JSON,
+    primary key (id)
+);
+
+create table events (
+    attendee_sync_count integer,
+    auto_sync_enabled boolean,
+    email_members_sync_count integer,
+    email_sent_count integer,
+    is_active boolean not null,
+    is_registration_enabled boolean,
+    is_voting_enabled boolean not null,
+    max_attendees integer,
+    member_sync_count integer,
+    qr_scan_enabled boolean,
+    registration_open boolean not null,
+    sms_members_sync_count integer,
+    sms_sent_count integer,
+    total_invited integer,
+    created_at timestamp(6) not null,
+    event_date timestamp(6),
+    event_template_id bigint,
+    id bigint generated by default as identity,
+    last_attendee_sync_time timestamp(6),
+    last_email_members_sync_time timestamp(6),
+    last_sms_members_sync_time timestamp(6),
+    last_sync_time timestamp(6),
+    scan_link_expires_at timestamp(6),
+    updated_at timestamp(6),
+    attendee_dataset_id varchar(255),
+    banner_image_url varchar(255),
+    custom_email_template TEXT,
+    custom_landing_page_description TEXT,
+    custom_landing_page_title varchar(255),
+    custom_registration_instructions TEXT,
+    dataset_id varchar(255) not null,
+    description TEXT,
+    display_template varchar(255),
+    event_code varchar(255) not null unique,
+    event_type varchar(255) not null check (event_type in ('GENERAL_MEETING','SPECIAL_CONFERENCE','SURVEY_MEETING','BMM_VOTING','BALLOT_VOTING','ANNUAL_MEETING','WORKSHOP','UNION_MEETING')),
+    informer_attendee_url TEXT,
+    informer_email_members_url TEXT,
+    informer_sms_members_url TEXT,
+    name varchar(255) not null,
+    organizer_scan_token varchar(255),
+    page_content TEXT,
+    primary_region varchar(255),
+    sync_schedule varchar(255),
+    sync_status varchar(255) not null check (sync_status in ('PENDING','IN_PROGRESS','SUCCESS','FAILED','PARTIAL')),
+    theme_color varchar(255),
+    venue varchar(255),
+    custom_fields jsonb,
+    event_config jsonb,
+    override_template_settings jsonb,
+    registration_flow jsonb,
+    target_regions jsonb,
+    primary key (id)
+);
+
+create table financial_forms (
+    version integer,
+    approved_at timestamp(6),
+    created_at timestamp(6) not null,
+    event_id bigint,
+    event_member_id bigint not null,
+    id bigint generated by default as identity,
+    stratum_sync_attempted_at timestamp(6),
+    stratum_sync_succeeded_at timestamp(6),
+    updated_at timestamp(6),
+    approval_status varchar(50),
+    form_type varchar(50),
+    ip_address varchar(50),
+    stratum_sync_status varchar(50),
+    update_source varchar(50),
+    updated_by varchar(100),
+    approved_by varchar(255),
+    member_name varchar(255),
+    membership_number varchar(255),
+    notes TEXT,
+    primary_email varchar(255),
+    rejection_reason TEXT,
+    stratum_sync_error TEXT,
+    telephone_mobile varchar(255),
+    updated_fields TEXT,
+    after_data JSON,
+    before_data JSON,
+    primary key (id)
+);
+
+create table members (
+    checked_in boolean,
+    dob_legacy date,
+    has_email boolean,
+    has_mobile boolean,
+    has_registered boolean not null,
+    has_voted boolean not null,
+    is_attending boolean not null,
+    is_special_vote boolean not null,
+    send_retry_count integer,
+    verification_code varchar(6) not null,
+    check_in_admin_id bigint,
+    check_in_time timestamp(6),
+    checkin_time timestamp(6),
+    created_at timestamp(6) not null,
+    email_sent_at timestamp(6),
+    id bigint generated by default as identity,
+    last_sync_time timestamp(6),
+    sms_sent_at timestamp(6),
+    updated_at timestamp(6),
+    token uuid not null unique,
+    absence_reason varchar(255),
+    add_res1 varchar(255),
+    add_res2 varchar(255),
+    add_res3 varchar(255),
+    add_res4 varchar(255),
+    add_res5 varchar(255),
+    add_res_pc varchar(255),
+    address varchar(255),
+    age_of_member varchar(255),
+    bargaining_group_desc TEXT,
+    branch_desc varchar(255),
+    check_in_admin_name varchar(255),
+    check_in_admin_username varchar(255),
+    check_in_location varchar(255),
+    check_in_method varchar(255),
+    check_in_venue varchar(255),
+    created_by varchar(255),
+    data_source varchar(255),
+    department varchar(255),
+    director_name varchar(255),
+    dob varchar(255),
+    email_sent_status varchar(255),
+    employee_ref varchar(255),
+    employer varchar(255),
+    employer_name varchar(255),
+    employment_status varchar(255),
+    epmu_mem_type_desc varchar(255),
+    ethnic_origin_desc varchar(255),
+    ethnic_region_desc varchar(255),
+    financial_indicator varchar(255),
+    fore1 varchar(255),
+    forum_desc varchar(255),
+    gender_desc varchar(255),
+    import_batch_id varchar(255),
+    job_title varchar(255),
+    known_as varchar(255),
+    last_email_template varchar(255),
+    last_payment_date varchar(255),
+    location varchar(255),
+    membership_number varchar(255) not null unique,
+    membership_type_desc varchar(255),
+    name varchar(255) not null,
+    occupation varchar(255),
+    org_team_p_desc_epmu varchar(255),
+    payroll_number varchar(255),
+    phone_home varchar(255),
+    phone_work varchar(255),
+    primary_email varchar(255),
+    region_desc varchar(255),
+    send_error_message varchar(255),
+    site_code varchar(255),
+    site_industry_desc varchar(255),
+    site_prim_org_name varchar(255),
+    site_sub_industry_desc varchar(255),
+    sms_sent_status varchar(255),
+    sub_ind_sector varchar(255),
+    surname varchar(255),
+    sync_status varchar(255),
+    telephone_mobile varchar(255),
+    updated_by varchar(255),
+    venue varchar(255),
+    workplace_desc TEXT,
+    primary key (id)
+);
+
+create table notification_logs (
+    is_successful boolean not null,
+    admin_id bigint,
+    event_id bigint,
+    event_member_id bigint,
+    id bigint generated by default as identity,
+    member_id bigint,
+    sent_time timestamp(6),
+    admin_username varchar(255),
+    content TEXT,
+    email_type varchar(255),
+    error_message varchar(255),
+    notification_type varchar(255) not null check (notification_type in ('EMAIL','SMS','AUTO_EMAIL','AUTO_SMS')),
+    recipient varchar(255),
+    recipient_name varchar(255),
+    subject varchar(255),
+    template_code varchar(255),
+    primary key (id)
+);
+
+create table notification_templates (
+    is_active boolean not null,
+    created_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    content TEXT not null,
+    description TEXT,
+    name varchar(255) not null,
+    subject varchar(255) not null,
+    template_code varchar(255) not null unique,
+    template_type varchar(255) not null check (template_type in ('EMAIL','SMS','BOTH')),
+    primary key (id)
+);
+
+create table organizer_tokens (
+    is_active boolean not null,
+    created_at timestamp(6) not null,
+    event_id bigint not null,
+    expires_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    organizer_email varchar(255),
+    organizer_name varchar(255) not null,
+    token varchar(255) not null unique,
+    primary key (id)
+);
+
+create table sync_progress (
+    error_count integer,
+    processed_records integer,
+    total_records integer,
+    end_time timestamp(6),
+    event_id bigint,
+    id bigint generated by default as identity,
+    start_time timestamp(6),
+    created_by varchar(255),
+    message varchar(255),
+    status varchar(255) not null check (status in ('PENDING','IN_PROGRESS','COMPLETED','FAILED','CANCELLED')),
+    sync_id varchar(255) not null unique,
+    sync_type varchar(255) not null,
+    primary key (id)
+);
+
+alter table if exists event_members
+   add constraint FKaa8h6gi3vaheiptt7ben9qgn7
+   foreign key (event_id)
+   references events;
+
+alter table if exists event_members
+   add constraint FKjsw5l9gmdvtbpkhbdwy043sh3
+   foreign key (member_id)
+   references members;
+
+alter table if exists events
+   add constraint FKtbxk476ahq3uyw26x4ml0sd67
+   foreign key (event_template_id)
+   references event_templates;
+
+alter table if exists notification_logs
+   add constraint FKsy1mq57spqgied50sd0eqwyep
+   foreign key (event_id)
+   references events;
+
+alter table if exists notification_logs
+   add constraint FK68q4ka3q2agnrmuywhrjliot5
+   foreign key (event_member_id)
+   references event_members;
+
+alter table if exists notification_logs
+   add constraint FKj4xc1f7opo7jnse2jehvuo8f2
+   foreign key (member_id)
+   references members;
+
+alter table if exists organizer_tokens
+   add constraint FK3c6e0fb3twg0vvh227oxsmpqm
+   foreign key (event_id)
+   references events;
+
+alter table if exists sync_progress
+   add constraint FKoqsdh4a9qfscjhoy7nuf27a4r
+   foreign key (event_id)
+   references events;
@@ -0,0 +1,42 @@
+-- Indexes for the token lookups and per-event filters on the check-in, registration and messaging paths.
+-- Plain (non-concurrent) builds: event_members / notification_logs are tens of thousands of rows per event,
+-- so the short write lock during deployment is acceptable and the whole script stays transactional.
+
+-- Token columns are unique in the entity model, but databases whose columns were added by ddl-auto=update
+-- may lack the constraint; only index them where no btree index already leads with the column.
+CREATE OR REPLACE FUNCTION pg_temp.create_index_unless_covered(tbl regclass, col name, ddl text) RETURNS void AS $$
+BEGIN
+    IF NOT EXISTS (SELECT 1
+                   FROM pg_index i
+                            JOIN pg_class c ON c.oid = i.indexrelid
+                            JOIN pg_am am ON am.oid = c.relam
+                            JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = i.indkey[0]
+                   WHERE i.indrelid = tbl AND am.amname = 'btree' AND a.attname = col) THEN
+        EXECUTE ddl;
+    END IF;
+END
+$$ LANGUAGE plpgsql;
+
+SELECT pg_temp.create_index_unless_covered('event_members', 'token',
+    'CREATE INDEX idx_event_members_token ON event_members (token)');
+SELECT pg_temp.create_index_unless_covered('event_members', 'ticket_token',
+    'CREATE INDEX idx_event_members_ticket_token ON event_members (ticket_token)');
+SELECT pg_temp.create_index_unless_covered('event_members', 'member_token',
+    'CREATE INDEX idx_event_members_member_token ON event_members (member_token)');
+
+-- findByEventAndMembershipNumber: manual / bulk check-in, registration, imports
+CREATE INDEX IF NOT EXISTS idx_event_members_event_membership_number ON event_members (event_id, membership_number);
+
+-- findByPrimaryEmail: email verification and unsubscribe lookups
+CREATE INDEX IF NOT EXISTS idx_event_members_primary_email ON event_members (primary_email);
+
+-- Stage and forum filters; (event_id, region_desc) is the prefix of idx_event_members_event_region_name (V8)
+CREATE INDEX IF NOT EXISTS idx_event_members_event_registration_stage ON event_members (event_id, bmm_registration_stage);
+CREATE INDEX IF NOT EXISTS idx_event_members_event_forum ON event_members (event_id, forum_desc);
+
+-- Checked-in attendee lists, newest first (findCheckedInRowsByEventId); only the checked-in minority is indexed
+CREATE INDEX IF NOT EXISTS idx_event_members_event_checked_in_time ON event_members (event_id, check_in_time DESC NULLS LAST, id DESC)
+    WHERE checked_in = true;
+
+-- Per-recipient send history and resend throttling (findByRecipientAndNotificationType...)
+CREATE INDEX IF NOT EXISTS idx_notification_logs_recipient_type_time ON notification_logs (recipient, notification_type, sent_time);
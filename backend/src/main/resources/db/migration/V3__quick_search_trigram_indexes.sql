@@ -0,0 +1,27 @@
+-- pg_trgm GIN indexes behind the admin quick search (MemberRepository / EventMemberRepository.quickSearch).
+-- Creating the extension needs sufficient privileges; without it the search queries still work, just without
+-- index support, so a missing extension is reported and skipped rather than failing the migration.
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS pg_trgm;
+EXCEPTION
+    WHEN OTHERS THEN
+        RAISE WARNING 'pg_trgm extension unavailable, quick search will run without trigram indexes: %', SQLERRM;
+END
+$$;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        CREATE INDEX IF NOT EXISTS idx_members_membership_number_trgm ON members USING gin (membership_number gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_members_fore1_trgm ON members USING gin (fore1 gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_members_surname_trgm ON members USING gin (surname gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_members_primary_email_trgm ON members USING gin (primary_email gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_members_telephone_mobile_trgm ON members USING gin (telephone_mobile gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_event_members_membership_number_trgm ON event_members USING gin (membership_number gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_event_members_name_trgm ON event_members USING gin (name gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_event_members_primary_email_trgm ON event_members USING gin (primary_email gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_event_members_telephone_mobile_trgm ON event_members USING gin (telephone_mobile gin_trgm_ops);
+    END IF;
+END
+$$;
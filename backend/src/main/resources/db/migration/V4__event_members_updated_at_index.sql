@@ -0,0 +1,2 @@
+-- Offline scanner roster deltas: members of an event changed since the device's roster version
+CREATE INDEX IF NOT EXISTS idx_event_members_event_updated_at ON event_members (event_id, updated_at);
@@ -0,0 +1,24 @@
+-- Background export jobs (ExportJobService); files live in the local export store until expires_at
+CREATE TABLE IF NOT EXISTS export_jobs (
+    id bigint generated by default as identity,
+    job_id varchar(255) not null unique,
+    event_id bigint not null,
+    export_type varchar(255) not null,
+    category varchar(255),
+    format varchar(255) not null check (format in ('XLSX','CSV','CSV_GZIP')),
+    request_key varchar(255) not null,
+    status varchar(255) not null check (status in ('PENDING','RUNNING','COMPLETED','FAILED','EXPIRED')),
+    file_name varchar(255),
+    file_size bigint,
+    row_count integer,
+    error_message varchar(1000),
+    created_by varchar(255),
+    created_at timestamp(6) not null,
+    started_at timestamp(6),
+    completed_at timestamp(6),
+    expires_at timestamp(6),
+    primary key (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_export_jobs_event_created ON export_jobs (event_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_export_jobs_status_expires ON export_jobs (status, expires_at);
@@ -0,0 +1,12 @@
+-- Live per-event counters (EventCounterService), maintained by deltas and reconciled against event_members
+CREATE TABLE IF NOT EXISTS event_counters (
+    id bigint generated by default as identity,
+    event_id bigint not null,
+    dimension varchar(20) not null check (dimension in ('EVENT','REGION','FORUM','VENUE')),
+    bucket varchar(255) not null,
+    metric varchar(100) not null,
+    count bigint not null,
+    updated_at timestamp(6),
+    primary key (id),
+    constraint uk_event_counters_key unique (event_id, dimension, bucket, metric)
+);
@@ -0,0 +1,4 @@
+-- Notification stats and timeline aggregates (per event and type over time, per member history, global timeline)
+CREATE INDEX IF NOT EXISTS idx_notification_logs_event_type_time ON notification_logs (event_id, notification_type, sent_time);
+CREATE INDEX IF NOT EXISTS idx_notification_logs_event_member_time ON notification_logs (event_member_id, sent_time);
+CREATE INDEX IF NOT EXISTS idx_notification_logs_sent_time ON notification_logs (sent_time);
@@ -0,0 +1,4 @@
+-- Keyset pagination for the admin member listings: (event, id), (event, name, id) and (event, region, name, id)
+CREATE INDEX IF NOT EXISTS idx_event_members_event_id ON event_members (event_id, id);
+CREATE INDEX IF NOT EXISTS idx_event_members_event_name ON event_members (event_id, name, id);
+CREATE INDEX IF NOT EXISTS idx_event_members_event_region_name ON event_members (event_id, region_desc, name, id);
@@ -0,0 +1,23 @@
+-- Saved audience segments (AudienceSegmentService) and their materialised members
+CREATE TABLE IF NOT EXISTS audience_segments (
+    id bigint generated by default as identity,
+    event_id bigint not null,
+    name varchar(255) not null,
+    criteria_json TEXT not null,
+    member_count bigint not null,
+    created_by varchar(255),
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    refreshed_at timestamp(6),
+    primary key (id),
+    constraint uk_audience_segments_event_name unique (event_id, name)
+);
+
+-- Member walks are by segment_id; lookups by member (removing a changed member from every segment) use the index
+CREATE TABLE IF NOT EXISTS audience_segment_members (
+    segment_id bigint not null,
+    event_member_id bigint not null,
+    primary key (segment_id, event_member_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_audience_segment_members_member ON audience_segment_members (event_member_id);
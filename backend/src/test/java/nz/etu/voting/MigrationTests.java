@@ -0,0 +1,151 @@
+package nz.etu.voting;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrade path for a database created by the release before migrations: the application starts against a schema
+ * holding only the V1 baseline tables and no Flyway history, so it is baselined at version 1, gets V2 onwards and
+ * must then pass Hibernate's schema validation. The upgraded schema has to match one migrated from empty.
+ * Runs in scratch schemas of the configured local database.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.schemas=" + MigrationTests.SCHEMA,
+        "spring.flyway.default-schema=" + MigrationTests.SCHEMA,
+        "spring.jpa.properties.hibernate.default_schema=" + MigrationTests.SCHEMA,
+        "spring.datasource.hikari.connection-init-sql=SET search_path TO " + MigrationTests.SCHEMA + ", public",
+        "counters.reconcile.enabled=false"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MigrationTests {
+
+    static final String SCHEMA = "migration_test";
+    private static final String FRESH_SCHEMA = "migration_test_fresh";
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+            "create\\s+table\\s+(?:if\\s+not\\s+exists\\s+)?(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    // Tables of the baseline schema, before V2 onwards ran
+    private static final List<String> baselineTables = new ArrayList<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Recreates the pre-migration database (V1 only, no history) before the application's own migrate runs
+    @TestConfiguration
+    static class BaselineSchema {
+        @Bean
+        FlywayMigrationStrategy baselineThenMigrate() {
+            return flyway -> {
+                try (Connection connection = flyway.getConfiguration().getDataSource().getConnection();
+                     Statement statement = connection.createStatement()) {
+                    statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+                    statement.execute("CREATE SCHEMA " + SCHEMA);
+                    statement.execute("SET search_path TO " + SCHEMA);
+                    ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V1__baseline.sql"));
+                    try (ResultSet tables = statement.executeQuery(
+                            "SELECT tablename FROM pg_tables WHERE schemaname = '" + SCHEMA + "'")) {
+                        while (tables.next()) {
+                            baselineTables.add(tables.getString(1));
+                        }
+                    }
+                    statement.execute("SET search_path TO " + SCHEMA + ", public");
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to create the baseline schema", e);
+                }
+                flyway.migrate();
+            };
+        }
+    }
+
+    @AfterAll
+    void dropSchemas() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + FRESH_SCHEMA + " CASCADE");
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void preMigrationDatabaseIsBaselinedAndUpgraded() {
+        List<Map<String, Object>> history = jdbcTemplate.queryForList(
+                "SELECT version, type, success FROM " + SCHEMA + ".flyway_schema_history ORDER BY installed_rank");
+
+        assertThat(history).isNotEmpty();
+        assertThat(history.get(0)).containsEntry("version", "1").containsEntry("type", "BASELINE");
+        assertThat(history).allSatisfy(row -> assertThat(row).containsEntry("success", true));
+        assertThat(history).extracting(row -> row.get("version")).contains("2", "6", "9");
+    }
+
+    // A table created by a later migration must not already be in the baseline, or baselined databases never get it
+    @Test
+    void baselineHoldsNoTableOfLaterMigrations() throws IOException {
+        List<String> laterTables = new ArrayList<>();
+        for (Resource script : new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/V*.sql")) {
+            if (script.getFilename() == null || script.getFilename().startsWith("V1__")) {
+                continue;
+            }
+            Matcher matcher = CREATE_TABLE.matcher(script.getContentAsString(StandardCharsets.UTF_8));
+            while (matcher.find()) {
+                laterTables.add(matcher.group(1).toLowerCase(Locale.ROOT));
+            }
+        }
+
+        assertThat(baselineTables).isNotEmpty();
+        assertThat(laterTables).isNotEmpty().doesNotContainAnyElementsOf(baselineTables);
+    }
+
+    @Test
+    void upgradedSchemaMatchesSchemaMigratedFromEmpty() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + FRESH_SCHEMA + " CASCADE");
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(FRESH_SCHEMA)
+                .defaultSchema(FRESH_SCHEMA)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        assertThat(columns(SCHEMA)).isEqualTo(columns(FRESH_SCHEMA));
+        assertThat(indexes(SCHEMA)).isEqualTo(indexes(FRESH_SCHEMA));
+    }
+
+    private List<String> columns(String schema) {
+        return jdbcTemplate.queryForList(
+                "SELECT table_name || '.' || column_name || ' ' || data_type || ' ' || is_nullable " +
+                "FROM information_schema.columns WHERE table_schema = ? AND table_name <> 'flyway_schema_history' " +
+                "ORDER BY 1", String.class, schema);
+    }
+
+    private List<String> indexes(String schema) {
+        return jdbcTemplate.queryForList(
+                "SELECT replace(indexdef, schemaname || '.', '') FROM pg_indexes " +
+                "WHERE schemaname = ? AND tablename <> 'flyway_schema_history' ORDER BY 1", String.class, schema);
+    }
+}
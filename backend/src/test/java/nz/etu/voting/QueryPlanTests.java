@@ -0,0 +1,92 @@
+package nz.etu.voting;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EXPLAIN checks for the hot lookups against the migrated schema. Sequential scans are disabled for the
+ * transaction so the planner picks an index whenever one applies, whatever the size of the test data;
+ * a remaining Seq Scan means the query has no usable index.
+ */
+@SpringBootTest
+class QueryPlanTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void tokenLookupsUseIndexes() {
+        assertIndexed("SELECT * FROM event_members WHERE token = '00000000-0000-0000-0000-000000000000'");
+        assertIndexed("SELECT * FROM event_members WHERE ticket_token = '00000000-0000-0000-0000-000000000000'");
+        assertIndexed("SELECT * FROM event_members WHERE member_token = 'x'");
+        assertIndexed("SELECT * FROM members WHERE token = '00000000-0000-0000-0000-000000000000'");
+    }
+
+    @Test
+    void membershipNumberAndEmailLookupsUseIndexes() {
+        assertIndexed("SELECT * FROM event_members WHERE event_id = 1 AND membership_number = '123456'",
+                "idx_event_members_event_membership_number");
+        assertIndexed("SELECT * FROM event_members WHERE primary_email = 'someone@example.com'",
+                "idx_event_members_primary_email");
+        assertIndexed("SELECT * FROM members WHERE membership_number = '123456'");
+    }
+
+    @Test
+    void perEventFiltersUseIndexes() {
+        assertIndexed("SELECT * FROM event_members WHERE event_id = 1 AND bmm_registration_stage = 'PREFERENCE_SUBMITTED'",
+                "idx_event_members_event_registration_stage");
+        assertIndexed("SELECT * FROM event_members WHERE event_id = 1 AND region_desc = 'Northern'");
+        assertIndexed("SELECT * FROM event_members WHERE event_id = 1 AND forum_desc = 'Auckland'",
+                "idx_event_members_event_forum");
+    }
+
+    @Test
+    void checkedInListUsesPartialIndexInOrder() {
+        List<String> plan = explain("SELECT id FROM event_members WHERE event_id = 1 AND checked_in = true " +
+                "ORDER BY check_in_time DESC NULLS LAST, id DESC LIMIT 50");
+        assertThat(String.join("\n", plan))
+                .contains("idx_event_members_event_checked_in_time")
+                .doesNotContain("Seq Scan")
+                .doesNotContain("Sort");
+    }
+
+    @Test
+    void notificationLogQueriesUseIndexes() {
+        assertIndexed("SELECT * FROM notification_logs WHERE event_member_id = 1 ORDER BY sent_time DESC");
+        assertIndexed("SELECT * FROM notification_logs WHERE recipient = 'someone@example.com' " +
+                "AND notification_type = 'EMAIL' AND sent_time > now() - interval '1 day'",
+                "idx_notification_logs_recipient_type_time");
+    }
+
+    @Test
+    void segmentMemberWalkUsesPrimaryKey() {
+        assertIndexed("SELECT event_member_id FROM audience_segment_members WHERE segment_id = 1 " +
+                "AND event_member_id > 0 ORDER BY event_member_id LIMIT 500", "audience_segment_members_pkey");
+    }
+
+    private void assertIndexed(String sql, String... expectedIndexes) {
+        String plan = String.join("\n", explain(sql));
+        assertThat(plan).as(sql).doesNotContain("Seq Scan");
+        for (String index : expectedIndexes) {
+            assertThat(plan).as(sql).contains(index);
+        }
+    }
+
+    private List<String> explain(String sql) {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        });
+    }
+}
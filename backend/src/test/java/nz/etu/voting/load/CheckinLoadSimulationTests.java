@@ -0,0 +1,396 @@
+package nz.etu.voting.load;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import nz.etu.voting.domain.entity.Event;
+import nz.etu.voting.repository.EventRepository;
+import nz.etu.voting.service.CheckinCacheService;
+import nz.etu.voting.service.EventCounterService;
+import nz.etu.voting.service.SignedTicketService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Meeting-morning load simulation for venue check-in. Seeds a BMM event with synthetic members spread over the
+ * venues, then replays a reproducible arrival curve: every venue opens at once, arrivals peak shortly before the
+ * start and each venue's scanners preview and scan the signed tickets of the members queueing at their door, while
+ * one dashboard per venue polls the live stats. A small share of members scan twice and a few codes are forged,
+ * and the counter reconciliation runs every ten seconds underneath.
+ * <p>
+ * Reports p50/p95/p99 per endpoint, error rates, how far scanners fell behind the arrival schedule and how busy the
+ * connection pool was, to {@code target/checkin-load-report.txt}; fails when the scan p99 or the error rate is over
+ * budget or a member is not checked in exactly once. Runs against the configured local database with
+ * {@code mvn test -Pload-test}; tune with {@code -Dload.members}, {@code -Dload.venues},
+ * {@code -Dload.scanners-per-venue}, {@code -Dload.duration-seconds}, {@code -Dload.seed},
+ * {@code -Dload.p99-budget-ms} and {@code -Dload.max-error-rate}.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        // production logging - the dev SQL and request tracing costs more than the requests themselves
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework.web=INFO",
+        "logging.level.org.springframework.security=INFO",
+        "logging.level.nz.etu.voting=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+        // recount the counters while scanners are writing to them
+        "counters.reconcile.initial-delay=5000",
+        "counters.reconcile.interval=10000"})
+class CheckinLoadSimulationTests {
+
+    private static final int MEMBERS = Integer.getInteger("load.members", 10_000);
+    private static final int VENUES = Integer.getInteger("load.venues", 27);
+    private static final int SCANNERS_PER_VENUE = Integer.getInteger("load.scanners-per-venue", 2);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 60);
+    private static final long SEED = Long.getLong("load.seed", 20250601L);
+    private static final long STATS_INTERVAL_MS = Long.getLong("load.stats-interval-ms", 5_000L);
+    private static final long P99_BUDGET_MS = Long.getLong("load.p99-budget-ms", 500L);
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("load.max-error-rate", "0.001"));
+
+    private static final double TURNOUT = 0.85;
+    private static final double RESCAN_RATE = 0.03;
+    private static final double FORGED_RATE = 0.005;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventCounterService eventCounterService;
+
+    @Autowired
+    private CheckinCacheService checkinCacheService;
+
+    @Autowired
+    private SignedTicketService signedTicketService;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private Long eventId;
+
+    private enum Kind { FIRST_SCAN, RESCAN, FORGED }
+
+    private record Arrival(long atMillis, String venue, String membershipNumber, String qrData, Kind kind) {
+    }
+
+    // Latencies in microseconds per endpoint
+    private static final class Recorder {
+        private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+        void record(String endpoint, long micros, boolean error) {
+            latencies.computeIfAbsent(endpoint, e -> new ConcurrentLinkedQueue<>()).add(micros);
+            if (error) {
+                errors.computeIfAbsent(endpoint, e -> new AtomicLong()).incrementAndGet();
+            }
+        }
+    }
+
+    private static final class PoolSampler {
+        private long samples;
+        private long saturated;
+        private long waiting;
+        private int maxActive;
+        private int maxWaiting;
+    }
+
+    @AfterEach
+    void removeEvent() {
+        if (eventId == null) {
+            return;
+        }
+        checkinCacheService.invalidate(eventId);
+        for (String table : List.of("event_counters", "organizer_tokens", "notification_logs", "event_members")) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE event_id = ?", eventId);
+        }
+        jdbcTemplate.update("DELETE FROM events WHERE id = ?", eventId);
+    }
+
+    @Test
+    void meetingMorningCheckin() throws Exception {
+        List<Arrival> arrivals = seed();
+        Map<String, List<List<Arrival>>> queues = assignScanners(arrivals);
+
+        Recorder recorder = new Recorder();
+        PoolSampler pool = new PoolSampler();
+        AtomicLong maxLagMillis = new AtomicLong();
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+
+        ExecutorService scanners = Executors.newFixedThreadPool(VENUES * SCANNERS_PER_VENUE);
+        ScheduledExecutorService background = Executors.newScheduledThreadPool(4);
+        background.scheduleAtFixedRate(() -> sample(hikari, pool), 0, 50, TimeUnit.MILLISECONDS);
+        background.scheduleAtFixedRate(() -> pollStats(recorder), 0, STATS_INTERVAL_MS / VENUES + 1, TimeUnit.MILLISECONDS);
+
+        long start = System.currentTimeMillis() + 1_000;
+        List<Future<?>> scannerRuns = new ArrayList<>();
+        queues.values().forEach(venueQueues -> venueQueues.forEach(queue ->
+                scannerRuns.add(scanners.submit(() -> scan(queue, start, recorder, maxLagMillis)))));
+        for (Future<?> run : scannerRuns) {
+            run.get();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        background.shutdownNow();
+        scanners.shutdown();
+
+        String report = report(arrivals, recorder, pool, hikari.getMaximumPoolSize(), maxLagMillis.get(), elapsed);
+        Path file = Path.of("target", "checkin-load-report.txt");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, report);
+        log.info("Check-in load report written to {}\n{}", file.toAbsolutePath(), report);
+
+        long firstScans = arrivals.stream().filter(a -> a.kind() == Kind.FIRST_SCAN).count();
+        Long checkedIn = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM event_members WHERE event_id = ? AND checked_in", Long.class, eventId);
+        assertThat(checkedIn).as("members checked in").isEqualTo(firstScans);
+        assertThat(eventCounterService.reconcile(eventId)).as("counter drift").isZero();
+
+        long requests = recorder.latencies.values().stream().mapToLong(Collection::size).sum();
+        long errors = recorder.errors.values().stream().mapToLong(AtomicLong::get).sum();
+        assertThat((double) errors / Math.max(1, requests)).as("error rate").isLessThanOrEqualTo(MAX_ERROR_RATE);
+        assertThat(percentile(sorted(recorder, "scan"), 0.99) / 1000).as("scan p99 ms").isLessThanOrEqualTo(P99_BUDGET_MS);
+    }
+
+    // Synthetic BMM event: members round-robin over the venues, all with confirmed attendance and a ticket
+    private List<Arrival> seed() {
+        String code = "LOAD-" + SEED + "-" + System.currentTimeMillis();
+        eventId = jdbcTemplate.queryForObject(
+                "INSERT INTO events (name, event_code, event_type, dataset_id, sync_status, is_active, " +
+                "is_voting_enabled, registration_open, qr_scan_enabled, event_date, created_at) " +
+                "VALUES (?, ?, 'BMM_VOTING', 'load-test', 'SUCCESS', true, false, false, true, now(), now()) RETURNING id",
+                Long.class, "Load simulation " + code, code);
+
+        long start = System.currentTimeMillis();
+        jdbcTemplate.update(
+                "INSERT INTO event_members (event_id, token, ticket_token, membership_number, name, primary_email, " +
+                "region_desc, forum_desc, assigned_venue_final, bmm_registration_stage, attendance_confirmed, " +
+                "checked_in, has_email, has_mobile, has_registered, has_voted, is_attending, is_special_vote, " +
+                "verification_code, created_at, updated_at) " +
+                "SELECT ?, gen_random_uuid(), gen_random_uuid(), ? || lpad(n::text, 7, '0'), 'Load Member ' || n, " +
+                "'load' || n || '@example.invalid', " +
+                "(ARRAY['Northern Region', 'Central Region', 'Southern Region'])[n % 3 + 1], " +
+                "'Load Venue ' || (n % ?), 'Load Venue ' || (n % ?), 'ATTENDANCE_CONFIRMED', true, " +
+                "false, true, false, true, false, true, false, lpad((n % 1000000)::text, 6, '0'), now(), now() " +
+                "FROM generate_series(1, ?) AS n",
+                eventId, code + "-", VENUES, VENUES, MEMBERS);
+        eventCounterService.reconcile(eventId);
+        log.info("Seeded {} members for event {} in {} ms", MEMBERS, eventId, System.currentTimeMillis() - start);
+
+        Event event = eventRepository.findById(eventId).orElseThrow();
+        long expiresAt = signedTicketService.expiresAt(event);
+        Random random = new Random(SEED);
+        long window = DURATION_SECONDS * 1000L;
+        List<Arrival> arrivals = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, ticket_token, membership_number, forum_desc FROM event_members " +
+                "WHERE event_id = ? ORDER BY id", rs -> {
+            if (random.nextDouble() >= TURNOUT) {
+                return;
+            }
+            long id = rs.getLong("id");
+            String venue = rs.getString("forum_desc");
+            String ticket = signedTicketService.encode(eventId, id, rs.getObject("ticket_token", UUID.class), expiresAt);
+            long at = arrivalTime(random, window);
+            arrivals.add(new Arrival(at, venue, rs.getString("membership_number"), ticket, Kind.FIRST_SCAN));
+            if (random.nextDouble() < RESCAN_RATE) {
+                arrivals.add(new Arrival(Math.min(window, at + 1_000 + random.nextInt(10_000)), venue,
+                        rs.getString("membership_number"), ticket, Kind.RESCAN));
+            }
+            if (random.nextDouble() < FORGED_RATE) {
+                String forged = signedTicketService.encode(eventId, id, UUID.randomUUID(), expiresAt);
+                arrivals.add(new Arrival(arrivalTime(random, window), venue, null,
+                        forged.substring(0, forged.length() - 4) + "AAAA", Kind.FORGED));
+            }
+        }, eventId);
+        arrivals.sort(Comparator.comparingLong(Arrival::atMillis));
+        return arrivals;
+    }
+
+    // Most members arrive in the half hour before the start (compressed into the window), a steady trickle otherwise
+    private static long arrivalTime(Random random, long window) {
+        double t = random.nextDouble() < 0.8 ? 0.6 + random.nextGaussian() * 0.15 : random.nextDouble();
+        return (long) (Math.max(0, Math.min(1, t)) * window);
+    }
+
+    // Each venue's arrivals are shared between its scanners in arrival order
+    private static Map<String, List<List<Arrival>>> assignScanners(List<Arrival> arrivals) {
+        Map<String, List<List<Arrival>>> queues = new TreeMap<>();
+        Map<String, Integer> next = new HashMap<>();
+        for (Arrival arrival : arrivals) {
+            List<List<Arrival>> venueQueues = queues.computeIfAbsent(arrival.venue(), v -> {
+                List<List<Arrival>> list = new ArrayList<>();
+                for (int i = 0; i < SCANNERS_PER_VENUE; i++) {
+                    list.add(new ArrayList<>());
+                }
+                return list;
+            });
+            int scanner = next.merge(arrival.venue(), 1, Integer::sum) % SCANNERS_PER_VENUE;
+            venueQueues.get(scanner).add(arrival);
+        }
+        return queues;
+    }
+
+    private void scan(List<Arrival> queue, long start, Recorder recorder, AtomicLong maxLagMillis) {
+        for (Arrival arrival : queue) {
+            long wait = start + arrival.atMillis() - System.currentTimeMillis();
+            if (wait > 0) {
+                sleep(wait);
+            } else {
+                maxLagMillis.accumulateAndGet(-wait, Math::max);
+            }
+
+            String query = "?adminToken=load-test&venue=" + URLEncoder.encode(arrival.venue(), StandardCharsets.UTF_8);
+            if (arrival.kind() != Kind.FORGED) {
+                int status = post("preview", "/api/venue/checkin/preview-member/" + eventId + query,
+                        "{\"membershipNumber\":\"" + arrival.membershipNumber() + "\"}", recorder, 200);
+                if (status < 0) {
+                    continue;
+                }
+            }
+            post("scan", "/api/venue/checkin/scan/" + eventId + query,
+                    "{\"qrData\":\"" + arrival.qrData() + "\",\"adminName\":\"Load Scanner\"}",
+                    recorder, arrival.kind() == Kind.FORGED ? 400 : 200);
+        }
+    }
+
+    private void pollStats(Recorder recorder) {
+        long started = System.nanoTime();
+        boolean error;
+        try {
+            HttpResponse<Void> response = http.send(HttpRequest.newBuilder(uri("/api/venue/checkin/bmm-stats/" + eventId))
+                    .timeout(Duration.ofSeconds(30)).GET().build(), HttpResponse.BodyHandlers.discarding());
+            error = response.statusCode() != 200;
+        } catch (IOException e) {
+            error = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        recorder.record("bmm-stats", (System.nanoTime() - started) / 1000, error);
+    }
+
+    // Status code, or -1 when the request failed outright
+    private int post(String endpoint, String path, String body, Recorder recorder, int expectedStatus) {
+        long started = System.nanoTime();
+        int status;
+        try {
+            status = http.send(HttpRequest.newBuilder(uri(path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+        recorder.record(endpoint, (System.nanoTime() - started) / 1000, status != expectedStatus);
+        return status;
+    }
+
+    private static void sample(HikariDataSource hikari, PoolSampler pool) {
+        HikariPoolMXBean bean = hikari.getHikariPoolMXBean();
+        if (bean == null) {
+            return;
+        }
+        int active = bean.getActiveConnections();
+        int waiting = bean.getThreadsAwaitingConnection();
+        synchronized (pool) {
+            pool.samples++;
+            if (active >= hikari.getMaximumPoolSize()) pool.saturated++;
+            if (waiting > 0) pool.waiting++;
+            pool.maxActive = Math.max(pool.maxActive, active);
+            pool.maxWaiting = Math.max(pool.maxWaiting, waiting);
+        }
+    }
+
+    private String report(List<Arrival> arrivals, Recorder recorder, PoolSampler pool, int poolSize, long maxLag,
+                          long elapsed) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Check-in load simulation: %d members, %d venues x %d scanners, %d s window, seed %d%n",
+                MEMBERS, VENUES, SCANNERS_PER_VENUE, DURATION_SECONDS, SEED));
+        Map<Kind, Long> kinds = new EnumMap<>(Kind.class);
+        arrivals.forEach(a -> kinds.merge(a.kind(), 1L, Long::sum));
+        out.append(String.format("Arrivals: %s, finished in %.1f s, scanners at most %d ms behind schedule%n%n",
+                kinds, elapsed / 1000.0, maxLag));
+
+        out.append(String.format("%-10s %8s %8s %9s %9s %9s %9s %8s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors"));
+        for (String endpoint : new TreeSet<>(recorder.latencies.keySet())) {
+            long[] sorted = sorted(recorder, endpoint);
+            long errors = recorder.errors.getOrDefault(endpoint, new AtomicLong()).get();
+            out.append(String.format("%-10s %8d %8.1f %9.1f %9.1f %9.1f %9.1f %7.2f%%%n",
+                    endpoint, sorted.length, sorted.length * 1000.0 / Math.max(1, elapsed),
+                    percentile(sorted, 0.50) / 1000.0, percentile(sorted, 0.95) / 1000.0,
+                    percentile(sorted, 0.99) / 1000.0, sorted.length > 0 ? sorted[sorted.length - 1] / 1000.0 : 0,
+                    100.0 * errors / Math.max(1, sorted.length)));
+        }
+
+        synchronized (pool) {
+            out.append(String.format("%nConnection pool (max %d): peak active %d, peak waiting threads %d, " +
+                            "saturated %.1f%% and queueing %.1f%% of %d samples%n",
+                    poolSize, pool.maxActive, pool.maxWaiting, 100.0 * pool.saturated / Math.max(1, pool.samples),
+                    100.0 * pool.waiting / Math.max(1, pool.samples), pool.samples));
+        }
+        return out.toString();
+    }
+
+    private static long[] sorted(Recorder recorder, String endpoint) {
+        long[] values = recorder.latencies.getOrDefault(endpoint, new ConcurrentLinkedQueue<>()).stream()
+                .mapToLong(Long::longValue).toArray();
+        Arrays.sort(values);
+        return values;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}